@@ -1,7 +1,14 @@
 package com.adminpanel.zmauto;
 
+import com.adminpanel.zmauto.api.ApiServer;
 import com.adminpanel.zmauto.controller.DashboardController;
 import com.adminpanel.zmauto.model.User;
+import com.adminpanel.zmauto.service.KpiService;
+import com.adminpanel.zmauto.service.MaintenanceScheduler;
+import com.adminpanel.zmauto.service.ReservationAuditService;
+import com.adminpanel.zmauto.service.ReservationFactService;
+import com.adminpanel.zmauto.service.SearchService;
+import com.adminpanel.zmauto.util.BackgroundTasks;
 import com.adminpanel.zmauto.util.DatabaseInitializer;
 import com.adminpanel.zmauto.util.DatabaseUtil;
 import javafx.application.Application;
@@ -10,12 +17,30 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public class AdminPanelApplication extends Application {
     @Override
     public void start(Stage stage) throws IOException {
-        // Initialize the database
-        DatabaseInitializer.initialize();
+        // Initialize the database in the background; views show their saved snapshots meanwhile
+        BackgroundTasks.setStartup(CompletableFuture.runAsync(DatabaseInitializer::initialize));
+
+        // Write status changes left over from the last session once the database is ready
+        BackgroundTasks.execute(ReservationAuditService::start);
+
+        // Watch service and insurance due dates
+        MaintenanceScheduler.start();
+
+        // Periodically rebuild the dashboard summary tables from the source tables
+        KpiService.start();
+
+        // Serve the booking API alongside the panel when enabled
+        if (Boolean.parseBoolean(DatabaseUtil.getProperty("api.enabled", "false"))) {
+            ApiServer.start(DatabaseUtil.getIntProperty("api.port", 8085));
+        }
+
+        // Load or build the global search index in the background
+        new SearchService().initialize();
 
         // Load the dashboard view directly (no login required)
         FXMLLoader fxmlLoader = new FXMLLoader(AdminPanelApplication.class.getResource("dashboard-view.fxml"));
@@ -39,6 +64,19 @@ public class AdminPanelApplication extends Application {
 
     @Override
     public void stop() {
+        // Let running loads finish and persist the search index before the connection pool goes away
+        ApiServer.stop();
+        MaintenanceScheduler.shutdown();
+        KpiService.shutdown();
+        BackgroundTasks.shutdown();
+        SearchService.shutdown();
+
+        // Write any queued reservation status changes (or journal them if the database is gone)
+        ReservationAuditService.shutdown();
+
+        // Release the off-heap reservation columns
+        ReservationFactService.shutdown();
+
         // Close the database connection pool when the application exits
         DatabaseUtil.closePool();
     }
@@ -0,0 +1,390 @@
+package com.adminpanel.zmauto;
+
+import com.adminpanel.zmauto.model.ConsistencyReport;
+import com.adminpanel.zmauto.model.ConsistencyViolation;
+import com.adminpanel.zmauto.model.Payment;
+import com.adminpanel.zmauto.model.ReconciliationIssue;
+import com.adminpanel.zmauto.model.ReconciliationReport;
+import com.adminpanel.zmauto.model.RevenueReport;
+import com.adminpanel.zmauto.service.ArchiveService;
+import com.adminpanel.zmauto.service.BackupService;
+import com.adminpanel.zmauto.service.ConsistencyChecker;
+import com.adminpanel.zmauto.service.KpiService;
+import com.adminpanel.zmauto.service.PaymentService;
+import com.adminpanel.zmauto.service.PictureService;
+import com.adminpanel.zmauto.service.ReconciliationService;
+import com.adminpanel.zmauto.util.DatabaseInitializer;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.DbScheduler;
+import com.adminpanel.zmauto.util.DbScheduler.Lane;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * Command-line entry point for nightly jobs, for running from cron on a headless machine.
+ * Only the connection pool and the services a job needs are started: no JavaFX toolkit,
+ * search index, schedulers or schema script, so a job starts as fast as the pool can connect.
+ *
+ * Usage: BatchApplication &lt;job&gt; [arguments]. Exit codes are 0 on success, 1 if the job failed,
+ * 2 for a usage error and 3 if the job finished but found problems (reconciliation issues,
+ * consistency violations or rejected import lines).
+ */
+public class BatchApplication {
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_ISSUES = 3;
+
+    private static final int IMPORT_CHUNK_SIZE = 5000;
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: BatchApplication <job> [arguments]",
+            "Jobs:",
+            "  init-schema                                  Run the schema script",
+            "  archive                                      Move finished reservations to the archive",
+            "  kpi-repair                                   Rebuild the dashboard summary tables",
+            "  revenue-report <start> <end> [file]          Export the revenue report as CSV (default: stdout)",
+            "  reconcile <start> <end> <statement>...       Reconcile payments against bank statement files",
+            "  import-payments <file>                       Import payments from a CSV file",
+            "  migrate-pictures                             Move local pictures into the shared blob store",
+            "  blob-gc                                      Delete pictures no record refers to",
+            "  check-consistency                            Report orphaned and contradicting reservations and drivers",
+            "  backup <dir> [previous-backup]               Back up the data tables, incrementally if a previous backup is given",
+            "  restore <dir>...                             Restore a full backup followed by its incremental backups",
+            "  migrate <target.properties>                  Copy all data into the database given by db.url, db.username",
+            "                                               and db.password, e.g. from the embedded database to MySQL",
+            "Dates are yyyy-MM-dd.");
+
+    private static long startNanos;
+    private static PrintStream out = System.out;
+
+    public static void main(String[] args) {
+        startNanos = System.nanoTime();
+
+        // Jobs are bulk work; an admin using the panel at the same time keeps priority
+        DbScheduler.setLane(Lane.BULK);
+
+        // Job results go to stdout so they can be piped; everything the services log goes to stderr
+        out = System.out;
+        System.setOut(System.err);
+
+        int exitCode;
+        try {
+            exitCode = run(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            exitCode = EXIT_USAGE;
+        } catch (SQLException | IOException | RuntimeException e) {
+            System.err.println("Job failed: " + e.getMessage());
+            e.printStackTrace();
+            exitCode = EXIT_FAILED;
+        } finally {
+            DatabaseUtil.closePool();
+        }
+
+        progress("Finished with exit code " + exitCode);
+        System.exit(exitCode);
+    }
+
+    /**
+     * Run a job.
+     *
+     * @param args The job name followed by its arguments
+     * @return The exit code
+     * @throws SQLException If a database error occurs
+     * @throws IOException If a file cannot be read or written
+     * @throws IllegalArgumentException If the job or its arguments are invalid
+     */
+    static int run(String[] args) throws SQLException, IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("No job given");
+        }
+
+        String job = args[0];
+        progress("Starting " + job);
+
+        switch (job) {
+            case "init-schema" -> {
+                requireArguments(args, 1, 1);
+                DatabaseInitializer.initialize();
+                return EXIT_OK;
+            }
+            case "archive" -> {
+                requireArguments(args, 1, 1);
+                int archived = new ArchiveService().archiveReservations();
+                progress("Archived " + archived + " reservations");
+                return EXIT_OK;
+            }
+            case "kpi-repair" -> {
+                requireArguments(args, 1, 1);
+                int repaired = new KpiService().repair();
+                progress("Repaired " + repaired + " summary rows");
+                return EXIT_OK;
+            }
+            case "revenue-report" -> {
+                requireArguments(args, 3, 4);
+                return revenueReport(parseDate(args[1]), parseDate(args[2]), args.length > 3 ? Path.of(args[3]) : null);
+            }
+            case "reconcile" -> {
+                requireArguments(args, 4, Integer.MAX_VALUE);
+                List<Path> files = new ArrayList<>();
+                for (int i = 3; i < args.length; i++) {
+                    files.add(Path.of(args[i]));
+                }
+                return reconcile(parseDate(args[1]), parseDate(args[2]), files);
+            }
+            case "import-payments" -> {
+                requireArguments(args, 2, 2);
+                return importPayments(Path.of(args[1]));
+            }
+            case "migrate-pictures" -> {
+                requireArguments(args, 1, 1);
+                int migrated = new PictureService().migrateLegacyPictures();
+                progress("Moved " + migrated + " pictures into the shared blob store");
+                return EXIT_OK;
+            }
+            case "blob-gc" -> {
+                requireArguments(args, 1, 1);
+                int deleted = new PictureService().collectGarbage();
+                progress("Deleted " + deleted + " unreferenced blobs");
+                return EXIT_OK;
+            }
+            case "check-consistency" -> {
+                requireArguments(args, 1, 1);
+                return checkConsistency();
+            }
+            case "backup" -> {
+                requireArguments(args, 2, 3);
+                Map<String, Long> rows = new BackupService().backup(Path.of(args[1]), args.length > 2 ? Path.of(args[2]) : null);
+                progress("Backed up " + rows);
+                return EXIT_OK;
+            }
+            case "restore" -> {
+                requireArguments(args, 2, Integer.MAX_VALUE);
+                BackupService backupService = new BackupService();
+                for (int i = 1; i < args.length; i++) {
+                    progress("Restored " + backupService.restore(Path.of(args[i])) + " from " + args[i]);
+                }
+                // The dashboard summaries are derived from the restored tables
+                int repaired = new KpiService().repair();
+                progress("Repaired " + repaired + " summary rows");
+                return EXIT_OK;
+            }
+            case "migrate" -> {
+                requireArguments(args, 2, 2);
+                return migrate(Path.of(args[1]));
+            }
+            default -> throw new IllegalArgumentException("Unknown job: " + job);
+        }
+    }
+
+    private static int revenueReport(LocalDate startDate, LocalDate endDate, Path file) throws SQLException, IOException {
+        PaymentService paymentService = new PaymentService();
+        RevenueReport report = paymentService.getRevenueReport(startDate, endDate);
+        progress(String.format("Computed revenue of %d payments", report.getTotal().getPaymentCount()));
+
+        if (file == null) {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            paymentService.exportRevenueReport(report, writer);
+        } else {
+            try (Writer writer = Files.newBufferedWriter(file)) {
+                paymentService.exportRevenueReport(report, writer);
+            }
+            progress("Wrote " + file);
+        }
+        return EXIT_OK;
+    }
+
+    private static int reconcile(LocalDate startDate, LocalDate endDate, List<Path> files) throws SQLException, IOException {
+        ReconciliationReport report = new ReconciliationService().reconcile(startDate, endDate, files);
+        progress(report.toString());
+
+        for (ReconciliationIssue issue : report.getIssues()) {
+            out.println(issue);
+        }
+        return report.getIssues().isEmpty() ? EXIT_OK : EXIT_ISSUES;
+    }
+
+    private static int checkConsistency() throws SQLException {
+        ConsistencyReport report = new ConsistencyChecker().check();
+        progress(report.toString());
+
+        for (ConsistencyViolation violation : report.getViolations()) {
+            out.println(violation);
+        }
+        return report.getViolations().isEmpty() ? EXIT_OK : EXIT_ISSUES;
+    }
+
+    /**
+     * Copy all data tables into another database, typically from the embedded database of a branch to
+     * the MySQL server it moves to. The schema is created on the target first, without the sample
+     * data, and the data is copied through a full backup. The target must be a new database, so a live
+     * one is never overwritten; the dashboard summaries are rebuilt when the panel first starts on the target.
+     */
+    private static int migrate(Path targetProperties) throws SQLException, IOException {
+        Properties target = new Properties();
+        try (Reader reader = Files.newBufferedReader(targetProperties)) {
+            target.load(reader);
+        }
+        String url = target.getProperty("db.url");
+        if (url == null) {
+            throw new IllegalArgumentException("No db.url in " + targetProperties);
+        }
+
+        Properties connectionProperties = DatabaseUtil.getDriverProfile(url);
+        connectionProperties.setProperty("user", target.getProperty("db.username", ""));
+        connectionProperties.setProperty("password", target.getProperty("db.password", ""));
+
+        // Held open during the copy, so an embedded target is not closed and reopened for every table
+        try (Connection conn = DriverManager.getConnection(url, connectionProperties)) {
+            if (holdsReservations(conn)) {
+                throw new IllegalStateException("Target database " + url + " already holds reservations");
+            }
+            DatabaseInitializer.createSchema(conn);
+            progress("Created the schema on " + url);
+
+            Path directory = Files.createTempDirectory("zmauto-migrate");
+            try {
+                progress("Exported " + new BackupService().backup(directory, null));
+                BackupService targetService = new BackupService(() -> DriverManager.getConnection(url, connectionProperties));
+                progress("Copied " + targetService.restore(directory) + " to " + url);
+            } finally {
+                try (Stream<Path> files = Files.list(directory)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                Files.deleteIfExists(directory);
+            }
+        }
+        return EXIT_OK;
+    }
+
+    private static boolean holdsReservations(Connection conn) throws SQLException {
+        try (ResultSet tables = conn.getMetaData().getTables(conn.getCatalog(), null, "reservations", new String[]{"TABLE"})) {
+            if (!tables.next()) {
+                return false;
+            }
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM reservations")) {
+            rs.next();
+            return rs.getLong(1) > 0;
+        }
+    }
+
+    /**
+     * Import payments from a CSV file with the header
+     * reservation_id,amount,payment_method,status,transaction_id,payment_date.
+     * Lines are inserted in chunks of one transaction each; malformed lines are reported and skipped.
+     */
+    private static int importPayments(Path file) throws SQLException, IOException {
+        PaymentService paymentService = new PaymentService();
+        List<Payment> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        long imported = 0;
+        long rejected = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line = reader.readLine(); // header
+            int lineNumber = 1;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    chunk.add(parsePayment(line));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    System.err.println(file + ":" + lineNumber + ": " + e.getMessage());
+                    rejected++;
+                    continue;
+                }
+
+                if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                    imported += paymentService.createPayments(chunk).size();
+                    chunk.clear();
+                    progress("Imported " + imported + " payments");
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            imported += paymentService.createPayments(chunk).size();
+        }
+        progress("Imported " + imported + " payments, rejected " + rejected + " lines");
+        return rejected == 0 ? EXIT_OK : EXIT_ISSUES;
+    }
+
+    private static Payment parsePayment(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Expected 6 fields, found " + fields.length);
+        }
+
+        Payment payment = new Payment(Long.parseLong(fields[0].trim()), Double.parseDouble(fields[1].trim()),
+                required(fields[2], "payment_method"), required(fields[3], "status"), optional(fields[4]));
+        String paymentDate = optional(fields[5]);
+        payment.setPaymentDate(paymentDate == null ? LocalDateTime.now() : LocalDateTime.parse(paymentDate));
+        return payment;
+    }
+
+    /**
+     * A blank CSV field is stored as NULL, not as an empty string.
+     */
+    private static String optional(String field) {
+        return field.isBlank() ? null : field.trim();
+    }
+
+    private static String required(String field, String name) {
+        if (field.isBlank()) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return field.trim();
+    }
+
+    private static void requireArguments(String[] args, int min, int max) {
+        if (args.length < min || args.length > max) {
+            throw new IllegalArgumentException("Wrong number of arguments for " + args[0]);
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+
+    /**
+     * Print a progress line with the time since startup.
+     */
+    private static void progress(String message) {
+        System.err.printf("[%6d ms] %s%n", (System.nanoTime() - startNanos) / 1_000_000, message);
+    }
+}
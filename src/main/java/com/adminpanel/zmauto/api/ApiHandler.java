@@ -0,0 +1,615 @@
+package com.adminpanel.zmauto.api;
+
+import com.adminpanel.zmauto.model.Driver;
+import com.adminpanel.zmauto.model.PoolHealth;
+import com.adminpanel.zmauto.model.Reservation;
+import com.adminpanel.zmauto.model.User;
+import com.adminpanel.zmauto.model.Vehicle;
+import com.adminpanel.zmauto.service.DriverService;
+import com.adminpanel.zmauto.service.PictureService;
+import com.adminpanel.zmauto.service.ReservationConflictException;
+import com.adminpanel.zmauto.service.ReservationService;
+import com.adminpanel.zmauto.service.VehicleService;
+import com.adminpanel.zmauto.util.BlobStore;
+import com.adminpanel.zmauto.util.ConnectionPoolManager;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.JsonParser;
+import com.adminpanel.zmauto.util.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes API requests to the services and writes the results as JSON.
+ *
+ * Lists are written to the response as they are serialized instead of being built up first.
+ * Cacheable resources carry a weak ETag computed from a cheap validator query (row count and
+ * latest created/updated timestamps), so a conditional GET that still matches is answered with
+ * 304 before the resource itself is loaded.
+ * Pictures are immutable blobs addressed by their hash, served with a strong ETag and a long cache
+ * lifetime, and copied from the file to the connection without passing through the heap.
+ *
+ * The vehicle, driver and picture catalog is public. Reservations require HTTP Basic credentials
+ * of a user account; users see and book only their own reservations, administrators see all.
+ */
+class ApiHandler implements HttpHandler {
+
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final VehicleService vehicleService = new VehicleService();
+    private final DriverService driverService = new DriverService();
+    private final ReservationService reservationService = new ReservationService();
+    private final PictureService pictureService = new PictureService();
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (NotFoundException e) {
+            sendError(exchange, 404, e.getMessage());
+        } catch (UnauthorizedException e) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"ZM Auto\", charset=\"UTF-8\"");
+            sendError(exchange, 401, e.getMessage());
+        } catch (ForbiddenException e) {
+            sendError(exchange, 403, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (SQLException e) {
+            // Schedule conflicts from the service layer are reported to the client, anything else is ours
+            if (e instanceof ReservationConflictException) {
+                sendError(exchange, 409, e.getMessage());
+            } else if (e instanceof SQLTransientConnectionException) {
+                sendError(exchange, 503, "Database unavailable");
+            } else {
+                System.err.println("API request " + exchange.getRequestURI() + " failed: " + e.getMessage());
+                sendError(exchange, 500, "Internal server error");
+            }
+        } catch (IOException e) {
+            // The client went away mid-response; nothing left to send
+            System.err.println("API response " + exchange.getRequestURI() + " aborted: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException, SQLException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        if (method.equals("POST") && path.length == 1 && path[0].equals("reservations")) {
+            createReservation(exchange, authenticate(exchange));
+            return;
+        }
+        if (!method.equals("GET")) {
+            exchange.getResponseHeaders().set("Allow", "GET, POST");
+            sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        switch (path[0]) {
+            case "health" -> sendHealth(exchange);
+            case "vehicles" -> {
+                if (path.length == 1) {
+                    listVehicles(exchange, "true".equals(query.get("available")));
+                } else {
+                    getVehicle(exchange, parseId(path[1]));
+                }
+            }
+            case "drivers" -> {
+                if (path.length == 1) {
+                    listDrivers(exchange, "true".equals(query.get("available")));
+                } else {
+                    getDriver(exchange, parseId(path[1]));
+                }
+            }
+            case "reservations" -> {
+                if (path.length != 2) {
+                    throw new NotFoundException("No such resource");
+                }
+                getReservation(exchange, authenticate(exchange), parseId(path[1]));
+            }
+            case "users" -> {
+                if (path.length != 3 || !path[2].equals("reservations")) {
+                    throw new NotFoundException("No such resource");
+                }
+                listUserReservations(exchange, authenticate(exchange), parseId(path[1]));
+            }
+            case "pictures" -> {
+                if (path.length != 2 || !BlobStore.isBlobId(path[1])) {
+                    throw new NotFoundException("No such resource");
+                }
+                sendPicture(exchange, path[1]);
+            }
+            default -> throw new NotFoundException("No such resource");
+        }
+    }
+
+    private void sendHealth(HttpExchange exchange) throws IOException {
+        PoolHealth pool = ConnectionPoolManager.getHealth();
+        JsonWriter json = beginResponse(exchange, pool.isAvailable() ? 200 : 503, null);
+        json.beginObject()
+                .name("status").value(pool.isAvailable() ? "UP" : "DEGRADED")
+                .name("database").beginObject()
+                .name("reason").value(pool.getDegradedReason())
+                .name("activeConnections").value(pool.getActiveConnections())
+                .name("idleConnections").value(pool.getIdleConnections())
+                .name("pendingThreads").value(pool.getPendingThreads())
+                .name("maximumPoolSize").value(pool.getMaximumPoolSize())
+                .name("averageWaitMillis").value(pool.getAverageWaitMillis())
+                .endObject()
+                .endObject();
+        json.flush();
+    }
+
+    private void sendPicture(HttpExchange exchange, String id) throws IOException, SQLException {
+        // The content never changes for an ID, so the ID itself is a strong validator
+        String etag = "\"" + id + "\"";
+        if (notModified(exchange, etag)) {
+            return;
+        }
+        if (pictureService.fetchPictureFile(id) == null) {
+            throw new NotFoundException("Picture " + id + " not found");
+        }
+        BlobStore blobStore = pictureService.getBlobStore();
+
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", "public, max-age=31536000, immutable");
+        exchange.sendResponseHeaders(200, blobStore.size(id));
+        WritableByteChannel body = Channels.newChannel(exchange.getResponseBody());
+        blobStore.transferTo(id, body);
+    }
+
+    private void listVehicles(HttpExchange exchange, boolean availableOnly) throws IOException, SQLException {
+        String where = availableOnly ? " WHERE rental_status = 'AVAILABLE'" : "";
+        String etag = validate("SELECT COUNT(*), MAX(updated_at), MAX(created_at) FROM car" + where);
+        if (notModified(exchange, etag)) {
+            return;
+        }
+
+        List<Vehicle> vehicles = availableOnly ? vehicleService.getAvailableVehicles() : vehicleService.getAllVehicles();
+        JsonWriter json = beginResponse(exchange, 200, etag);
+        json.beginArray();
+        for (Vehicle vehicle : vehicles) {
+            writeVehicle(json, vehicle);
+        }
+        json.endArray();
+        json.flush();
+    }
+
+    private void getVehicle(HttpExchange exchange, Long id) throws IOException, SQLException {
+        String etag = validate("SELECT COUNT(*), MAX(updated_at), MAX(created_at) FROM car WHERE car_id = ?", id);
+        if (notModified(exchange, etag)) {
+            return;
+        }
+
+        Vehicle vehicle = vehicleService.getVehicleById(id);
+        if (vehicle == null) {
+            throw new NotFoundException("Vehicle " + id + " not found");
+        }
+        JsonWriter json = beginResponse(exchange, 200, etag);
+        writeVehicle(json, vehicle);
+        json.flush();
+    }
+
+    private void listDrivers(HttpExchange exchange, boolean availableOnly) throws IOException, SQLException {
+        String where = availableOnly ? " WHERE availability = TRUE" : "";
+        String etag = validate("SELECT COUNT(*), MAX(updated_at), MAX(created_at) FROM driver" + where);
+        if (notModified(exchange, etag)) {
+            return;
+        }
+
+        List<Driver> drivers = availableOnly ? driverService.getAvailableDrivers() : driverService.getAllDrivers();
+        JsonWriter json = beginResponse(exchange, 200, etag);
+        json.beginArray();
+        for (Driver driver : drivers) {
+            writeDriver(json, driver);
+        }
+        json.endArray();
+        json.flush();
+    }
+
+    private void getDriver(HttpExchange exchange, Long id) throws IOException, SQLException {
+        String etag = validate("SELECT COUNT(*), MAX(updated_at), MAX(created_at) FROM driver WHERE driver_id = ?", id);
+        if (notModified(exchange, etag)) {
+            return;
+        }
+
+        Driver driver = driverService.getDriverById(id);
+        if (driver == null) {
+            throw new NotFoundException("Driver " + id + " not found");
+        }
+        JsonWriter json = beginResponse(exchange, 200, etag);
+        writeDriver(json, driver);
+        json.flush();
+    }
+
+    private void getReservation(HttpExchange exchange, Caller caller, Long id) throws IOException, SQLException {
+        // Scoped to the caller, so the ETag reveals nothing about other users' reservations
+        String etag = caller.admin()
+                ? validate("SELECT COUNT(*), MAX(updated_at), MAX(created_at) FROM reservations WHERE id = ?", id)
+                : validate("SELECT COUNT(*), MAX(updated_at), MAX(created_at) FROM reservations WHERE id = ? AND user_id = ?",
+                        id, caller.userId());
+        if (notModified(exchange, etag)) {
+            return;
+        }
+
+        Reservation reservation = reservationService.getReservationById(id);
+        if (reservation == null || !caller.mayAccess(reservation.getUserId())) {
+            throw new NotFoundException("Reservation " + id + " not found");
+        }
+        JsonWriter json = beginResponse(exchange, 200, etag);
+        writeReservation(json, reservation);
+        json.flush();
+    }
+
+    private void listUserReservations(HttpExchange exchange, Caller caller, Long userId) throws IOException, SQLException {
+        if (!caller.mayAccess(userId)) {
+            throw new ForbiddenException("Reservations of user " + userId + " are not accessible");
+        }
+
+        String etag = validate("SELECT COUNT(*), MAX(updated_at), MAX(created_at) FROM reservations WHERE user_id = ?", userId);
+        if (notModified(exchange, etag)) {
+            return;
+        }
+
+        // Archived reservations never change; archiving one changes the count above
+        List<Reservation> reservations = reservationService.getReservationsByUser(userId, true);
+        JsonWriter json = beginResponse(exchange, 200, etag);
+        json.beginArray();
+        for (Reservation reservation : reservations) {
+            writeReservation(json, reservation);
+        }
+        json.endArray();
+        json.flush();
+    }
+
+    /**
+     * Book a vehicle for the caller. The cost is computed here the same way the reservations view
+     * does it, and the reservation starts out pending approval.
+     */
+    private void createReservation(HttpExchange exchange, Caller caller) throws IOException, SQLException {
+        Map<String, Object> body = JsonParser.parseObject(readBody(exchange));
+
+        // The user comes from the credentials; a userId in the body may only repeat it
+        if (body.get("userId") != null && !requireLong(body, "userId").equals(caller.userId())) {
+            throw new ForbiddenException("Reservations can only be made for the authenticated user");
+        }
+        Long userId = caller.userId();
+        Long vehicleId = requireLong(body, "vehicleId");
+        Long driverId = body.get("driverId") != null ? requireLong(body, "driverId") : null;
+        LocalDate startDate = requireDate(body, "startDate");
+        LocalDate endDate = requireDate(body, "endDate");
+        Object notes = body.get("notes");
+
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+        if (startDate.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("startDate must not be in the past");
+        }
+
+        // Unknown references are the client's mistake, not a missing resource or a database failure
+        Vehicle vehicle = vehicleService.getVehicleById(vehicleId);
+        if (vehicle == null) {
+            throw new IllegalArgumentException("Vehicle " + vehicleId + " does not exist");
+        }
+        Driver driver = null;
+        if (driverId != null) {
+            driver = driverService.getDriverById(driverId);
+            if (driver == null) {
+                throw new IllegalArgumentException("Driver " + driverId + " does not exist");
+            }
+        }
+
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        double totalCost = (vehicle.getDailyRate() != null ? vehicle.getDailyRate() : 0) * days;
+        if (driver != null && driver.getDailyWage() != null) {
+            totalCost += driver.getDailyWage() * days;
+        }
+
+        User user = new User();
+        user.setId(userId);
+
+        Reservation reservation = new Reservation();
+        reservation.setUser(user);
+        reservation.setVehicle(vehicle);
+        reservation.setDriverNeeded(driver != null);
+        reservation.setDriver(driver);
+        reservation.setStartDate(startDate);
+        reservation.setEndDate(endDate);
+        reservation.setStatus("PENDING");
+        reservation.setNotes(notes != null ? notes.toString() : null);
+        reservation.setTotalCost(totalCost);
+        reservation.setCreatedAt(LocalDateTime.now());
+
+        reservationService.createReservation(reservation);
+
+        exchange.getResponseHeaders().set("Location", "/api/reservations/" + reservation.getId());
+        JsonWriter json = beginResponse(exchange, 201, null);
+        writeReservation(json, reservation);
+        json.flush();
+    }
+
+    /**
+     * Identify the caller from HTTP Basic credentials checked against the users table.
+     *
+     * @return The authenticated caller
+     * @throws UnauthorizedException If the credentials are missing or wrong
+     * @throws SQLException If a database error occurs
+     */
+    private Caller authenticate(HttpExchange exchange) throws SQLException {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            throw new UnauthorizedException("Authentication required");
+        }
+
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new UnauthorizedException("Malformed credentials");
+        }
+        int colon = credentials.indexOf(':');
+        if (colon < 0) {
+            throw new UnauthorizedException("Malformed credentials");
+        }
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT user_id, password, role FROM users WHERE username = ?")) {
+            stmt.setString(1, credentials.substring(0, colon));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    User user = new User();
+                    user.setHashedPassword(rs.getString("password"));
+                    if (user.verifyPassword(credentials.substring(colon + 1))) {
+                        return new Caller(rs.getLong("user_id"), "ADMIN".equals(rs.getString("role")));
+                    }
+                }
+            }
+        }
+        throw new UnauthorizedException("Invalid username or password");
+    }
+
+    /**
+     * Compute a weak ETag from a validator query returning a row count and the latest
+     * updated and created timestamps.
+     *
+     * @param sql The validator query
+     * @param params The ID parameters of the query, if any
+     * @return The ETag
+     * @throws SQLException If a database error occurs
+     */
+    private String validate(String sql, Long... params) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < params.length; i++) {
+                stmt.setLong(i + 1, params[i]);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                long count = rs.getLong(1);
+                Timestamp updatedAt = rs.getTimestamp(2);
+                Timestamp createdAt = rs.getTimestamp(3);
+                return "W/\"" + Long.toHexString(count) + "-"
+                        + Long.toHexString(updatedAt != null ? updatedAt.getTime() : 0) + "-"
+                        + Long.toHexString(createdAt != null ? createdAt.getTime() : 0) + "\"";
+            }
+        }
+    }
+
+    private boolean notModified(HttpExchange exchange, String etag) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || ("W/" + tag).equals(etag)) {
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.sendResponseHeaders(304, -1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Send the response headers and return a writer for a body of unknown length, sent chunked.
+     */
+    private JsonWriter beginResponse(HttpExchange exchange, int status, String etag) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        }
+        exchange.sendResponseHeaders(status, 0);
+        return new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)));
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        try {
+            JsonWriter json = beginResponse(exchange, status, null);
+            json.beginObject().name("error").value(message).endObject();
+            json.flush();
+        } catch (IOException e) {
+            // Headers were already sent; the connection is closed by the caller
+        }
+    }
+
+    private void writeVehicle(JsonWriter json, Vehicle vehicle) throws IOException {
+        json.beginObject()
+                .name("id").value(vehicle.getId())
+                .name("make").value(vehicle.getMake())
+                .name("model").value(vehicle.getModel())
+                .name("year").value(vehicle.getYear())
+                .name("type").value(vehicle.getType())
+                .name("color").value(vehicle.getColor())
+                .name("transmission").value(vehicle.getTransmission())
+                .name("fuel").value(vehicle.getFuel())
+                .name("seatingCapacity").value(vehicle.getSeatingCapacity())
+                .name("dailyRate").value(vehicle.getDailyRate())
+                .name("hourlyRate").value(vehicle.getHourlyRate())
+                .name("status").value(vehicle.getStatus())
+                .name("description").value(vehicle.getDescription())
+                .name("picture").value(vehicle.getPicture())
+                .name("rating").value(vehicle.getRating())
+                .endObject();
+    }
+
+    /**
+     * Write a driver. Contact details and birthday are left out of the public API.
+     */
+    private void writeDriver(JsonWriter json, Driver driver) throws IOException {
+        json.beginObject()
+                .name("id").value(driver.getDriverId())
+                .name("firstName").value(driver.getFirstName())
+                .name("lastName").value(driver.getLastName())
+                .name("picture").value(driver.getPicture())
+                .name("dailyWage").value(driver.getDailyWage())
+                .name("hourlyWage").value(driver.getHourlyWage())
+                .name("available").value(driver.getAvailability())
+                .name("status").value(driver.getStatus())
+                .name("yearsOfExperience").value(driver.getYearsOfExperience())
+                .name("rating").value(driver.getRating())
+                .endObject();
+    }
+
+    private void writeReservation(JsonWriter json, Reservation reservation) throws IOException {
+        json.beginObject()
+                .name("id").value(reservation.getId())
+                .name("userId").value(reservation.getUserId())
+                .name("vehicleId").value(reservation.getVehicleId())
+                .name("driverId").value(reservation.getDriverId())
+                .name("startDate").value(reservation.getStartDate())
+                .name("endDate").value(reservation.getEndDate())
+                .name("status").value(reservation.getStatus())
+                .name("notes").value(reservation.getNotes())
+                .name("totalCost").value(reservation.getTotalCost())
+                .name("createdAt").value(reservation.getCreatedAt())
+                .name("updatedAt").value(reservation.getUpdatedAt())
+                .endObject();
+    }
+
+    private String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new NotFoundException("No such resource");
+        }
+    }
+
+    private static Long requireLong(Map<String, Object> body, String name) {
+        if (!(body.get(name) instanceof Long value)) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+        return value;
+    }
+
+    private static LocalDate requireDate(Map<String, Object> body, String name) {
+        if (!(body.get(name) instanceof String value)) {
+            throw new IllegalArgumentException(name + " must be a date (yyyy-MM-dd)");
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be a date (yyyy-MM-dd)");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    /**
+     * An authenticated API user.
+     */
+    private record Caller(long userId, boolean admin) {
+
+        boolean mayAccess(Long ownerId) {
+            return admin || (ownerId != null && ownerId == userId);
+        }
+    }
+
+    /**
+     * Thrown when a requested resource does not exist.
+     */
+    private static class NotFoundException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        NotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Thrown when a request lacks valid credentials.
+     */
+    private static class UnauthorizedException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        UnauthorizedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Thrown when the caller may not access a resource.
+     */
+    private static class ForbiddenException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        ForbiddenException(String message) {
+            super(message);
+        }
+    }
+}
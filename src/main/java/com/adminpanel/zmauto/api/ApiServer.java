@@ -0,0 +1,87 @@
+package com.adminpanel.zmauto.api;
+
+import com.adminpanel.zmauto.util.DatabaseInitializer;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP server exposing the service layer as a JSON API for the customer booking site.
+ * Every request runs on its own virtual thread, so a request waiting for a pooled connection
+ * or the database does not hold a platform thread. Only the service, model and util packages
+ * are used, so the server also runs headless without JavaFX.
+ *
+ * Run it on its own with {@link #main(String[])}, or inside the admin panel by setting api.enabled=true.
+ * The server listens on api.bindAddress, loopback by default.
+ */
+public class ApiServer {
+
+    private static HttpServer server;
+    private static ExecutorService executor;
+
+    /**
+     * Start the server.
+     *
+     * @param port The port to listen on, or 0 for any free port
+     * @throws IOException If the server cannot be started
+     */
+    public static synchronized void start(int port) throws IOException {
+        if (server != null) {
+            return;
+        }
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        String bindAddress = DatabaseUtil.getProperty("api.bindAddress", "127.0.0.1");
+        server = HttpServer.create(new InetSocketAddress(bindAddress, port), DatabaseUtil.getIntProperty("api.backlog", 256));
+        server.createContext("/api/", new ApiHandler());
+        server.setExecutor(executor);
+        server.start();
+
+        System.out.println("HTTP API listening on " + bindAddress + ":" + getPort());
+    }
+
+    /**
+     * Stop the server, giving running requests a moment to finish.
+     */
+    public static synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+
+        server.stop(1);
+        executor.shutdown();
+        server = null;
+        executor = null;
+    }
+
+    /**
+     * Get the port the server listens on.
+     *
+     * @return The port, or -1 if the server is not running
+     */
+    public static synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    /**
+     * Run the API without the admin panel.
+     *
+     * @param args An optional port, otherwise api.port is used
+     * @throws IOException If the server cannot be started
+     */
+    public static void main(String[] args) throws IOException {
+        DatabaseInitializer.initialize();
+
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DatabaseUtil.getIntProperty("api.port", 8085);
+        start(port);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stop();
+            DatabaseUtil.closePool();
+        }));
+    }
+}
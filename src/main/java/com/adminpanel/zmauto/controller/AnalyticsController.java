@@ -0,0 +1,218 @@
+package com.adminpanel.zmauto.controller;
+
+import com.adminpanel.zmauto.model.UtilizationReport;
+import com.adminpanel.zmauto.model.UtilizationStats;
+import com.adminpanel.zmauto.service.FleetAnalyticsService;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import com.adminpanel.zmauto.util.CancellationToken;
+import com.adminpanel.zmauto.util.LoadTracker;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Controller for the fleet utilization view.
+ */
+public class AnalyticsController {
+
+    @FXML
+    private DatePicker startDatePicker;
+
+    @FXML
+    private DatePicker endDatePicker;
+
+    @FXML
+    private Button computeButton;
+
+    @FXML
+    private Label summaryLabel;
+
+    @FXML
+    private TableView<UtilizationStats> typeTable;
+
+    @FXML
+    private TableColumn<UtilizationStats, String> typeNameColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Integer> typeVehiclesColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Long> typeAvailableColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Long> typeBookedColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Long> typeIdleColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Double> typeUtilizationColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Double> typeRevenueColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Double> typeRevenuePerDayColumn;
+
+    @FXML
+    private TableView<UtilizationStats> vehicleTable;
+
+    @FXML
+    private TableColumn<UtilizationStats, Long> vehicleIdColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, String> vehicleNameColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, String> vehicleTypeColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Long> vehicleAvailableColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Long> vehicleBookedColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Long> vehicleIdleColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Double> vehicleUtilizationColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Double> vehicleRevenueColumn;
+
+    @FXML
+    private TableColumn<UtilizationStats, Double> vehicleRevenuePerDayColumn;
+
+    private FleetAnalyticsService analyticsService;
+    private final LoadTracker loads = new LoadTracker();
+
+    /**
+     * Initialize the controller.
+     */
+    @FXML
+    public void initialize() {
+        analyticsService = new FleetAnalyticsService();
+
+        // Default to the last 30 days
+        endDatePicker.setValue(LocalDate.now());
+        startDatePicker.setValue(LocalDate.now().minusDays(29));
+
+        typeNameColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getLabel));
+        typeVehiclesColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getVehicleCount));
+        typeAvailableColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getAvailableDays));
+        typeBookedColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getBookedDays));
+        typeIdleColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getIdleDays));
+        typeUtilizationColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getUtilization));
+        typeUtilizationColumn.setCellFactory(CellFactories.text(CellFactories::percent));
+        typeRevenueColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getRevenue));
+        typeRevenueColumn.setCellFactory(CellFactories.text(CellFactories::currency));
+        typeRevenuePerDayColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getRevenuePerAvailableDay));
+        typeRevenuePerDayColumn.setCellFactory(CellFactories.text(CellFactories::currency));
+
+        vehicleIdColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getVehicleId));
+        vehicleNameColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getLabel));
+        vehicleTypeColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getType));
+        vehicleAvailableColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getAvailableDays));
+        vehicleBookedColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getBookedDays));
+        vehicleIdleColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getIdleDays));
+        vehicleUtilizationColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getUtilization));
+        vehicleUtilizationColumn.setCellFactory(CellFactories.text(CellFactories::percent));
+        vehicleRevenueColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getRevenue));
+        vehicleRevenueColumn.setCellFactory(CellFactories.text(CellFactories::currency));
+        vehicleRevenuePerDayColumn.setCellValueFactory(CellFactories.value(UtilizationStats::getRevenuePerAvailableDay));
+        vehicleRevenuePerDayColumn.setCellFactory(CellFactories.text(CellFactories::currency));
+
+        loadReport();
+    }
+
+    /**
+     * Release the view's resources when it is closed.
+     */
+    public void dispose() {
+        loads.cancel();
+    }
+
+    /**
+     * Handle compute button click.
+     *
+     * @param event The action event
+     */
+    @FXML
+    protected void onComputeButtonClick(ActionEvent event) {
+        loadReport();
+    }
+
+    /**
+     * Compute the utilization report for the selected period in the background.
+     */
+    private void loadReport() {
+        LocalDate startDate = startDatePicker.getValue();
+        LocalDate endDate = endDatePicker.getValue();
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            showError("Please select a valid period.");
+            return;
+        }
+
+        computeButton.setDisable(true);
+        summaryLabel.setText("Computing...");
+
+        CancellationToken token = loads.begin();
+        Task<UtilizationReport> task = new Task<>() {
+            @Override
+            protected UtilizationReport call() throws SQLException {
+                return token.call(() -> analyticsService.getUtilization(startDate, endDate));
+            }
+        };
+
+        task.setOnSucceeded(event -> {
+            if (!loads.isCurrent(token)) {
+                // A newer load replaced this one, or the view was closed
+                return;
+            }
+
+            UtilizationReport report = task.getValue();
+            UtilizationStats fleet = report.getFleet();
+            summaryLabel.setText(String.format(
+                    "%d vehicles, %.1f%% utilization, %d idle days, $%.2f revenue ($%.2f per available day)",
+                    fleet.getVehicleCount(), fleet.getUtilization() * 100, fleet.getIdleDays(),
+                    fleet.getRevenue(), fleet.getRevenuePerAvailableDay()));
+            typeTable.setItems(FXCollections.observableArrayList(report.getByType()));
+            vehicleTable.setItems(FXCollections.observableArrayList(report.getByVehicle()));
+            computeButton.setDisable(false);
+        });
+
+        task.setOnFailed(event -> {
+            if (!loads.isCurrent(token)) {
+                // A newer load replaced this one, or the view was closed
+                return;
+            }
+
+            Throwable e = task.getException();
+            summaryLabel.setText("");
+            computeButton.setDisable(false);
+            showError("Error computing utilization: " + e.getMessage());
+            e.printStackTrace();
+        });
+
+        BackgroundTasks.execute(task);
+    }
+
+    /**
+     * Show an error dialog.
+     *
+     * @param message The error message to display
+     */
+    private void showError(String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}
@@ -0,0 +1,134 @@
+package com.adminpanel.zmauto.controller;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableColumn.CellDataFeatures;
+import javafx.util.Callback;
+
+import java.text.DecimalFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cell value and cell factories for the tables.
+ *
+ * Values are read through accessor functions (method references) instead of PropertyValueFactory,
+ * which looks up the getter by reflection for every cell on every layout pass. The formatters are
+ * created once and shared; cells are reused by the table as it scrolls and only format a value
+ * again when their item changes. All of this runs on the JavaFX thread.
+ */
+final class CellFactories {
+
+    static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private static final DecimalFormat CURRENCY = new DecimalFormat("'$'0.00");
+    private static final DecimalFormat ONE_DECIMAL = new DecimalFormat("0.0");
+    private static final DecimalFormat PERCENT = new DecimalFormat("0.0'%'");
+
+    private CellFactories() {
+    }
+
+    /**
+     * Cell value factory reading a column's value through an accessor.
+     *
+     * @param accessor Reads the value from a row, e.g. Vehicle::getMake
+     * @return The cell value factory
+     */
+    static <S, T> Callback<CellDataFeatures<S, T>, ObservableValue<T>> value(Function<S, T> accessor) {
+        return features -> new ReadOnlyObjectWrapper<>(accessor.apply(features.getValue()));
+    }
+
+    /**
+     * Cell factory showing values as text.
+     *
+     * @param formatter Formats a non-null value
+     * @return The cell factory
+     */
+    static <S, T> Callback<TableColumn<S, T>, TableCell<S, T>> text(Function<T, String> formatter) {
+        return column -> new FormattedCell<>(formatter, null);
+    }
+
+    /**
+     * Cell factory showing values as text with a style class per value, e.g. per status.
+     *
+     * @param styleClasses The style class of each value; other values are shown unstyled
+     * @return The cell factory
+     */
+    static <S> Callback<TableColumn<S, String>, TableCell<S, String>> styled(Map<String, String> styleClasses) {
+        return column -> new FormattedCell<>(Function.identity(), styleClasses);
+    }
+
+    /**
+     * Format an amount as dollars with two decimals, e.g. $12.50.
+     */
+    static String currency(Number amount) {
+        return CURRENCY.format(amount);
+    }
+
+    /**
+     * Format a number with one decimal, e.g. 4.5.
+     */
+    static String oneDecimal(Number value) {
+        return ONE_DECIMAL.format(value);
+    }
+
+    /**
+     * Format a fraction as a percentage with one decimal, e.g. 0.125 as 12.5%.
+     */
+    static String percent(Number fraction) {
+        return PERCENT.format(fraction.doubleValue() * 100);
+    }
+
+    /**
+     * A reusable text cell. It formats a value only when the item changes and swaps its
+     * style class instead of adding one per update.
+     */
+    private static class FormattedCell<S, T> extends TableCell<S, T> {
+
+        private final Function<T, String> formatter;
+        private final Map<T, String> styleClasses;
+        private T formattedItem;
+        private String styleClass;
+
+        FormattedCell(Function<T, String> formatter, Map<T, String> styleClasses) {
+            this.formatter = formatter;
+            this.styleClasses = styleClasses;
+        }
+
+        @Override
+        protected void updateItem(T item, boolean empty) {
+            super.updateItem(item, empty);
+
+            if (item == null || empty) {
+                formattedItem = null;
+                setText(null);
+                setStyleClass(null);
+                return;
+            }
+
+            if (!item.equals(formattedItem)) {
+                formattedItem = item;
+                setText(formatter.apply(item));
+            }
+            if (styleClasses != null) {
+                setStyleClass(styleClasses.get(item));
+            }
+        }
+
+        private void setStyleClass(String newStyleClass) {
+            if (newStyleClass == null ? styleClass == null : newStyleClass.equals(styleClass)) {
+                return;
+            }
+            if (styleClass != null) {
+                getStyleClass().remove(styleClass);
+            }
+            if (newStyleClass != null) {
+                getStyleClass().add(newStyleClass);
+            }
+            styleClass = newStyleClass;
+        }
+    }
+}
@@ -1,23 +1,39 @@
 package com.adminpanel.zmauto.controller;
 
+import com.adminpanel.zmauto.model.KpiSummary;
+import com.adminpanel.zmauto.model.MaintenanceAlert;
 import com.adminpanel.zmauto.model.Reservation;
+import com.adminpanel.zmauto.model.SearchResult;
 import com.adminpanel.zmauto.model.User;
 import com.adminpanel.zmauto.model.Vehicle;
+import com.adminpanel.zmauto.service.DomainEventBus;
 import com.adminpanel.zmauto.service.DriverService;
+import com.adminpanel.zmauto.service.KpiService;
+import com.adminpanel.zmauto.service.MaintenanceScheduler;
+import com.adminpanel.zmauto.service.Prefetcher;
 import com.adminpanel.zmauto.service.ReservationService;
+import com.adminpanel.zmauto.service.SearchService;
 import com.adminpanel.zmauto.service.UserService;
 import com.adminpanel.zmauto.service.VehicleService;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import com.adminpanel.zmauto.util.ConnectionPoolManager;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Side;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import org.controlsfx.control.Notifications;
 
 import java.io.IOException;
 import java.sql.SQLException;
@@ -34,6 +50,12 @@ public class DashboardController {
     @FXML
     private Label welcomeLabel;
 
+    @FXML
+    private Label kpiLabel;
+
+    @FXML
+    private Button overviewButton;
+
     @FXML
     private Button usersButton;
 
@@ -46,14 +68,30 @@ public class DashboardController {
     @FXML
     private Button reservationsButton;
 
+    @FXML
+    private Button analyticsButton;
+
+    @FXML
+    private Button revenueButton;
+
     @FXML
     private StackPane contentArea;
 
+    @FXML
+    private TextField globalSearchField;
+
+    private static final int SEARCH_RESULT_LIMIT = 15;
+    private static final int MAX_ALERT_NOTIFICATIONS = 3;
+
     private User currentUser;
     private UserService userService;
     private VehicleService vehicleService;
     private DriverService driverService;
     private ReservationService reservationService;
+    private SearchService searchService;
+    private KpiService kpiService;
+    private ContextMenu searchResultsMenu;
+    private Runnable disposeCurrentView;
 
     /**
      * Initialize the controller.
@@ -65,6 +103,95 @@ public class DashboardController {
         vehicleService = new VehicleService();
         driverService = new DriverService();
         reservationService = new ReservationService();
+        searchService = new SearchService();
+        kpiService = new KpiService();
+
+        // Run the global search shortly after the user stops typing
+        searchResultsMenu = new ContextMenu();
+        PauseTransition searchDelay = new PauseTransition(Duration.millis(150));
+        searchDelay.setOnFinished(event -> updateSearchResults());
+        globalSearchField.textProperty().addListener((observable, oldValue, newValue) -> searchDelay.playFromStart());
+        globalSearchField.setOnAction(event -> updateSearchResults());
+
+        // Show maintenance alerts as they fire
+        MaintenanceScheduler.addAlertListener(alerts -> Platform.runLater(() -> showMaintenanceAlerts(alerts)));
+
+        // Re-read the key figures shortly after data changes; a burst of changes causes one read
+        PauseTransition kpiDelay = new PauseTransition(Duration.millis(500));
+        kpiDelay.setOnFinished(event -> loadKpiSummary());
+        DomainEventBus.subscribe(event -> Platform.runLater(kpiDelay::playFromStart));
+        loadKpiSummary();
+
+        // Warm a view's data when the pointer moves onto its sidebar button
+        usersButton.setOnMouseEntered(event -> Prefetcher.prefetch(Prefetcher.View.USERS));
+        vehiclesButton.setOnMouseEntered(event -> Prefetcher.prefetch(Prefetcher.View.VEHICLES));
+        driversButton.setOnMouseEntered(event -> Prefetcher.prefetch(Prefetcher.View.DRIVERS));
+        reservationsButton.setOnMouseEntered(event -> Prefetcher.prefetch(Prefetcher.View.RESERVATIONS));
+    }
+
+    /**
+     * Load the key figures from the summary tables and show them in the header.
+     */
+    private void loadKpiSummary() {
+        Task<KpiSummary> task = new Task<>() {
+            @Override
+            protected KpiSummary call() throws SQLException {
+                BackgroundTasks.awaitStartup();
+                return kpiService.getSummary();
+            }
+        };
+
+        task.setOnSucceeded(event -> {
+            KpiSummary summary = task.getValue();
+            kpiLabel.setText(String.format(
+                    "%d pending | %d available, %d rented, %d in maintenance | %d drivers on duty | $%.2f today, $%.2f this month",
+                    summary.getPendingReservations(), summary.getVehicleCount("AVAILABLE"),
+                    summary.getVehicleCount("RESERVED") + summary.getVehicleCount("RENTED"),
+                    summary.getVehicleCount("MAINTENANCE"), summary.getDriversOnDuty(),
+                    summary.getRevenueToday(), summary.getRevenueMonthToDate()));
+        });
+
+        task.setOnFailed(event -> {
+            System.err.println("Error loading dashboard summary: " + task.getException().getMessage());
+            if (ConnectionPoolManager.isDegraded()) {
+                kpiLabel.setText("Database unavailable - showing saved data, retrying in the background");
+            }
+        });
+
+        BackgroundTasks.execute(task);
+    }
+
+    /**
+     * Show maintenance alerts as notifications. A large batch is summarized in one notification.
+     *
+     * @param alerts The alerts that fired together
+     */
+    private void showMaintenanceAlerts(List<MaintenanceAlert> alerts) {
+        for (MaintenanceAlert alert : alerts) {
+            System.out.println("Maintenance alert: " + alert.getMessage());
+        }
+
+        if (alerts.size() > MAX_ALERT_NOTIFICATIONS) {
+            long blocking = alerts.stream().filter(alert -> alert.getKind().blocksAvailability()).count();
+            Notifications.create()
+                    .owner(mainBorderPane)
+                    .title("Maintenance")
+                    .text(alerts.size() + " maintenance alerts, " + blocking + " vehicles due for service or uninsured")
+                    .showWarning();
+            return;
+        }
+
+        for (MaintenanceAlert alert : alerts) {
+            Notifications notification = Notifications.create()
+                    .owner(mainBorderPane)
+                    .title(alert.getKind().getDisplayName())
+                    .text(alert.getMessage());
+            if (alert.getKind().blocksAvailability()) {
+                notification.showWarning();
+            } else {
+                notification.showInformation();
+            }
+        }
     }
 
     /**
@@ -80,8 +207,18 @@ public class DashboardController {
             welcomeLabel.setText("Welcome, " + user.getFirstName() + " " + user.getLastName());
         }
 
-        // Show reservations by default
-        showReservations();
+        // Show the live overview by default
+        showOverview();
+    }
+
+    /**
+     * Handle overview button click.
+     * 
+     * @param event The action event
+     */
+    @FXML
+    protected void onOverviewButtonClick(ActionEvent event) {
+        showOverview();
     }
 
     /**
@@ -124,11 +261,33 @@ public class DashboardController {
         showReservations();
     }
 
+    /**
+     * Handle analytics button click.
+     * 
+     * @param event The action event
+     */
+    @FXML
+    protected void onAnalyticsButtonClick(ActionEvent event) {
+        showAnalytics();
+    }
+
+    /**
+     * Handle revenue button click.
+     * 
+     * @param event The action event
+     */
+    @FXML
+    protected void onRevenueButtonClick(ActionEvent event) {
+        showRevenue();
+    }
+
 
     /**
      * Show the users view.
+     * 
+     * @return The view's controller, or null if the view could not be loaded
      */
-    private void showUsers() {
+    private UsersController showUsers() {
         try {
             // Load the users view
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/adminpanel/zmauto/users-view.fxml"));
@@ -139,22 +298,26 @@ public class DashboardController {
             usersController.setDashboardController(this);
 
             // Set the users view in the content area
-            contentArea.getChildren().clear();
-            contentArea.getChildren().add(usersView);
+            setContent(usersView, usersController::dispose);
 
             // Update active button
             setActiveButton(usersButton);
 
+            return usersController;
+
         } catch (IOException e) {
             showError("Error loading users view: " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
     }
 
     /**
      * Show the vehicles view.
+     * 
+     * @return The view's controller, or null if the view could not be loaded
      */
-    private void showVehicles() {
+    private VehiclesController showVehicles() {
         try {
             // Load the vehicles view
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/adminpanel/zmauto/vehicles-view.fxml"));
@@ -165,22 +328,26 @@ public class DashboardController {
             vehiclesController.setDashboardController(this);
 
             // Set the vehicles view in the content area
-            contentArea.getChildren().clear();
-            contentArea.getChildren().add(vehiclesView);
+            setContent(vehiclesView, vehiclesController::dispose);
 
             // Update active button
             setActiveButton(vehiclesButton);
 
+            return vehiclesController;
+
         } catch (IOException e) {
             showError("Error loading vehicles view: " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
     }
 
     /**
      * Show the reservations view.
+     * 
+     * @return The view's controller, or null if the view could not be loaded
      */
-    private void showReservations() {
+    private ReservationsController showReservations() {
         try {
             // Load the reservations view
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/adminpanel/zmauto/reservations-view.fxml"));
@@ -191,22 +358,26 @@ public class DashboardController {
             reservationsController.setDashboardController(this);
 
             // Set the reservations view in the content area
-            contentArea.getChildren().clear();
-            contentArea.getChildren().add(reservationsView);
+            setContent(reservationsView, reservationsController::dispose);
 
             // Update active button
             setActiveButton(reservationsButton);
 
+            return reservationsController;
+
         } catch (IOException e) {
             showError("Error loading reservations view: " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
     }
 
     /**
      * Show the driver view.
+     * 
+     * @return The view's controller, or null if the view could not be loaded
      */
-    private void showDrivers() {
+    private DriversController showDrivers() {
         try {
             // Load the driver view
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/adminpanel/zmauto/drivers-view.fxml"));
@@ -217,15 +388,158 @@ public class DashboardController {
             driversController.setDashboardController(this);
 
             // Set the driver view in the content area
-            contentArea.getChildren().clear();
-            contentArea.getChildren().add(driversView);
+            setContent(driversView, driversController::dispose);
 
             // Update active button
             setActiveButton(driversButton);
 
+            return driversController;
+
         } catch (IOException e) {
             showError("Error loading driver view: " + e.getMessage());
             e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Show the live overview.
+     */
+    private void showOverview() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/adminpanel/zmauto/overview-view.fxml"));
+            Parent overviewView = loader.load();
+
+            OverviewController overviewController = loader.getController();
+            setContent(overviewView, overviewController::dispose);
+
+            // Update active button
+            setActiveButton(overviewButton);
+
+        } catch (IOException e) {
+            showError("Error loading overview: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Show the fleet utilization view.
+     */
+    private void showAnalytics() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/adminpanel/zmauto/analytics-view.fxml"));
+            Parent analyticsView = loader.load();
+
+            AnalyticsController analyticsController = loader.getController();
+            setContent(analyticsView, analyticsController::dispose);
+
+            // Update active button
+            setActiveButton(analyticsButton);
+
+        } catch (IOException e) {
+            showError("Error loading analytics view: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Show the revenue report view.
+     */
+    private void showRevenue() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/adminpanel/zmauto/revenue-view.fxml"));
+            Parent revenueView = loader.load();
+
+            RevenueController revenueController = loader.getController();
+            setContent(revenueView, revenueController::dispose);
+
+            // Update active button
+            setActiveButton(revenueButton);
+
+        } catch (IOException e) {
+            showError("Error loading revenue view: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Replace the view in the content area, releasing the previous view's resources.
+     * 
+     * @param view The view to show
+     * @param dispose Releases the view's resources when it is replaced
+     */
+    private void setContent(Parent view, Runnable dispose) {
+        if (disposeCurrentView != null) {
+            disposeCurrentView.run();
+        }
+        disposeCurrentView = dispose;
+
+        contentArea.getChildren().clear();
+        contentArea.getChildren().add(view);
+    }
+
+    /**
+     * Run the global search for the current query and show the results below the search field.
+     */
+    private void updateSearchResults() {
+        String query = globalSearchField.getText().trim();
+        if (query.isEmpty()) {
+            searchResultsMenu.hide();
+            return;
+        }
+
+        List<SearchResult> results = searchService.search(query, SEARCH_RESULT_LIMIT);
+        searchResultsMenu.getItems().clear();
+
+        if (results.isEmpty()) {
+            MenuItem noResults = new MenuItem("No results for \"" + query + "\"");
+            noResults.setDisable(true);
+            searchResultsMenu.getItems().add(noResults);
+        } else {
+            for (SearchResult result : results) {
+                MenuItem item = new MenuItem(result.toString());
+                item.setOnAction(event -> openSearchResult(result));
+                searchResultsMenu.getItems().add(item);
+            }
+        }
+
+        if (!searchResultsMenu.isShowing()) {
+            searchResultsMenu.show(globalSearchField, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    /**
+     * Open the view that owns a search result and select its row.
+     * 
+     * @param result The search result
+     */
+    private void openSearchResult(SearchResult result) {
+        switch (result.getType()) {
+            case USER:
+                UsersController usersController = showUsers();
+                if (usersController != null) {
+                    usersController.selectUser(result.getTargetId());
+                }
+                break;
+            case VEHICLE:
+                VehiclesController vehiclesController = showVehicles();
+                if (vehiclesController != null) {
+                    vehiclesController.selectVehicle(result.getTargetId());
+                }
+                break;
+            case DRIVER:
+                DriversController driversController = showDrivers();
+                if (driversController != null) {
+                    driversController.selectDriver(result.getTargetId());
+                }
+                break;
+            default:
+                // Payments are shown through the reservation they belong to
+                ReservationsController reservationsController = showReservations();
+                if (reservationsController != null) {
+                    reservationsController.selectReservation(result.getTargetId());
+                }
+                break;
         }
     }
 
@@ -236,10 +550,13 @@ public class DashboardController {
      */
     private void setActiveButton(Button activeButton) {
         // Remove active class from all buttons
+        overviewButton.getStyleClass().remove("sidebar-button-active");
         usersButton.getStyleClass().remove("sidebar-button-active");
         vehiclesButton.getStyleClass().remove("sidebar-button-active");
         driversButton.getStyleClass().remove("sidebar-button-active");
         reservationsButton.getStyleClass().remove("sidebar-button-active");
+        analyticsButton.getStyleClass().remove("sidebar-button-active");
+        revenueButton.getStyleClass().remove("sidebar-button-active");
 
         // Add active class to the active button
         activeButton.getStyleClass().add("sidebar-button-active");
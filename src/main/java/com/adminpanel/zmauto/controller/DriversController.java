@@ -1,26 +1,32 @@
 package com.adminpanel.zmauto.controller;
 
 import com.adminpanel.zmauto.model.Driver;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
 import com.adminpanel.zmauto.model.Vehicle;
 import com.adminpanel.zmauto.service.DriverService;
+import com.adminpanel.zmauto.service.PictureService;
+import com.adminpanel.zmauto.service.Prefetcher;
+import com.adminpanel.zmauto.service.SnapshotService;
 import com.adminpanel.zmauto.service.VehicleService;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import com.adminpanel.zmauto.util.CancellationToken;
+import com.adminpanel.zmauto.util.LoadTracker;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 import javafx.util.StringConverter;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -73,10 +79,18 @@ public class DriversController {
     @FXML
     private Button deleteButton;
 
+    @FXML
+    private Label staleLabel;
+
     private DashboardController dashboardController;
     private DriverService driverService;
     private VehicleService vehicleService;
+    private SnapshotService snapshotService;
+    private PictureService pictureService;
+    private final LoadTracker loads = new LoadTracker();
     private ObservableList<Driver> drivers;
+    private Long pendingSelectionId;
+    private TablePatcher<Driver> tablePatcher;
 
     /**
      * Initialize the controller.
@@ -85,61 +99,31 @@ public class DriversController {
     public void initialize() {
         // Initialize the driver service
         driverService = new DriverService();
+        snapshotService = new SnapshotService();
+        pictureService = new PictureService();
         vehicleService = new VehicleService();
 
         // Initialize the status filter combo box
         statusFilterComboBox.setItems(FXCollections.observableArrayList(
                 "All", "ACTIVE", "INACTIVE", "ON_LEAVE"));
         statusFilterComboBox.getSelectionModel().selectFirst();
+        statusFilterComboBox.getSelectionModel().selectFirst();
 
         // Initialize the table columns
-        idColumn.setCellValueFactory(new PropertyValueFactory<>("driverId"));
-        firstNameColumn.setCellValueFactory(new PropertyValueFactory<>("firstName"));
-        lastNameColumn.setCellValueFactory(new PropertyValueFactory<>("lastName"));
-        phoneNumberColumn.setCellValueFactory(new PropertyValueFactory<>("phoneNumber"));
-        emailColumn.setCellValueFactory(new PropertyValueFactory<>("email"));
-
-        statusColumn.setCellValueFactory(new PropertyValueFactory<>("status"));
-        statusColumn.setCellFactory(column -> new TableCell<Driver, String>() {
-            @Override
-            protected void updateItem(String item, boolean empty) {
-                super.updateItem(item, empty);
+        idColumn.setCellValueFactory(CellFactories.value(Driver::getDriverId));
+        firstNameColumn.setCellValueFactory(CellFactories.value(Driver::getFirstName));
+        lastNameColumn.setCellValueFactory(CellFactories.value(Driver::getLastName));
+        phoneNumberColumn.setCellValueFactory(CellFactories.value(Driver::getPhoneNumber));
+        emailColumn.setCellValueFactory(CellFactories.value(Driver::getEmail));
 
-                if (item == null || empty) {
-                    setText(null);
-                    setStyle("");
-                } else {
-                    setText(item);
-
-                    // Set style based on status
-                    switch (item) {
-                        case "ACTIVE":
-                            getStyleClass().add("status-available");
-                            break;
-                        case "INACTIVE":
-                            getStyleClass().add("status-maintenance");
-                            break;
-                        case "ON_LEAVE":
-                            getStyleClass().add("status-reserved");
-                            break;
-                    }
-                }
-            }
-        });
-
-        ratingColumn.setCellValueFactory(new PropertyValueFactory<>("rating"));
-        ratingColumn.setCellFactory(column -> new TableCell<Driver, Double>() {
-            @Override
-            protected void updateItem(Double item, boolean empty) {
-                super.updateItem(item, empty);
+        statusColumn.setCellValueFactory(CellFactories.value(Driver::getStatus));
+        statusColumn.setCellFactory(CellFactories.styled(Map.of(
+                "ACTIVE", "status-available",
+                "INACTIVE", "status-maintenance",
+                "ON_LEAVE", "status-reserved")));
 
-                if (item == null || empty) {
-                    setText(null);
-                } else {
-                    setText(String.format("%.1f", item));
-                }
-            }
-        });
+        ratingColumn.setCellValueFactory(CellFactories.value(Driver::getRating));
+        ratingColumn.setCellFactory(CellFactories.text(CellFactories::oneDecimal));
 
         // Add listener to status filter combo box
         statusFilterComboBox.getSelectionModel().selectedItemProperty().addListener(
@@ -149,6 +133,24 @@ public class DriversController {
         driversTable.getSelectionModel().selectedItemProperty().addListener(
                 (observable, oldValue, newValue) -> updateButtonStates());
 
+        // Patch rows as drivers change anywhere in the application
+        tablePatcher = new TablePatcher<>(driversTable, EntityType.DRIVER, Driver.class, Driver::getDriverId,
+                driver -> matchesFilter(driver, statusFilterComboBox.getValue(), searchField.getText().trim()),
+                (driver, changes) -> {
+                    if (changes.containsKey("status")) {
+                        driver.setStatus((String) changes.get("status"));
+                    }
+                },
+                driverService::getDriverById);
+
+        // Show the last session's drivers until the fresh ones are loaded
+        List<Driver> snapshot = snapshotService.loadDrivers();
+        if (!snapshot.isEmpty()) {
+            drivers = FXCollections.observableArrayList(snapshot);
+            driversTable.setItems(drivers);
+            setStale(true);
+        }
+
         // Load driver
         loadDrivers();
     }
@@ -162,6 +164,32 @@ public class DriversController {
         this.dashboardController = dashboardController;
     }
 
+    /**
+     * Release the view's resources when it is closed.
+     */
+    public void dispose() {
+        loads.cancel();
+        tablePatcher.dispose();
+    }
+
+    /**
+     * Select a driver in the table and scroll it into view.
+     * 
+     * @param driverId The driver ID
+     */
+    public void selectDriver(Long driverId) {
+        for (Driver driver : driversTable.getItems()) {
+            if (driverId.equals(driver.getDriverId())) {
+                driversTable.getSelectionModel().select(driver);
+                driversTable.scrollTo(driver);
+                return;
+            }
+        }
+
+        // Not loaded yet; select it once the drivers arrive
+        pendingSelectionId = driverId;
+    }
+
     /**
      * Handle search button click.
      * 
@@ -222,38 +250,98 @@ public class DriversController {
 
     /**
      * Load driver based on the current filter and search criteria.
+     * The query runs in the background; the table keeps its current rows until it completes.
      */
     private void loadDrivers() {
-        try {
-            List<Driver> driverList;
-            String statusFilter = statusFilterComboBox.getValue();
-            String searchText = searchField.getText().trim();
-
-            if (statusFilter.equals("All")) {
-                driverList = driverService.getAllDrivers();
-            } else {
-                // Filter by status
-                driverList = driverService.getAllDrivers();
-                driverList.removeIf(driver -> !driver.getStatus().equals(statusFilter));
+        String statusFilter = statusFilterComboBox.getValue();
+        String searchText = searchField.getText().trim();
+
+        CancellationToken token = loads.begin();
+        Task<List<Driver>> task = new Task<>() {
+            @Override
+            protected List<Driver> call() throws SQLException {
+                return token.call(() -> {
+                    List<Driver> driverList = Prefetcher.take(Prefetcher.View.DRIVERS, driverService::getAllDrivers);
+
+                    // Only the unfiltered view is worth showing on the next startup
+                    if (statusFilter.equals("All") && searchText.isEmpty()) {
+                        snapshotService.saveDrivers(driverList);
+                    }
+
+                    // Apply the status and search filters
+                    driverList.removeIf(driver -> !matchesFilter(driver, statusFilter, searchText));
+
+                    return driverList;
+                });
             }
+        };
 
-            // Apply search filter if provided
-            if (!searchText.isEmpty()) {
-                driverList.removeIf(driver -> 
-                        !driver.getFirstName().toLowerCase().contains(searchText.toLowerCase()) &&
-                        !driver.getLastName().toLowerCase().contains(searchText.toLowerCase()) &&
-                        !driver.getPhoneNumber().toLowerCase().contains(searchText.toLowerCase()) &&
-                        (driver.getEmail() == null || !driver.getEmail().toLowerCase().contains(searchText.toLowerCase())));
+        task.setOnSucceeded(event -> {
+            if (!loads.isCurrent(token)) {
+                // A newer load replaced this one, or the view was closed
+                return;
             }
 
-            drivers = FXCollections.observableArrayList(driverList);
+            drivers = FXCollections.observableArrayList(task.getValue());
             driversTable.setItems(drivers);
+            setStale(false);
+            Prefetcher.viewLoaded(Prefetcher.View.DRIVERS);
+
+            if (pendingSelectionId != null) {
+                Long driverId = pendingSelectionId;
+                pendingSelectionId = null;
+                selectDriver(driverId);
+            }
 
             updateButtonStates();
+        });
 
-        } catch (SQLException e) {
+        task.setOnFailed(event -> {
+            if (!loads.isCurrent(token)) {
+                // A newer load replaced this one, or the view was closed
+                return;
+            }
+
+            Throwable e = task.getException();
             showError("Error loading driver: " + e.getMessage());
             e.printStackTrace();
+        });
+
+        BackgroundTasks.execute(task);
+    }
+
+    /**
+     * Check whether a driver matches the given status filter and search text.
+     * 
+     * @param driver The driver
+     * @param statusFilter The selected status, or "All"
+     * @param searchText The search text, or an empty string
+     * @return true if the driver should be shown, false otherwise
+     */
+    private boolean matchesFilter(Driver driver, String statusFilter, String searchText) {
+        if (!statusFilter.equals("All") && !statusFilter.equals(driver.getStatus())) {
+            return false;
+        }
+
+        return searchText.isEmpty() ||
+                driver.getFirstName().toLowerCase().contains(searchText.toLowerCase()) ||
+                driver.getLastName().toLowerCase().contains(searchText.toLowerCase()) ||
+                driver.getPhoneNumber().toLowerCase().contains(searchText.toLowerCase()) ||
+                (driver.getEmail() != null && driver.getEmail().toLowerCase().contains(searchText.toLowerCase()));
+    }
+
+    /**
+     * Mark the table as showing saved data from the last session.
+     * 
+     * @param stale Whether the shown drivers may be out of date
+     */
+    private void setStale(boolean stale) {
+        staleLabel.setVisible(stale);
+        staleLabel.setManaged(stale);
+        if (stale) {
+            driversTable.getStyleClass().add("stale");
+        } else {
+            driversTable.getStyleClass().remove("stale");
         }
     }
 
@@ -284,9 +372,7 @@ public class DriversController {
         dialog.getDialogPane().getButtonTypes().addAll(saveButtonType, ButtonType.CANCEL);
 
         // Create the form fields
-        TextField pictureField = new TextField();
-        pictureField.setPromptText("Picture URL");
-        if (driver != null && driver.getPicture() != null) pictureField.setText(driver.getPicture());
+        PicturePicker pictureField = new PicturePicker(driver != null ? driver.getPicture() : null, pictureService);
 
         TextField firstNameField = new TextField();
         firstNameField.setPromptText("First Name");
@@ -372,7 +458,7 @@ public class DriversController {
         grid.setVgap(10);
         grid.setPadding(new Insets(20, 150, 10, 10));
 
-        grid.add(new Label("Picture URL:"), 0, 0);
+        grid.add(new Label("Picture:"), 0, 0);
         grid.add(pictureField, 1, 0);
         grid.add(new Label("First Name:"), 0, 1);
         grid.add(firstNameField, 1, 1);
@@ -475,7 +561,7 @@ public class DriversController {
                     if (driver == null) {
                         // Create a new driver
                         Driver newDriver = new Driver(
-                                pictureField.getText().trim(),
+                                pictureField.getPicture(),
                                 firstNameField.getText().trim(),
                                 lastNameField.getText().trim(),
                                 birthdayPicker.getValue(),
@@ -493,11 +579,10 @@ public class DriversController {
 
                         driverService.createDriver(newDriver);
                         showInfo("Driver added successfully.");
-                        loadDrivers();
 
                     } else {
                         // Update the existing driver
-                        driver.setPicture(pictureField.getText().trim());
+                        driver.setPicture(pictureField.getPicture());
                         driver.setFirstName(firstNameField.getText().trim());
                         driver.setLastName(lastNameField.getText().trim());
                         driver.setBirthday(birthdayPicker.getValue());
@@ -514,7 +599,6 @@ public class DriversController {
 
                         driverService.updateDriver(driver);
                         showInfo("Driver updated successfully.");
-                        loadDrivers();
                     }
 
                     return driver;
@@ -551,7 +635,6 @@ public class DriversController {
 
                 if (success) {
                     showInfo("Driver deleted successfully.");
-                    loadDrivers();
                 } else {
                     showError("Failed to delete driver.");
                 }
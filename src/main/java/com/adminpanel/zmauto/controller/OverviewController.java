@@ -0,0 +1,233 @@
+package com.adminpanel.zmauto.controller;
+
+import com.adminpanel.zmauto.model.KpiSummary;
+import com.adminpanel.zmauto.model.OverviewUpdate;
+import com.adminpanel.zmauto.service.OverviewFeed;
+import eu.hansolo.tilesfx.Tile;
+import eu.hansolo.tilesfx.Tile.SkinType;
+import eu.hansolo.tilesfx.TileBuilder;
+import eu.hansolo.tilesfx.chart.ChartData;
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Label;
+import javafx.scene.layout.FlowPane;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Controller for the live overview view.
+ * Updates arrive from the overview feed at a capped rate. If the FX thread falls behind, waiting
+ * updates are merged so that only the newest state is rendered.
+ */
+public class OverviewController {
+
+    private static final double TILE_SIZE = 300;
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("HH:00");
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("MM-dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    @FXML
+    private FlowPane tilePane;
+
+    @FXML
+    private Label updatedLabel;
+
+    private final AtomicReference<OverviewUpdate> pendingUpdate = new AtomicReference<>();
+    private final Map<String, ChartData> fleetData = new HashMap<>();
+
+    private OverviewFeed feed;
+    private Tile bookingsTile;
+    private Tile fleetTile;
+    private Tile revenueTile;
+    private Tile pendingTile;
+    private Tile driversTile;
+    private XYChart.Series<String, Number> bookingsSeries;
+    private XYChart.Series<String, Number> revenueSeries;
+    private LocalDateTime bookingsFirstHour;
+    private LocalDate revenueFirstDay;
+
+    /**
+     * Initialize the controller.
+     */
+    @FXML
+    @SuppressWarnings("unchecked")
+    public void initialize() {
+        bookingsSeries = new XYChart.Series<>();
+        bookingsSeries.setName("Bookings");
+
+        bookingsTile = TileBuilder.create()
+                .skinType(SkinType.SMOOTHED_CHART)
+                .prefSize(TILE_SIZE * 2, TILE_SIZE)
+                .title("Bookings per Hour")
+                .text("Last " + OverviewFeed.HOURS + " hours")
+                .series(bookingsSeries)
+                .animated(false)
+                .build();
+
+        fleetTile = TileBuilder.create()
+                .skinType(SkinType.DONUT_CHART)
+                .prefSize(TILE_SIZE, TILE_SIZE)
+                .title("Fleet Status")
+                .animated(false)
+                .build();
+
+        revenueSeries = new XYChart.Series<>();
+        revenueSeries.setName("Revenue");
+
+        // Days without revenue repeat the previous value, which a value-driven spark line would drop,
+        // so the trend is drawn as a small area chart of the daily values instead
+        revenueTile = TileBuilder.create()
+                .skinType(SkinType.SMOOTHED_CHART)
+                .chartType(Tile.ChartType.AREA)
+                .prefSize(TILE_SIZE, TILE_SIZE)
+                .title("Revenue")
+                .text("Last " + OverviewFeed.REVENUE_DAYS + " days")
+                .series(revenueSeries)
+                .animated(false)
+                .build();
+
+        pendingTile = TileBuilder.create()
+                .skinType(SkinType.NUMBER)
+                .prefSize(TILE_SIZE, TILE_SIZE)
+                .title("Pending Reservations")
+                .text("Waiting for approval")
+                .decimals(0)
+                .animated(false)
+                .build();
+
+        driversTile = TileBuilder.create()
+                .skinType(SkinType.NUMBER)
+                .prefSize(TILE_SIZE, TILE_SIZE)
+                .title("Drivers on Duty")
+                .decimals(0)
+                .animated(false)
+                .build();
+
+        tilePane.getChildren().addAll(bookingsTile, fleetTile, revenueTile, pendingTile, driversTile);
+        updatedLabel.setText("Loading...");
+
+        feed = new OverviewFeed(this::onUpdate);
+        feed.start();
+    }
+
+    /**
+     * Release the view's resources when it is closed.
+     */
+    public void dispose() {
+        feed.stop();
+    }
+
+    /**
+     * Queue an update for the FX thread. Runs on the feed thread; only the first update
+     * of a batch schedules a render, later ones are merged into it.
+     *
+     * @param update The update
+     */
+    private void onUpdate(OverviewUpdate update) {
+        OverviewUpdate previous = pendingUpdate.getAndAccumulate(update,
+                (pending, next) -> pending == null ? next : pending.merge(next));
+        if (previous == null) {
+            Platform.runLater(this::render);
+        }
+    }
+
+    /**
+     * Show the newest waiting update.
+     */
+    private void render() {
+        OverviewUpdate update = pendingUpdate.getAndSet(null);
+        if (update == null) {
+            return;
+        }
+
+        if (update.getBookingsPerHour() != null) {
+            renderBookings(update.getFirstHour(), update.getBookingsPerHour());
+        }
+        if (update.getSummary() != null) {
+            renderSummary(update.getSummary());
+        }
+        if (update.getRevenuePerDay() != null) {
+            renderRevenue(update.getFirstDay(), update.getRevenuePerDay());
+        }
+
+        updatedLabel.setText("Updated " + LocalDateTime.now().format(TIME_FORMAT));
+    }
+
+    /**
+     * Show the bookings per hour. The chart points are only replaced when the window moves.
+     */
+    private void renderBookings(LocalDateTime firstHour, long[] bookingsPerHour) {
+        if (!firstHour.equals(bookingsFirstHour)) {
+            List<XYChart.Data<String, Number>> data = new ArrayList<>();
+            for (int i = 0; i < bookingsPerHour.length; i++) {
+                data.add(new XYChart.Data<>(firstHour.plusHours(i).format(HOUR_FORMAT), bookingsPerHour[i]));
+            }
+            bookingsSeries.getData().setAll(data);
+            bookingsFirstHour = firstHour;
+            return;
+        }
+
+        for (int i = 0; i < bookingsPerHour.length; i++) {
+            XYChart.Data<String, Number> point = bookingsSeries.getData().get(i);
+            if (point.getYValue().longValue() != bookingsPerHour[i]) {
+                point.setYValue(bookingsPerHour[i]);
+            }
+        }
+    }
+
+    /**
+     * Show the fleet status, pending reservations and drivers on duty.
+     */
+    private void renderSummary(KpiSummary summary) {
+        for (Map.Entry<String, Long> entry : summary.getVehiclesByStatus().entrySet()) {
+            ChartData data = fleetData.get(entry.getKey());
+            if (data == null) {
+                data = new ChartData(entry.getKey(), entry.getValue());
+                fleetData.put(entry.getKey(), data);
+                fleetTile.addChartData(data);
+            } else if (data.getValue() != entry.getValue()) {
+                data.setValue(entry.getValue());
+            }
+        }
+        for (Map.Entry<String, ChartData> entry : fleetData.entrySet()) {
+            if (!summary.getVehiclesByStatus().containsKey(entry.getKey())) {
+                entry.getValue().setValue(0);
+            }
+        }
+
+        pendingTile.setValue(summary.getPendingReservations());
+        driversTile.setValue(summary.getDriversOnDuty());
+        revenueTile.setDescription(String.format("$%.2f today, $%.2f this month",
+                summary.getRevenueToday(), summary.getRevenueMonthToDate()));
+    }
+
+    /**
+     * Show the revenue per day. The chart points are only replaced when the window moves.
+     */
+    private void renderRevenue(LocalDate firstDay, double[] revenuePerDay) {
+        if (!firstDay.equals(revenueFirstDay)) {
+            List<XYChart.Data<String, Number>> data = new ArrayList<>();
+            for (int i = 0; i < revenuePerDay.length; i++) {
+                data.add(new XYChart.Data<>(firstDay.plusDays(i).format(DAY_FORMAT), revenuePerDay[i]));
+            }
+            revenueSeries.getData().setAll(data);
+            revenueFirstDay = firstDay;
+            return;
+        }
+
+        for (int i = 0; i < revenuePerDay.length; i++) {
+            XYChart.Data<String, Number> point = revenueSeries.getData().get(i);
+            if (point.getYValue().doubleValue() != revenuePerDay[i]) {
+                point.setYValue(revenuePerDay[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.adminpanel.zmauto.controller;
+
+import com.adminpanel.zmauto.service.PictureService;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import com.adminpanel.zmauto.util.BlobStore;
+import javafx.concurrent.Task;
+import javafx.geometry.Pos;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.TextField;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Form field for a vehicle or driver picture. A chosen file is stored as a blob in the
+ * background and the field is set to its blob ID; a small preview of the picture is shown beside it.
+ */
+final class PicturePicker extends HBox {
+
+    private static final double PREVIEW_SIZE = 48;
+
+    private final PictureService pictureService;
+    private final TextField pictureField = new TextField();
+    private final ImageView preview = new ImageView();
+
+    /**
+     * Constructor.
+     *
+     * @param picture The current picture, may be null
+     * @param pictureService The picture service
+     */
+    PicturePicker(String picture, PictureService pictureService) {
+        super(10);
+        this.pictureService = pictureService;
+        setAlignment(Pos.CENTER_LEFT);
+
+        pictureField.setPromptText("Picture");
+        if (picture != null) pictureField.setText(picture);
+        pictureField.textProperty().addListener((obs, oldValue, newValue) -> updatePreview());
+
+        Button chooseButton = new Button("Choose...");
+        chooseButton.setOnAction(event -> choose(chooseButton));
+
+        preview.setFitWidth(PREVIEW_SIZE);
+        preview.setFitHeight(PREVIEW_SIZE);
+        preview.setPreserveRatio(true);
+
+        getChildren().addAll(pictureField, chooseButton, preview);
+        updatePreview();
+    }
+
+    /**
+     * Get the picture to save.
+     *
+     * @return The blob ID, or a legacy URL or path typed in by hand
+     */
+    String getPicture() {
+        return pictureField.getText().trim();
+    }
+
+    private void choose(Button chooseButton) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Choose Picture");
+        chooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Images", "*.png", "*.jpg", "*.jpeg", "*.gif", "*.bmp"));
+        File file = chooser.showOpenDialog(getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        chooseButton.setDisable(true);
+        Task<String> task = new Task<>() {
+            @Override
+            protected String call() throws Exception {
+                return pictureService.importPicture(file.toPath());
+            }
+        };
+        task.setOnSucceeded(event -> {
+            chooseButton.setDisable(false);
+            pictureField.setText(task.getValue());
+        });
+        task.setOnFailed(event -> {
+            chooseButton.setDisable(false);
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText(null);
+            alert.setContentText("Error storing picture: " + task.getException().getMessage());
+            alert.showAndWait();
+        });
+        BackgroundTasks.execute(task);
+    }
+
+    /**
+     * Show the picture. A picture that is not cached locally yet is downloaded in the background,
+     * and the image is decoded in the background at preview size, not at its full resolution.
+     */
+    private void updatePreview() {
+        String picture = getPicture();
+        Path file;
+        try {
+            file = pictureService.getPictureFile(picture);
+        } catch (IOException e) {
+            file = null;
+        }
+        if (file != null || !BlobStore.isBlobId(picture)) {
+            showPreview(file);
+            return;
+        }
+
+        preview.setImage(null);
+        Task<Path> task = new Task<>() {
+            @Override
+            protected Path call() throws Exception {
+                return pictureService.fetchPictureFile(picture);
+            }
+        };
+        task.setOnSucceeded(event -> {
+            // The field may have changed while downloading
+            if (picture.equals(getPicture())) {
+                showPreview(task.getValue());
+            }
+        });
+        task.setOnFailed(event -> System.err.println("Error loading picture: " + task.getException().getMessage()));
+        BackgroundTasks.execute(task);
+    }
+
+    private void showPreview(Path file) {
+        preview.setImage(file == null ? null
+                : new Image(file.toUri().toString(), PREVIEW_SIZE * 2, PREVIEW_SIZE * 2, true, true, true));
+    }
+}
@@ -2,26 +2,32 @@ package com.adminpanel.zmauto.controller;
 
 import com.adminpanel.zmauto.model.Driver;
 import com.adminpanel.zmauto.model.Reservation;
+import com.adminpanel.zmauto.model.ReservationStatusChange;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
 import com.adminpanel.zmauto.model.User;
 import com.adminpanel.zmauto.model.Vehicle;
+import com.adminpanel.zmauto.service.Prefetcher;
 import com.adminpanel.zmauto.service.ReservationService;
+import com.adminpanel.zmauto.service.SnapshotService;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import com.adminpanel.zmauto.util.CancellationToken;
+import com.adminpanel.zmauto.util.LoadTracker;
 import javafx.beans.property.SimpleObjectProperty;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 import javafx.util.StringConverter;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -80,17 +86,25 @@ public class ReservationsController {
     @FXML
     private Button createButton;
 
+    @FXML
+    private Label staleLabel;
+
     private DashboardController dashboardController;
     private ReservationService reservationService;
+    private SnapshotService snapshotService;
+    private final LoadTracker loads = new LoadTracker();
     private ObservableList<Reservation> reservations;
+    private Long pendingSelectionId;
+    private TablePatcher<Reservation> tablePatcher;
 
     /**
      * Initialize the controller.
      */
     @FXML
     public void initialize() {
-        // Initialize the reservation service
+        // Initialize the services
         reservationService = new ReservationService();
+        snapshotService = new SnapshotService();
 
         // Initialize the status filter combo box
         statusFilterComboBox.setItems(FXCollections.observableArrayList(
@@ -98,66 +112,26 @@ public class ReservationsController {
         statusFilterComboBox.getSelectionModel().selectFirst();
 
         // Initialize the table columns
-        idColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
+        idColumn.setCellValueFactory(CellFactories.value(Reservation::getId));
 
-        userColumn.setCellValueFactory(cellData -> 
-                new SimpleStringProperty(cellData.getValue().getUser().getUsername()));
+        userColumn.setCellValueFactory(CellFactories.value(Reservation::getUsername));
+        vehicleColumn.setCellValueFactory(CellFactories.value(
+                reservation -> reservation.getVehicleMake() + " " + reservation.getVehicleModel()));
 
-        vehicleColumn.setCellValueFactory(cellData -> 
-                new SimpleStringProperty(cellData.getValue().getVehicle().getMake() + " " + 
-                        cellData.getValue().getVehicle().getModel()));
+        startDateColumn.setCellValueFactory(CellFactories.value(Reservation::getStartDate));
+        endDateColumn.setCellValueFactory(CellFactories.value(Reservation::getEndDate));
 
-        startDateColumn.setCellValueFactory(new PropertyValueFactory<>("startDate"));
-        endDateColumn.setCellValueFactory(new PropertyValueFactory<>("endDate"));
-
-        statusColumn.setCellValueFactory(new PropertyValueFactory<>("status"));
-        statusColumn.setCellFactory(column -> new TableCell<Reservation, String>() {
-            @Override
-            protected void updateItem(String item, boolean empty) {
-                super.updateItem(item, empty);
+        statusColumn.setCellValueFactory(CellFactories.value(Reservation::getStatus));
+        statusColumn.setCellFactory(CellFactories.styled(Map.of(
+                "PENDING", "status-pending",
+                "APPROVED", "status-approved",
+                "REJECTED", "status-rejected",
+                "CANCELLED", "status-cancelled")));
 
-                if (item == null || empty) {
-                    setText(null);
-                    setStyle("");
-                } else {
-                    setText(item);
-
-                    // Set style based on status
-                    switch (item) {
-                        case "PENDING":
-                            getStyleClass().add("status-pending");
-                            break;
-                        case "APPROVED":
-                            getStyleClass().add("status-approved");
-                            break;
-                        case "REJECTED":
-                            getStyleClass().add("status-rejected");
-                            break;
-                        case "CANCELLED":
-                            getStyleClass().add("status-cancelled");
-                            break;
-                    }
-                }
-            }
-        });
-
-        totalCostColumn.setCellValueFactory(new PropertyValueFactory<>("totalCost"));
-
-        createdAtColumn.setCellValueFactory(new PropertyValueFactory<>("createdAt"));
-        createdAtColumn.setCellFactory(column -> new TableCell<Reservation, LocalDateTime>() {
-            private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-
-            @Override
-            protected void updateItem(LocalDateTime item, boolean empty) {
-                super.updateItem(item, empty);
+        totalCostColumn.setCellValueFactory(CellFactories.value(Reservation::getTotalCost));
 
-                if (item == null || empty) {
-                    setText(null);
-                } else {
-                    setText(formatter.format(item));
-                }
-            }
-        });
+        createdAtColumn.setCellValueFactory(CellFactories.value(Reservation::getCreatedAt));
+        createdAtColumn.setCellFactory(CellFactories.text(CellFactories.DATE_TIME::format));
 
         // Add listener to status filter combo box
         statusFilterComboBox.getSelectionModel().selectedItemProperty().addListener(
@@ -165,7 +139,35 @@ public class ReservationsController {
 
         // Add listener to table selection
         reservationsTable.getSelectionModel().selectedItemProperty().addListener(
-                (observable, oldValue, newValue) -> updateButtonStates());
+                (observable, oldValue, newValue) -> {
+                    updateButtonStates();
+
+                    // Warm the details dialog of the selected reservation
+                    if (newValue != null) {
+                        Prefetcher.prefetchReservationDetails(newValue);
+                    }
+                });
+
+        // Patch rows as reservations change anywhere in the application
+        tablePatcher = new TablePatcher<>(reservationsTable, EntityType.RESERVATION, Reservation.class, Reservation::getId,
+                reservation -> matchesFilter(reservation, statusFilterComboBox.getValue(), searchField.getText().trim()),
+                (reservation, changes) -> {
+                    if (changes.containsKey("status")) {
+                        reservation.setStatus((String) changes.get("status"));
+                    }
+                    if (changes.containsKey("notes")) {
+                        reservation.setNotes((String) changes.get("notes"));
+                    }
+                },
+                reservationService::getReservationById);
+
+        // Show the last session's reservations until the fresh ones are loaded
+        List<Reservation> snapshot = snapshotService.loadReservations();
+        if (!snapshot.isEmpty()) {
+            reservations = FXCollections.observableArrayList(snapshot);
+            reservationsTable.setItems(reservations);
+            setStale(true);
+        }
 
         // Load reservations
         loadReservations();
@@ -180,6 +182,32 @@ public class ReservationsController {
         this.dashboardController = dashboardController;
     }
 
+    /**
+     * Release the view's resources when it is closed.
+     */
+    public void dispose() {
+        loads.cancel();
+        tablePatcher.dispose();
+    }
+
+    /**
+     * Select a reservation in the table and scroll it into view.
+     * 
+     * @param reservationId The reservation ID
+     */
+    public void selectReservation(Long reservationId) {
+        for (Reservation reservation : reservationsTable.getItems()) {
+            if (reservationId.equals(reservation.getId())) {
+                reservationsTable.getSelectionModel().select(reservation);
+                reservationsTable.scrollTo(reservation);
+                return;
+            }
+        }
+
+        // Not loaded yet; select it once the reservations arrive
+        pendingSelectionId = reservationId;
+    }
+
     /**
      * Handle search button click.
      * 
@@ -253,35 +281,103 @@ public class ReservationsController {
 
     /**
      * Load reservations based on the current filter and search criteria.
+     * The query runs in the background; the table keeps its current rows until it completes.
      */
     private void loadReservations() {
-        try {
-            List<Reservation> reservationList;
-            String statusFilter = statusFilterComboBox.getValue();
-            String searchText = searchField.getText().trim();
+        String statusFilter = statusFilterComboBox.getValue();
+        String searchText = searchField.getText().trim();
 
-            if (statusFilter.equals("All")) {
-                reservationList = reservationService.getAllReservations();
-            } else {
-                reservationList = reservationService.getReservationsByStatus(statusFilter);
+        CancellationToken token = loads.begin();
+        Task<List<Reservation>> task = new Task<>() {
+            @Override
+            protected List<Reservation> call() throws SQLException {
+                return token.call(() -> {
+                    List<Reservation> reservationList;
+
+                    if (statusFilter.equals("All")) {
+                        reservationList = Prefetcher.take(Prefetcher.View.RESERVATIONS, reservationService::getAllReservations);
+                    } else {
+                        reservationList = reservationService.getReservationsByStatus(statusFilter);
+                    }
+
+                    // Only the unfiltered view is worth showing on the next startup
+                    if (statusFilter.equals("All") && searchText.isEmpty()) {
+                        snapshotService.saveReservations(reservationList);
+                    }
+
+                    // Apply the status and search filters
+                    reservationList.removeIf(reservation -> !matchesFilter(reservation, statusFilter, searchText));
+
+                    return reservationList;
+                });
             }
+        };
 
-            // Apply search filter if provided
-            if (!searchText.isEmpty()) {
-                reservationList.removeIf(reservation -> 
-                        !reservation.getUser().getUsername().toLowerCase().contains(searchText.toLowerCase()) &&
-                        !reservation.getVehicle().getMake().toLowerCase().contains(searchText.toLowerCase()) &&
-                        !reservation.getVehicle().getModel().toLowerCase().contains(searchText.toLowerCase()));
+        task.setOnSucceeded(event -> {
+            if (!loads.isCurrent(token)) {
+                // A newer load replaced this one, or the view was closed
+                return;
             }
 
-            reservations = FXCollections.observableArrayList(reservationList);
+            reservations = FXCollections.observableArrayList(task.getValue());
             reservationsTable.setItems(reservations);
+            setStale(false);
+            Prefetcher.viewLoaded(Prefetcher.View.RESERVATIONS);
+
+            if (pendingSelectionId != null) {
+                Long reservationId = pendingSelectionId;
+                pendingSelectionId = null;
+                selectReservation(reservationId);
+            }
 
             updateButtonStates();
+        });
 
-        } catch (SQLException e) {
+        task.setOnFailed(event -> {
+            if (!loads.isCurrent(token)) {
+                // A newer load replaced this one, or the view was closed
+                return;
+            }
+
+            Throwable e = task.getException();
             showError("Error loading reservations: " + e.getMessage());
             e.printStackTrace();
+        });
+
+        BackgroundTasks.execute(task);
+    }
+
+    /**
+     * Check whether a reservation matches the given status filter and search text.
+     * 
+     * @param reservation The reservation
+     * @param statusFilter The selected status, or "All"
+     * @param searchText The search text, or an empty string
+     * @return true if the reservation should be shown, false otherwise
+     */
+    private boolean matchesFilter(Reservation reservation, String statusFilter, String searchText) {
+        if (!statusFilter.equals("All") && !statusFilter.equals(reservation.getStatus())) {
+            return false;
+        }
+
+        return searchText.isEmpty() ||
+                reservation.getUsername().toLowerCase().contains(searchText.toLowerCase()) ||
+                reservation.getVehicleMake().toLowerCase().contains(searchText.toLowerCase()) ||
+                reservation.getVehicleModel().toLowerCase().contains(searchText.toLowerCase());
+    }
+
+    /**
+     * Mark the table as showing saved data from the last session.
+     * 
+     * @param stale Whether the shown reservations may be out of date
+     */
+    private void setStale(boolean stale) {
+        staleLabel.setVisible(stale);
+        staleLabel.setManaged(stale);
+        if (stale) {
+            reservationsTable.getStyleClass().add("stale");
+        } else {
+            reservationsTable.getStyleClass().remove("stale");
         }
     }
 
@@ -313,21 +409,67 @@ public class ReservationsController {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle("Reservation Details");
         alert.setHeaderText("Reservation #" + reservation.getId());
+        alert.setContentText(formatDetails(reservation));
+
+        // Load the status history in the background and show it below the details
+        TextArea historyArea = new TextArea("Loading status history...");
+        historyArea.setEditable(false);
+        historyArea.setWrapText(true);
+        historyArea.setPrefRowCount(8);
+        alert.getDialogPane().setExpandableContent(historyArea);
+        alert.getDialogPane().setExpanded(true);
+
+        // The user, vehicle and driver are loaded on first access; load them with the history
+        Task<List<ReservationStatusChange>> historyTask = new Task<>() {
+            @Override
+            protected List<ReservationStatusChange> call() throws SQLException {
+                reservation.getUser();
+                reservation.getVehicle();
+                reservation.getDriver();
+                return Prefetcher.takeReservationHistory(reservation.getId(),
+                        () -> reservationService.getStatusHistory(reservation.getId()));
+            }
+        };
+        historyTask.setOnSucceeded(event -> {
+            alert.setContentText(formatDetails(reservation));
+            historyArea.setText(formatStatusHistory(historyTask.getValue()));
+        });
+        historyTask.setOnFailed(event -> historyArea.setText(
+                "Error loading status history: " + historyTask.getException().getMessage()));
+        BackgroundTasks.execute(historyTask);
+
+        alert.showAndWait();
+    }
+
+    /**
+     * Format a reservation's details for display. The user's full name and the driver's rating
+     * are included once the associations are loaded.
+     * 
+     * @param reservation The reservation
+     * @return The formatted details
+     */
+    private String formatDetails(Reservation reservation) {
+        boolean loaded = reservation.isAssociationsLoaded();
 
         StringBuilder content = new StringBuilder();
-        content.append("User: ").append(reservation.getUser().getUsername())
-               .append(" (").append(reservation.getUser().getFullName()).append(")\n");
-        content.append("Vehicle: ").append(reservation.getVehicle().getMake())
-               .append(" ").append(reservation.getVehicle().getModel())
-               .append(" (").append(reservation.getVehicle().getLicensePlate()).append(")\n");
+        content.append("User: ").append(reservation.getUsername());
+        if (loaded && reservation.getUser() != null) {
+            content.append(" (").append(reservation.getUser().getFullName()).append(")");
+        }
+        content.append("\n");
+        content.append("Vehicle: ").append(reservation.getVehicleMake())
+               .append(" ").append(reservation.getVehicleModel())
+               .append(" (").append(reservation.getLicensePlate()).append(")\n");
 
         // Add driver information if a driver is needed
         if (reservation.getDriverNeeded() != null && reservation.getDriverNeeded()) {
             content.append("Driver Needed: Yes\n");
-            if (reservation.getDriver() != null) {
-                content.append("Driver: ").append(reservation.getDriver().getFirstName())
-                       .append(" ").append(reservation.getDriver().getLastName())
-                       .append(" (Rating: ").append(reservation.getDriver().getRating()).append(")\n");
+            if (reservation.getDriverId() != null) {
+                content.append("Driver: ").append(reservation.getDriverName());
+                if (loaded && reservation.getDriver() != null) {
+                    content.append(" (Rating: ").append(reservation.getDriver().getRating()).append(")");
+                }
+                content.append("\n");
             } else {
                 content.append("Driver: Not assigned\n");
             }
@@ -339,18 +481,58 @@ public class ReservationsController {
         content.append("End Date: ").append(reservation.getEndDate()).append("\n");
         content.append("Status: ").append(reservation.getStatus()).append("\n");
         content.append("Total Cost: $").append(String.format("%.2f", reservation.getTotalCost())).append("\n");
-        content.append("Created At: ").append(reservation.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))).append("\n");
+        content.append("Created At: ").append(reservation.getCreatedAt().format(CellFactories.DATE_TIME)).append("\n");
 
         if (reservation.getUpdatedAt() != null) {
-            content.append("Updated At: ").append(reservation.getUpdatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))).append("\n");
+            content.append("Updated At: ").append(reservation.getUpdatedAt().format(CellFactories.DATE_TIME)).append("\n");
         }
 
         if (reservation.getNotes() != null && !reservation.getNotes().isEmpty()) {
             content.append("\nNotes: ").append(reservation.getNotes());
         }
 
-        alert.setContentText(content.toString());
-        alert.showAndWait();
+        return content.toString();
+    }
+
+    /**
+     * Format a reservation's status history for display, one change per line.
+     * 
+     * @param history The status changes, oldest first
+     * @return The formatted history
+     */
+    private String formatStatusHistory(List<ReservationStatusChange> history) {
+        if (history.isEmpty()) {
+            return "No status changes recorded.";
+        }
+
+        StringBuilder text = new StringBuilder("Status History:\n");
+        for (ReservationStatusChange change : history) {
+            text.append(CellFactories.DATE_TIME.format(change.getChangedAt())).append("  ");
+            if (change.getFromStatus() != null) {
+                text.append(change.getFromStatus()).append(" -> ");
+            }
+            text.append(change.getToStatus());
+            if (change.getChangedBy() != null) {
+                text.append(" by ").append(change.getChangedBy());
+            }
+            if (change.getNotes() != null && !change.getNotes().isEmpty()) {
+                text.append(": ").append(change.getNotes());
+            }
+            text.append("\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Get the username of the administrator using the dashboard.
+     * 
+     * @return The username, or null if no user is set
+     */
+    private String getCurrentUsername() {
+        if (dashboardController == null || dashboardController.getCurrentUser() == null) {
+            return null;
+        }
+        return dashboardController.getCurrentUser().getUsername();
     }
 
     /**
@@ -368,13 +550,13 @@ public class ReservationsController {
 
         result.ifPresent(notes -> {
             try {
-                boolean success = reservationService.approveReservation(reservation.getId(), notes);
+                boolean success = reservationService.approveReservation(reservation.getId(), notes, getCurrentUsername());
 
                 if (success) {
                     showInfo("Reservation approved successfully.");
-                    loadReservations();
                 } else {
-                    showError("Failed to approve reservation.");
+                    showError("Failed to approve reservation. It is no longer pending.");
+                    loadReservations();
                 }
             } catch (SQLException e) {
                 showError("Error approving reservation: " + e.getMessage());
@@ -398,13 +580,13 @@ public class ReservationsController {
 
         result.ifPresent(notes -> {
             try {
-                boolean success = reservationService.rejectReservation(reservation.getId(), notes);
+                boolean success = reservationService.rejectReservation(reservation.getId(), notes, getCurrentUsername());
 
                 if (success) {
                     showInfo("Reservation rejected successfully.");
-                    loadReservations();
                 } else {
-                    showError("Failed to reject reservation.");
+                    showError("Failed to reject reservation. It is no longer pending.");
+                    loadReservations();
                 }
             } catch (SQLException e) {
                 showError("Error rejecting reservation: " + e.getMessage());
@@ -613,7 +795,6 @@ public class ReservationsController {
 
                         reservationService.createReservation(newReservation);
                         showInfo("Reservation created successfully.");
-                        loadReservations();
 
                         return newReservation;
 
@@ -646,23 +827,11 @@ public class ReservationsController {
      */
     private double calculateTotalCost(Vehicle vehicle, boolean driverNeeded, com.adminpanel.zmauto.model.Driver driver, 
                                      LocalDate startDate, LocalDate endDate) {
-        if (vehicle == null || startDate == null || endDate == null) {
+        if (vehicle == null) {
             return 0.0;
         }
-
-        // Calculate number of days
-        long days = java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate) + 1; // Include both start and end days
-
-        // Calculate vehicle cost
-        double vehicleCost = vehicle.getDailyRate() * days;
-
-        // Calculate driver cost if needed
-        double driverCost = 0.0;
-        if (driverNeeded && driver != null && driver.getDailyWage() != null) {
-            driverCost = driver.getDailyWage() * days;
-        }
-
-        return vehicleCost + driverCost;
+        return ReservationService.calculateTotalCost(vehicle.getDailyRate(), driverNeeded,
+                driver != null ? driver.getDailyWage() : null, startDate, endDate);
     }
 
     // Reference to the total cost label
@@ -0,0 +1,224 @@
+package com.adminpanel.zmauto.controller;
+
+import com.adminpanel.zmauto.model.RevenueLine;
+import com.adminpanel.zmauto.model.RevenueReport;
+import com.adminpanel.zmauto.service.PaymentService;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import com.adminpanel.zmauto.util.CancellationToken;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.DbScheduler;
+import com.adminpanel.zmauto.util.DbScheduler.Lane;
+import com.adminpanel.zmauto.util.LoadTracker;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Controller for the revenue report view.
+ */
+public class RevenueController {
+
+    @FXML
+    private DatePicker startDatePicker;
+
+    @FXML
+    private DatePicker endDatePicker;
+
+    @FXML
+    private Button computeButton;
+
+    @FXML
+    private Button exportButton;
+
+    @FXML
+    private Label summaryLabel;
+
+    @FXML
+    private TableView<RevenueLine> dayTable;
+
+    @FXML
+    private TableView<RevenueLine> vehicleTable;
+
+    @FXML
+    private TableView<RevenueLine> driverTable;
+
+    @FXML
+    private TableView<RevenueLine> methodTable;
+
+    private PaymentService paymentService;
+    private final LoadTracker loads = new LoadTracker(DatabaseUtil.getIntProperty("query.reportTimeoutSeconds", 300));
+    private RevenueReport currentReport;
+
+    /**
+     * Initialize the controller.
+     */
+    @FXML
+    public void initialize() {
+        paymentService = new PaymentService();
+
+        // Default to the last 30 days
+        endDatePicker.setValue(LocalDate.now());
+        startDatePicker.setValue(LocalDate.now().minusDays(29));
+
+        configureTable(dayTable, "Day");
+        configureTable(vehicleTable, "Vehicle");
+        configureTable(driverTable, "Driver");
+        configureTable(methodTable, "Method");
+        exportButton.setDisable(true);
+
+        loadReport();
+    }
+
+    /**
+     * Release the view's resources when it is closed.
+     */
+    public void dispose() {
+        loads.cancel();
+    }
+
+    /**
+     * Handle compute button click.
+     *
+     * @param event The action event
+     */
+    @FXML
+    protected void onComputeButtonClick(ActionEvent event) {
+        loadReport();
+    }
+
+    /**
+     * Handle export button click.
+     *
+     * @param event The action event
+     */
+    @FXML
+    protected void onExportButtonClick(ActionEvent event) {
+        if (currentReport == null) {
+            return;
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Revenue Report");
+        fileChooser.setInitialFileName("revenue-" + currentReport.getStartDate() + "-" + currentReport.getEndDate() + ".csv");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = fileChooser.showSaveDialog(exportButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            paymentService.exportRevenueReport(currentReport, writer);
+        } catch (IOException e) {
+            showError("Error exporting revenue report: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compute the revenue report for the selected period in the background.
+     */
+    private void loadReport() {
+        LocalDate startDate = startDatePicker.getValue();
+        LocalDate endDate = endDatePicker.getValue();
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            showError("Please select a valid period.");
+            return;
+        }
+
+        computeButton.setDisable(true);
+        summaryLabel.setText("Computing...");
+
+        CancellationToken token = loads.begin();
+        Task<RevenueReport> task = new Task<>() {
+            @Override
+            protected RevenueReport call() throws SQLException {
+                // A full pass over the payments; queue behind other bulk work instead of crowding out clicks
+                return token.call(() ->
+                        DbScheduler.call(Lane.BULK, () -> paymentService.getRevenueReport(startDate, endDate)));
+            }
+        };
+
+        task.setOnSucceeded(event -> {
+            if (!loads.isCurrent(token)) {
+                // A newer load replaced this one, or the view was closed
+                return;
+            }
+
+            currentReport = task.getValue();
+            RevenueLine total = currentReport.getTotal();
+            summaryLabel.setText(String.format("%d completed payments, $%.2f revenue ($%.2f average)",
+                    total.getPaymentCount(), total.getAmount(), total.getAverageAmount()));
+            dayTable.setItems(FXCollections.observableArrayList(currentReport.getByDay()));
+            vehicleTable.setItems(FXCollections.observableArrayList(currentReport.getByVehicle()));
+            driverTable.setItems(FXCollections.observableArrayList(currentReport.getByDriver()));
+            methodTable.setItems(FXCollections.observableArrayList(currentReport.getByMethod()));
+            computeButton.setDisable(false);
+            exportButton.setDisable(false);
+        });
+
+        task.setOnFailed(event -> {
+            if (!loads.isCurrent(token)) {
+                // A newer load replaced this one, or the view was closed
+                return;
+            }
+
+            Throwable e = task.getException();
+            summaryLabel.setText("");
+            computeButton.setDisable(false);
+            showError("Error computing revenue: " + e.getMessage());
+            e.printStackTrace();
+        });
+
+        BackgroundTasks.execute(task);
+    }
+
+    /**
+     * Add the label, payment count, amount and average columns to a breakdown table.
+     */
+    private static void configureTable(TableView<RevenueLine> table, String labelTitle) {
+        TableColumn<RevenueLine, String> labelColumn = new TableColumn<>(labelTitle);
+        labelColumn.setCellValueFactory(CellFactories.value(RevenueLine::getLabel));
+        labelColumn.setPrefWidth(250);
+
+        TableColumn<RevenueLine, Long> countColumn = new TableColumn<>("Payments");
+        countColumn.setCellValueFactory(CellFactories.value(RevenueLine::getPaymentCount));
+        countColumn.setPrefWidth(100);
+
+        TableColumn<RevenueLine, Double> amountColumn = new TableColumn<>("Revenue");
+        amountColumn.setCellValueFactory(CellFactories.value(RevenueLine::getAmount));
+        amountColumn.setCellFactory(CellFactories.text(CellFactories::currency));
+        amountColumn.setPrefWidth(120);
+
+        TableColumn<RevenueLine, Double> averageColumn = new TableColumn<>("Average");
+        averageColumn.setCellValueFactory(CellFactories.value(RevenueLine::getAverageAmount));
+        averageColumn.setCellFactory(CellFactories.text(CellFactories::currency));
+        averageColumn.setPrefWidth(120);
+
+        table.getColumns().setAll(List.of(labelColumn, countColumn, amountColumn, averageColumn));
+    }
+
+    /**
+     * Show an error dialog.
+     *
+     * @param message The error message to display
+     */
+    private void showError(String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}
@@ -0,0 +1,194 @@
+package com.adminpanel.zmauto.controller;
+
+import com.adminpanel.zmauto.model.ChangeEvent;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
+import com.adminpanel.zmauto.service.DomainEventBus;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.scene.control.TableView;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the rows of a table in step with change events published by the services.
+ * Only the affected rows are patched; events arriving in a burst are combined per entity
+ * and applied together on the next FX pulse.
+ *
+ * @param <T> The row type
+ */
+class TablePatcher<T> {
+
+    /**
+     * Loads a single row by ID.
+     */
+    interface RowLoader<T> {
+        T load(Long id) throws SQLException;
+    }
+
+    private final TableView<T> table;
+    private final EntityType entityType;
+    private final Class<T> rowType;
+    private final Function<T, Long> idGetter;
+    private final Predicate<T> filter;
+    private final BiConsumer<T, Map<String, Object>> fieldUpdater;
+    private final RowLoader<T> rowLoader;
+    private final Runnable unsubscribe;
+
+    private final Map<Long, ChangeEvent> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+
+    /**
+     * Create a patcher and subscribe it to change events.
+     *
+     * @param table The table to patch
+     * @param entityType The entity type shown in the table
+     * @param rowType The row class
+     * @param idGetter Gets the ID of a row
+     * @param filter Whether a row belongs in the table under the current filter
+     * @param fieldUpdater Applies changed field values to a row
+     * @param rowLoader Loads a row that changed but is not shown yet
+     */
+    TablePatcher(TableView<T> table, EntityType entityType, Class<T> rowType, Function<T, Long> idGetter,
+                 Predicate<T> filter, BiConsumer<T, Map<String, Object>> fieldUpdater, RowLoader<T> rowLoader) {
+        this.table = table;
+        this.entityType = entityType;
+        this.rowType = rowType;
+        this.idGetter = idGetter;
+        this.filter = filter;
+        this.fieldUpdater = fieldUpdater;
+        this.rowLoader = rowLoader;
+        this.unsubscribe = DomainEventBus.subscribe(this::onChange);
+    }
+
+    /**
+     * Stop receiving change events.
+     */
+    void dispose() {
+        unsubscribe.run();
+    }
+
+    private void onChange(ChangeEvent event) {
+        if (event.getEntityType() != entityType) {
+            return;
+        }
+
+        synchronized (pending) {
+            pending.merge(event.getId(), event, ChangeEvent::merge);
+            if (!scheduled) {
+                scheduled = true;
+                Platform.runLater(this::applyPending);
+            }
+        }
+    }
+
+    private void applyPending() {
+        List<ChangeEvent> events;
+        synchronized (pending) {
+            events = new ArrayList<>(pending.values());
+            pending.clear();
+            scheduled = false;
+        }
+
+        boolean changedInPlace = false;
+        for (ChangeEvent event : events) {
+            changedInPlace |= apply(event);
+        }
+
+        // Rows updated in place don't notify the table on their own
+        if (changedInPlace) {
+            table.refresh();
+        }
+    }
+
+    /**
+     * Apply a change event to the table rows.
+     *
+     * @param event The change event
+     * @return true if an existing row object was modified in place
+     */
+    private boolean apply(ChangeEvent event) {
+        ObservableList<T> rows = table.getItems();
+        int index = indexOf(rows, event.getId());
+
+        if (event.getKind() == ChangeEvent.Kind.DELETED) {
+            if (index >= 0) {
+                rows.remove(index);
+            }
+            return false;
+        }
+
+        T row;
+        boolean inPlace = false;
+        if (rowType.isInstance(event.getEntity())) {
+            row = rowType.cast(event.getEntity());
+        } else if (index >= 0) {
+            row = rows.get(index);
+            inPlace = true;
+        } else {
+            // Not shown yet; it may belong in the table after this change
+            loadRow(event.getId());
+            return false;
+        }
+
+        if (!event.getChanges().isEmpty()) {
+            fieldUpdater.accept(row, event.getChanges());
+        }
+
+        if (!filter.test(row)) {
+            if (index >= 0) {
+                rows.remove(index);
+            }
+            return false;
+        }
+
+        if (inPlace) {
+            return true;
+        }
+        if (index >= 0) {
+            rows.set(index, row);
+        } else {
+            rows.add(row);
+        }
+        return false;
+    }
+
+    private void loadRow(Long id) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws SQLException {
+                return rowLoader.load(id);
+            }
+        };
+
+        task.setOnSucceeded(event -> {
+            T row = task.getValue();
+            if (row != null && filter.test(row) && indexOf(table.getItems(), id) < 0) {
+                table.getItems().add(row);
+            }
+        });
+
+        task.setOnFailed(event -> {
+            System.err.println("Error loading changed row " + id + ": " + task.getException().getMessage());
+        });
+
+        BackgroundTasks.execute(task);
+    }
+
+    private int indexOf(List<T> rows, Long id) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (id.equals(idGetter.apply(rows.get(i)))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,15 +1,20 @@
 package com.adminpanel.zmauto.controller;
 
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
 import com.adminpanel.zmauto.model.User;
+import com.adminpanel.zmauto.service.Prefetcher;
+import com.adminpanel.zmauto.service.SnapshotService;
 import com.adminpanel.zmauto.service.UserService;
-import javafx.beans.property.SimpleStringProperty;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import com.adminpanel.zmauto.util.CancellationToken;
+import com.adminpanel.zmauto.util.LoadTracker;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 import java.time.LocalDate;
 import java.time.ZoneId;
@@ -82,9 +87,16 @@ public class UsersController {
     @FXML
     private Button deleteButton;
 
+    @FXML
+    private Label staleLabel;
+
     private DashboardController dashboardController;
     private UserService userService;
+    private SnapshotService snapshotService;
+    private final LoadTracker loads = new LoadTracker();
     private ObservableList<User> users;
+    private Long pendingSelectionId;
+    private TablePatcher<User> tablePatcher;
 
     /**
      * Initialize the controller.
@@ -93,6 +105,7 @@ public class UsersController {
     public void initialize() {
         // Initialize the users service
         userService = new UserService();
+        snapshotService = new SnapshotService();
 
         // Initialize the role filter combo box
         roleFilterComboBox.setItems(FXCollections.observableArrayList(
@@ -100,40 +113,18 @@ public class UsersController {
         roleFilterComboBox.getSelectionModel().selectFirst();
 
         // Initialize the table columns
-        idColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
-        firstNameColumn.setCellValueFactory(new PropertyValueFactory<>("firstName"));
-        lastNameColumn.setCellValueFactory(new PropertyValueFactory<>("lastName"));
-        emailColumn.setCellValueFactory(new PropertyValueFactory<>("email"));
-        phoneNumberColumn.setCellValueFactory(new PropertyValueFactory<>("phoneNumber"));
-        addressColumn.setCellValueFactory(new PropertyValueFactory<>("address"));
-
-        // Format birthday as a date string
-        birthdayColumn.setCellValueFactory(cellData -> {
-            if (cellData.getValue().getBirthday() != null) {
-                return new SimpleStringProperty(cellData.getValue().getBirthday().toString());
-            } else {
-                return new SimpleStringProperty("");
-            }
-        });
-
-        roleColumn.setCellValueFactory(new PropertyValueFactory<>("role"));
-
-        // Format created_at and updated_at as date strings
-        createdAtColumn.setCellValueFactory(cellData -> {
-            if (cellData.getValue().getCreatedAt() != null) {
-                return new SimpleStringProperty(cellData.getValue().getCreatedAt().toString());
-            } else {
-                return new SimpleStringProperty("");
-            }
-        });
-
-        updatedAtColumn.setCellValueFactory(cellData -> {
-            if (cellData.getValue().getUpdatedAt() != null) {
-                return new SimpleStringProperty(cellData.getValue().getUpdatedAt().toString());
-            } else {
-                return new SimpleStringProperty("");
-            }
-        });
+        idColumn.setCellValueFactory(CellFactories.value(User::getId));
+        firstNameColumn.setCellValueFactory(CellFactories.value(User::getFirstName));
+        lastNameColumn.setCellValueFactory(CellFactories.value(User::getLastName));
+        emailColumn.setCellValueFactory(CellFactories.value(User::getEmail));
+        phoneNumberColumn.setCellValueFactory(CellFactories.value(User::getPhoneNumber));
+        addressColumn.setCellValueFactory(CellFactories.value(User::getAddress));
+
+        // Format birthday, created_at and updated_at as date strings
+        birthdayColumn.setCellValueFactory(CellFactories.value(user -> toText(user.getBirthday())));
+        roleColumn.setCellValueFactory(CellFactories.value(User::getRole));
+        createdAtColumn.setCellValueFactory(CellFactories.value(user -> toText(user.getCreatedAt())));
+        updatedAtColumn.setCellValueFactory(CellFactories.value(user -> toText(user.getUpdatedAt())));
 
         // Add listener to role filter combo box
         roleFilterComboBox.getSelectionModel().selectedItemProperty().addListener(
@@ -143,6 +134,22 @@ public class UsersController {
         usersTable.getSelectionModel().selectedItemProperty().addListener(
                 (observable, oldValue, newValue) -> updateButtonStates());
 
+        // Patch rows as users change anywhere in the application
+        tablePatcher = new TablePatcher<>(usersTable, EntityType.USER, User.class, User::getId,
+                user -> matchesFilter(user, roleFilterComboBox.getValue(), searchField.getText().trim()),
+                (user, changes) -> {
+                    // Users are always published as a whole
+                },
+                userService::getUserById);
+
+        // Show the last session's users until the fresh ones are loaded
+        List<User> snapshot = snapshotService.loadUsers();
+        if (!snapshot.isEmpty()) {
+            users = FXCollections.observableArrayList(snapshot);
+            usersTable.setItems(users);
+            setStale(true);
+        }
+
         // Load users
         loadUsers();
     }
@@ -156,6 +163,32 @@ public class UsersController {
         this.dashboardController = dashboardController;
     }
 
+    /**
+     * Release the view's resources when it is closed.
+     */
+    public void dispose() {
+        loads.cancel();
+        tablePatcher.dispose();
+    }
+
+    /**
+     * Select a user in the table and scroll it into view.
+     * 
+     * @param userId The user ID
+     */
+    public void selectUser(Long userId) {
+        for (User user : usersTable.getItems()) {
+            if (userId.equals(user.getId())) {
+                usersTable.getSelectionModel().select(user);
+                usersTable.scrollTo(user);
+                return;
+            }
+        }
+
+        // Not loaded yet; select it once the users arrive
+        pendingSelectionId = userId;
+    }
+
     /**
      * Handle search button click.
      * 
@@ -229,34 +262,97 @@ public class UsersController {
 
     /**
      * Load users based on the current filter and search criteria.
+     * The query runs in the background; the table keeps its current rows until it completes.
      */
     private void loadUsers() {
-        try {
-            List<User> userList = userService.getAllUsers();
-            String roleFilter = roleFilterComboBox.getValue();
-            String searchText = searchField.getText().trim();
-
-            // Apply role filter if not "All"
-            if (!roleFilter.equals("All")) {
-                userList.removeIf(user -> !user.getRole().equals(roleFilter));
+        String roleFilter = roleFilterComboBox.getValue();
+        String searchText = searchField.getText().trim();
+
+        CancellationToken token = loads.begin();
+        Task<List<User>> task = new Task<>() {
+            @Override
+            protected List<User> call() throws SQLException {
+                return token.call(() -> {
+                    List<User> userList = Prefetcher.take(Prefetcher.View.USERS, userService::getAllUsers);
+
+                    // Only the unfiltered view is worth showing on the next startup
+                    if (roleFilter.equals("All") && searchText.isEmpty()) {
+                        snapshotService.saveUsers(userList);
+                    }
+
+                    // Apply the role and search filters
+                    userList.removeIf(user -> !matchesFilter(user, roleFilter, searchText));
+
+                    return userList;
+                });
             }
+        };
 
-            // Apply search filter if provided
-            if (!searchText.isEmpty()) {
-                userList.removeIf(user -> 
-                        !user.getEmail().toLowerCase().contains(searchText.toLowerCase()) &&
-                        !user.getFirstName().toLowerCase().contains(searchText.toLowerCase()) &&
-                        !user.getLastName().toLowerCase().contains(searchText.toLowerCase()));
+        task.setOnSucceeded(event -> {
+            if (!loads.isCurrent(token)) {
+                // A newer load replaced this one, or the view was closed
+                return;
             }
 
-            users = FXCollections.observableArrayList(userList);
+            users = FXCollections.observableArrayList(task.getValue());
             usersTable.setItems(users);
+            setStale(false);
+            Prefetcher.viewLoaded(Prefetcher.View.USERS);
+
+            if (pendingSelectionId != null) {
+                Long userId = pendingSelectionId;
+                pendingSelectionId = null;
+                selectUser(userId);
+            }
 
             updateButtonStates();
+        });
+
+        task.setOnFailed(event -> {
+            if (!loads.isCurrent(token)) {
+                // A newer load replaced this one, or the view was closed
+                return;
+            }
 
-        } catch (SQLException e) {
+            Throwable e = task.getException();
             showError("Error loading users: " + e.getMessage());
             e.printStackTrace();
+        });
+
+        BackgroundTasks.execute(task);
+    }
+
+    /**
+     * Check whether a user matches the given role filter and search text.
+     * 
+     * @param user The user
+     * @param roleFilter The selected role, or "All"
+     * @param searchText The search text, or an empty string
+     * @return true if the user should be shown, false otherwise
+     */
+    private boolean matchesFilter(User user, String roleFilter, String searchText) {
+        if (!roleFilter.equals("All") && !roleFilter.equals(user.getRole())) {
+            return false;
+        }
+
+        return searchText.isEmpty() ||
+                user.getEmail().toLowerCase().contains(searchText.toLowerCase()) ||
+                user.getFirstName().toLowerCase().contains(searchText.toLowerCase()) ||
+                user.getLastName().toLowerCase().contains(searchText.toLowerCase());
+    }
+
+    /**
+     * Mark the table as showing saved data from the last session.
+     * 
+     * @param stale Whether the shown users may be out of date
+     */
+    private void setStale(boolean stale) {
+        staleLabel.setVisible(stale);
+        staleLabel.setManaged(stale);
+        if (stale) {
+            usersTable.getStyleClass().add("stale");
+        } else {
+            usersTable.getStyleClass().remove("stale");
         }
     }
 
@@ -412,7 +508,6 @@ public class UsersController {
 
                         userService.createUser(newUser);
                         showInfo("User added successfully.");
-                        loadUsers();
 
                     } else {
                         // Convert LocalDate to Date for birthday
@@ -439,7 +534,6 @@ public class UsersController {
                         }
 
                         showInfo("User updated successfully.");
-                        loadUsers();
                     }
 
                     return user;
@@ -563,7 +657,6 @@ public class UsersController {
 
                 if (success) {
                     showInfo("User deleted successfully.");
-                    loadUsers();
                 } else {
                     showError("Failed to delete users.");
                 }
@@ -587,6 +680,16 @@ public class UsersController {
         alert.showAndWait();
     }
 
+    /**
+     * Format a date for the table.
+     * 
+     * @param value The date, may be null
+     * @return The date as text, or an empty string
+     */
+    private static String toText(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
     /**
      * Show an error dialog.
      * 
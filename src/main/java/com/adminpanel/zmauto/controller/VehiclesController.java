@@ -1,22 +1,29 @@
 package com.adminpanel.zmauto.controller;
 
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
 import com.adminpanel.zmauto.model.Vehicle;
+import com.adminpanel.zmauto.service.PictureService;
+import com.adminpanel.zmauto.service.Prefetcher;
+import com.adminpanel.zmauto.service.SnapshotService;
 import com.adminpanel.zmauto.service.VehicleService;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import com.adminpanel.zmauto.util.CancellationToken;
+import com.adminpanel.zmauto.util.LoadTracker;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 import javafx.util.StringConverter;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -72,9 +79,17 @@ public class VehiclesController {
     @FXML
     private Button deleteButton;
 
+    @FXML
+    private Label staleLabel;
+
     private DashboardController dashboardController;
     private VehicleService vehicleService;
+    private SnapshotService snapshotService;
+    private PictureService pictureService;
+    private final LoadTracker loads = new LoadTracker();
     private ObservableList<Vehicle> vehicles;
+    private Long pendingSelectionId;
+    private TablePatcher<Vehicle> tablePatcher;
 
     /**
      * Initialize the controller.
@@ -83,6 +98,8 @@ public class VehiclesController {
     public void initialize() {
         // Initialize the vehicle service
         vehicleService = new VehicleService();
+        snapshotService = new SnapshotService();
+        pictureService = new PictureService();
 
         // Initialize the status filter combo box
         statusFilterComboBox.setItems(FXCollections.observableArrayList(
@@ -90,54 +107,21 @@ public class VehiclesController {
         statusFilterComboBox.getSelectionModel().selectFirst();
 
         // Initialize the table columns
-        idColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
-        makeColumn.setCellValueFactory(new PropertyValueFactory<>("make"));
-        modelColumn.setCellValueFactory(new PropertyValueFactory<>("model"));
-        yearColumn.setCellValueFactory(new PropertyValueFactory<>("year"));
-        licensePlateColumn.setCellValueFactory(new PropertyValueFactory<>("licensePlate"));
-        colorColumn.setCellValueFactory(new PropertyValueFactory<>("color"));
-
-        statusColumn.setCellValueFactory(new PropertyValueFactory<>("status"));
-        statusColumn.setCellFactory(column -> new TableCell<Vehicle, String>() {
-            @Override
-            protected void updateItem(String item, boolean empty) {
-                super.updateItem(item, empty);
-
-                if (item == null || empty) {
-                    setText(null);
-                    setStyle("");
-                } else {
-                    setText(item);
-
-                    // Set style based on status
-                    switch (item) {
-                        case "AVAILABLE":
-                            getStyleClass().add("status-available");
-                            break;
-                        case "RESERVED":
-                            getStyleClass().add("status-reserved");
-                            break;
-                        case "MAINTENANCE":
-                            getStyleClass().add("status-maintenance");
-                            break;
-                    }
-                }
-            }
-        });
-
-        dailyRateColumn.setCellValueFactory(new PropertyValueFactory<>("dailyRate"));
-        dailyRateColumn.setCellFactory(column -> new TableCell<Vehicle, Double>() {
-            @Override
-            protected void updateItem(Double item, boolean empty) {
-                super.updateItem(item, empty);
-
-                if (item == null || empty) {
-                    setText(null);
-                } else {
-                    setText(String.format("$%.2f", item));
-                }
-            }
-        });
+        idColumn.setCellValueFactory(CellFactories.value(Vehicle::getId));
+        makeColumn.setCellValueFactory(CellFactories.value(Vehicle::getMake));
+        modelColumn.setCellValueFactory(CellFactories.value(Vehicle::getModel));
+        yearColumn.setCellValueFactory(CellFactories.value(Vehicle::getYear));
+        licensePlateColumn.setCellValueFactory(CellFactories.value(Vehicle::getLicensePlate));
+        colorColumn.setCellValueFactory(CellFactories.value(Vehicle::getColor));
+
+        statusColumn.setCellValueFactory(CellFactories.value(Vehicle::getStatus));
+        statusColumn.setCellFactory(CellFactories.styled(Map.of(
+                "AVAILABLE", "status-available",
+                "RESERVED", "status-reserved",
+                "MAINTENANCE", "status-maintenance")));
+
+        dailyRateColumn.setCellValueFactory(CellFactories.value(Vehicle::getDailyRate));
+        dailyRateColumn.setCellFactory(CellFactories.text(CellFactories::currency));
 
         // Add listener to status filter combo box
         statusFilterComboBox.getSelectionModel().selectedItemProperty().addListener(
@@ -147,6 +131,24 @@ public class VehiclesController {
         vehiclesTable.getSelectionModel().selectedItemProperty().addListener(
                 (observable, oldValue, newValue) -> updateButtonStates());
 
+        // Patch rows as vehicles change anywhere in the application
+        tablePatcher = new TablePatcher<>(vehiclesTable, EntityType.VEHICLE, Vehicle.class, Vehicle::getId,
+                vehicle -> matchesFilter(vehicle, statusFilterComboBox.getValue(), searchField.getText().trim()),
+                (vehicle, changes) -> {
+                    if (changes.containsKey("status")) {
+                        vehicle.setStatus((String) changes.get("status"));
+                    }
+                },
+                vehicleService::getVehicleById);
+
+        // Show the last session's vehicles until the fresh ones are loaded
+        List<Vehicle> snapshot = snapshotService.loadVehicles();
+        if (!snapshot.isEmpty()) {
+            vehicles = FXCollections.observableArrayList(snapshot);
+            vehiclesTable.setItems(vehicles);
+            setStale(true);
+        }
+
         // Load vehicles
         loadVehicles();
     }
@@ -160,6 +162,32 @@ public class VehiclesController {
         this.dashboardController = dashboardController;
     }
 
+    /**
+     * Release the view's resources when it is closed.
+     */
+    public void dispose() {
+        loads.cancel();
+        tablePatcher.dispose();
+    }
+
+    /**
+     * Select a vehicle in the table and scroll it into view.
+     * 
+     * @param vehicleId The vehicle ID
+     */
+    public void selectVehicle(Long vehicleId) {
+        for (Vehicle vehicle : vehiclesTable.getItems()) {
+            if (vehicleId.equals(vehicle.getId())) {
+                vehiclesTable.getSelectionModel().select(vehicle);
+                vehiclesTable.scrollTo(vehicle);
+                return;
+            }
+        }
+
+        // Not loaded yet; select it once the vehicles arrive
+        pendingSelectionId = vehicleId;
+    }
+
     /**
      * Handle search button click.
      * 
@@ -220,37 +248,97 @@ public class VehiclesController {
 
     /**
      * Load vehicles based on the current filter and search criteria.
+     * The query runs in the background; the table keeps its current rows until it completes.
      */
     private void loadVehicles() {
-        try {
-            List<Vehicle> vehicleList;
-            String statusFilter = statusFilterComboBox.getValue();
-            String searchText = searchField.getText().trim();
-
-            if (statusFilter.equals("All")) {
-                vehicleList = vehicleService.getAllVehicles();
-            } else {
-                // Filter by status
-                vehicleList = vehicleService.getAllVehicles();
-                vehicleList.removeIf(vehicle -> !vehicle.getStatus().equals(statusFilter));
+        String statusFilter = statusFilterComboBox.getValue();
+        String searchText = searchField.getText().trim();
+
+        CancellationToken token = loads.begin();
+        Task<List<Vehicle>> task = new Task<>() {
+            @Override
+            protected List<Vehicle> call() throws SQLException {
+                return token.call(() -> {
+                    List<Vehicle> vehicleList = Prefetcher.take(Prefetcher.View.VEHICLES, vehicleService::getAllVehicles);
+
+                    // Only the unfiltered view is worth showing on the next startup
+                    if (statusFilter.equals("All") && searchText.isEmpty()) {
+                        snapshotService.saveVehicles(vehicleList);
+                    }
+
+                    // Apply the status and search filters
+                    vehicleList.removeIf(vehicle -> !matchesFilter(vehicle, statusFilter, searchText));
+
+                    return vehicleList;
+                });
             }
+        };
 
-            // Apply search filter if provided
-            if (!searchText.isEmpty()) {
-                vehicleList.removeIf(vehicle -> 
-                        !vehicle.getMake().toLowerCase().contains(searchText.toLowerCase()) &&
-                        !vehicle.getModel().toLowerCase().contains(searchText.toLowerCase()) &&
-                        !vehicle.getLicensePlate().toLowerCase().contains(searchText.toLowerCase()));
+        task.setOnSucceeded(event -> {
+            if (!loads.isCurrent(token)) {
+                // A newer load replaced this one, or the view was closed
+                return;
             }
 
-            vehicles = FXCollections.observableArrayList(vehicleList);
+            vehicles = FXCollections.observableArrayList(task.getValue());
             vehiclesTable.setItems(vehicles);
+            setStale(false);
+            Prefetcher.viewLoaded(Prefetcher.View.VEHICLES);
+
+            if (pendingSelectionId != null) {
+                Long vehicleId = pendingSelectionId;
+                pendingSelectionId = null;
+                selectVehicle(vehicleId);
+            }
 
             updateButtonStates();
+        });
+
+        task.setOnFailed(event -> {
+            if (!loads.isCurrent(token)) {
+                // A newer load replaced this one, or the view was closed
+                return;
+            }
 
-        } catch (SQLException e) {
+            Throwable e = task.getException();
             showError("Error loading vehicles: " + e.getMessage());
             e.printStackTrace();
+        });
+
+        BackgroundTasks.execute(task);
+    }
+
+    /**
+     * Check whether a vehicle matches the given status filter and search text.
+     * 
+     * @param vehicle The vehicle
+     * @param statusFilter The selected status, or "All"
+     * @param searchText The search text, or an empty string
+     * @return true if the vehicle should be shown, false otherwise
+     */
+    private boolean matchesFilter(Vehicle vehicle, String statusFilter, String searchText) {
+        if (!statusFilter.equals("All") && !statusFilter.equals(vehicle.getStatus())) {
+            return false;
+        }
+
+        return searchText.isEmpty() ||
+                vehicle.getMake().toLowerCase().contains(searchText.toLowerCase()) ||
+                vehicle.getModel().toLowerCase().contains(searchText.toLowerCase()) ||
+                vehicle.getLicensePlate().toLowerCase().contains(searchText.toLowerCase());
+    }
+
+    /**
+     * Mark the table as showing saved data from the last session.
+     * 
+     * @param stale Whether the shown vehicles may be out of date
+     */
+    private void setStale(boolean stale) {
+        staleLabel.setVisible(stale);
+        staleLabel.setManaged(stale);
+        if (stale) {
+            vehiclesTable.getStyleClass().add("stale");
+        } else {
+            vehiclesTable.getStyleClass().remove("stale");
         }
     }
 
@@ -289,9 +377,7 @@ public class VehiclesController {
         descriptionField.setPromptText("Description");
         if (vehicle != null && vehicle.getDescription() != null) descriptionField.setText(vehicle.getDescription());
 
-        TextField pictureField = new TextField();
-        pictureField.setPromptText("Picture URL");
-        if (vehicle != null && vehicle.getPicture() != null) pictureField.setText(vehicle.getPicture());
+        PicturePicker pictureField = new PicturePicker(vehicle != null ? vehicle.getPicture() : null, pictureService);
 
         TextField makeField = new TextField();
         makeField.setPromptText("Brand/Make");
@@ -398,7 +484,7 @@ public class VehiclesController {
         basicInfoGrid.add(conditionField, 1, 6);
         basicInfoGrid.add(new Label("Description:"), 0, 7);
         basicInfoGrid.add(descriptionField, 1, 7);
-        basicInfoGrid.add(new Label("Picture URL:"), 0, 8);
+        basicInfoGrid.add(new Label("Picture:"), 0, 8);
         basicInfoGrid.add(pictureField, 1, 8);
         basicInfoTab.setContent(basicInfoGrid);
 
@@ -564,7 +650,7 @@ public class VehiclesController {
                         Vehicle newVehicle = new Vehicle(
                                 licensePlateField.getText().trim(),
                                 descriptionField.getText().trim(),
-                                pictureField.getText().trim(),
+                                pictureField.getPicture(),
                                 makeField.getText().trim(),
                                 conditionField.getText().trim(),
                                 modelField.getText().trim(),
@@ -588,13 +674,12 @@ public class VehiclesController {
 
                         vehicleService.createVehicle(newVehicle);
                         showInfo("Vehicle added successfully.");
-                        loadVehicles();
 
                     } else {
                         // Update the existing vehicle
                         vehicle.setLicensePlate(licensePlateField.getText().trim());
                         vehicle.setDescription(descriptionField.getText().trim());
-                        vehicle.setPicture(pictureField.getText().trim());
+                        vehicle.setPicture(pictureField.getPicture());
                         vehicle.setMake(makeField.getText().trim());
                         vehicle.setCondition(conditionField.getText().trim());
                         vehicle.setModel(modelField.getText().trim());
@@ -618,7 +703,6 @@ public class VehiclesController {
 
                         vehicleService.updateVehicle(vehicle);
                         showInfo("Vehicle updated successfully.");
-                        loadVehicles();
                     }
 
                     return vehicle;
@@ -655,7 +739,6 @@ public class VehiclesController {
 
                 if (success) {
                     showInfo("Vehicle deleted successfully.");
-                    loadVehicles();
                 } else {
                     showError("Failed to delete vehicle.");
                 }
@@ -0,0 +1,144 @@
+package com.adminpanel.zmauto.model;
+
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Event describing a committed change to a single entity.
+ * Updates either carry the whole updated entity or just the changed fields and their new values.
+ */
+public class ChangeEvent {
+
+    /**
+     * The kind of change.
+     */
+    public enum Kind {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final EntityType entityType;
+    private final Kind kind;
+    private final Long id;
+    private final Object entity;
+    private final Map<String, Object> changes;
+
+    private ChangeEvent(EntityType entityType, Kind kind, Long id, Object entity, Map<String, Object> changes) {
+        this.entityType = entityType;
+        this.kind = kind;
+        this.id = id;
+        this.entity = entity;
+        this.changes = Collections.unmodifiableMap(changes);
+    }
+
+    /**
+     * Create an event for a newly created entity.
+     *
+     * @param entityType The entity type
+     * @param id The entity ID
+     * @param entity The created entity
+     * @return The event
+     */
+    public static ChangeEvent created(EntityType entityType, Long id, Object entity) {
+        return new ChangeEvent(entityType, Kind.CREATED, id, entity, new LinkedHashMap<>());
+    }
+
+    /**
+     * Create an event for an entity that was updated as a whole.
+     *
+     * @param entityType The entity type
+     * @param id The entity ID
+     * @param entity The updated entity
+     * @return The event
+     */
+    public static ChangeEvent updated(EntityType entityType, Long id, Object entity) {
+        return new ChangeEvent(entityType, Kind.UPDATED, id, entity, new LinkedHashMap<>());
+    }
+
+    /**
+     * Create an event for an entity of which only some fields changed.
+     *
+     * @param entityType The entity type
+     * @param id The entity ID
+     * @param changes The changed fields (model property names) and their new values
+     * @return The event
+     */
+    public static ChangeEvent changed(EntityType entityType, Long id, Map<String, Object> changes) {
+        return new ChangeEvent(entityType, Kind.UPDATED, id, null, new LinkedHashMap<>(changes));
+    }
+
+    /**
+     * Create an event for a deleted entity.
+     *
+     * @param entityType The entity type
+     * @param id The entity ID
+     * @return The event
+     */
+    public static ChangeEvent deleted(EntityType entityType, Long id) {
+        return new ChangeEvent(entityType, Kind.DELETED, id, null, new LinkedHashMap<>());
+    }
+
+    /**
+     * Combine this event with a later event for the same entity, so a burst of changes
+     * can be applied at once.
+     *
+     * @param next The later event
+     * @return An event with the combined effect of both
+     */
+    public ChangeEvent merge(ChangeEvent next) {
+        if (next.kind == Kind.DELETED || kind == Kind.DELETED) {
+            return next;
+        }
+
+        Kind mergedKind = kind == Kind.CREATED ? Kind.CREATED : next.kind;
+        if (next.entity != null) {
+            return new ChangeEvent(entityType, mergedKind, id, next.entity, new LinkedHashMap<>(next.changes));
+        }
+
+        Map<String, Object> mergedChanges = new LinkedHashMap<>(changes);
+        mergedChanges.putAll(next.changes);
+        return new ChangeEvent(entityType, mergedKind, id, entity, mergedChanges);
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Get the changed entity.
+     *
+     * @return The entity, or null if the event only carries changed fields
+     */
+    public Object getEntity() {
+        return entity;
+    }
+
+    public Map<String, Object> getChanges() {
+        return changes;
+    }
+
+    public Set<String> getChangedFields() {
+        return changes.keySet();
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "entityType=" + entityType +
+                ", kind=" + kind +
+                ", id=" + id +
+                ", changedFields=" + changes.keySet() +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+package com.adminpanel.zmauto.model;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a consistency check.
+ * The counts cover every row; the violation list is capped and holds the first violations of each kind.
+ */
+public class ConsistencyReport {
+
+    private final long rowsScanned;
+    private final int chunks;
+    private final Map<ConsistencyViolation.Kind, Long> violationCounts;
+    private final List<ConsistencyViolation> violations;
+    private final long elapsedMillis;
+    private final LocalDateTime computedAt;
+
+    public ConsistencyReport(long rowsScanned, int chunks, Map<ConsistencyViolation.Kind, Long> violationCounts,
+                             List<ConsistencyViolation> violations, long elapsedMillis) {
+        this.rowsScanned = rowsScanned;
+        this.chunks = chunks;
+        this.violationCounts = Collections.unmodifiableMap(new EnumMap<>(violationCounts));
+        this.violations = Collections.unmodifiableList(violations);
+        this.elapsedMillis = elapsedMillis;
+        this.computedAt = LocalDateTime.now();
+    }
+
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public long getViolationCount(ConsistencyViolation.Kind kind) {
+        return violationCounts.getOrDefault(kind, 0L);
+    }
+
+    public List<ConsistencyViolation> getViolations() {
+        return violations;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsistencyReport{" +
+                "rowsScanned=" + rowsScanned +
+                ", chunks=" + chunks +
+                ", violations=" + violationCounts +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+package com.adminpanel.zmauto.model;
+
+/**
+ * A row that breaks a referential or business rule, with a suggested fix.
+ */
+public class ConsistencyViolation {
+
+    /**
+     * The rule that is broken.
+     */
+    public enum Kind {
+        /** A row that refers to a user, vehicle or driver that does not exist. */
+        ORPHAN_REFERENCE,
+        /** An approved reservation that has not ended on a vehicle marked AVAILABLE. */
+        APPROVED_ON_AVAILABLE_VEHICLE,
+        /** An open reservation whose total cost differs from its vehicle's and driver's rates. */
+        COST_MISMATCH,
+        /** Two approved reservations of the same vehicle with overlapping dates. */
+        OVERLAPPING_BOOKING
+    }
+
+    private final Kind kind;
+    private final String table;
+    private final long rowId;
+    private final String detail;
+    private final String suggestedFix;
+
+    /**
+     * Constructor.
+     *
+     * @param kind The rule that is broken
+     * @param table The table of the row
+     * @param rowId The primary key of the row
+     * @param detail What is wrong
+     * @param suggestedFix How the row could be fixed
+     */
+    public ConsistencyViolation(Kind kind, String table, long rowId, String detail, String suggestedFix) {
+        this.kind = kind;
+        this.table = table;
+        this.rowId = rowId;
+        this.detail = detail;
+        this.suggestedFix = suggestedFix;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public long getRowId() {
+        return rowId;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public String getSuggestedFix() {
+        return suggestedFix;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + table + "#" + rowId + ": " + detail + " (fix: " + suggestedFix + ")";
+    }
+}
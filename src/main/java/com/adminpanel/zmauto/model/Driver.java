@@ -1,104 +1,99 @@
 package com.adminpanel.zmauto.model;
 
+import com.adminpanel.zmauto.util.StringPool;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 /**
  * Entity class representing a driver in the system.
+ *
+ * Fields are stored compactly, like {@link Vehicle}: numbers as primitives with a sentinel for
+ * absent values, the birthday as an epoch day, timestamps as epoch microseconds and the status
+ * as a pooled string. The getters and setters keep their boxed and java.time types, so the column
+ * mapping is declared on the getters and JPA uses property access.
  */
 @Entity
+@Access(AccessType.PROPERTY)
 @Table(name = "driver")
 public class Driver {
+
+    // Absent values of primitive fields
+    private static final long NO_ID = Long.MIN_VALUE;
+    private static final int NO_INT = Integer.MIN_VALUE;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    // Shared instances of the low-cardinality attributes
+    private static final StringPool ATTRIBUTES = new StringPool(256);
     
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long driverId;
-    
-    @Column
+    private long driverId = NO_ID;
     private String picture;
-    
-    @Column(nullable = false)
     private String firstName;
-    
-    @Column(nullable = false)
     private String lastName;
     
-    @Column
-    private LocalDate birthday;
+    // Epoch day
+    private int birthday = NO_INT;
     
-    @Column(nullable = false)
     private String phoneNumber;
-    
-    @Column
     private String address;
-    
-    @Column
     private String email;
     
-    @Column
-    private Double dailyWage;
+    // NaN when absent
+    private double dailyWage = Double.NaN;
+    private double hourlyWage = Double.NaN;
     
-    @Column
-    private Double hourlyWage;
-    
-    @Column
-    private Boolean availability;
+    // 1 for true, 0 for false, -1 when absent
+    private byte availability = -1;
     
-    @Column
     private String status; // ACTIVE, INACTIVE, ON_LEAVE
+    private int yearsOfExperience = NO_INT;
+    private long carId = NO_ID;
+    private double rating = Double.NaN;
     
-    @Column
-    private Integer yearsOfExperience;
-    
-    @Column
-    private Long carId;
-    
-    @Column
-    private Double rating;
-    
-    @Column(nullable = false)
-    private LocalDateTime createdAt;
-    
-    @Column
-    private LocalDateTime updatedAt;
+    // Timestamps as microseconds since the epoch, read as UTC
+    private long createdAt = NO_TIME;
+    private long updatedAt = NO_TIME;
     
     // Default constructor required by JPA
     public Driver() {
-        this.createdAt = LocalDateTime.now();
+        this.createdAt = toMicros(LocalDateTime.now());
     }
     
     public Driver(String picture, String firstName, String lastName, LocalDate birthday, 
                  String phoneNumber, String address, String email, Double dailyWage, 
                  Double hourlyWage, Boolean availability, String status, 
                  Integer yearsOfExperience, Long carId, Double rating) {
+        this();
         this.picture = picture;
         this.firstName = firstName;
         this.lastName = lastName;
-        this.birthday = birthday;
+        this.birthday = birthday != null ? (int) birthday.toEpochDay() : NO_INT;
         this.phoneNumber = phoneNumber;
         this.address = address;
         this.email = email;
-        this.dailyWage = dailyWage;
-        this.hourlyWage = hourlyWage;
-        this.availability = availability;
-        this.status = status;
-        this.yearsOfExperience = yearsOfExperience;
-        this.carId = carId;
-        this.rating = rating;
-        this.createdAt = LocalDateTime.now();
+        this.dailyWage = dailyWage != null ? dailyWage : Double.NaN;
+        this.hourlyWage = hourlyWage != null ? hourlyWage : Double.NaN;
+        this.availability = (byte) (availability == null ? -1 : availability ? 1 : 0);
+        this.status = ATTRIBUTES.intern(status);
+        this.yearsOfExperience = yearsOfExperience != null ? yearsOfExperience : NO_INT;
+        this.carId = carId != null ? carId : NO_ID;
+        this.rating = rating != null ? rating : Double.NaN;
     }
     
     // Getters and setters
     
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
     public Long getDriverId() {
-        return driverId;
+        return driverId != NO_ID ? driverId : null;
     }
     
     public void setDriverId(Long driverId) {
-        this.driverId = driverId;
+        this.driverId = driverId != null ? driverId : NO_ID;
     }
     
+    @Column
     public String getPicture() {
         return picture;
     }
@@ -107,6 +102,7 @@ public class Driver {
         this.picture = picture;
     }
     
+    @Column(nullable = false)
     public String getFirstName() {
         return firstName;
     }
@@ -115,6 +111,7 @@ public class Driver {
         this.firstName = firstName;
     }
     
+    @Column(nullable = false)
     public String getLastName() {
         return lastName;
     }
@@ -123,14 +120,16 @@ public class Driver {
         this.lastName = lastName;
     }
     
+    @Column
     public LocalDate getBirthday() {
-        return birthday;
+        return birthday != NO_INT ? LocalDate.ofEpochDay(birthday) : null;
     }
     
     public void setBirthday(LocalDate birthday) {
-        this.birthday = birthday;
+        this.birthday = birthday != null ? (int) birthday.toEpochDay() : NO_INT;
     }
     
+    @Column(nullable = false)
     public String getPhoneNumber() {
         return phoneNumber;
     }
@@ -139,6 +138,7 @@ public class Driver {
         this.phoneNumber = phoneNumber;
     }
     
+    @Column
     public String getAddress() {
         return address;
     }
@@ -147,6 +147,7 @@ public class Driver {
         this.address = address;
     }
     
+    @Column
     public String getEmail() {
         return email;
     }
@@ -155,89 +156,113 @@ public class Driver {
         this.email = email;
     }
     
+    @Column
     public Double getDailyWage() {
-        return dailyWage;
+        return !Double.isNaN(dailyWage) ? dailyWage : null;
     }
     
     public void setDailyWage(Double dailyWage) {
-        this.dailyWage = dailyWage;
+        this.dailyWage = dailyWage != null ? dailyWage : Double.NaN;
     }
     
+    @Column
     public Double getHourlyWage() {
-        return hourlyWage;
+        return !Double.isNaN(hourlyWage) ? hourlyWage : null;
     }
     
     public void setHourlyWage(Double hourlyWage) {
-        this.hourlyWage = hourlyWage;
+        this.hourlyWage = hourlyWage != null ? hourlyWage : Double.NaN;
     }
     
+    @Column
     public Boolean getAvailability() {
-        return availability;
+        return availability >= 0 ? availability == 1 : null;
     }
     
     public void setAvailability(Boolean availability) {
-        this.availability = availability;
+        this.availability = (byte) (availability == null ? -1 : availability ? 1 : 0);
     }
     
+    @Column
     public String getStatus() {
         return status;
     }
     
     public void setStatus(String status) {
-        this.status = status;
+        this.status = ATTRIBUTES.intern(status);
     }
     
+    @Column
     public Integer getYearsOfExperience() {
-        return yearsOfExperience;
+        return yearsOfExperience != NO_INT ? yearsOfExperience : null;
     }
     
     public void setYearsOfExperience(Integer yearsOfExperience) {
-        this.yearsOfExperience = yearsOfExperience;
+        this.yearsOfExperience = yearsOfExperience != null ? yearsOfExperience : NO_INT;
     }
     
+    @Column
     public Long getCarId() {
-        return carId;
+        return carId != NO_ID ? carId : null;
     }
     
     public void setCarId(Long carId) {
-        this.carId = carId;
+        this.carId = carId != null ? carId : NO_ID;
     }
     
+    @Column
     public Double getRating() {
-        return rating;
+        return !Double.isNaN(rating) ? rating : null;
     }
     
     public void setRating(Double rating) {
-        this.rating = rating;
+        this.rating = rating != null ? rating : Double.NaN;
     }
     
+    @Column(nullable = false)
     public LocalDateTime getCreatedAt() {
-        return createdAt;
+        return toDateTime(createdAt);
     }
     
     public void setCreatedAt(LocalDateTime createdAt) {
-        this.createdAt = createdAt;
+        this.createdAt = toMicros(createdAt);
     }
     
+    @Column
     public LocalDateTime getUpdatedAt() {
-        return updatedAt;
+        return toDateTime(updatedAt);
     }
     
     public void setUpdatedAt(LocalDateTime updatedAt) {
-        this.updatedAt = updatedAt;
+        this.updatedAt = toMicros(updatedAt);
+    }
+    
+    private static long toMicros(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NO_TIME;
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1000;
+    }
+    
+    private static LocalDateTime toDateTime(long micros) {
+        if (micros == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                Math.floorMod(micros, 1_000_000) * 1000, ZoneOffset.UTC);
     }
     
     @Override
     public String toString() {
         return "Driver{" +
-                "driverId=" + driverId +
+                "driverId=" + getDriverId() +
                 ", firstName='" + firstName + '\'' +
                 ", lastName='" + lastName + '\'' +
                 ", phoneNumber='" + phoneNumber + '\'' +
                 ", email='" + email + '\'' +
                 ", status='" + status + '\'' +
-                ", yearsOfExperience=" + yearsOfExperience +
-                ", rating=" + rating +
+                ", yearsOfExperience=" + getYearsOfExperience() +
+                ", rating=" + getRating() +
                 '}';
     }
 }
\ No newline at end of file
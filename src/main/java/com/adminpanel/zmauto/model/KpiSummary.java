@@ -0,0 +1,72 @@
+package com.adminpanel.zmauto.model;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Key figures shown on the dashboard, read from the summary tables.
+ */
+public class KpiSummary {
+
+    private final long pendingReservations;
+    private final Map<String, Long> vehiclesByStatus;
+    private final double revenueToday;
+    private final double revenueMonthToDate;
+    private final long driversOnDuty;
+    private final LocalDateTime readAt;
+
+    public KpiSummary(long pendingReservations, Map<String, Long> vehiclesByStatus,
+                      double revenueToday, double revenueMonthToDate, long driversOnDuty) {
+        this.pendingReservations = pendingReservations;
+        this.vehiclesByStatus = Collections.unmodifiableMap(vehiclesByStatus);
+        this.revenueToday = revenueToday;
+        this.revenueMonthToDate = revenueMonthToDate;
+        this.driversOnDuty = driversOnDuty;
+        this.readAt = LocalDateTime.now();
+    }
+
+    public long getPendingReservations() {
+        return pendingReservations;
+    }
+
+    /**
+     * Get the number of vehicles per rental status.
+     *
+     * @return The vehicle counts by status
+     */
+    public Map<String, Long> getVehiclesByStatus() {
+        return vehiclesByStatus;
+    }
+
+    public long getVehicleCount(String status) {
+        return vehiclesByStatus.getOrDefault(status, 0L);
+    }
+
+    public double getRevenueToday() {
+        return revenueToday;
+    }
+
+    public double getRevenueMonthToDate() {
+        return revenueMonthToDate;
+    }
+
+    public long getDriversOnDuty() {
+        return driversOnDuty;
+    }
+
+    public LocalDateTime getReadAt() {
+        return readAt;
+    }
+
+    @Override
+    public String toString() {
+        return "KpiSummary{" +
+                "pendingReservations=" + pendingReservations +
+                ", vehiclesByStatus=" + vehiclesByStatus +
+                ", revenueToday=" + revenueToday +
+                ", revenueMonthToDate=" + revenueMonthToDate +
+                ", driversOnDuty=" + driversOnDuty +
+                '}';
+    }
+}
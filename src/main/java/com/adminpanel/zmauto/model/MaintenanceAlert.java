@@ -0,0 +1,84 @@
+package com.adminpanel.zmauto.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Alert raised by the maintenance scheduler for a vehicle's service or insurance due date.
+ */
+public class MaintenanceAlert {
+
+    /**
+     * The kind of due date an alert is about.
+     */
+    public enum Kind {
+        SERVICE_REMINDER("Service due soon"),
+        SERVICE_DUE("Service due"),
+        INSURANCE_REMINDER("Insurance expires soon"),
+        INSURANCE_EXPIRED("Insurance expired");
+
+        private final String displayName;
+
+        Kind(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * Whether the vehicle has to be taken out of service when this alert fires.
+         *
+         * @return true for due service and expired insurance
+         */
+        public boolean blocksAvailability() {
+            return this == SERVICE_DUE || this == INSURANCE_EXPIRED;
+        }
+    }
+
+    private final Long vehicleId;
+    private final Kind kind;
+    private final LocalDate dueDate;
+
+    public MaintenanceAlert(Long vehicleId, Kind kind, LocalDate dueDate) {
+        this.vehicleId = vehicleId;
+        this.kind = kind;
+        this.dueDate = dueDate;
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    /**
+     * Get a short description of the alert relative to today.
+     *
+     * @return The alert message
+     */
+    public String getMessage() {
+        long days = ChronoUnit.DAYS.between(LocalDate.now(), dueDate);
+        String when;
+        if (days > 0) {
+            when = "in " + days + (days == 1 ? " day" : " days");
+        } else if (days == 0) {
+            when = "today";
+        } else {
+            when = (-days) + (days == -1 ? " day" : " days") + " ago";
+        }
+        return kind.getDisplayName() + " for vehicle #" + vehicleId + " (" + dueDate + ", " + when + ")";
+    }
+
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+}
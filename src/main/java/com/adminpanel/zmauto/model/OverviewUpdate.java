@@ -0,0 +1,77 @@
+package com.adminpanel.zmauto.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Changes for the live overview page. Sections that did not change since the previous update are null.
+ */
+public class OverviewUpdate {
+
+    private final LocalDateTime firstHour;
+    private final long[] bookingsPerHour;
+    private final KpiSummary summary;
+    private final LocalDate firstDay;
+    private final double[] revenuePerDay;
+
+    public OverviewUpdate(LocalDateTime firstHour, long[] bookingsPerHour, KpiSummary summary,
+                          LocalDate firstDay, double[] revenuePerDay) {
+        this.firstHour = firstHour;
+        this.bookingsPerHour = bookingsPerHour;
+        this.summary = summary;
+        this.firstDay = firstDay;
+        this.revenuePerDay = revenuePerDay;
+    }
+
+    /**
+     * Combine this update with a newer one that was produced before this one was shown.
+     *
+     * @param newer The newer update
+     * @return An update with the newest value of each section
+     */
+    public OverviewUpdate merge(OverviewUpdate newer) {
+        boolean newBookings = newer.bookingsPerHour != null;
+        boolean newRevenue = newer.revenuePerDay != null;
+        return new OverviewUpdate(
+                newBookings ? newer.firstHour : firstHour,
+                newBookings ? newer.bookingsPerHour : bookingsPerHour,
+                newer.summary != null ? newer.summary : summary,
+                newRevenue ? newer.firstDay : firstDay,
+                newRevenue ? newer.revenuePerDay : revenuePerDay);
+    }
+
+    /**
+     * Get the hour of the first bookings bucket.
+     *
+     * @return The first hour, or null if the bookings did not change
+     */
+    public LocalDateTime getFirstHour() {
+        return firstHour;
+    }
+
+    /**
+     * Get the number of reservations created in each hour, oldest first.
+     *
+     * @return The bookings per hour, or null if they did not change
+     */
+    public long[] getBookingsPerHour() {
+        return bookingsPerHour;
+    }
+
+    public KpiSummary getSummary() {
+        return summary;
+    }
+
+    public LocalDate getFirstDay() {
+        return firstDay;
+    }
+
+    /**
+     * Get the revenue of each day, oldest first.
+     *
+     * @return The revenue per day, or null if it did not change
+     */
+    public double[] getRevenuePerDay() {
+        return revenuePerDay;
+    }
+}
@@ -0,0 +1,101 @@
+package com.adminpanel.zmauto.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of the database connection pool at one point in time.
+ */
+public class PoolHealth {
+
+    private final String degradedReason;
+    private final int totalConnections;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int pendingThreads;
+    private final int maximumPoolSize;
+    private final double averageWaitMillis;
+    private final long timeouts;
+    private final LocalDateTime readAt;
+
+    public PoolHealth(String degradedReason, int totalConnections, int activeConnections, int idleConnections,
+                      int pendingThreads, int maximumPoolSize, double averageWaitMillis, long timeouts) {
+        this.degradedReason = degradedReason;
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.pendingThreads = pendingThreads;
+        this.maximumPoolSize = maximumPoolSize;
+        this.averageWaitMillis = averageWaitMillis;
+        this.timeouts = timeouts;
+        this.readAt = LocalDateTime.now();
+    }
+
+    /**
+     * Whether connections can currently be handed out.
+     *
+     * @return false while the pool is in degraded mode
+     */
+    public boolean isAvailable() {
+        return degradedReason == null;
+    }
+
+    /**
+     * Get why the pool is in degraded mode.
+     *
+     * @return The reason, or null if the pool is available
+     */
+    public String getDegradedReason() {
+        return degradedReason;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getPendingThreads() {
+        return pendingThreads;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    /**
+     * Get the average time a caller waited for a connection during the last sizing interval.
+     *
+     * @return The average wait in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    /**
+     * Get the number of connection requests that timed out since the pool was started.
+     *
+     * @return The number of timeouts
+     */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public LocalDateTime getReadAt() {
+        return readAt;
+    }
+
+    @Override
+    public String toString() {
+        if (!isAvailable()) {
+            return "Database unavailable: " + degradedReason;
+        }
+        return String.format("%d/%d connections active, %d idle, %d waiting, %.1f ms average wait",
+                activeConnections, maximumPoolSize, idleConnections, pendingThreads, averageWaitMillis);
+    }
+}
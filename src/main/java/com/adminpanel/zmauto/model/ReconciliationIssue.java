@@ -0,0 +1,82 @@
+package com.adminpanel.zmauto.model;
+
+/**
+ * A difference between the recorded payments and the bank statements.
+ */
+public class ReconciliationIssue {
+
+    /**
+     * The kind of difference.
+     */
+    public enum Kind {
+        /** A completed payment that no statement line refers to. */
+        MISSING,
+        /** A statement line whose transaction ID matches no completed payment. */
+        UNKNOWN,
+        /** A transaction ID that appears on more than one statement line or payment. */
+        DUPLICATE,
+        /** A statement line whose amount differs from the payment. */
+        AMOUNT_MISMATCH,
+        /** A statement line that could not be read. */
+        MALFORMED
+    }
+
+    private final Kind kind;
+    private final String transactionId;
+    private final Long paymentId;
+    private final Double paymentAmount;
+    private final Double statementAmount;
+    private final String source;
+
+    /**
+     * Constructor.
+     *
+     * @param kind The kind of difference
+     * @param transactionId The transaction ID, if known
+     * @param paymentId The payment ID, or null if there is no payment
+     * @param paymentAmount The recorded amount, or null if there is no payment
+     * @param statementAmount The amount on the statement, or null if there is no statement line
+     * @param source The statement file, or null for differences found on the payment side
+     */
+    public ReconciliationIssue(Kind kind, String transactionId, Long paymentId, Double paymentAmount,
+                               Double statementAmount, String source) {
+        this.kind = kind;
+        this.transactionId = transactionId;
+        this.paymentId = paymentId;
+        this.paymentAmount = paymentAmount;
+        this.statementAmount = statementAmount;
+        this.source = source;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public Double getPaymentAmount() {
+        return paymentAmount;
+    }
+
+    public Double getStatementAmount() {
+        return statementAmount;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + transactionId +
+                (paymentId != null ? " payment=" + paymentId + " amount=" + paymentAmount : "") +
+                (statementAmount != null ? " statement=" + statementAmount : "") +
+                (source != null ? " (" + source + ")" : "");
+    }
+}
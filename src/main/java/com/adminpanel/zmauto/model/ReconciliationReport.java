@@ -0,0 +1,78 @@
+package com.adminpanel.zmauto.model;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of reconciling payments against bank statements.
+ * The counts cover every record; the issue list is capped and holds the first issues of each kind.
+ */
+public class ReconciliationReport {
+
+    private final long payments;
+    private final long statementLines;
+    private final long matched;
+    private final Map<ReconciliationIssue.Kind, Long> issueCounts;
+    private final List<ReconciliationIssue> issues;
+    private final long elapsedMillis;
+    private final LocalDateTime computedAt;
+
+    public ReconciliationReport(long payments, long statementLines, long matched,
+                                Map<ReconciliationIssue.Kind, Long> issueCounts,
+                                List<ReconciliationIssue> issues, long elapsedMillis) {
+        this.payments = payments;
+        this.statementLines = statementLines;
+        this.matched = matched;
+        this.issueCounts = Collections.unmodifiableMap(new EnumMap<>(issueCounts));
+        this.issues = Collections.unmodifiableList(issues);
+        this.elapsedMillis = elapsedMillis;
+        this.computedAt = LocalDateTime.now();
+    }
+
+    public long getPayments() {
+        return payments;
+    }
+
+    public long getStatementLines() {
+        return statementLines;
+    }
+
+    /**
+     * Get the number of statement lines that match a payment with the same amount.
+     *
+     * @return The number of matched lines
+     */
+    public long getMatched() {
+        return matched;
+    }
+
+    public long getIssueCount(ReconciliationIssue.Kind kind) {
+        return issueCounts.getOrDefault(kind, 0L);
+    }
+
+    public List<ReconciliationIssue> getIssues() {
+        return issues;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ReconciliationReport{" +
+                "payments=" + payments +
+                ", statementLines=" + statementLines +
+                ", matched=" + matched +
+                ", issues=" + issueCounts +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -1,11 +1,19 @@
 package com.adminpanel.zmauto.model;
 
 import jakarta.persistence.*;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
  * Entity class representing a reservation request in the system.
+ *
+ * Reservations read for lists carry only the ids of their user, vehicle and driver and the
+ * few fields the table shows (username, vehicle make, model and plate, driver name). The full
+ * objects are loaded on first access through the association loader set by the service.
+ * Associations may be loaded by a prefetch thread and read on the JavaFX thread, so they are
+ * volatile, and an association that does not exist is remembered as loaded instead of being
+ * queried again on every access.
  */
 @Entity
 @Table(name = "reservations")
@@ -17,18 +25,18 @@ public class Reservation {
 
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
-    private User user;
+    private volatile User user;
 
     @ManyToOne
     @JoinColumn(name = "vehicle_id", nullable = false)
-    private Vehicle vehicle;
+    private volatile Vehicle vehicle;
 
     @Column(name = "driver_needed")
     private Boolean driverNeeded;
 
     @ManyToOne
     @JoinColumn(name = "driver_id")
-    private Driver driver;
+    private volatile Driver driver;
 
     @Column(nullable = false)
     private LocalDate startDate;
@@ -51,6 +59,55 @@ public class Reservation {
     @Column
     private LocalDateTime updatedAt;
 
+    // List projection: association ids and display fields, used until an association is loaded
+    @Transient
+    private Long userId;
+
+    @Transient
+    private Long vehicleId;
+
+    @Transient
+    private Long driverId;
+
+    @Transient
+    private String username;
+
+    @Transient
+    private String vehicleMake;
+
+    @Transient
+    private String vehicleModel;
+
+    @Transient
+    private String licensePlate;
+
+    @Transient
+    private String driverName;
+
+    @Transient
+    private transient volatile AssociationLoader associationLoader;
+
+    // Set once a load has run, even if it found nothing
+    @Transient
+    private transient volatile boolean userLoaded;
+
+    @Transient
+    private transient volatile boolean vehicleLoaded;
+
+    @Transient
+    private transient volatile boolean driverLoaded;
+
+    /**
+     * Loads the associations of a reservation read as a list projection.
+     */
+    public interface AssociationLoader {
+        User loadUser(Long userId) throws SQLException;
+
+        Vehicle loadVehicle(Long vehicleId) throws SQLException;
+
+        Driver loadDriver(Long driverId) throws SQLException;
+    }
+
     // Default constructor required by JPA
     public Reservation() {
         this.createdAt = LocalDateTime.now();
@@ -88,7 +145,22 @@ public class Reservation {
         this.id = id;
     }
 
+    /**
+     * Get the user, loading it on first access if the reservation was read as a projection.
+     * Loading queries the database, so call it off the JavaFX thread.
+     *
+     * @return The user
+     */
     public User getUser() {
+        AssociationLoader loader = associationLoader;
+        if (user == null && !userLoaded && userId != null && loader != null) {
+            try {
+                user = loader.loadUser(userId);
+                userLoaded = true;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error loading user " + userId, e);
+            }
+        }
         return user;
     }
 
@@ -96,7 +168,22 @@ public class Reservation {
         this.user = user;
     }
 
+    /**
+     * Get the vehicle, loading it on first access if the reservation was read as a projection.
+     * Loading queries the database, so call it off the JavaFX thread.
+     *
+     * @return The vehicle
+     */
     public Vehicle getVehicle() {
+        AssociationLoader loader = associationLoader;
+        if (vehicle == null && !vehicleLoaded && vehicleId != null && loader != null) {
+            try {
+                vehicle = loader.loadVehicle(vehicleId);
+                vehicleLoaded = true;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error loading vehicle " + vehicleId, e);
+            }
+        }
         return vehicle;
     }
 
@@ -112,7 +199,22 @@ public class Reservation {
         this.driverNeeded = driverNeeded;
     }
 
+    /**
+     * Get the driver, loading it on first access if the reservation was read as a projection.
+     * Loading queries the database, so call it off the JavaFX thread.
+     *
+     * @return The driver, or null if none is assigned
+     */
     public Driver getDriver() {
+        AssociationLoader loader = associationLoader;
+        if (driver == null && !driverLoaded && driverId != null && loader != null) {
+            try {
+                driver = loader.loadDriver(driverId);
+                driverLoaded = true;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error loading driver " + driverId, e);
+            }
+        }
         return driver;
     }
 
@@ -177,6 +279,88 @@ public class Reservation {
         this.updatedAt = updatedAt;
     }
 
+    public Long getUserId() {
+        return user != null ? user.getId() : userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+        this.userLoaded = false;
+    }
+
+    public Long getVehicleId() {
+        return vehicle != null ? vehicle.getId() : vehicleId;
+    }
+
+    public void setVehicleId(Long vehicleId) {
+        this.vehicleId = vehicleId;
+        this.vehicleLoaded = false;
+    }
+
+    public Long getDriverId() {
+        return driver != null ? driver.getDriverId() : driverId;
+    }
+
+    public void setDriverId(Long driverId) {
+        this.driverId = driverId;
+        this.driverLoaded = false;
+    }
+
+    public String getUsername() {
+        return user != null ? user.getUsername() : username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getVehicleMake() {
+        return vehicle != null ? vehicle.getMake() : vehicleMake;
+    }
+
+    public void setVehicleMake(String vehicleMake) {
+        this.vehicleMake = vehicleMake;
+    }
+
+    public String getVehicleModel() {
+        return vehicle != null ? vehicle.getModel() : vehicleModel;
+    }
+
+    public void setVehicleModel(String vehicleModel) {
+        this.vehicleModel = vehicleModel;
+    }
+
+    public String getLicensePlate() {
+        return vehicle != null ? vehicle.getLicensePlate() : licensePlate;
+    }
+
+    public void setLicensePlate(String licensePlate) {
+        this.licensePlate = licensePlate;
+    }
+
+    public String getDriverName() {
+        return driver != null ? driver.getFirstName() + " " + driver.getLastName() : driverName;
+    }
+
+    public void setDriverName(String driverName) {
+        this.driverName = driverName;
+    }
+
+    public void setAssociationLoader(AssociationLoader associationLoader) {
+        this.associationLoader = associationLoader;
+    }
+
+    /**
+     * Whether the user, vehicle and driver are loaded, so reading them does not query the database.
+     *
+     * @return true if no association is still to be loaded
+     */
+    public boolean isAssociationsLoaded() {
+        return (userId == null || user != null || userLoaded)
+                && (vehicleId == null || vehicle != null || vehicleLoaded)
+                && (driverId == null || driver != null || driverLoaded);
+    }
+
     /**
      * Approve this reservation request.
      * 
@@ -207,10 +391,10 @@ public class Reservation {
     public String toString() {
         return "Reservation{" +
                 "id=" + id +
-                ", users=" + (user != null ? user.getUsername() : "null") +
-                ", vehicle=" + (vehicle != null ? vehicle.getLicensePlate() : "null") +
+                ", users=" + getUsername() +
+                ", vehicle=" + getLicensePlate() +
                 ", driverNeeded=" + driverNeeded +
-                ", driver=" + (driver != null ? driver.getFirstName() + " " + driver.getLastName() : "null") +
+                ", driver=" + getDriverName() +
                 ", startDate=" + startDate +
                 ", endDate=" + endDate +
                 ", status='" + status + '\'' +
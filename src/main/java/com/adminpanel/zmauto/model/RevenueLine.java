@@ -0,0 +1,52 @@
+package com.adminpanel.zmauto.model;
+
+/**
+ * Revenue of one group in a revenue report, such as a day, a vehicle, a driver or a payment method.
+ */
+public class RevenueLine {
+
+    private final String key;
+    private final String label;
+    private final long paymentCount;
+    private final double amount;
+
+    /**
+     * Constructor.
+     *
+     * @param key The group key (a date, an ID or a payment method)
+     * @param label The display label
+     * @param paymentCount The number of payments in the group
+     * @param amount The total amount paid
+     */
+    public RevenueLine(String key, String label, long paymentCount, double amount) {
+        this.key = key;
+        this.label = label;
+        this.paymentCount = paymentCount;
+        this.amount = amount;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getPaymentCount() {
+        return paymentCount;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    /**
+     * Get the average payment amount.
+     *
+     * @return The average amount, or 0 if the group has no payments
+     */
+    public double getAverageAmount() {
+        return paymentCount == 0 ? 0 : amount / paymentCount;
+    }
+}
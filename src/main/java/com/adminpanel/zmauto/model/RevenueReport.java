@@ -0,0 +1,70 @@
+package com.adminpanel.zmauto.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Revenue from completed payments over a period, broken down by day, vehicle, driver and payment method.
+ */
+public class RevenueReport {
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final RevenueLine total;
+    private final List<RevenueLine> byDay;
+    private final List<RevenueLine> byVehicle;
+    private final List<RevenueLine> byDriver;
+    private final List<RevenueLine> byMethod;
+    private final LocalDateTime computedAt;
+
+    public RevenueReport(LocalDate startDate, LocalDate endDate, RevenueLine total, List<RevenueLine> byDay,
+                         List<RevenueLine> byVehicle, List<RevenueLine> byDriver, List<RevenueLine> byMethod) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.total = total;
+        this.byDay = Collections.unmodifiableList(byDay);
+        this.byVehicle = Collections.unmodifiableList(byVehicle);
+        this.byDriver = Collections.unmodifiableList(byDriver);
+        this.byMethod = Collections.unmodifiableList(byMethod);
+        this.computedAt = LocalDateTime.now();
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public RevenueLine getTotal() {
+        return total;
+    }
+
+    public List<RevenueLine> getByDay() {
+        return byDay;
+    }
+
+    public List<RevenueLine> getByVehicle() {
+        return byVehicle;
+    }
+
+    /**
+     * Get the revenue per driver. Payments for reservations without a driver are not included.
+     *
+     * @return The revenue lines per driver
+     */
+    public List<RevenueLine> getByDriver() {
+        return byDriver;
+    }
+
+    public List<RevenueLine> getByMethod() {
+        return byMethod;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+}
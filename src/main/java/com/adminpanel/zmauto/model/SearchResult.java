@@ -0,0 +1,84 @@
+package com.adminpanel.zmauto.model;
+
+/**
+ * A ranked result of a global search across all entities.
+ */
+public class SearchResult {
+
+    /**
+     * The kinds of entities covered by the global search.
+     */
+    public enum EntityType {
+        USER, VEHICLE, DRIVER, RESERVATION, PAYMENT;
+
+        public byte code() {
+            return (byte) ordinal();
+        }
+
+        public static EntityType fromCode(byte code) {
+            return values()[code];
+        }
+
+        public String getDisplayName() {
+            String name = name();
+            return name.charAt(0) + name.substring(1).toLowerCase();
+        }
+    }
+
+    private final EntityType type;
+    private final Long entityId;
+    private final Long targetId;
+    private final String title;
+    private final String subtitle;
+    private final float score;
+
+    /**
+     * Constructor.
+     *
+     * @param type The entity type
+     * @param entityId The ID of the matching entity
+     * @param targetId The ID of the row to select when opening the result
+     *                 (the reservation ID for payments, otherwise the entity ID)
+     * @param title The display title
+     * @param subtitle The display subtitle
+     * @param score The relevance score
+     */
+    public SearchResult(EntityType type, Long entityId, Long targetId, String title, String subtitle, float score) {
+        this.type = type;
+        this.entityId = entityId;
+        this.targetId = targetId;
+        this.title = title;
+        this.subtitle = subtitle;
+        this.score = score;
+    }
+
+    public EntityType getType() {
+        return type;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getSubtitle() {
+        return subtitle;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + type.getDisplayName() + "] " + title +
+                (subtitle != null && !subtitle.isEmpty() ? " - " + subtitle : "");
+    }
+}
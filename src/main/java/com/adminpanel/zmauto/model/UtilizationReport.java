@@ -0,0 +1,53 @@
+package com.adminpanel.zmauto.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fleet utilization over a period, broken down by vehicle and by vehicle type.
+ */
+public class UtilizationReport {
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final UtilizationStats fleet;
+    private final List<UtilizationStats> byType;
+    private final List<UtilizationStats> byVehicle;
+    private final LocalDateTime computedAt;
+
+    public UtilizationReport(LocalDate startDate, LocalDate endDate, UtilizationStats fleet,
+                             List<UtilizationStats> byType, List<UtilizationStats> byVehicle) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.fleet = fleet;
+        this.byType = Collections.unmodifiableList(byType);
+        this.byVehicle = Collections.unmodifiableList(byVehicle);
+        this.computedAt = LocalDateTime.now();
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public UtilizationStats getFleet() {
+        return fleet;
+    }
+
+    public List<UtilizationStats> getByType() {
+        return byType;
+    }
+
+    public List<UtilizationStats> getByVehicle() {
+        return byVehicle;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+}
@@ -0,0 +1,98 @@
+package com.adminpanel.zmauto.model;
+
+/**
+ * Utilization figures for a vehicle, a vehicle type or the whole fleet over a period.
+ */
+public class UtilizationStats {
+
+    private final Long vehicleId;
+    private final String label;
+    private final String type;
+    private final int vehicleCount;
+    private final long availableDays;
+    private final long bookedDays;
+    private final double revenue;
+
+    /**
+     * Constructor.
+     *
+     * @param vehicleId The vehicle ID, or null for a group of vehicles
+     * @param label The display label
+     * @param type The vehicle type
+     * @param vehicleCount The number of vehicles included
+     * @param availableDays The number of days the vehicles were in the fleet during the period
+     * @param bookedDays The number of those days covered by approved reservations
+     * @param revenue The reservation revenue attributed to the period
+     */
+    public UtilizationStats(Long vehicleId, String label, String type, int vehicleCount,
+                            long availableDays, long bookedDays, double revenue) {
+        this.vehicleId = vehicleId;
+        this.label = label;
+        this.type = type;
+        this.vehicleCount = vehicleCount;
+        this.availableDays = availableDays;
+        this.bookedDays = bookedDays;
+        this.revenue = revenue;
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getVehicleCount() {
+        return vehicleCount;
+    }
+
+    public long getAvailableDays() {
+        return availableDays;
+    }
+
+    public long getBookedDays() {
+        return bookedDays;
+    }
+
+    public long getIdleDays() {
+        return availableDays - bookedDays;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    /**
+     * Get the share of available days that were booked.
+     *
+     * @return The utilization between 0 and 1
+     */
+    public double getUtilization() {
+        return availableDays > 0 ? (double) bookedDays / availableDays : 0;
+    }
+
+    /**
+     * Get the revenue per available vehicle day.
+     *
+     * @return The revenue per available day
+     */
+    public double getRevenuePerAvailableDay() {
+        return availableDays > 0 ? revenue / availableDays : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "UtilizationStats{" +
+                "label='" + label + '\'' +
+                ", vehicleCount=" + vehicleCount +
+                ", availableDays=" + availableDays +
+                ", bookedDays=" + bookedDays +
+                ", revenue=" + revenue +
+                '}';
+    }
+}
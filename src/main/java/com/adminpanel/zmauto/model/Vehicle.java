@@ -1,113 +1,86 @@
 package com.adminpanel.zmauto.model;
 
+import com.adminpanel.zmauto.util.StringPool;
 import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
 
 /**
  * Entity class representing a vehicle in the system.
+ *
+ * Fields are stored compactly so that large fleets can be kept in memory: numbers as primitives
+ * (with a sentinel for absent values), dates as epoch days, timestamps as epoch milliseconds, and
+ * low-cardinality attributes (make, model, colour, type, fuel, transmission, condition, status) as
+ * shared pooled strings. The getters and setters keep their boxed and java.util.Date types, so the
+ * column mapping is declared on the getters and JPA uses property access.
  */
 @Entity
+@Access(AccessType.PROPERTY)
 @Table(name = "car")
 public class Vehicle {
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    @Column(name = "car_id")
-    private Long id;
+    // Absent values of primitive fields
+    private static final long NO_ID = Long.MIN_VALUE;
+    private static final int NO_INT = Integer.MIN_VALUE;
+    private static final long NO_TIME = Long.MIN_VALUE;
 
-    @Column(name = "license_plate", nullable = false, unique = true)
-    private String licensePlate;
+    // Shared instances of the low-cardinality attributes
+    private static final StringPool ATTRIBUTES = new StringPool(4096);
 
-    @Column
+    private long id = NO_ID;
+    private String licensePlate;
     private String description;
-
-    @Column
     private String picture;
-
-    @Column(name = "brand", nullable = false)
     private String make;
-
-    @Column(name = "condition")
     private String condition;
-
-    @Column(nullable = false)
     private String model;
-
-    @Column
-    private Integer mileage;
-
-    @Column
+    private int mileage = NO_INT;
     private String type;
-
-    @Column(nullable = false)
-    private Integer year;
-
-    @Column(name = "colour", nullable = false)
+    private int year = NO_INT;
     private String color;
-
-    @Column
     private String transmission;
-
-    @Column
     private String fuel;
+    private int seatingCapacity = NO_INT;
 
-    @Column(name = "seating_capacity")
-    private Integer seatingCapacity;
+    // NaN when absent
+    private double dailyRate = Double.NaN;
+    private double hourlyRate = Double.NaN;
 
-    @Column(name = "rental_price_per_day", nullable = false)
-    private Double dailyRate;
-
-    @Column(name = "rental_price_per_hour")
-    private Double hourlyRate;
-
-    @Column(name = "rental_status", nullable = false)
     private String status; // AVAILABLE, RESERVED, MAINTENANCE
-
-    @Column(name = "current_location")
     private String currentLocation;
 
-    @Column(name = "last_service_date")
-    @Temporal(TemporalType.DATE)
-    private Date lastServiceDate;
-
-    @Column(name = "next_service_date")
-    @Temporal(TemporalType.DATE)
-    private Date nextServiceDate;
-
-    @Column(name = "insurance_expiry_date")
-    @Temporal(TemporalType.DATE)
-    private Date insuranceExpiryDate;
-
-    @Column(name = "gps_enabled")
-    private Boolean gpsEnabled;
+    // Dates as epoch days
+    private int lastServiceDay = NO_INT;
+    private int nextServiceDay = NO_INT;
+    private int insuranceExpiryDay = NO_INT;
 
-    @Column
-    private Double rating;
+    // 1 for true, 0 for false, -1 when absent
+    private byte gpsEnabled = -1;
 
-    @Column(name = "created_at")
-    @Temporal(TemporalType.TIMESTAMP)
-    private Date createdAt;
+    private double rating = Double.NaN;
 
-    @Column(name = "updated_at")
-    @Temporal(TemporalType.TIMESTAMP)
-    private Date updatedAt;
+    // Timestamps as epoch milliseconds
+    private long createdAt = NO_TIME;
+    private long updatedAt = NO_TIME;
 
     // Default constructor required by JPA
     public Vehicle() {
-        this.createdAt = new Date();
+        this.createdAt = System.currentTimeMillis();
     }
 
     public Vehicle(String make, String model, Integer year, String licensePlate, 
                   String color, String status, String description, Double dailyRate) {
-        this.make = make;
-        this.model = model;
-        this.year = year;
+        this();
+        this.make = ATTRIBUTES.intern(make);
+        this.model = ATTRIBUTES.intern(model);
+        this.year = year != null ? year : NO_INT;
         this.licensePlate = licensePlate;
-        this.color = color;
-        this.status = status;
+        this.color = ATTRIBUTES.intern(color);
+        this.status = ATTRIBUTES.intern(status);
         this.description = description;
-        this.dailyRate = dailyRate;
-        this.createdAt = new Date();
+        this.dailyRate = dailyRate != null ? dailyRate : Double.NaN;
     }
 
     // Full constructor with all fields
@@ -117,41 +90,37 @@ public class Vehicle {
                   Double dailyRate, Double hourlyRate, String status, String currentLocation, 
                   Date lastServiceDate, Date nextServiceDate, Date insuranceExpiryDate, 
                   Boolean gpsEnabled, Double rating) {
-        this.licensePlate = licensePlate;
-        this.description = description;
+        this(make, model, year, licensePlate, color, status, description, dailyRate);
         this.picture = picture;
-        this.make = make;
-        this.condition = condition;
-        this.model = model;
-        this.mileage = mileage;
-        this.type = type;
-        this.year = year;
-        this.color = color;
-        this.transmission = transmission;
-        this.fuel = fuel;
-        this.seatingCapacity = seatingCapacity;
-        this.dailyRate = dailyRate;
-        this.hourlyRate = hourlyRate;
-        this.status = status;
+        this.condition = ATTRIBUTES.intern(condition);
+        this.mileage = mileage != null ? mileage : NO_INT;
+        this.type = ATTRIBUTES.intern(type);
+        this.transmission = ATTRIBUTES.intern(transmission);
+        this.fuel = ATTRIBUTES.intern(fuel);
+        this.seatingCapacity = seatingCapacity != null ? seatingCapacity : NO_INT;
+        this.hourlyRate = hourlyRate != null ? hourlyRate : Double.NaN;
         this.currentLocation = currentLocation;
-        this.lastServiceDate = lastServiceDate;
-        this.nextServiceDate = nextServiceDate;
-        this.insuranceExpiryDate = insuranceExpiryDate;
-        this.gpsEnabled = gpsEnabled;
-        this.rating = rating;
-        this.createdAt = new Date();
+        this.lastServiceDay = toEpochDay(lastServiceDate);
+        this.nextServiceDay = toEpochDay(nextServiceDate);
+        this.insuranceExpiryDay = toEpochDay(insuranceExpiryDate);
+        this.gpsEnabled = (byte) (gpsEnabled == null ? -1 : gpsEnabled ? 1 : 0);
+        this.rating = rating != null ? rating : Double.NaN;
     }
 
     // Getters and setters
 
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "car_id")
     public Long getId() {
-        return id;
+        return id != NO_ID ? id : null;
     }
 
     public void setId(Long id) {
-        this.id = id;
+        this.id = id != null ? id : NO_ID;
     }
 
+    @Column(name = "license_plate", nullable = false, unique = true)
     public String getLicensePlate() {
         return licensePlate;
     }
@@ -160,6 +129,7 @@ public class Vehicle {
         this.licensePlate = licensePlate;
     }
 
+    @Column
     public String getDescription() {
         return description;
     }
@@ -168,6 +138,7 @@ public class Vehicle {
         this.description = description;
     }
 
+    @Column
     public String getPicture() {
         return picture;
     }
@@ -176,110 +147,124 @@ public class Vehicle {
         this.picture = picture;
     }
 
+    @Column(name = "brand", nullable = false)
     public String getMake() {
         return make;
     }
 
     public void setMake(String make) {
-        this.make = make;
+        this.make = ATTRIBUTES.intern(make);
     }
 
+    @Column(name = "condition")
     public String getCondition() {
         return condition;
     }
 
     public void setCondition(String condition) {
-        this.condition = condition;
+        this.condition = ATTRIBUTES.intern(condition);
     }
 
+    @Column(nullable = false)
     public String getModel() {
         return model;
     }
 
     public void setModel(String model) {
-        this.model = model;
+        this.model = ATTRIBUTES.intern(model);
     }
 
+    @Column
     public Integer getMileage() {
-        return mileage;
+        return mileage != NO_INT ? mileage : null;
     }
 
     public void setMileage(Integer mileage) {
-        this.mileage = mileage;
+        this.mileage = mileage != null ? mileage : NO_INT;
     }
 
+    @Column
     public String getType() {
         return type;
     }
 
     public void setType(String type) {
-        this.type = type;
+        this.type = ATTRIBUTES.intern(type);
     }
 
+    @Column(nullable = false)
     public Integer getYear() {
-        return year;
+        return year != NO_INT ? year : null;
     }
 
     public void setYear(Integer year) {
-        this.year = year;
+        this.year = year != null ? year : NO_INT;
     }
 
+    @Column(name = "colour", nullable = false)
     public String getColor() {
         return color;
     }
 
     public void setColor(String color) {
-        this.color = color;
+        this.color = ATTRIBUTES.intern(color);
     }
 
+    @Column
     public String getTransmission() {
         return transmission;
     }
 
     public void setTransmission(String transmission) {
-        this.transmission = transmission;
+        this.transmission = ATTRIBUTES.intern(transmission);
     }
 
+    @Column
     public String getFuel() {
         return fuel;
     }
 
     public void setFuel(String fuel) {
-        this.fuel = fuel;
+        this.fuel = ATTRIBUTES.intern(fuel);
     }
 
+    @Column(name = "seating_capacity")
     public Integer getSeatingCapacity() {
-        return seatingCapacity;
+        return seatingCapacity != NO_INT ? seatingCapacity : null;
     }
 
     public void setSeatingCapacity(Integer seatingCapacity) {
-        this.seatingCapacity = seatingCapacity;
+        this.seatingCapacity = seatingCapacity != null ? seatingCapacity : NO_INT;
     }
 
+    @Column(name = "rental_price_per_day", nullable = false)
     public Double getDailyRate() {
-        return dailyRate;
+        return !Double.isNaN(dailyRate) ? dailyRate : null;
     }
 
     public void setDailyRate(Double dailyRate) {
-        this.dailyRate = dailyRate;
+        this.dailyRate = dailyRate != null ? dailyRate : Double.NaN;
     }
 
+    @Column(name = "rental_price_per_hour")
     public Double getHourlyRate() {
-        return hourlyRate;
+        return !Double.isNaN(hourlyRate) ? hourlyRate : null;
     }
 
     public void setHourlyRate(Double hourlyRate) {
-        this.hourlyRate = hourlyRate;
+        this.hourlyRate = hourlyRate != null ? hourlyRate : Double.NaN;
     }
 
+    @Column(name = "rental_status", nullable = false)
     public String getStatus() {
         return status;
     }
 
     public void setStatus(String status) {
-        this.status = status;
+        this.status = ATTRIBUTES.intern(status);
     }
 
+    @Column(name = "current_location")
     public String getCurrentLocation() {
         return currentLocation;
     }
@@ -288,76 +273,112 @@ public class Vehicle {
         this.currentLocation = currentLocation;
     }
 
+    @Column(name = "last_service_date")
+    @Temporal(TemporalType.DATE)
     public Date getLastServiceDate() {
-        return lastServiceDate;
+        return toDate(lastServiceDay);
     }
 
     public void setLastServiceDate(Date lastServiceDate) {
-        this.lastServiceDate = lastServiceDate;
+        this.lastServiceDay = toEpochDay(lastServiceDate);
     }
 
+    @Column(name = "next_service_date")
+    @Temporal(TemporalType.DATE)
     public Date getNextServiceDate() {
-        return nextServiceDate;
+        return toDate(nextServiceDay);
     }
 
     public void setNextServiceDate(Date nextServiceDate) {
-        this.nextServiceDate = nextServiceDate;
+        this.nextServiceDay = toEpochDay(nextServiceDate);
     }
 
+    @Column(name = "insurance_expiry_date")
+    @Temporal(TemporalType.DATE)
     public Date getInsuranceExpiryDate() {
-        return insuranceExpiryDate;
+        return toDate(insuranceExpiryDay);
     }
 
     public void setInsuranceExpiryDate(Date insuranceExpiryDate) {
-        this.insuranceExpiryDate = insuranceExpiryDate;
+        this.insuranceExpiryDay = toEpochDay(insuranceExpiryDate);
     }
 
+    @Column(name = "gps_enabled")
     public Boolean getGpsEnabled() {
-        return gpsEnabled;
+        return gpsEnabled >= 0 ? gpsEnabled == 1 : null;
     }
 
     public void setGpsEnabled(Boolean gpsEnabled) {
-        this.gpsEnabled = gpsEnabled;
+        this.gpsEnabled = (byte) (gpsEnabled == null ? -1 : gpsEnabled ? 1 : 0);
     }
 
+    @Column
     public Double getRating() {
-        return rating;
+        return !Double.isNaN(rating) ? rating : null;
     }
 
     public void setRating(Double rating) {
-        this.rating = rating;
+        this.rating = rating != null ? rating : Double.NaN;
     }
 
+    @Column(name = "created_at")
+    @Temporal(TemporalType.TIMESTAMP)
     public Date getCreatedAt() {
-        return createdAt;
+        return createdAt != NO_TIME ? new Date(createdAt) : null;
     }
 
     public void setCreatedAt(Date createdAt) {
-        this.createdAt = createdAt;
+        this.createdAt = createdAt != null ? createdAt.getTime() : NO_TIME;
     }
 
+    @Column(name = "updated_at")
+    @Temporal(TemporalType.TIMESTAMP)
     public Date getUpdatedAt() {
-        return updatedAt;
+        return updatedAt != NO_TIME ? new Date(updatedAt) : null;
     }
 
     public void setUpdatedAt(Date updatedAt) {
-        this.updatedAt = updatedAt;
-        if (this.createdAt == null) {
-            this.createdAt = updatedAt;
+        this.updatedAt = updatedAt != null ? updatedAt.getTime() : NO_TIME;
+        if (this.createdAt == NO_TIME) {
+            this.createdAt = this.updatedAt;
+        }
+    }
+
+    /**
+     * Convert a date to epoch days in the system time zone. java.sql.Date is converted
+     * directly, since it does not support toInstant.
+     */
+    private static int toEpochDay(Date date) {
+        if (date == null) {
+            return NO_INT;
+        }
+        LocalDate localDate = date instanceof java.sql.Date sqlDate
+                ? sqlDate.toLocalDate()
+                : Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+        return (int) localDate.toEpochDay();
+    }
+
+    /**
+     * Convert epoch days to a date at the start of the day in the system time zone.
+     */
+    private static Date toDate(int epochDay) {
+        if (epochDay == NO_INT) {
+            return null;
         }
+        return Date.from(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault()).toInstant());
     }
 
     @Override
     public String toString() {
         return "Vehicle{" +
-                "id=" + id +
+                "id=" + getId() +
                 ", make='" + make + '\'' +
                 ", model='" + model + '\'' +
-                ", year=" + year +
+                ", year=" + getYear() +
                 ", licensePlate='" + licensePlate + '\'' +
                 ", color='" + color + '\'' +
                 ", status='" + status + '\'' +
-                ", dailyRate=" + dailyRate +
+                ", dailyRate=" + getDailyRate() +
                 '}';
     }
 }
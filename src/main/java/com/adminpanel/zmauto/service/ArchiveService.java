@@ -0,0 +1,295 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.util.DatabaseUtil;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Service class for moving finished reservations out of the hot reservations table.
+ * Reservations are copied into reservations_archive (range-partitioned by month) together
+ * with their payments, in small chunked transactions so no lock is held for long.
+ */
+public class ArchiveService {
+
+    /**
+     * Reservations that are finished (completed, rejected or cancelled, or approved and already
+     * returned) and whose end date lies before the cutoff. Pending reservations are never archived.
+     */
+    private static final String ARCHIVABLE_CONDITION =
+            "status IN ('COMPLETED', 'APPROVED', 'REJECTED', 'CANCELLED') AND end_date < ?";
+
+    private static final String RESERVATION_COLUMNS =
+            "id, user_id, vehicle_id, driver_needed, driver_id, start_date, end_date, status, notes, " +
+            "total_cost, created_at, updated_at";
+
+    private static final String PAYMENT_COLUMNS =
+            "id, reservation_id, amount, payment_method, status, transaction_id, notes, payment_date";
+
+    private final int ageDays;
+    private final int chunkSize;
+
+    /**
+     * Constructor using the archive settings from database.properties.
+     */
+    public ArchiveService() {
+        this(DatabaseUtil.getIntProperty("archive.ageDays", 180),
+             DatabaseUtil.getIntProperty("archive.chunkSize", 500));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param ageDays Minimum age in days (by end date) before a reservation is archived
+     * @param chunkSize Maximum number of reservations moved per transaction
+     */
+    public ArchiveService(int ageDays, int chunkSize) {
+        this.ageDays = ageDays;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Archive all reservations that are older than the configured age.
+     * Each chunk is moved in its own short transaction; a failure only rolls back the current chunk.
+     *
+     * @return The number of reservations archived
+     * @throws SQLException If a database error occurs
+     */
+    public int archiveReservations() throws SQLException {
+        LocalDate cutoff = LocalDate.now().minusDays(ageDays);
+        long lastId = 0;
+        int archived = 0;
+
+        // Partitions can only be split off the top of the range, so all months are created up front
+        // in ascending order rather than chunk by chunk in ID order
+        for (YearMonth month : findArchiveMonths(cutoff)) {
+            ensurePartition(month);
+        }
+
+        while (true) {
+            List<Long> ids = findArchivableIds(cutoff, lastId);
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            archived += moveChunk(ids, cutoff);
+            lastId = ids.get(ids.size() - 1);
+
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+
+        return archived;
+    }
+
+    /**
+     * Find the next chunk of archivable reservation IDs using keyset pagination on the primary key.
+     *
+     * @param cutoff Reservations ending before this date are archivable
+     * @param afterId Only IDs greater than this are returned
+     * @return Up to chunkSize reservation IDs in ascending order
+     * @throws SQLException If a database error occurs
+     */
+    private List<Long> findArchivableIds(LocalDate cutoff, long afterId) throws SQLException {
+        String sql = "SELECT id FROM reservations WHERE id > ? AND " + ARCHIVABLE_CONDITION +
+                     " ORDER BY id LIMIT ?";
+        List<Long> ids = new ArrayList<>();
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, afterId);
+            stmt.setDate(2, Date.valueOf(cutoff));
+            stmt.setInt(3, chunkSize);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Find the archive months of all archivable reservations, so the matching partitions can be created first.
+     *
+     * @param cutoff Reservations ending before this date are archivable
+     * @return The distinct months of the reservations' end dates in ascending order
+     * @throws SQLException If a database error occurs
+     */
+    private List<YearMonth> findArchiveMonths(LocalDate cutoff) throws SQLException {
+        String sql = "SELECT DISTINCT YEAR(end_date), MONTH(end_date) FROM reservations WHERE " + ARCHIVABLE_CONDITION;
+        List<YearMonth> months = new ArrayList<>();
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(cutoff));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    months.add(YearMonth.of(rs.getInt(1), rs.getInt(2)));
+                }
+            }
+        }
+
+        Collections.sort(months);
+        return months;
+    }
+
+    /**
+     * Move one chunk of reservations and their payments into the archive tables.
+     * The chunk is locked and checked against the archive condition again first, so a reservation
+     * that was reopened or extended since it was found stays in the hot table.
+     *
+     * @param ids The reservation IDs to move
+     * @param cutoff Reservations ending before this date are archivable
+     * @return The number of reservations moved
+     * @throws SQLException If a database error occurs
+     */
+    private int moveChunk(List<Long> ids, LocalDate cutoff) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+
+            List<Long> archivable = new ArrayList<>();
+            String lock = "SELECT id FROM reservations WHERE id IN (" + placeholders(ids.size()) + ") AND " +
+                          ARCHIVABLE_CONDITION + " FOR UPDATE";
+            try (PreparedStatement stmt = conn.prepareStatement(lock)) {
+                bindIds(stmt, 1, ids);
+                stmt.setDate(ids.size() + 1, Date.valueOf(cutoff));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        archivable.add(rs.getLong(1));
+                    }
+                }
+            }
+
+            int moved = 0;
+            if (!archivable.isEmpty()) {
+                String in = placeholders(archivable.size());
+                executeForIds(conn, "INSERT INTO reservations_archive (" + RESERVATION_COLUMNS + ", archive_month) " +
+                                    "SELECT " + RESERVATION_COLUMNS + ", YEAR(end_date) * 100 + MONTH(end_date) " +
+                                    "FROM reservations WHERE id IN (" + in + ")", archivable);
+                executeForIds(conn, "INSERT INTO payments_archive (" + PAYMENT_COLUMNS + ") " +
+                                    "SELECT " + PAYMENT_COLUMNS + " FROM payments WHERE reservation_id IN (" + in + ")", archivable);
+                executeForIds(conn, "DELETE FROM payments WHERE reservation_id IN (" + in + ")", archivable);
+                moved = executeForIds(conn, "DELETE FROM reservations WHERE id IN (" + in + ")", archivable);
+            }
+
+            DatabaseUtil.commitTransaction();
+            return moved;
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Make sure reservations_archive has a partition for the given month.
+     * The table is partitioned on first use and new months are split off the catch-all
+     * partition, which is cheap as long as the catch-all partition is empty. A month below the
+     * highest existing partition cannot be split off any more; its rows land in the nearest higher
+     * partition, which is still correct for queries.
+     * The embedded database has no partitioning; its archive stays a single table.
+     *
+     * @param month The month that is about to receive archived rows
+     * @throws SQLException If the partition cannot be created
+     */
+    public void ensurePartition(YearMonth month) throws SQLException {
+        if (DatabaseUtil.isEmbedded()) {
+            return;
+        }
+
+        int upperBound = archiveMonth(month.plusMonths(1));
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            List<String> partitions = getArchivePartitions(conn);
+
+            int highest = 0;
+            for (String partition : partitions) {
+                if (partition.matches("p\\d{6}")) {
+                    highest = Math.max(highest, Integer.parseInt(partition.substring(1)));
+                }
+            }
+            if (archiveMonth(month) <= highest) {
+                return;
+            }
+
+            String partitionName = partitionName(month);
+            String ddl;
+            if (partitions.isEmpty()) {
+                ddl = "ALTER TABLE reservations_archive PARTITION BY RANGE (archive_month) (" +
+                      "PARTITION " + partitionName + " VALUES LESS THAN (" + upperBound + "), " +
+                      "PARTITION p_future VALUES LESS THAN MAXVALUE)";
+            } else {
+                ddl = "ALTER TABLE reservations_archive REORGANIZE PARTITION p_future INTO (" +
+                      "PARTITION " + partitionName + " VALUES LESS THAN (" + upperBound + "), " +
+                      "PARTITION p_future VALUES LESS THAN MAXVALUE)";
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(ddl);
+            }
+        }
+    }
+
+    /**
+     * Get the names of the existing reservations_archive partitions.
+     *
+     * @param conn The database connection
+     * @return The partition names, or an empty list if the table is not partitioned
+     * @throws SQLException If a database error occurs
+     */
+    private List<String> getArchivePartitions(Connection conn) throws SQLException {
+        String sql = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                     "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'reservations_archive' " +
+                     "AND PARTITION_NAME IS NOT NULL";
+        List<String> partitions = new ArrayList<>();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                partitions.add(rs.getString(1));
+            }
+        }
+
+        return partitions;
+    }
+
+    // Helper methods
+
+    private int executeForIds(Connection conn, String sql, List<Long> ids) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindIds(stmt, 1, ids);
+            return stmt.executeUpdate();
+        }
+    }
+
+    private static void bindIds(PreparedStatement stmt, int firstIndex, List<Long> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            stmt.setLong(firstIndex + i, ids.get(i));
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static int archiveMonth(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "p" + archiveMonth(month);
+    }
+}
@@ -0,0 +1,677 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.DbScheduler;
+import com.adminpanel.zmauto.util.DbScheduler.Lane;
+import com.adminpanel.zmauto.util.DbScheduler.SqlCallable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service class for logical backups of the data tables: users, cars, drivers, reservations and
+ * payments with their archives and status history, the maintenance blocks and the picture blobs.
+ * The dashboard summary tables are left out; they are rebuilt from the data.
+ *
+ * A backup is a directory with one file per table and a manifest, which is written last and marks
+ * the backup as complete. The tables are exported in parallel, each streamed from its own
+ * connection into a gzip-compressed binary file: a header with the column names and types, then
+ * one record per row with a null bitmap and variable-length numbers. The gzip trailer holds a
+ * CRC-32 of the content, which is verified when the file is read to the end.
+ *
+ * An incremental backup holds only the rows created or updated since a previous backup started,
+ * by the database clock less a safety margin for workstations whose clocks lag; rows in the margin
+ * are simply backed up twice. Deleted rows are not recorded, but rows moved to the archive are:
+ * once the archive tables are restored, hot reservations and payments with an archive twin are
+ * removed, so a restore does not leave an archived row in both tables.
+ * Restoring applies a full backup and then its incremental backups in order: rows replace the rows
+ * with the same primary key. Each table is decoded on one thread and inserted in batches by several
+ * writer threads with foreign key checks switched off, since the tables are restored one by one
+ * and the exports of different tables are not from the same instant. A restore that fails keeps
+ * the batches committed so far and can simply be run again.
+ */
+public class BackupService {
+
+    private static final int MAGIC = 0x5A4D424B;
+    private static final int VERSION = 1;
+    private static final String FILE_SUFFIX = ".zmb";
+    private static final String MANIFEST = "manifest.properties";
+
+    private static final int EXPORT_THREADS = DatabaseUtil.getIntProperty("backup.exportThreads", 4);
+    private static final int RESTORE_THREADS = DatabaseUtil.getIntProperty("backup.restoreThreads", 4);
+    private static final int BATCH_SIZE = DatabaseUtil.getIntProperty("backup.batchSize", 1000);
+    private static final int WATERMARK_MARGIN_MINUTES = DatabaseUtil.getIntProperty("backup.watermarkMarginMinutes", 15);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final List<Object[]> END_OF_TABLE = new ArrayList<>();
+
+    /**
+     * The backed-up tables, in the order they are restored.
+     */
+    private enum Table {
+        USERS("users", "created_at >= ? OR updated_at >= ?"),
+        CAR("car", "created_at >= ? OR updated_at >= ?"),
+        DRIVER("driver", "created_at >= ? OR updated_at >= ?"),
+        RESERVATIONS("reservations", "created_at >= ? OR updated_at >= ?"),
+        PAYMENTS("payments", "created_at >= ? OR updated_at >= ?"),
+        RESERVATIONS_ARCHIVE("reservations_archive", "archived_at >= ?"),
+        PAYMENTS_ARCHIVE("payments_archive", "archived_at >= ?"),
+        RESERVATION_STATUS_HISTORY("reservation_status_history", "changed_at >= ?"),
+        MAINTENANCE_BLOCK("maintenance_block", "created_at >= ? OR released_at >= ?"),
+        // Pictures are large, so fewer rows are held per batch
+        PICTURE_BLOB("picture_blob", "created_at >= ?", 16);
+
+        final String tableName;
+        final String changedSince;
+        final int batchSize;
+
+        Table(String tableName, String changedSince) {
+            this(tableName, changedSince, BATCH_SIZE);
+        }
+
+        Table(String tableName, String changedSince, int batchSize) {
+            this.tableName = tableName;
+            this.changedSince = changedSince;
+            this.batchSize = Math.min(batchSize, BATCH_SIZE);
+        }
+
+        static Table of(String tableName) throws IOException {
+            for (Table table : values()) {
+                if (table.tableName.equals(tableName)) {
+                    return table;
+                }
+            }
+            throw new IOException("Unknown table in backup: " + tableName);
+        }
+    }
+
+    /**
+     * How a column's values are stored.
+     */
+    private enum ColumnType {
+        LONG(Types.BIGINT),
+        BOOLEAN(Types.BOOLEAN),
+        DECIMAL(Types.DECIMAL),
+        DOUBLE(Types.DOUBLE),
+        DATE(Types.DATE),
+        TIMESTAMP(Types.TIMESTAMP),
+        STRING(Types.VARCHAR),
+        BYTES(Types.LONGVARBINARY);
+
+        final int sqlType;
+
+        ColumnType(int sqlType) {
+            this.sqlType = sqlType;
+        }
+
+        static ColumnType of(int sqlType) {
+            return switch (sqlType) {
+                case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> LONG;
+                case Types.BIT, Types.BOOLEAN -> BOOLEAN;
+                case Types.DECIMAL, Types.NUMERIC -> DECIMAL;
+                case Types.DOUBLE, Types.FLOAT, Types.REAL -> DOUBLE;
+                case Types.DATE -> DATE;
+                case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> TIMESTAMP;
+                case Types.BLOB, Types.LONGVARBINARY, Types.VARBINARY, Types.BINARY -> BYTES;
+                default -> STRING;
+            };
+        }
+    }
+
+    /**
+     * gzip at the fastest level; the rows are small and repetitive, so it still compresses well.
+     */
+    private static class FastGzipOutputStream extends GZIPOutputStream {
+        FastGzipOutputStream(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    private final SqlCallable<Connection> connections;
+
+    /**
+     * Constructor using the connection pool.
+     */
+    public BackupService() {
+        this(DatabaseUtil::getConnection);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connections Opens a connection for each table and writer thread, e.g. to another database
+     */
+    public BackupService(SqlCallable<Connection> connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * Back up the tables into a new directory.
+     *
+     * @param directory The backup directory; must not contain a backup yet
+     * @param previousBackup A previous backup to make an incremental backup on, or null for a full backup
+     * @return The number of rows backed up per table
+     * @throws SQLException If a database error occurs
+     * @throws IOException If the backup cannot be written or the previous backup cannot be read
+     */
+    public Map<String, Long> backup(Path directory, Path previousBackup) throws SQLException, IOException {
+        LocalDateTime since = previousBackup != null
+                ? LocalDateTime.parse(readManifest(previousBackup).getProperty("startedAt"))
+                : null;
+        Files.createDirectories(directory);
+        if (Files.exists(directory.resolve(MANIFEST))) {
+            throw new IOException(directory + " already contains a backup");
+        }
+
+        // Rows changed while the export runs are picked up again by the next incremental backup
+        LocalDateTime startedAt = databaseTime().minusMinutes(WATERMARK_MARGIN_MINUTES);
+
+        List<Callable<Long>> exports = new ArrayList<>();
+        for (Table table : Table.values()) {
+            exports.add(() -> exportTable(table, since, directory));
+        }
+        List<Long> rows = runAll("backup", Math.min(EXPORT_THREADS, exports.size()), exports);
+
+        Map<String, Long> rowsByTable = new LinkedHashMap<>();
+        Properties manifest = new Properties();
+        manifest.setProperty("version", String.valueOf(VERSION));
+        manifest.setProperty("startedAt", startedAt.toString());
+        if (since != null) {
+            manifest.setProperty("since", since.toString());
+        }
+        for (Table table : Table.values()) {
+            long count = rows.get(table.ordinal());
+            rowsByTable.put(table.tableName, count);
+            manifest.setProperty("rows." + table.tableName, String.valueOf(count));
+        }
+
+        Path tempFile = directory.resolve(MANIFEST + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            manifest.store(writer, since != null ? "Incremental backup" : "Full backup");
+        }
+        Files.move(tempFile, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return rowsByTable;
+    }
+
+    /**
+     * Restore a backup into the database. Rows replace existing rows with the same primary key;
+     * other rows are left alone.
+     *
+     * @param directory The backup directory
+     * @return The number of rows restored per table
+     * @throws SQLException If a database error occurs
+     * @throws IOException If the backup is incomplete, corrupt or cannot be read
+     */
+    public Map<String, Long> restore(Path directory) throws SQLException, IOException {
+        Properties manifest = readManifest(directory);
+        Map<String, Long> rowsByTable = new LinkedHashMap<>();
+
+        for (Table table : Table.values()) {
+            String expected = manifest.getProperty("rows." + table.tableName);
+            if (expected == null) {
+                // A table added after the backup was made
+                continue;
+            }
+            long rows = restoreTable(table, directory.resolve(table.tableName + FILE_SUFFIX));
+            if (Long.parseLong(expected) != rows) {
+                throw new IOException(table.tableName + " has " + rows + " rows, the manifest lists " + expected);
+            }
+            rowsByTable.put(table.tableName, rows);
+        }
+
+        if (rowsByTable.containsKey(Table.RESERVATIONS_ARCHIVE.tableName)
+                || rowsByTable.containsKey(Table.PAYMENTS_ARCHIVE.tableName)) {
+            removeArchivedRows();
+        }
+
+        return rowsByTable;
+    }
+
+    /**
+     * Delete the hot reservations and payments that were archived after an earlier backup was
+     * made; ArchiveService moves them in one transaction, so the archive copy is the current one.
+     */
+    private void removeArchivedRows() throws SQLException {
+        try (Connection conn = connections.call();
+             Statement stmt = conn.createStatement()) {
+            setForeignKeyChecks(conn, false);
+            try {
+                int payments = stmt.executeUpdate("DELETE FROM payments WHERE id IN (SELECT id FROM payments_archive)");
+                int reservations = stmt.executeUpdate(
+                        "DELETE FROM reservations WHERE id IN (SELECT id FROM reservations_archive)");
+                if (payments > 0 || reservations > 0) {
+                    System.out.println("Removed " + reservations + " archived reservations and " + payments +
+                                       " archived payments from the hot tables");
+                }
+            } finally {
+                setForeignKeyChecks(conn, true);
+            }
+        }
+    }
+
+    /**
+     * The clock the timestamps are compared with; created_at defaults are set by the database.
+     */
+    private LocalDateTime databaseTime() throws SQLException {
+        try (Connection conn = connections.call()) {
+            return DatabaseUtil.getDatabaseTime(conn).toLocalDateTime();
+        }
+    }
+
+    private long exportTable(Table table, LocalDateTime since, Path directory) throws SQLException, IOException {
+        String sql = "SELECT * FROM " + table.tableName + (since != null ? " WHERE " + table.changedSince : "");
+        Path file = directory.resolve(table.tableName + FILE_SUFFIX);
+        Path tempFile = directory.resolve(table.tableName + FILE_SUFFIX + ".tmp");
+        long rows = 0;
+
+        try (Connection conn = connections.call();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            DatabaseUtil.streamResults(stmt);
+            if (since != null) {
+                Timestamp from = Timestamp.valueOf(since);
+                for (int i = 1; i <= table.changedSince.chars().filter(c -> c == '?').count(); i++) {
+                    stmt.setTimestamp(i, from);
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery();
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                         new FastGzipOutputStream(Files.newOutputStream(tempFile)), BUFFER_SIZE))) {
+
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                ColumnType[] types = new ColumnType[columnCount];
+
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(table.tableName);
+                out.writeInt(columnCount);
+                for (int i = 0; i < columnCount; i++) {
+                    types[i] = ColumnType.of(metaData.getColumnType(i + 1));
+                    out.writeUTF(metaData.getColumnLabel(i + 1).toLowerCase());
+                    out.writeByte(types[i].ordinal());
+                }
+
+                Object[] values = new Object[columnCount];
+                byte[] nulls = new byte[(columnCount + 7) / 8];
+                while (rs.next()) {
+                    Arrays.fill(nulls, (byte) 0);
+                    for (int i = 0; i < columnCount; i++) {
+                        values[i] = readColumn(rs, i + 1, types[i]);
+                        if (values[i] == null) {
+                            nulls[i / 8] |= (byte) (1 << (i % 8));
+                        }
+                    }
+                    out.writeByte(1);
+                    out.write(nulls);
+                    for (int i = 0; i < columnCount; i++) {
+                        if (values[i] != null) {
+                            writeValue(out, types[i], values[i]);
+                        }
+                    }
+                    rows++;
+                }
+                out.writeByte(0);
+                out.writeLong(rows);
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    private long restoreTable(Table table, Path file) throws SQLException, IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE))) {
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || Table.of(in.readUTF()) != table) {
+                throw new IOException(file + " is not a backup of " + table.tableName);
+            }
+            int columnCount = in.readInt();
+            String[] columns = new String[columnCount];
+            ColumnType[] types = new ColumnType[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columns[i] = in.readUTF();
+                types[i] = ColumnType.values()[in.readUnsignedByte()];
+            }
+            String sql = upsertSql(table, columns);
+
+            BlockingQueue<List<Object[]>> batches = new ArrayBlockingQueue<>(RESTORE_THREADS * 2);
+            AtomicReference<Exception> failure = new AtomicReference<>();
+            List<Callable<Long>> writers = new ArrayList<>();
+            for (int i = 0; i < RESTORE_THREADS; i++) {
+                writers.add(() -> writeBatches(sql, types, batches, failure));
+            }
+
+            ExecutorService executor = newExecutor("restore", RESTORE_THREADS);
+            try {
+                List<Future<Long>> results = new ArrayList<>();
+                for (Callable<Long> writer : writers) {
+                    results.add(executor.submit(writer));
+                }
+
+                long rows = 0;
+                try {
+                    List<Object[]> batch = new ArrayList<>(table.batchSize);
+                    byte[] nulls = new byte[(columnCount + 7) / 8];
+                    while (in.readByte() == 1 && failure.get() == null) {
+                        in.readFully(nulls);
+                        Object[] row = new Object[columnCount];
+                        for (int i = 0; i < columnCount; i++) {
+                            if ((nulls[i / 8] & (1 << (i % 8))) == 0) {
+                                row[i] = readValue(in, types[i]);
+                            }
+                        }
+                        batch.add(row);
+                        rows++;
+                        if (batch.size() == table.batchSize) {
+                            batches.put(batch);
+                            batch = new ArrayList<>(table.batchSize);
+                        }
+                    }
+                    if (failure.get() == null) {
+                        if (!batch.isEmpty()) {
+                            batches.put(batch);
+                        }
+                        if (in.readLong() != rows || in.read() != -1) {
+                            throw new IOException(file + " is corrupt: row count does not match");
+                        }
+                    }
+                } finally {
+                    for (int i = 0; i < RESTORE_THREADS; i++) {
+                        batches.put(END_OF_TABLE);
+                    }
+                }
+
+                long written = 0;
+                for (Future<Long> result : results) {
+                    written += result.get();
+                }
+                if (failure.get() != null) {
+                    throw failure.get();
+                }
+                return written;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted restoring " + table.tableName, e);
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            } catch (SQLException | IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException("Restoring " + table.tableName + " failed", e);
+            } finally {
+                executor.shutdownNow();
+            }
+        } catch (EOFException e) {
+            throw new IOException(file + " is truncated", e);
+        } catch (NoSuchFileException e) {
+            throw new IOException("Backup file missing: " + file, e);
+        }
+    }
+
+    /**
+     * Insert batches from the queue on one connection until the end of the table.
+     * After a failure the remaining batches are drained so the decoding thread is not blocked.
+     */
+    private long writeBatches(String sql, ColumnType[] types, BlockingQueue<List<Object[]>> batches,
+                              AtomicReference<Exception> failure) throws InterruptedException {
+        long written = 0;
+        try (Connection conn = connections.call()) {
+            setForeignKeyChecks(conn, false);
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (List<Object[]> batch = batches.take(); batch != END_OF_TABLE; batch = batches.take()) {
+                    for (Object[] row : batch) {
+                        for (int i = 0; i < row.length; i++) {
+                            if (row[i] == null) {
+                                stmt.setNull(i + 1, types[i].sqlType);
+                            } else {
+                                stmt.setObject(i + 1, row[i]);
+                            }
+                        }
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    conn.commit();
+                    written += batch.size();
+                }
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                // The connection goes back to the pool
+                conn.setAutoCommit(true);
+                setForeignKeyChecks(conn, true);
+            }
+        } catch (SQLException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+            while (batches.take() != END_OF_TABLE) {
+                // Drain
+            }
+        }
+        return written;
+    }
+
+    private static String upsertSql(Table table, String[] columns) {
+        StringBuilder names = new StringBuilder();
+        StringBuilder placeholders = new StringBuilder();
+        StringBuilder updates = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            String column = "`" + columns[i].replace("`", "``") + "`";
+            if (i > 0) {
+                names.append(", ");
+                placeholders.append(", ");
+                updates.append(", ");
+            }
+            names.append(column);
+            placeholders.append('?');
+            updates.append(column).append(" = VALUES(").append(column).append(')');
+        }
+        return "INSERT INTO " + table.tableName + " (" + names + ") VALUES (" + placeholders + ") " +
+               "ON DUPLICATE KEY UPDATE " + updates;
+    }
+
+    private static void setForeignKeyChecks(Connection conn, boolean enabled) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET FOREIGN_KEY_CHECKS = " + (enabled ? 1 : 0));
+        }
+    }
+
+    private static Object readColumn(ResultSet rs, int column, ColumnType type) throws SQLException {
+        Object value = switch (type) {
+            case LONG -> rs.getLong(column);
+            case BOOLEAN -> rs.getBoolean(column);
+            case DECIMAL -> rs.getBigDecimal(column);
+            case DOUBLE -> rs.getDouble(column);
+            case DATE -> rs.getDate(column);
+            case TIMESTAMP -> rs.getTimestamp(column);
+            case STRING -> rs.getString(column);
+            case BYTES -> rs.getBytes(column);
+        };
+        return rs.wasNull() ? null : value;
+    }
+
+    private static void writeValue(DataOutputStream out, ColumnType type, Object value) throws IOException {
+        switch (type) {
+            case LONG -> writeVarLong(out, (Long) value);
+            case BOOLEAN -> out.writeBoolean((Boolean) value);
+            case DECIMAL -> {
+                BigDecimal decimal = (BigDecimal) value;
+                out.writeByte(decimal.scale());
+                byte[] unscaled = decimal.unscaledValue().toByteArray();
+                writeVarLong(out, unscaled.length);
+                out.write(unscaled);
+            }
+            case DOUBLE -> out.writeDouble((Double) value);
+            case DATE -> writeVarLong(out, ((Date) value).toLocalDate().toEpochDay());
+            case TIMESTAMP -> {
+                LocalDateTime dateTime = ((Timestamp) value).toLocalDateTime();
+                writeVarLong(out, dateTime.toEpochSecond(ZoneOffset.UTC));
+                writeVarLong(out, dateTime.getNano());
+            }
+            case STRING -> {
+                byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                writeVarLong(out, bytes.length);
+                out.write(bytes);
+            }
+            case BYTES -> {
+                byte[] bytes = (byte[]) value;
+                writeVarLong(out, bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static Object readValue(DataInputStream in, ColumnType type) throws IOException {
+        return switch (type) {
+            case LONG -> readVarLong(in);
+            case BOOLEAN -> in.readBoolean();
+            case DECIMAL -> {
+                int scale = in.readByte();
+                byte[] unscaled = new byte[(int) readVarLong(in)];
+                in.readFully(unscaled);
+                yield new BigDecimal(new BigInteger(unscaled), scale);
+            }
+            case DOUBLE -> in.readDouble();
+            case DATE -> Date.valueOf(LocalDate.ofEpochDay(readVarLong(in)));
+            case TIMESTAMP -> Timestamp.valueOf(
+                    LocalDateTime.ofEpochSecond(readVarLong(in), (int) readVarLong(in), ZoneOffset.UTC));
+            case STRING -> {
+                byte[] bytes = new byte[(int) readVarLong(in)];
+                in.readFully(bytes);
+                yield new String(bytes, StandardCharsets.UTF_8);
+            }
+            case BYTES -> {
+                byte[] bytes = new byte[(int) readVarLong(in)];
+                in.readFully(bytes);
+                yield bytes;
+            }
+        };
+    }
+
+    /**
+     * Write a number in 1 to 10 bytes, small magnitudes (positive or negative) taking the fewest.
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IOException("Malformed number in backup");
+    }
+
+    private static Properties readManifest(Path directory) throws IOException {
+        Properties manifest = new Properties();
+        try (Reader reader = Files.newBufferedReader(directory.resolve(MANIFEST), StandardCharsets.UTF_8)) {
+            manifest.load(reader);
+        } catch (NoSuchFileException e) {
+            throw new IOException(directory + " does not contain a complete backup", e);
+        }
+        if (!String.valueOf(VERSION).equals(manifest.getProperty("version"))) {
+            throw new IOException(directory + " has an unsupported backup version " + manifest.getProperty("version"));
+        }
+        return manifest;
+    }
+
+    /**
+     * Run tasks on a pool of BULK lane threads and return their results in order.
+     */
+    private static List<Long> runAll(String name, int threads, List<Callable<Long>> tasks)
+            throws SQLException, IOException {
+        ExecutorService executor = newExecutor(name, threads);
+        try {
+            List<Long> results = new ArrayList<>();
+            for (Future<Long> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted during " + name, e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ExecutorService newExecutor(String name, int threads) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(DbScheduler.inLane(Lane.BULK, runnable),
+                    name + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static SQLException unwrap(ExecutionException e) throws IOException {
+        Throwable cause = e.getCause();
+        if (cause instanceof SQLException sqlException) {
+            return sqlException;
+        }
+        if (cause instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        return new SQLException(cause);
+    }
+}
@@ -0,0 +1,300 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ConsistencyReport;
+import com.adminpanel.zmauto.model.ConsistencyViolation;
+import com.adminpanel.zmauto.model.ConsistencyViolation.Kind;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.DbScheduler;
+import com.adminpanel.zmauto.util.DbScheduler.Lane;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Checks the reservations and drivers for broken references and contradicting data: references
+ * to users, vehicles or drivers that no longer exist, approved reservations on vehicles marked
+ * AVAILABLE, open reservations whose total cost does not match the rates, and overlapping
+ * approved reservations of the same vehicle.
+ *
+ * The tables are cut into primary key ranges that are checked in parallel in the BULK lane. Each
+ * range is one short read-only query at READ COMMITTED, which InnoDB answers from a snapshot
+ * without locking rows, so the check can run on live data next to the panel. Since the ranges are
+ * read at slightly different times, a row that is being changed during the check may be reported
+ * once and be fine on the next run. Only the first violations of each kind are kept.
+ */
+public class ConsistencyChecker {
+
+    private static final int CHUNK_SIZE = DatabaseUtil.getIntProperty("consistency.chunkSize", 5000);
+    private static final int THREADS = DatabaseUtil.getIntProperty("consistency.threads", 4);
+    private static final int MAX_VIOLATIONS_PER_KIND = DatabaseUtil.getIntProperty("consistency.maxViolations", 1000);
+
+    private static final String RESERVATION_SQL =
+            "SELECT r.id, r.user_id, r.vehicle_id, r.driver_needed, r.driver_id, r.start_date, r.end_date, " +
+            "r.status, r.total_cost, u.user_id AS found_user_id, c.car_id AS found_car_id, c.rental_status, " +
+            "c.rental_price_per_day, d.driver_id AS found_driver_id, d.daily_wage " +
+            "FROM reservations r " +
+            "LEFT JOIN users u ON u.user_id = r.user_id " +
+            "LEFT JOIN car c ON c.car_id = r.vehicle_id " +
+            "LEFT JOIN driver d ON d.driver_id = r.driver_id " +
+            "WHERE r.id BETWEEN ? AND ?";
+
+    private static final String OVERLAP_SQL =
+            "SELECT r1.id, r1.vehicle_id, r1.start_date, r1.end_date, r2.id AS other_id " +
+            "FROM reservations r1 " +
+            "JOIN reservations r2 ON r2.vehicle_id = r1.vehicle_id AND r2.id < r1.id AND r2.status = 'APPROVED' " +
+            "AND r2.start_date <= r1.end_date AND r2.end_date >= r1.start_date " +
+            "WHERE r1.id BETWEEN ? AND ? AND r1.status = 'APPROVED'";
+
+    private static final String DRIVER_SQL =
+            "SELECT d.driver_id, d.car_id, c.car_id AS found_car_id " +
+            "FROM driver d LEFT JOIN car c ON c.car_id = d.car_id " +
+            "WHERE d.driver_id BETWEEN ? AND ?";
+
+    /**
+     * Checks one primary key range of a table.
+     */
+    private interface RangeCheck {
+        void check(Connection conn, long fromId, long toId, Violations violations, AtomicLong rows) throws SQLException;
+    }
+
+    /**
+     * Check all reservations and drivers.
+     *
+     * @return The consistency report
+     * @throws SQLException If a database error occurs
+     */
+    public ConsistencyReport check() throws SQLException {
+        long started = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        Violations violations = new Violations();
+        AtomicLong rows = new AtomicLong();
+
+        List<Callable<Void>> chunks = new ArrayList<>();
+        addChunks(chunks, "reservations", "id", violations, rows, (conn, fromId, toId, found, scanned) ->
+                checkReservations(conn, fromId, toId, today, found, scanned));
+        addChunks(chunks, "reservations", "id", violations, rows, this::checkOverlaps);
+        addChunks(chunks, "driver", "driver_id", violations, rows, this::checkDrivers);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(DbScheduler.inLane(Lane.BULK, runnable),
+                    "consistency-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Future<Void> chunk : executor.invokeAll(chunks)) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted during consistency check", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new SQLException("Consistency check failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new ConsistencyReport(rows.get(), chunks.size(), violations.counts(), violations.list(),
+                System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Cut a table into primary key ranges of CHUNK_SIZE and add a task per range.
+     */
+    private void addChunks(List<Callable<Void>> chunks, String table, String idColumn, Violations violations,
+                           AtomicLong rows, RangeCheck check) throws SQLException {
+        long minId;
+        long maxId;
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(" + idColumn + "), MAX(" + idColumn + ") FROM " + table)) {
+            rs.next();
+            minId = rs.getLong(1);
+            if (rs.wasNull()) {
+                return;
+            }
+            maxId = rs.getLong(2);
+        }
+
+        for (long fromId = minId; fromId <= maxId; fromId += CHUNK_SIZE) {
+            long from = fromId;
+            long to = Math.min(maxId, fromId + CHUNK_SIZE - 1);
+            chunks.add(() -> {
+                try (Connection conn = DatabaseUtil.getConnection()) {
+                    conn.setReadOnly(true);
+                    conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                    check.check(conn, from, to, violations, rows);
+                }
+                return null;
+            });
+        }
+    }
+
+    private void checkReservations(Connection conn, long fromId, long toId, LocalDate today,
+                                   Violations violations, AtomicLong rows) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(RESERVATION_SQL)) {
+            stmt.setLong(1, fromId);
+            stmt.setLong(2, toId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.incrementAndGet();
+                    long id = rs.getLong("id");
+                    String status = rs.getString("status");
+                    LocalDate startDate = rs.getDate("start_date").toLocalDate();
+                    LocalDate endDate = rs.getDate("end_date").toLocalDate();
+
+                    long userId = rs.getLong("user_id");
+                    if (rs.getObject("found_user_id") == null) {
+                        violations.add(Kind.ORPHAN_REFERENCE, () -> new ConsistencyViolation(Kind.ORPHAN_REFERENCE,
+                                "reservations", id, "user " + userId + " does not exist",
+                                "assign the reservation to an existing user or archive it"));
+                    }
+
+                    long vehicleId = rs.getLong("vehicle_id");
+                    boolean vehicleFound = rs.getObject("found_car_id") != null;
+                    if (!vehicleFound) {
+                        violations.add(Kind.ORPHAN_REFERENCE, () -> new ConsistencyViolation(Kind.ORPHAN_REFERENCE,
+                                "reservations", id, "vehicle " + vehicleId + " does not exist",
+                                "assign an existing vehicle or cancel the reservation"));
+                    }
+
+                    long driverId = rs.getLong("driver_id");
+                    boolean hasDriver = !rs.wasNull();
+                    boolean driverFound = rs.getObject("found_driver_id") != null;
+                    if (hasDriver && !driverFound) {
+                        violations.add(Kind.ORPHAN_REFERENCE, () -> new ConsistencyViolation(Kind.ORPHAN_REFERENCE,
+                                "reservations", id, "driver " + driverId + " does not exist",
+                                "set driver_id to NULL or assign an existing driver"));
+                    }
+
+                    if (!vehicleFound) {
+                        continue;
+                    }
+
+                    String vehicleStatus = rs.getString("rental_status");
+                    if ("APPROVED".equals(status) && !endDate.isBefore(today) && "AVAILABLE".equals(vehicleStatus)) {
+                        violations.add(Kind.APPROVED_ON_AVAILABLE_VEHICLE, () -> new ConsistencyViolation(
+                                Kind.APPROVED_ON_AVAILABLE_VEHICLE, "reservations", id,
+                                "approved until " + endDate + " but vehicle " + vehicleId + " is AVAILABLE",
+                                "set car " + vehicleId + " rental_status to RESERVED"));
+                    }
+
+                    // Finished reservations keep the cost at the rates of their time
+                    if (("PENDING".equals(status) || "APPROVED".equals(status)) && (!hasDriver || driverFound)) {
+                        BigDecimal dailyRate = rs.getBigDecimal("rental_price_per_day");
+                        BigDecimal dailyWage = rs.getBigDecimal("daily_wage");
+                        double expected = ReservationService.calculateTotalCost(
+                                dailyRate != null ? dailyRate.doubleValue() : null, rs.getBoolean("driver_needed"),
+                                dailyWage != null ? dailyWage.doubleValue() : null, startDate, endDate);
+                        long expectedCents = Math.round(expected * 100);
+                        BigDecimal totalCost = rs.getBigDecimal("total_cost");
+                        if (totalCost.movePointRight(2).longValue() != expectedCents) {
+                            violations.add(Kind.COST_MISMATCH, () -> new ConsistencyViolation(Kind.COST_MISMATCH,
+                                    "reservations", id,
+                                    String.format("total_cost %.2f, rates give %.2f", totalCost, expectedCents / 100.0),
+                                    String.format("set total_cost to %.2f, unless the rates changed after booking",
+                                            expectedCents / 100.0)));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void checkOverlaps(Connection conn, long fromId, long toId, Violations violations, AtomicLong rows)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(OVERLAP_SQL)) {
+            stmt.setLong(1, fromId);
+            stmt.setLong(2, toId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long id = rs.getLong("id");
+                    long vehicleId = rs.getLong("vehicle_id");
+                    LocalDate startDate = rs.getDate("start_date").toLocalDate();
+                    LocalDate endDate = rs.getDate("end_date").toLocalDate();
+                    long otherId = rs.getLong("other_id");
+                    violations.add(Kind.OVERLAPPING_BOOKING, () -> new ConsistencyViolation(Kind.OVERLAPPING_BOOKING,
+                            "reservations", id,
+                            "vehicle " + vehicleId + " from " + startDate + " to " + endDate
+                                    + " overlaps approved reservation " + otherId,
+                            "move the reservation to another vehicle or dates, or cancel it"));
+                }
+            }
+        }
+    }
+
+    private void checkDrivers(Connection conn, long fromId, long toId, Violations violations, AtomicLong rows)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(DRIVER_SQL)) {
+            stmt.setLong(1, fromId);
+            stmt.setLong(2, toId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.incrementAndGet();
+                    long id = rs.getLong("driver_id");
+                    long carId = rs.getLong("car_id");
+                    if (!rs.wasNull() && rs.getObject("found_car_id") == null) {
+                        violations.add(Kind.ORPHAN_REFERENCE, () -> new ConsistencyViolation(Kind.ORPHAN_REFERENCE,
+                                "driver", id, "assigned to car " + carId + ", which does not exist",
+                                "set car_id to NULL"));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Violation counts per kind and the first violations of each kind, shared by the chunk threads.
+     */
+    private static final class Violations {
+
+        private final Map<Kind, AtomicLong> counts = new EnumMap<>(Kind.class);
+        private final Map<Kind, ConcurrentLinkedQueue<ConsistencyViolation>> samples = new EnumMap<>(Kind.class);
+
+        Violations() {
+            for (Kind kind : Kind.values()) {
+                counts.put(kind, new AtomicLong());
+                samples.put(kind, new ConcurrentLinkedQueue<>());
+            }
+        }
+
+        void add(Kind kind, Supplier<ConsistencyViolation> violation) {
+            if (counts.get(kind).incrementAndGet() <= MAX_VIOLATIONS_PER_KIND) {
+                samples.get(kind).add(violation.get());
+            }
+        }
+
+        Map<Kind, Long> counts() {
+            Map<Kind, Long> result = new EnumMap<>(Kind.class);
+            counts.forEach((kind, count) -> result.put(kind, count.get()));
+            return result;
+        }
+
+        List<ConsistencyViolation> list() {
+            List<ConsistencyViolation> result = new ArrayList<>();
+            samples.values().forEach(result::addAll);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ChangeEvent;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus for entity change events.
+ * Services publish an event after a change has been committed; listeners are called on the
+ * publishing thread and must return quickly (hand work off to another thread or the FX thread).
+ */
+public class DomainEventBus {
+
+    private static final List<Consumer<ChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Subscribe to change events.
+     *
+     * @param listener The listener to call for each event
+     * @return An action that unsubscribes the listener
+     */
+    public static Runnable subscribe(Consumer<ChangeEvent> listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    /**
+     * Publish a change event to all listeners.
+     * A failing listener does not prevent the others from receiving the event.
+     *
+     * @param event The event
+     */
+    public static void publish(ChangeEvent event) {
+        for (Consumer<ChangeEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                System.err.println("Error handling " + event + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+}
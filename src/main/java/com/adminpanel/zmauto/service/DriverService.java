@@ -1,6 +1,8 @@
 package com.adminpanel.zmauto.service;
 
+import com.adminpanel.zmauto.model.ChangeEvent;
 import com.adminpanel.zmauto.model.Driver;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
 import com.adminpanel.zmauto.util.DatabaseUtil;
 
 import java.sql.*;
@@ -8,12 +10,15 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service class for driver-related operations.
  */
 public class DriverService {
-    
+
+    private final KpiService kpiService = new KpiService();
+
     /**
      * Get a driver by ID.
      * 
@@ -96,40 +101,55 @@ public class DriverService {
                      "years_of_experience, car_id, rating, created_at) " +
                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
             
-            stmt.setString(1, driver.getPicture());
-            stmt.setString(2, driver.getFirstName());
-            stmt.setString(3, driver.getLastName());
-            stmt.setObject(4, driver.getBirthday());
-            stmt.setString(5, driver.getPhoneNumber());
-            stmt.setString(6, driver.getAddress());
-            stmt.setString(7, driver.getEmail());
-            stmt.setObject(8, driver.getDailyWage());
-            stmt.setObject(9, driver.getHourlyWage());
-            stmt.setObject(10, driver.getAvailability());
-            stmt.setString(11, driver.getStatus());
-            stmt.setObject(12, driver.getYearsOfExperience());
-            stmt.setObject(13, driver.getCarId());
-            stmt.setObject(14, driver.getRating());
-            stmt.setObject(15, driver.getCreatedAt());
+                stmt.setString(1, driver.getPicture());
+                stmt.setString(2, driver.getFirstName());
+                stmt.setString(3, driver.getLastName());
+                stmt.setObject(4, driver.getBirthday());
+                stmt.setString(5, driver.getPhoneNumber());
+                stmt.setString(6, driver.getAddress());
+                stmt.setString(7, driver.getEmail());
+                stmt.setObject(8, driver.getDailyWage());
+                stmt.setObject(9, driver.getHourlyWage());
+                stmt.setObject(10, driver.getAvailability());
+                stmt.setString(11, driver.getStatus());
+                stmt.setObject(12, driver.getYearsOfExperience());
+                stmt.setObject(13, driver.getCarId());
+                stmt.setObject(14, driver.getRating());
+                stmt.setObject(15, driver.getCreatedAt());
             
-            int affectedRows = stmt.executeUpdate();
+                int affectedRows = stmt.executeUpdate();
             
-            if (affectedRows == 0) {
-                throw new SQLException("Creating driver failed, no rows affected.");
-            }
+                if (affectedRows == 0) {
+                    throw new SQLException("Creating driver failed, no rows affected.");
+                }
             
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    driver.setDriverId(generatedKeys.getLong(1));
-                } else {
-                    throw new SQLException("Creating driver failed, no ID obtained.");
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        driver.setDriverId(generatedKeys.getLong(1));
+                    } else {
+                        throw new SQLException("Creating driver failed, no ID obtained.");
+                    }
                 }
             }
+
+            kpiService.addDriver(conn, driver.getDriverId());
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
         }
         
+        DomainEventBus.publish(ChangeEvent.created(EntityType.DRIVER, driver.getDriverId(), driver));
+
         return driver;
     }
     
@@ -146,32 +166,51 @@ public class DriverService {
                      "availability = ?, status = ?, years_of_experience = ?, car_id = ?, " +
                      "rating = ?, updated_at = ? WHERE driver_id = ?";
         
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            driver.setUpdatedAt(LocalDateTime.now());
+        int affectedRows;
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+            kpiService.removeDriver(conn, driver.getDriverId());
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, driver.getPicture());
-            stmt.setString(2, driver.getFirstName());
-            stmt.setString(3, driver.getLastName());
-            stmt.setObject(4, driver.getBirthday());
-            stmt.setString(5, driver.getPhoneNumber());
-            stmt.setString(6, driver.getAddress());
-            stmt.setString(7, driver.getEmail());
-            stmt.setObject(8, driver.getDailyWage());
-            stmt.setObject(9, driver.getHourlyWage());
-            stmt.setObject(10, driver.getAvailability());
-            stmt.setString(11, driver.getStatus());
-            stmt.setObject(12, driver.getYearsOfExperience());
-            stmt.setObject(13, driver.getCarId());
-            stmt.setObject(14, driver.getRating());
-            stmt.setObject(15, driver.getUpdatedAt());
-            stmt.setLong(16, driver.getDriverId());
+                driver.setUpdatedAt(LocalDateTime.now());
             
-            int affectedRows = stmt.executeUpdate();
+                stmt.setString(1, driver.getPicture());
+                stmt.setString(2, driver.getFirstName());
+                stmt.setString(3, driver.getLastName());
+                stmt.setObject(4, driver.getBirthday());
+                stmt.setString(5, driver.getPhoneNumber());
+                stmt.setString(6, driver.getAddress());
+                stmt.setString(7, driver.getEmail());
+                stmt.setObject(8, driver.getDailyWage());
+                stmt.setObject(9, driver.getHourlyWage());
+                stmt.setObject(10, driver.getAvailability());
+                stmt.setString(11, driver.getStatus());
+                stmt.setObject(12, driver.getYearsOfExperience());
+                stmt.setObject(13, driver.getCarId());
+                stmt.setObject(14, driver.getRating());
+                stmt.setObject(15, driver.getUpdatedAt());
+                stmt.setLong(16, driver.getDriverId());
             
-            return affectedRows > 0;
+                affectedRows = stmt.executeUpdate();
+            }
+
+            kpiService.addDriver(conn, driver.getDriverId());
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
         }
+
+        if (affectedRows > 0) {
+            DomainEventBus.publish(ChangeEvent.updated(EntityType.DRIVER, driver.getDriverId(), driver));
+        }
+
+        return affectedRows > 0;
     }
     
     /**
@@ -185,17 +224,36 @@ public class DriverService {
     public boolean updateDriverStatus(Long driverId, String status) throws SQLException {
         String sql = "UPDATE driver SET status = ?, updated_at = ? WHERE driver_id = ?";
         
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, status);
-            stmt.setObject(2, LocalDateTime.now());
-            stmt.setLong(3, driverId);
+        int affectedRows;
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+            kpiService.removeDriver(conn, driverId);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            int affectedRows = stmt.executeUpdate();
+                stmt.setString(1, status);
+                stmt.setObject(2, LocalDateTime.now());
+                stmt.setLong(3, driverId);
             
-            return affectedRows > 0;
+                affectedRows = stmt.executeUpdate();
+            }
+
+            kpiService.addDriver(conn, driverId);
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
         }
+
+        if (affectedRows > 0) {
+            DomainEventBus.publish(ChangeEvent.changed(EntityType.DRIVER, driverId, Map.of("status", status)));
+        }
+
+        return affectedRows > 0;
     }
     
     /**
@@ -208,15 +266,33 @@ public class DriverService {
     public boolean deleteDriver(Long driverId) throws SQLException {
         String sql = "DELETE FROM driver WHERE driver_id = ?";
         
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, driverId);
+        int affectedRows;
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+            kpiService.removeDriver(conn, driverId);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            int affectedRows = stmt.executeUpdate();
+                stmt.setLong(1, driverId);
             
-            return affectedRows > 0;
+                affectedRows = stmt.executeUpdate();
+            }
+
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
         }
+
+        if (affectedRows > 0) {
+            DomainEventBus.publish(ChangeEvent.deleted(EntityType.DRIVER, driverId));
+        }
+
+        return affectedRows > 0;
     }
     
     /**
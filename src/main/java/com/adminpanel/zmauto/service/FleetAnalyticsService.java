@@ -0,0 +1,429 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ChangeEvent;
+import com.adminpanel.zmauto.model.Reservation;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
+import com.adminpanel.zmauto.model.UtilizationReport;
+import com.adminpanel.zmauto.model.UtilizationStats;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.ReservationColumns;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Service class for fleet utilization analytics.
+ * Approved reservations overlapping a period are scanned once from the off-heap reservation
+ * columns into flat arrays grouped by vehicle. Each vehicle's booked days are then computed with a
+ * sweep over its intervals, with the vehicles split across the fork/join pool.
+ */
+public class FleetAnalyticsService {
+
+    private static final int CACHE_SIZE = DatabaseUtil.getIntProperty("analytics.cacheSize", 16);
+    private static final int VEHICLES_PER_TASK = 256;
+
+    /**
+     * Reports by period, least recently used first.
+     */
+    private static final Map<String, UtilizationReport> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UtilizationReport> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Incremented on every invalidation, so a report computed from older data is not cached.
+     */
+    private static long generation;
+
+    static {
+        DomainEventBus.subscribe(FleetAnalyticsService::onChange);
+    }
+
+    private final ReservationFactService reservationFactService = new ReservationFactService();
+
+    /**
+     * Get the fleet utilization for a period. Reports are cached per period until
+     * a reservation or vehicle change affects them.
+     *
+     * @param startDate The first day of the period
+     * @param endDate The last day of the period
+     * @return The utilization report
+     * @throws SQLException If a database error occurs
+     */
+    public UtilizationReport getUtilization(LocalDate startDate, LocalDate endDate) throws SQLException {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("The end date must not be before the start date");
+        }
+
+        String key = startDate + ".." + endDate;
+        long loadedGeneration;
+        synchronized (cache) {
+            UtilizationReport cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            loadedGeneration = generation;
+        }
+
+        UtilizationReport report = compute(loadFleetData(startDate, endDate), startDate, endDate);
+
+        synchronized (cache) {
+            if (generation == loadedGeneration) {
+                cache.put(key, report);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Drop all cached reports.
+     */
+    public static void clearCache() {
+        synchronized (cache) {
+            generation++;
+            cache.clear();
+        }
+    }
+
+    private static void onChange(ChangeEvent event) {
+        if (event.getEntityType() == EntityType.RESERVATION && event.getEntity() instanceof Reservation) {
+            // Only periods overlapping the reservation are affected
+            Reservation reservation = (Reservation) event.getEntity();
+            if (reservation.getStartDate() != null && reservation.getEndDate() != null) {
+                synchronized (cache) {
+                    generation++;
+                    cache.values().removeIf(report ->
+                            !reservation.getStartDate().isAfter(report.getEndDate())
+                            && !reservation.getEndDate().isBefore(report.getStartDate()));
+                }
+                return;
+            }
+        }
+
+        if (event.getEntityType() == EntityType.RESERVATION || event.getEntityType() == EntityType.VEHICLE) {
+            clearCache();
+        }
+    }
+
+    /**
+     * Load the vehicles, and the approved reservations overlapping a period from the reservation columns.
+     *
+     * @param startDate The first day of the period
+     * @param endDate The last day of the period
+     * @return The fleet data
+     * @throws SQLException If a database error occurs
+     */
+    private FleetData loadFleetData(LocalDate startDate, LocalDate endDate) throws SQLException {
+        FleetData.Builder builder = new FleetData.Builder();
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            String vehicleSql = "SELECT car_id, brand, model, license_plate, type, created_at FROM car " +
+                                "WHERE created_at < ? ORDER BY car_id";
+            try (PreparedStatement stmt = conn.prepareStatement(vehicleSql)) {
+                stmt.setDate(1, Date.valueOf(endDate.plusDays(1)));
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Timestamp createdAt = rs.getTimestamp("created_at");
+                        String label = rs.getString("brand") + " " + rs.getString("model") +
+                                       " (" + rs.getString("license_plate") + ")";
+                        builder.addVehicle(rs.getLong("car_id"), label, rs.getString("type"),
+                                createdAt != null ? createdAt.toLocalDateTime().toLocalDate() : startDate);
+                    }
+                }
+            }
+
+        }
+
+        ReservationColumns columns = reservationFactService.getColumns();
+        columns.scan((int) startDate.toEpochDay(), (int) endDate.toEpochDay(), columns.statusMask("APPROVED"),
+                (id, vehicleId, startDay, endDay, cost) -> builder.addReservation(vehicleId, startDay, endDay, cost));
+
+        return builder.build();
+    }
+
+    /**
+     * Compute the utilization report for a period.
+     *
+     * @param data The vehicles and their reservations
+     * @param startDate The first day of the period
+     * @param endDate The last day of the period
+     * @return The utilization report
+     */
+    static UtilizationReport compute(FleetData data, LocalDate startDate, LocalDate endDate) {
+        int periodStart = (int) startDate.toEpochDay();
+        int periodEnd = (int) endDate.toEpochDay();
+
+        long[] availableDays = new long[data.vehicleCount];
+        long[] bookedDays = new long[data.vehicleCount];
+        double[] revenue = new double[data.vehicleCount];
+
+        ForkJoinPool.commonPool().invoke(new SweepTask(data, periodStart, periodEnd, 0, data.vehicleCount,
+                availableDays, bookedDays, revenue));
+
+        List<UtilizationStats> byVehicle = new ArrayList<>(data.vehicleCount);
+        Map<String, long[]> typeDays = new TreeMap<>();
+        Map<String, Double> typeRevenue = new HashMap<>();
+        long fleetAvailable = 0;
+        long fleetBooked = 0;
+        double fleetRevenue = 0;
+
+        for (int v = 0; v < data.vehicleCount; v++) {
+            if (availableDays[v] == 0) {
+                continue;
+            }
+            String type = data.types[v] != null ? data.types[v] : "Other";
+            byVehicle.add(new UtilizationStats(data.vehicleIds[v], data.labels[v], type, 1,
+                    availableDays[v], bookedDays[v], revenue[v]));
+
+            long[] days = typeDays.computeIfAbsent(type, t -> new long[3]);
+            days[0]++;
+            days[1] += availableDays[v];
+            days[2] += bookedDays[v];
+            typeRevenue.merge(type, revenue[v], Double::sum);
+
+            fleetAvailable += availableDays[v];
+            fleetBooked += bookedDays[v];
+            fleetRevenue += revenue[v];
+        }
+
+        List<UtilizationStats> byType = new ArrayList<>(typeDays.size());
+        for (Map.Entry<String, long[]> entry : typeDays.entrySet()) {
+            long[] days = entry.getValue();
+            byType.add(new UtilizationStats(null, entry.getKey(), entry.getKey(), (int) days[0],
+                    days[1], days[2], typeRevenue.get(entry.getKey())));
+        }
+
+        UtilizationStats fleet = new UtilizationStats(null, "Fleet", null, byVehicle.size(),
+                fleetAvailable, fleetBooked, fleetRevenue);
+        return new UtilizationReport(startDate, endDate, fleet, byType, byVehicle);
+    }
+
+    /**
+     * Computes the figures for a range of vehicles, splitting large ranges across the pool.
+     */
+    private static class SweepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks are never serialized
+        private final transient FleetData data;
+        private final int periodStart;
+        private final int periodEnd;
+        private final int from;
+        private final int to;
+        private final long[] availableDays;
+        private final long[] bookedDays;
+        private final double[] revenue;
+
+        SweepTask(FleetData data, int periodStart, int periodEnd, int from, int to,
+                  long[] availableDays, long[] bookedDays, double[] revenue) {
+            this.data = data;
+            this.periodStart = periodStart;
+            this.periodEnd = periodEnd;
+            this.from = from;
+            this.to = to;
+            this.availableDays = availableDays;
+            this.bookedDays = bookedDays;
+            this.revenue = revenue;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > VEHICLES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SweepTask(data, periodStart, periodEnd, from, middle, availableDays, bookedDays, revenue),
+                          new SweepTask(data, periodStart, periodEnd, middle, to, availableDays, bookedDays, revenue));
+                return;
+            }
+
+            long[] order = new long[0];
+            for (int v = from; v < to; v++) {
+                int first = Math.max(periodStart, data.availableFrom[v]);
+                availableDays[v] = Math.max(0, periodEnd - first + 1);
+
+                int offset = data.offsets[v];
+                int count = data.offsets[v + 1] - offset;
+                if (count == 0 || availableDays[v] == 0) {
+                    continue;
+                }
+
+                // Order the vehicle's intervals by start day; the low bits keep the interval index
+                if (order.length < count) {
+                    order = new long[Math.max(count, order.length * 2)];
+                }
+                for (int i = 0; i < count; i++) {
+                    order[i] = ((long) data.starts[offset + i] << 32) | i;
+                }
+                Arrays.sort(order, 0, count);
+
+                // Sweep: merge overlapping intervals clipped to the period so double bookings count once
+                long booked = 0;
+                double vehicleRevenue = 0;
+                int runStart = Integer.MIN_VALUE;
+                int runEnd = Integer.MIN_VALUE;
+                for (int i = 0; i < count; i++) {
+                    int index = offset + (int) order[i];
+                    int start = data.starts[index];
+                    int end = data.ends[index];
+
+                    int clippedStart = Math.max(start, first);
+                    int clippedEnd = Math.min(end, periodEnd);
+                    if (clippedStart > clippedEnd) {
+                        continue;
+                    }
+
+                    // Attribute revenue in proportion to the reservation days inside the period
+                    vehicleRevenue += data.costs[index] * (clippedEnd - clippedStart + 1) / (end - start + 1);
+
+                    if (clippedStart > runEnd + 1) {
+                        if (runStart != Integer.MIN_VALUE) {
+                            booked += runEnd - runStart + 1;
+                        }
+                        runStart = clippedStart;
+                        runEnd = clippedEnd;
+                    } else if (clippedEnd > runEnd) {
+                        runEnd = clippedEnd;
+                    }
+                }
+                if (runStart != Integer.MIN_VALUE) {
+                    booked += runEnd - runStart + 1;
+                }
+
+                bookedDays[v] = booked;
+                revenue[v] = vehicleRevenue;
+            }
+        }
+    }
+
+    /**
+     * Vehicles and their reservation intervals in flat arrays. The intervals of vehicle {@code v}
+     * are at indexes {@code offsets[v]} (inclusive) to {@code offsets[v + 1]} (exclusive).
+     * Days are epoch days, inclusive at both ends.
+     */
+    static final class FleetData {
+        final int vehicleCount;
+        final long[] vehicleIds;
+        final String[] labels;
+        final String[] types;
+        final int[] availableFrom;
+        final int[] offsets;
+        final int[] starts;
+        final int[] ends;
+        final double[] costs;
+
+        private FleetData(int vehicleCount, long[] vehicleIds, String[] labels, String[] types, int[] availableFrom,
+                          int[] offsets, int[] starts, int[] ends, double[] costs) {
+            this.vehicleCount = vehicleCount;
+            this.vehicleIds = vehicleIds;
+            this.labels = labels;
+            this.types = types;
+            this.availableFrom = availableFrom;
+            this.offsets = offsets;
+            this.starts = starts;
+            this.ends = ends;
+            this.costs = costs;
+        }
+
+        /**
+         * Collects vehicles and reservations in any order and groups the reservations by vehicle.
+         */
+        static final class Builder {
+            private final Map<Long, Integer> vehicleIndexes = new HashMap<>();
+            private final List<Long> vehicleIds = new ArrayList<>();
+            private final List<String> labels = new ArrayList<>();
+            private final List<String> types = new ArrayList<>();
+            private final List<Integer> availableFrom = new ArrayList<>();
+
+            private int[] reservationVehicles = new int[1024];
+            private int[] starts = new int[1024];
+            private int[] ends = new int[1024];
+            private double[] costs = new double[1024];
+            private int reservationCount;
+
+            Builder addVehicle(long vehicleId, String label, String type, LocalDate inFleetFrom) {
+                vehicleIndexes.put(vehicleId, vehicleIds.size());
+                vehicleIds.add(vehicleId);
+                labels.add(label);
+                types.add(type);
+                availableFrom.add((int) inFleetFrom.toEpochDay());
+                return this;
+            }
+
+            /**
+             * Add a reservation. Reservations of unknown vehicles are ignored.
+             */
+            Builder addReservation(long vehicleId, LocalDate startDate, LocalDate endDate, double cost) {
+                return addReservation(vehicleId, (int) startDate.toEpochDay(), (int) endDate.toEpochDay(), cost);
+            }
+
+            /**
+             * Add a reservation by epoch days. Reservations of unknown vehicles are ignored.
+             */
+            Builder addReservation(long vehicleId, int startDay, int endDay, double cost) {
+                Integer vehicle = vehicleIndexes.get(vehicleId);
+                if (vehicle == null || endDay < startDay) {
+                    return this;
+                }
+
+                if (reservationCount == starts.length) {
+                    int capacity = starts.length * 2;
+                    reservationVehicles = Arrays.copyOf(reservationVehicles, capacity);
+                    starts = Arrays.copyOf(starts, capacity);
+                    ends = Arrays.copyOf(ends, capacity);
+                    costs = Arrays.copyOf(costs, capacity);
+                }
+                reservationVehicles[reservationCount] = vehicle;
+                starts[reservationCount] = startDay;
+                ends[reservationCount] = endDay;
+                costs[reservationCount] = cost;
+                reservationCount++;
+                return this;
+            }
+
+            FleetData build() {
+                int vehicleCount = vehicleIds.size();
+
+                // Counting sort of the reservations by vehicle
+                int[] offsets = new int[vehicleCount + 1];
+                for (int i = 0; i < reservationCount; i++) {
+                    offsets[reservationVehicles[i] + 1]++;
+                }
+                for (int v = 0; v < vehicleCount; v++) {
+                    offsets[v + 1] += offsets[v];
+                }
+
+                int[] next = Arrays.copyOf(offsets, vehicleCount);
+                int[] sortedStarts = new int[reservationCount];
+                int[] sortedEnds = new int[reservationCount];
+                double[] sortedCosts = new double[reservationCount];
+                for (int i = 0; i < reservationCount; i++) {
+                    int position = next[reservationVehicles[i]]++;
+                    sortedStarts[position] = starts[i];
+                    sortedEnds[position] = ends[i];
+                    sortedCosts[position] = costs[i];
+                }
+
+                long[] ids = new long[vehicleCount];
+                int[] from = new int[vehicleCount];
+                for (int v = 0; v < vehicleCount; v++) {
+                    ids[v] = vehicleIds.get(v);
+                    from[v] = availableFrom.get(v);
+                }
+
+                return new FleetData(vehicleCount, ids, labels.toArray(new String[0]), types.toArray(new String[0]),
+                        from, offsets, sortedStarts, sortedEnds, sortedCosts);
+            }
+        }
+    }
+}
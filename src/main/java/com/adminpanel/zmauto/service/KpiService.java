@@ -0,0 +1,543 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.KpiSummary;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.DbScheduler;
+import com.adminpanel.zmauto.util.DbScheduler.Lane;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class for the dashboard key figures.
+ * The figures are kept in small summary tables keyed by day, status and vehicle type. The write
+ * paths of the reservation, vehicle, driver and payment services adjust them in the same
+ * transaction as the change itself: the changed rows are subtracted before the change and added
+ * back after it. A periodic repair job recomputes the tables from the source rows and fixes any
+ * drift. Revenue is the amount of the completed payments, as on the revenue report.
+ */
+public class KpiService {
+
+    private static final long REPAIR_INTERVAL_HOURS = DatabaseUtil.getIntProperty("kpi.repairHours", 6);
+    private static final int IN_CLAUSE_SIZE = 1000;
+
+    private static final String RESERVATION_FACTS =
+            "(SELECT start_date, status, total_cost FROM reservations " +
+            "UNION ALL SELECT start_date, status, total_cost FROM reservations_archive) r";
+
+    private static final String PAYMENT_FACTS =
+            "(SELECT payment_date, status, amount FROM payments " +
+            "UNION ALL SELECT payment_date, status, amount FROM payments_archive) p";
+
+    private static final ScheduledExecutorService repairExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(DbScheduler.inLane(Lane.BACKGROUND, runnable), "kpi-repair");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static boolean started;
+
+    /**
+     * Start the periodic repair job. The first run also fills the tables on a new database.
+     */
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        repairExecutor.scheduleWithFixedDelay(() -> {
+            BackgroundTasks.awaitStartup();
+            try {
+                int repaired = new KpiService().repair();
+                if (repaired > 0) {
+                    System.out.println("Repaired " + repaired + " summary rows");
+                }
+            } catch (SQLException e) {
+                System.err.println("Error repairing summary tables: " + e.getMessage());
+            }
+        }, 0, REPAIR_INTERVAL_HOURS, TimeUnit.HOURS);
+    }
+
+    /**
+     * Stop the periodic repair job.
+     */
+    public static synchronized void shutdown() {
+        repairExecutor.shutdownNow();
+    }
+
+    /**
+     * Get the dashboard key figures. Reads a handful of summary rows regardless of table sizes.
+     *
+     * @return The key figures
+     * @throws SQLException If a database error occurs
+     */
+    public KpiSummary getSummary() throws SQLException {
+        LocalDate today = LocalDate.now();
+        long pending = 0;
+        Map<String, Long> vehiclesByStatus = new LinkedHashMap<>();
+        double revenueToday = 0;
+        double revenueMonthToDate = 0;
+        long driversOnDuty = 0;
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT reservation_count FROM kpi_reservation_status WHERE status = 'PENDING'");
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    pending = rs.getLong("reservation_count");
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT rental_status, SUM(vehicle_count) AS vehicle_count FROM kpi_vehicle_status " +
+                    "GROUP BY rental_status ORDER BY rental_status");
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    vehiclesByStatus.put(rs.getString("rental_status"), rs.getLong("vehicle_count"));
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT day, amount FROM kpi_payment_daily " +
+                    "WHERE status = 'COMPLETED' AND day BETWEEN ? AND ?")) {
+                stmt.setDate(1, Date.valueOf(today.withDayOfMonth(1)));
+                stmt.setDate(2, Date.valueOf(today));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        double revenue = rs.getDouble("amount");
+                        revenueMonthToDate += revenue;
+                        if (rs.getDate("day").toLocalDate().equals(today)) {
+                            revenueToday = revenue;
+                        }
+                    }
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT driver_count FROM kpi_driver_status WHERE status = 'ACTIVE'");
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    driversOnDuty = rs.getLong("driver_count");
+                }
+            }
+        }
+
+        return new KpiSummary(pending, vehiclesByStatus, revenueToday, revenueMonthToDate, driversOnDuty);
+    }
+
+    /**
+     * Get the revenue of each day in a period, i.e. the amount of the payments completed that day.
+     *
+     * @param startDate The first day
+     * @param endDate The last day
+     * @return The revenue per day, starting with the first day
+     * @throws SQLException If a database error occurs
+     */
+    public double[] getRevenueByDay(LocalDate startDate, LocalDate endDate) throws SQLException {
+        double[] revenue = new double[(int) ChronoUnit.DAYS.between(startDate, endDate) + 1];
+        String sql = "SELECT day, amount FROM kpi_payment_daily " +
+                     "WHERE status = 'COMPLETED' AND day BETWEEN ? AND ?";
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(startDate));
+            stmt.setDate(2, Date.valueOf(endDate));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    revenue[(int) ChronoUnit.DAYS.between(startDate, rs.getDate("day").toLocalDate())] =
+                            rs.getDouble("amount");
+                }
+            }
+        }
+
+        return revenue;
+    }
+
+    /**
+     * Subtract reservations from the summary tables before they are changed or deleted.
+     * Must be called in the same transaction as the change.
+     *
+     * @param conn The transaction connection
+     * @param reservationIds The reservation IDs
+     * @throws SQLException If a database error occurs
+     */
+    public void removeReservations(Connection conn, List<Long> reservationIds) throws SQLException {
+        adjustReservations(conn, reservationIds, -1);
+    }
+
+    /**
+     * Add reservations to the summary tables after they were created or changed.
+     * Must be called in the same transaction as the change.
+     *
+     * @param conn The transaction connection
+     * @param reservationIds The reservation IDs
+     * @throws SQLException If a database error occurs
+     */
+    public void addReservations(Connection conn, List<Long> reservationIds) throws SQLException {
+        adjustReservations(conn, reservationIds, 1);
+    }
+
+    /**
+     * Subtract payments from the summary tables before they are changed or deleted.
+     * Must be called in the same transaction as the change.
+     *
+     * @param conn The transaction connection
+     * @param paymentIds The payment IDs
+     * @throws SQLException If a database error occurs
+     */
+    public void removePayments(Connection conn, List<Long> paymentIds) throws SQLException {
+        adjustPayments(conn, paymentIds, -1);
+    }
+
+    /**
+     * Add payments to the summary tables after they were created or changed.
+     * Must be called in the same transaction as the change.
+     *
+     * @param conn The transaction connection
+     * @param paymentIds The payment IDs
+     * @throws SQLException If a database error occurs
+     */
+    public void addPayments(Connection conn, List<Long> paymentIds) throws SQLException {
+        adjustPayments(conn, paymentIds, 1);
+    }
+
+    /**
+     * Subtract vehicles from the summary tables before they are changed or deleted.
+     * Must be called in the same transaction as the change.
+     *
+     * @param conn The transaction connection
+     * @param vehicleIds The vehicle IDs
+     * @throws SQLException If a database error occurs
+     */
+    public void removeVehicles(Connection conn, List<Long> vehicleIds) throws SQLException {
+        adjustVehicles(conn, vehicleIds, -1);
+    }
+
+    /**
+     * Add vehicles to the summary tables after they were created or changed.
+     * Must be called in the same transaction as the change.
+     *
+     * @param conn The transaction connection
+     * @param vehicleIds The vehicle IDs
+     * @throws SQLException If a database error occurs
+     */
+    public void addVehicles(Connection conn, List<Long> vehicleIds) throws SQLException {
+        adjustVehicles(conn, vehicleIds, 1);
+    }
+
+    /**
+     * Subtract a driver from the summary tables before it is changed or deleted.
+     * Must be called in the same transaction as the change.
+     *
+     * @param conn The transaction connection
+     * @param driverId The driver ID
+     * @throws SQLException If a database error occurs
+     */
+    public void removeDriver(Connection conn, Long driverId) throws SQLException {
+        adjustDriver(conn, driverId, -1);
+    }
+
+    /**
+     * Add a driver to the summary tables after it was created or changed.
+     * Must be called in the same transaction as the change.
+     *
+     * @param conn The transaction connection
+     * @param driverId The driver ID
+     * @throws SQLException If a database error occurs
+     */
+    public void addDriver(Connection conn, Long driverId) throws SQLException {
+        adjustDriver(conn, driverId, 1);
+    }
+
+    private void adjustReservations(Connection conn, List<Long> reservationIds, int sign) throws SQLException {
+        for (List<Long> chunk : chunks(reservationIds)) {
+            // Locking read, so the subtracted values are the ones the change will overwrite
+            String sql = "SELECT start_date, status, total_cost FROM reservations " +
+                         "WHERE id IN " + placeholders(chunk.size()) + " FOR UPDATE";
+
+            try (PreparedStatement select = conn.prepareStatement(sql);
+                 PreparedStatement daily = conn.prepareStatement(
+                         "INSERT INTO kpi_reservation_daily (day, status, reservation_count, total_cost) " +
+                         "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                         "reservation_count = reservation_count + VALUES(reservation_count), " +
+                         "total_cost = total_cost + VALUES(total_cost)");
+                 PreparedStatement byStatus = conn.prepareStatement(
+                         "INSERT INTO kpi_reservation_status (status, reservation_count) VALUES (?, ?) " +
+                         "ON DUPLICATE KEY UPDATE reservation_count = reservation_count + VALUES(reservation_count)")) {
+
+                setIds(select, chunk);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        daily.setDate(1, rs.getDate("start_date"));
+                        daily.setString(2, rs.getString("status"));
+                        daily.setLong(3, sign);
+                        daily.setBigDecimal(4, rs.getBigDecimal("total_cost").multiply(BigDecimal.valueOf(sign)));
+                        daily.addBatch();
+
+                        byStatus.setString(1, rs.getString("status"));
+                        byStatus.setLong(2, sign);
+                        byStatus.addBatch();
+                    }
+                }
+                daily.executeBatch();
+                byStatus.executeBatch();
+            }
+        }
+    }
+
+    private void adjustPayments(Connection conn, List<Long> paymentIds, int sign) throws SQLException {
+        for (List<Long> chunk : chunks(paymentIds)) {
+            String sql = "SELECT payment_date, status, amount FROM payments " +
+                         "WHERE id IN " + placeholders(chunk.size()) + " FOR UPDATE";
+
+            try (PreparedStatement select = conn.prepareStatement(sql);
+                 PreparedStatement daily = conn.prepareStatement(
+                         "INSERT INTO kpi_payment_daily (day, status, payment_count, amount) " +
+                         "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                         "payment_count = payment_count + VALUES(payment_count), " +
+                         "amount = amount + VALUES(amount)")) {
+
+                setIds(select, chunk);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        daily.setDate(1, Date.valueOf(rs.getTimestamp("payment_date").toLocalDateTime().toLocalDate()));
+                        daily.setString(2, rs.getString("status"));
+                        daily.setLong(3, sign);
+                        daily.setBigDecimal(4, rs.getBigDecimal("amount").multiply(BigDecimal.valueOf(sign)));
+                        daily.addBatch();
+                    }
+                }
+                daily.executeBatch();
+            }
+        }
+    }
+
+    private void adjustVehicles(Connection conn, List<Long> vehicleIds, int sign) throws SQLException {
+        for (List<Long> chunk : chunks(vehicleIds)) {
+            String sql = "SELECT rental_status, COALESCE(type, '') AS type FROM car " +
+                         "WHERE car_id IN " + placeholders(chunk.size()) + " FOR UPDATE";
+
+            try (PreparedStatement select = conn.prepareStatement(sql);
+                 PreparedStatement upsert = conn.prepareStatement(
+                         "INSERT INTO kpi_vehicle_status (rental_status, type, vehicle_count) VALUES (?, ?, ?) " +
+                         "ON DUPLICATE KEY UPDATE vehicle_count = vehicle_count + VALUES(vehicle_count)")) {
+
+                setIds(select, chunk);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        upsert.setString(1, rs.getString("rental_status"));
+                        upsert.setString(2, rs.getString("type"));
+                        upsert.setLong(3, sign);
+                        upsert.addBatch();
+                    }
+                }
+                upsert.executeBatch();
+            }
+        }
+    }
+
+    private void adjustDriver(Connection conn, Long driverId, int sign) throws SQLException {
+        try (PreparedStatement select = conn.prepareStatement("SELECT status FROM driver WHERE driver_id = ? FOR UPDATE")) {
+            select.setLong(1, driverId);
+            try (ResultSet rs = select.executeQuery()) {
+                if (!rs.next()) {
+                    return;
+                }
+                try (PreparedStatement upsert = conn.prepareStatement(
+                        "INSERT INTO kpi_driver_status (status, driver_count) VALUES (?, ?) " +
+                        "ON DUPLICATE KEY UPDATE driver_count = driver_count + VALUES(driver_count)")) {
+                    upsert.setString(1, rs.getString("status"));
+                    upsert.setLong(2, sign);
+                    upsert.executeUpdate();
+                }
+            }
+        }
+    }
+
+    /**
+     * Recompute the summary tables from the source tables and correct the rows that differ.
+     * The summary rows are locked first, so writers that have not committed yet apply their
+     * adjustments on top of the repaired values.
+     *
+     * @return The number of corrected rows
+     * @throws SQLException If a database error occurs
+     */
+    public int repair() throws SQLException {
+        int repaired = 0;
+
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+
+            repaired += repairTable(conn, "kpi_reservation_daily", List.of("day", "status"),
+                    List.of("reservation_count", "total_cost"),
+                    "SELECT start_date, status, COUNT(*), SUM(total_cost) FROM " + RESERVATION_FACTS +
+                    " GROUP BY start_date, status");
+            repaired += repairTable(conn, "kpi_payment_daily", List.of("day", "status"),
+                    List.of("payment_count", "amount"),
+                    "SELECT CAST(payment_date AS DATE), status, COUNT(*), SUM(amount) FROM " + PAYMENT_FACTS +
+                    " GROUP BY CAST(payment_date AS DATE), status");
+            repaired += repairTable(conn, "kpi_reservation_status", List.of("status"),
+                    List.of("reservation_count"),
+                    "SELECT status, COUNT(*) FROM " + RESERVATION_FACTS + " GROUP BY status");
+            repaired += repairTable(conn, "kpi_vehicle_status", List.of("rental_status", "type"),
+                    List.of("vehicle_count"),
+                    "SELECT rental_status, COALESCE(type, ''), COUNT(*) FROM car " +
+                    "GROUP BY rental_status, COALESCE(type, '')");
+            repaired += repairTable(conn, "kpi_driver_status", List.of("status"),
+                    List.of("driver_count"),
+                    "SELECT status, COUNT(*) FROM driver GROUP BY status");
+
+            DatabaseUtil.commitTransaction();
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
+
+        return repaired;
+    }
+
+    /**
+     * Bring a summary table in line with the expected rows.
+     *
+     * @param conn The transaction connection
+     * @param table The summary table
+     * @param keyColumns The key columns
+     * @param valueColumns The value columns
+     * @param expectedSql A query returning the key columns followed by the value columns
+     * @return The number of corrected rows
+     * @throws SQLException If a database error occurs
+     */
+    private int repairTable(Connection conn, String table, List<String> keyColumns, List<String> valueColumns,
+                            String expectedSql) throws SQLException {
+        Map<List<String>, List<BigDecimal>> current = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT " + String.join(", ", keyColumns) + ", " + String.join(", ", valueColumns) +
+                " FROM " + table + " FOR UPDATE");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                current.put(readKey(rs, keyColumns.size()), readValues(rs, keyColumns.size(), valueColumns.size()));
+            }
+        }
+
+        Map<List<String>, List<BigDecimal>> expected = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(expectedSql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                expected.put(readKey(rs, keyColumns.size()), readValues(rs, keyColumns.size(), valueColumns.size()));
+            }
+        }
+
+        Set<List<String>> keys = new HashSet<>(current.keySet());
+        keys.addAll(expected.keySet());
+
+        String keyCondition = String.join(" = ? AND ", keyColumns) + " = ?";
+        List<String> columns = new ArrayList<>(keyColumns);
+        columns.addAll(valueColumns);
+
+        int repaired = 0;
+        try (PreparedStatement delete = conn.prepareStatement("DELETE FROM " + table + " WHERE " + keyCondition);
+             PreparedStatement insert = conn.prepareStatement(
+                     "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES " +
+                     placeholders(columns.size()))) {
+
+            for (List<String> key : keys) {
+                List<BigDecimal> actual = current.get(key);
+                List<BigDecimal> wanted = expected.get(key);
+                if (sameValues(actual, wanted)) {
+                    continue;
+                }
+
+                if (actual != null) {
+                    for (int i = 0; i < key.size(); i++) {
+                        delete.setString(i + 1, key.get(i));
+                    }
+                    delete.addBatch();
+                }
+                if (wanted != null) {
+                    for (int i = 0; i < key.size(); i++) {
+                        insert.setString(i + 1, key.get(i));
+                    }
+                    for (int i = 0; i < wanted.size(); i++) {
+                        insert.setBigDecimal(key.size() + i + 1, wanted.get(i));
+                    }
+                    insert.addBatch();
+                }
+                repaired++;
+            }
+
+            delete.executeBatch();
+            insert.executeBatch();
+        }
+
+        return repaired;
+    }
+
+    private static boolean sameValues(List<BigDecimal> actual, List<BigDecimal> wanted) {
+        // Rows adjusted down to zero are the same as missing rows
+        List<BigDecimal> zero = Collections.nCopies(actual != null ? actual.size() : wanted != null ? wanted.size() : 0,
+                BigDecimal.ZERO);
+        List<BigDecimal> left = actual != null ? actual : zero;
+        List<BigDecimal> right = wanted != null ? wanted : zero;
+        for (int i = 0; i < left.size(); i++) {
+            if (left.get(i).compareTo(right.get(i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> readKey(ResultSet rs, int keyCount) throws SQLException {
+        List<String> key = new ArrayList<>(keyCount);
+        for (int i = 1; i <= keyCount; i++) {
+            key.add(Objects.toString(rs.getString(i), ""));
+        }
+        return key;
+    }
+
+    private static List<BigDecimal> readValues(ResultSet rs, int keyCount, int valueCount) throws SQLException {
+        List<BigDecimal> values = new ArrayList<>(valueCount);
+        for (int i = keyCount + 1; i <= keyCount + valueCount; i++) {
+            BigDecimal value = rs.getBigDecimal(i);
+            values.add(value != null ? value : BigDecimal.ZERO);
+        }
+        return values;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_SIZE) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + IN_CLAUSE_SIZE)));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    private static void setIds(PreparedStatement stmt, List<Long> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            stmt.setLong(i + 1, ids.get(i));
+        }
+    }
+}
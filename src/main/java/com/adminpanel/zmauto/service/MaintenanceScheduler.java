@@ -0,0 +1,545 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ChangeEvent;
+import com.adminpanel.zmauto.model.MaintenanceAlert;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
+import com.adminpanel.zmauto.model.Vehicle;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.DbScheduler;
+import com.adminpanel.zmauto.util.DbScheduler.Lane;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Background scheduler for vehicle service and insurance due dates.
+ * Only due dates within a rolling horizon are loaded (by index range, never a full scan)
+ * into a priority queue ordered by the day they fire. When service is due or insurance
+ * has expired, the affected vehicles are switched to MAINTENANCE with one set-based update.
+ * Vehicle changes published on the event bus keep the queue in sync. The scheduler also
+ * wakes up every day to release vehicles whose approved reservations have ended.
+ */
+public class MaintenanceScheduler {
+
+    /**
+     * Number of days a vehicle is blocked for, starting at its next service date.
+     */
+    public static final int MAINTENANCE_WINDOW_DAYS = DatabaseUtil.getIntProperty("maintenance.windowDays", 2);
+
+    private static final int HORIZON_DAYS = DatabaseUtil.getIntProperty("maintenance.horizonDays", 30);
+    private static final int ALERT_LEAD_DAYS = DatabaseUtil.getIntProperty("maintenance.alertLeadDays", 7);
+    private static final int UPDATE_CHUNK_SIZE = 1000;
+    private static final long RETRY_DELAY_MILLIS = 60_000;
+
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(DbScheduler.inLane(Lane.BACKGROUND, runnable), "maintenance-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final List<Consumer<List<MaintenanceAlert>>> alertListeners = new CopyOnWriteArrayList<>();
+    private static final KpiService kpiService = new KpiService();
+    private static final ReservationService reservationService = new ReservationService();
+
+    // The fields below are only used on the scheduler thread
+    private static final PriorityQueue<DueItem> queue = new PriorityQueue<>();
+    private static final Map<Long, Integer> versions = new HashMap<>();
+    private static LocalDate loadedUntil;
+    private static ScheduledFuture<?> wakeUp;
+
+    private static boolean started;
+    private static Runnable unsubscribe;
+
+    /**
+     * A due date waiting in the queue. Items of a vehicle become stale when the vehicle changes;
+     * stale items are skipped when they reach the head of the queue.
+     */
+    private static final class DueItem implements Comparable<DueItem> {
+        private final long vehicleId;
+        private final MaintenanceAlert.Kind kind;
+        private final LocalDate dueDate;
+        private final LocalDate fireDate;
+        private final int version;
+
+        private DueItem(long vehicleId, MaintenanceAlert.Kind kind, LocalDate dueDate, LocalDate fireDate, int version) {
+            this.vehicleId = vehicleId;
+            this.kind = kind;
+            this.dueDate = dueDate;
+            this.fireDate = fireDate;
+            this.version = version;
+        }
+
+        @Override
+        public int compareTo(DueItem other) {
+            int result = fireDate.compareTo(other.fireDate);
+            return result != 0 ? result : kind.compareTo(other.kind);
+        }
+    }
+
+    /**
+     * Start the scheduler once the database is ready.
+     */
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        unsubscribe = DomainEventBus.subscribe(event -> {
+            if (event.getEntityType() == EntityType.VEHICLE) {
+                executor.execute(() -> onVehicleChange(event));
+            }
+        });
+
+        executor.execute(() -> {
+            BackgroundTasks.awaitStartup();
+            processDue();
+        });
+    }
+
+    /**
+     * Stop the scheduler.
+     */
+    public static synchronized void shutdown() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        unsubscribe.run();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Register a listener for maintenance alerts. Alerts that fire together are delivered
+     * as one list on the scheduler thread.
+     *
+     * @param listener The listener
+     * @return An action that removes the listener
+     */
+    public static Runnable addAlertListener(Consumer<List<MaintenanceAlert>> listener) {
+        alertListeners.add(listener);
+        return () -> alertListeners.remove(listener);
+    }
+
+    /**
+     * Fire every item that is due, take blocked vehicles out of service and plan the next run.
+     */
+    private static void processDue() {
+        LocalDate today = LocalDate.now();
+
+        try {
+            if (loadedUntil == null || !today.isBefore(getRefreshDate())) {
+                loadHorizon(today.plusDays(HORIZON_DAYS + ALERT_LEAD_DAYS));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading maintenance due dates: " + e.getMessage());
+            schedule(RETRY_DELAY_MILLIS);
+            return;
+        }
+
+        List<DueItem> fired = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.peek().fireDate.isAfter(today)) {
+            DueItem item = queue.poll();
+            if (item.version == versions.getOrDefault(item.vehicleId, 0)) {
+                fired.add(item);
+            }
+        }
+
+        List<DueItem> blocking = new ArrayList<>();
+        List<MaintenanceAlert> alerts = new ArrayList<>(fired.size());
+        for (DueItem item : fired) {
+            alerts.add(new MaintenanceAlert(item.vehicleId, item.kind, item.dueDate));
+            if (item.kind.blocksAvailability() && !hasWindowEnded(item.kind, item.dueDate, null, today)) {
+                blocking.add(item);
+            }
+        }
+
+        long nextRunDelay = -1;
+        if (!blocking.isEmpty()) {
+            try {
+                blockVehicles(blocking);
+            } catch (SQLException e) {
+                System.err.println("Error switching vehicles to maintenance: " + e.getMessage());
+                // Put the blocking items back so the update is retried
+                queue.addAll(blocking);
+                nextRunDelay = RETRY_DELAY_MILLIS;
+            }
+        }
+
+        try {
+            releaseVehicles(today);
+        } catch (SQLException e) {
+            System.err.println("Error releasing vehicles from maintenance: " + e.getMessage());
+        }
+
+        try {
+            reservationService.releaseEndedReservations();
+        } catch (SQLException e) {
+            System.err.println("Error releasing reserved vehicles: " + e.getMessage());
+        }
+
+        if (!alerts.isEmpty()) {
+            for (Consumer<List<MaintenanceAlert>> listener : alertListeners) {
+                try {
+                    listener.accept(alerts);
+                } catch (RuntimeException e) {
+                    System.err.println("Error delivering maintenance alerts: " + e.getMessage());
+                }
+            }
+        }
+
+        if (nextRunDelay < 0) {
+            // Wake up at least daily, when reservations end
+            LocalDate next = getRefreshDate();
+            if (next.isAfter(today.plusDays(1))) {
+                next = today.plusDays(1);
+            }
+            if (!queue.isEmpty() && queue.peek().fireDate.isBefore(next)) {
+                next = queue.peek().fireDate;
+            }
+            nextRunDelay = next.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() - System.currentTimeMillis();
+        }
+        schedule(Math.max(0, nextRunDelay));
+    }
+
+    /**
+     * The day on which the next slice of due dates has to be loaded.
+     */
+    private static LocalDate getRefreshDate() {
+        return loadedUntil.minusDays(ALERT_LEAD_DAYS + HORIZON_DAYS / 2);
+    }
+
+    private static void schedule(long delayMillis) {
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUp = executor.schedule(MaintenanceScheduler::processDue, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Load the due dates after the already loaded range up to the given day.
+     * The first load also picks up every overdue date.
+     *
+     * @param until The last due date to load
+     * @throws SQLException If a database error occurs
+     */
+    private static void loadHorizon(LocalDate until) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            loadDueDates(conn, "next_service_date", until, true);
+            loadDueDates(conn, "insurance_expiry_date", until, false);
+        }
+        loadedUntil = until;
+    }
+
+    private static void loadDueDates(Connection conn, String column, LocalDate until, boolean service) throws SQLException {
+        String sql = "SELECT car_id, " + column + " FROM car WHERE " + column + " <= ?" +
+                     (loadedUntil != null ? " AND " + column + " > ?" : "");
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(until));
+            if (loadedUntil != null) {
+                stmt.setDate(2, Date.valueOf(loadedUntil));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long vehicleId = rs.getLong("car_id");
+                    LocalDate dueDate = rs.getDate(column).toLocalDate();
+                    if (service) {
+                        addServiceItems(vehicleId, dueDate);
+                    } else {
+                        addInsuranceItems(vehicleId, dueDate);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addServiceItems(long vehicleId, LocalDate dueDate) {
+        addItems(vehicleId, dueDate, MaintenanceAlert.Kind.SERVICE_REMINDER, MaintenanceAlert.Kind.SERVICE_DUE);
+    }
+
+    private static void addInsuranceItems(long vehicleId, LocalDate dueDate) {
+        addItems(vehicleId, dueDate, MaintenanceAlert.Kind.INSURANCE_REMINDER, MaintenanceAlert.Kind.INSURANCE_EXPIRED);
+    }
+
+    private static void addItems(long vehicleId, LocalDate dueDate, MaintenanceAlert.Kind reminder, MaintenanceAlert.Kind due) {
+        int version = versions.getOrDefault(vehicleId, 0);
+
+        // A reminder is pointless once the date itself has passed
+        if (!dueDate.isBefore(LocalDate.now())) {
+            queue.add(new DueItem(vehicleId, reminder, dueDate, dueDate.minusDays(ALERT_LEAD_DAYS), version));
+        }
+        queue.add(new DueItem(vehicleId, due, dueDate, dueDate, version));
+    }
+
+    /**
+     * Keep the queue in sync with a vehicle change.
+     *
+     * @param event The vehicle change event
+     */
+    private static void onVehicleChange(ChangeEvent event) {
+        boolean datesMayHaveChanged = event.getKind() == ChangeEvent.Kind.DELETED || event.getEntity() instanceof Vehicle;
+        if (!datesMayHaveChanged || loadedUntil == null) {
+            return;
+        }
+
+        // Invalidate the vehicle's queued items; they are dropped when they reach the head
+        long vehicleId = event.getId();
+        versions.merge(vehicleId, 1, Integer::sum);
+
+        if (event.getEntity() instanceof Vehicle) {
+            Vehicle vehicle = (Vehicle) event.getEntity();
+            LocalDate serviceDate = toLocalDate(vehicle.getNextServiceDate());
+            LocalDate insuranceDate = toLocalDate(vehicle.getInsuranceExpiryDate());
+
+            // Dates beyond the loaded range are picked up when the horizon moves on
+            if (serviceDate != null && !serviceDate.isAfter(loadedUntil)) {
+                addServiceItems(vehicleId, serviceDate);
+            }
+            if (insuranceDate != null && !insuranceDate.isAfter(loadedUntil)) {
+                addInsuranceItems(vehicleId, insuranceDate);
+            }
+        }
+
+        if (!queue.isEmpty() && !queue.peek().fireDate.isAfter(LocalDate.now())) {
+            processDue();
+        }
+    }
+
+    /**
+     * Switch the vehicles of the given due items to MAINTENANCE if they are currently available,
+     * and record every item as handled. Items that were handled before are skipped, so a vehicle
+     * an administrator has put back into service is not blocked again for the same due date.
+     * Vehicles that are reserved keep their status and only raise the alert.
+     *
+     * @param items The blocking due items
+     * @throws SQLException If a database error occurs
+     */
+    private static void blockVehicles(List<DueItem> items) throws SQLException {
+        List<Long> blocked = new ArrayList<>();
+
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+
+            for (int from = 0; from < items.size(); from += UPDATE_CHUNK_SIZE) {
+                Collection<DueItem> pending =
+                        withoutHandled(conn, items.subList(from, Math.min(items.size(), from + UPDATE_CHUNK_SIZE)));
+                if (pending.isEmpty()) {
+                    continue;
+                }
+
+                List<Long> chunk = new ArrayList<>(new LinkedHashSet<>(pending.stream().map(item -> item.vehicleId).toList()));
+                String inClause = "(" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                int blockedFrom = blocked.size();
+
+                // Lock and collect the vehicles that are actually switched, so their rows can be patched
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT car_id FROM car WHERE rental_status = 'AVAILABLE' AND car_id IN " + inClause + " FOR UPDATE")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setLong(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            blocked.add(rs.getLong("car_id"));
+                        }
+                    }
+                }
+
+                List<Long> chunkBlocked = blocked.subList(blockedFrom, blocked.size());
+                kpiService.removeVehicles(conn, chunkBlocked);
+
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE car SET rental_status = 'MAINTENANCE', updated_at = ? " +
+                        "WHERE rental_status = 'AVAILABLE' AND car_id IN " + inClause)) {
+                    stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setLong(i + 2, chunk.get(i));
+                    }
+                    stmt.executeUpdate();
+                }
+
+                kpiService.addVehicles(conn, chunkBlocked);
+
+                Set<Long> switched = new HashSet<>(chunkBlocked);
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "INSERT INTO maintenance_block (car_id, kind, due_date, blocked) VALUES (?, ?, ?, ?)")) {
+                    for (DueItem item : pending) {
+                        stmt.setLong(1, item.vehicleId);
+                        stmt.setString(2, item.kind.name());
+                        stmt.setDate(3, Date.valueOf(item.dueDate));
+                        stmt.setBoolean(4, switched.contains(item.vehicleId));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
+
+        if (!blocked.isEmpty()) {
+            System.out.println("Switched " + blocked.size() + " vehicles to maintenance");
+        }
+        for (Long vehicleId : blocked) {
+            DomainEventBus.publish(ChangeEvent.changed(EntityType.VEHICLE, vehicleId, Map.of("status", "MAINTENANCE")));
+        }
+    }
+
+    /**
+     * Drop the items that were already handled, and duplicates, from a chunk of due items.
+     *
+     * @param conn The connection to use
+     * @param items The due items
+     * @return The items that have not been handled yet
+     * @throws SQLException If a database error occurs
+     */
+    private static Collection<DueItem> withoutHandled(Connection conn, List<DueItem> items) throws SQLException {
+        Map<String, DueItem> pending = new LinkedHashMap<>();
+        for (DueItem item : items) {
+            pending.putIfAbsent(blockKey(item.vehicleId, item.kind.name(), item.dueDate), item);
+        }
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(items.stream().map(item -> item.vehicleId).toList()));
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT car_id, kind, due_date FROM maintenance_block WHERE car_id IN (" +
+                String.join(", ", Collections.nCopies(ids.size(), "?")) + ")")) {
+            for (int i = 0; i < ids.size(); i++) {
+                stmt.setLong(i + 1, ids.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    pending.remove(blockKey(rs.getLong("car_id"), rs.getString("kind"), rs.getDate("due_date").toLocalDate()));
+                }
+            }
+        }
+
+        return pending.values();
+    }
+
+    private static String blockKey(long vehicleId, String kind, LocalDate dueDate) {
+        return vehicleId + "/" + kind + "/" + dueDate;
+    }
+
+    /**
+     * Switch the vehicles the scheduler blocked back to AVAILABLE once all their windows have ended.
+     * Vehicles whose status was changed by hand meanwhile keep that status.
+     *
+     * @param today The current day
+     * @throws SQLException If a database error occurs
+     */
+    private static void releaseVehicles(LocalDate today) throws SQLException {
+        Map<Long, Boolean> done = new LinkedHashMap<>();
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT b.car_id, b.kind, b.due_date, c.rental_status, c.insurance_expiry_date " +
+                     "FROM maintenance_block b JOIN car c ON c.car_id = b.car_id " +
+                     "WHERE b.blocked = TRUE AND b.released_at IS NULL");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                MaintenanceAlert.Kind kind = MaintenanceAlert.Kind.valueOf(rs.getString("kind"));
+                Date insuranceDate = rs.getDate("insurance_expiry_date");
+                boolean ended = !"MAINTENANCE".equals(rs.getString("rental_status")) ||
+                        hasWindowEnded(kind, rs.getDate("due_date").toLocalDate(),
+                                insuranceDate != null ? insuranceDate.toLocalDate() : null, today);
+                done.merge(rs.getLong("car_id"), ended, Boolean::logicalAnd);
+            }
+        }
+        done.values().removeIf(ended -> !ended);
+        if (done.isEmpty()) {
+            return;
+        }
+
+        List<Long> released = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+
+            for (Long vehicleId : done.keySet()) {
+                kpiService.removeVehicles(conn, List.of(vehicleId));
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE car SET rental_status = 'AVAILABLE', updated_at = ? " +
+                        "WHERE car_id = ? AND rental_status = 'MAINTENANCE'")) {
+                    stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+                    stmt.setLong(2, vehicleId);
+                    if (stmt.executeUpdate() > 0) {
+                        released.add(vehicleId);
+                    }
+                }
+                kpiService.addVehicles(conn, List.of(vehicleId));
+
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE maintenance_block SET released_at = ? " +
+                        "WHERE car_id = ? AND blocked = TRUE AND released_at IS NULL")) {
+                    stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+                    stmt.setLong(2, vehicleId);
+                    stmt.executeUpdate();
+                }
+            }
+
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
+
+        if (!released.isEmpty()) {
+            System.out.println("Released " + released.size() + " vehicles from maintenance");
+        }
+        for (Long vehicleId : released) {
+            DomainEventBus.publish(ChangeEvent.changed(EntityType.VEHICLE, vehicleId, Map.of("status", "AVAILABLE")));
+        }
+    }
+
+    /**
+     * Whether the blocking window of a due date has ended: the service window has passed,
+     * or the insurance has been renewed.
+     *
+     * @param kind The blocking kind
+     * @param dueDate The due date
+     * @param insuranceDate The vehicle's current insurance expiry date, or null if unknown
+     * @param today The current day
+     * @return true if the vehicle no longer needs to be blocked for this due date
+     */
+    private static boolean hasWindowEnded(MaintenanceAlert.Kind kind, LocalDate dueDate,
+                                          LocalDate insuranceDate, LocalDate today) {
+        if (kind == MaintenanceAlert.Kind.SERVICE_DUE) {
+            return !today.isBefore(dueDate.plusDays(MAINTENANCE_WINDOW_DAYS));
+        }
+        return insuranceDate != null && insuranceDate.isAfter(today);
+    }
+
+    private static LocalDate toLocalDate(java.util.Date date) {
+        return date != null ? new Date(date.getTime()).toLocalDate() : null;
+    }
+}
@@ -0,0 +1,215 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ChangeEvent;
+import com.adminpanel.zmauto.model.KpiSummary;
+import com.adminpanel.zmauto.model.OverviewUpdate;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.DbScheduler;
+import com.adminpanel.zmauto.util.DbScheduler.Lane;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Background aggregation for the live overview page.
+ * Change events only record what happened; once per frame the feed folds them into its running
+ * figures, re-reads the summary tables if needed and hands a single update with the changed
+ * sections to the view. A burst of changes therefore costs at most one update per frame.
+ */
+public class OverviewFeed {
+
+    public static final int HOURS = 24;
+    public static final int REVENUE_DAYS = 30;
+
+    private static final long FRAME_MILLIS =
+            1000L / Math.max(1, DatabaseUtil.getIntProperty("overview.maxFps", 4));
+
+    /**
+     * The summary tables are read at most this often, however many changes arrive.
+     */
+    private static final long SUMMARY_INTERVAL_MILLIS = 1000;
+
+    private final KpiService kpiService = new KpiService();
+    private final Consumer<OverviewUpdate> listener;
+    private final ConcurrentLinkedQueue<Long> createdReservations = new ConcurrentLinkedQueue<>();
+    private volatile boolean summaryDirty = true;
+
+    private ScheduledExecutorService executor;
+    private Runnable unsubscribe;
+
+    // The fields below are only used on the feed thread
+    private LocalDateTime firstHour;
+    private long[] bookingsPerHour;
+    private Set<Long> loadedReservationIds;
+    private long lastSummaryRead;
+    private LocalDate revenueDay;
+
+    /**
+     * Constructor.
+     *
+     * @param listener Receives the updates on the feed thread
+     */
+    public OverviewFeed(Consumer<OverviewUpdate> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Start listening for changes and producing updates.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+
+        unsubscribe = DomainEventBus.subscribe(this::onChange);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(DbScheduler.inLane(Lane.BACKGROUND, runnable), "overview-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::produceFrame, 0, FRAME_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop producing updates.
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+
+        unsubscribe.run();
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    /**
+     * Record a change. Runs on the publishing thread, so it only queues work for the next frame.
+     *
+     * @param event The change event
+     */
+    private void onChange(ChangeEvent event) {
+        EntityType type = event.getEntityType();
+        if (type == EntityType.RESERVATION && event.getKind() == ChangeEvent.Kind.CREATED) {
+            createdReservations.add(event.getId());
+        }
+        if (type == EntityType.RESERVATION || type == EntityType.VEHICLE || type == EntityType.DRIVER
+                || type == EntityType.PAYMENT) {
+            summaryDirty = true;
+        }
+    }
+
+    /**
+     * Fold the changes since the previous frame into the figures and send one update if anything changed.
+     */
+    private void produceFrame() {
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        boolean bookingsChanged = false;
+        KpiSummary summary = null;
+        double[] revenuePerDay = null;
+        LocalDate today = LocalDate.now();
+
+        try {
+            if (bookingsPerHour == null) {
+                BackgroundTasks.awaitStartup();
+                loadBookings(currentHour);
+                bookingsChanged = true;
+            } else if (!currentHour.equals(firstHour.plusHours(HOURS - 1))) {
+                shiftBookings(currentHour);
+                bookingsChanged = true;
+            }
+
+            Long reservationId;
+            while ((reservationId = createdReservations.poll()) != null) {
+                // Reservations created while the initial load ran may already be counted
+                if (!loadedReservationIds.contains(reservationId)) {
+                    bookingsPerHour[HOURS - 1]++;
+                    bookingsChanged = true;
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            if ((summaryDirty || !today.equals(revenueDay)) && now - lastSummaryRead >= SUMMARY_INTERVAL_MILLIS) {
+                summaryDirty = false;
+                lastSummaryRead = now;
+                summary = kpiService.getSummary();
+                revenuePerDay = kpiService.getRevenueByDay(today.minusDays(REVENUE_DAYS - 1), today);
+                revenueDay = today;
+            }
+        } catch (SQLException e) {
+            summaryDirty = true;
+            System.err.println("Error updating the overview: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next frame tries again
+            e.printStackTrace();
+        }
+
+        if (bookingsChanged || summary != null) {
+            listener.accept(new OverviewUpdate(
+                    bookingsChanged ? firstHour : null,
+                    bookingsChanged ? bookingsPerHour.clone() : null,
+                    summary,
+                    revenuePerDay != null ? today.minusDays(REVENUE_DAYS - 1) : null,
+                    revenuePerDay));
+        }
+    }
+
+    /**
+     * Count the reservations created in the last hours.
+     *
+     * @param currentHour The start of the current hour
+     * @throws SQLException If a database error occurs
+     */
+    private void loadBookings(LocalDateTime currentHour) throws SQLException {
+        LocalDateTime from = currentHour.minusHours(HOURS - 1);
+        long[] counts = new long[HOURS];
+        Set<Long> ids = new HashSet<>();
+        String sql = "SELECT id, created_at FROM reservations WHERE created_at >= ?";
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long hour = Duration.between(from, rs.getTimestamp("created_at").toLocalDateTime()).toHours();
+                    counts[(int) Math.min(hour, HOURS - 1)]++;
+                    ids.add(rs.getLong("id"));
+                }
+            }
+        }
+
+        firstHour = from;
+        bookingsPerHour = counts;
+        loadedReservationIds = ids;
+    }
+
+    /**
+     * Move the bookings window forward to the current hour.
+     *
+     * @param currentHour The start of the current hour
+     */
+    private void shiftBookings(LocalDateTime currentHour) {
+        LocalDateTime from = currentHour.minusHours(HOURS - 1);
+        int shift = (int) Math.min(HOURS, Math.max(0, Duration.between(firstHour, from).toHours()));
+        long[] counts = new long[HOURS];
+        System.arraycopy(bookingsPerHour, shift, counts, 0, HOURS - shift);
+
+        firstHour = from;
+        bookingsPerHour = counts;
+        // Ids from the initial load can no longer arrive as new events
+        loadedReservationIds = Set.of();
+    }
+}
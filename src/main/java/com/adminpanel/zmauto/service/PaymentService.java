@@ -0,0 +1,440 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ChangeEvent;
+import com.adminpanel.zmauto.model.Payment;
+import com.adminpanel.zmauto.model.RevenueLine;
+import com.adminpanel.zmauto.model.RevenueReport;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Service class for payment-related operations and revenue reports.
+ */
+public class PaymentService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int IN_CLAUSE_SIZE = 1000;
+
+    private static final String PAYMENT_COLUMNS =
+            "id, reservation_id, amount, payment_method, status, transaction_id, notes, payment_date";
+
+    /**
+     * Completed payments in a period with the vehicle and driver of their reservation.
+     * Archived payments belong to archived reservations, so each table is joined with its own counterpart.
+     */
+    private static final String REVENUE_SQL =
+            "SELECT p.payment_date, p.payment_method, p.amount, r.vehicle_id, r.driver_id " +
+            "FROM payments p JOIN reservations r ON r.id = p.reservation_id " +
+            "WHERE p.status = 'COMPLETED' AND p.payment_date >= ? AND p.payment_date < ?";
+
+    private final KpiService kpiService = new KpiService();
+
+    private static final String ARCHIVED_REVENUE_SQL =
+            "SELECT p.payment_date, p.payment_method, p.amount, r.vehicle_id, r.driver_id " +
+            "FROM payments_archive p JOIN reservations_archive r ON r.id = p.reservation_id " +
+            "WHERE p.status = 'COMPLETED' AND p.payment_date >= ? AND p.payment_date < ?";
+
+    /**
+     * Get a payment by ID.
+     *
+     * @param id The payment ID
+     * @return The payment, or null if not found
+     * @throws SQLException If a database error occurs
+     */
+    public Payment getPaymentById(Long id) throws SQLException {
+        String sql = "SELECT " + PAYMENT_COLUMNS + " FROM payments WHERE id = ? " +
+                     "UNION ALL SELECT " + PAYMENT_COLUMNS + " FROM payments_archive WHERE id = ?";
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, id);
+            stmt.setLong(2, id);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapResultSetToPayment(rs);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the payments of a reservation, including archived ones.
+     *
+     * @param reservationId The reservation ID
+     * @return The payments, oldest first
+     * @throws SQLException If a database error occurs
+     */
+    public List<Payment> getPaymentsByReservation(Long reservationId) throws SQLException {
+        List<Payment> payments = getPaymentsByReservations(List.of(reservationId)).get(reservationId);
+        return payments != null ? payments : new ArrayList<>();
+    }
+
+    /**
+     * Get the payments of several reservations with one query per table and chunk of IDs.
+     *
+     * @param reservationIds The reservation IDs
+     * @return The payments per reservation ID, oldest first; reservations without payments are left out
+     * @throws SQLException If a database error occurs
+     */
+    public Map<Long, List<Payment>> getPaymentsByReservations(Collection<Long> reservationIds) throws SQLException {
+        Map<Long, List<Payment>> payments = new HashMap<>();
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(reservationIds));
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            for (int from = 0; from < ids.size(); from += IN_CLAUSE_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + IN_CLAUSE_SIZE));
+                String in = placeholders(chunk.size());
+                String sql = "SELECT " + PAYMENT_COLUMNS + " FROM payments WHERE reservation_id IN " + in + " " +
+                             "UNION ALL SELECT " + PAYMENT_COLUMNS + " FROM payments_archive WHERE reservation_id IN " + in + " " +
+                             "ORDER BY payment_date, id";
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setLong(i + 1, chunk.get(i));
+                        stmt.setLong(chunk.size() + i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Payment payment = mapResultSetToPayment(rs);
+                            payments.computeIfAbsent(payment.getReservationId(), id -> new ArrayList<>()).add(payment);
+                        }
+                    }
+                }
+            }
+        }
+
+        return payments;
+    }
+
+    /**
+     * Create a new payment.
+     *
+     * @param payment The payment to create
+     * @return The created payment with ID
+     * @throws SQLException If a database error occurs
+     */
+    public Payment createPayment(Payment payment) throws SQLException {
+        return createPayments(List.of(payment)).get(0);
+    }
+
+    /**
+     * Create several payments in one transaction, sent to the database in batches.
+     *
+     * @param payments The payments to create
+     * @return The created payments with their IDs
+     * @throws SQLException If a database error occurs
+     */
+    public List<Payment> createPayments(List<Payment> payments) throws SQLException {
+        String sql = "INSERT INTO payments (reservation_id, amount, payment_method, status, transaction_id, " +
+                     "notes, payment_date) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < payments.size(); from += BATCH_SIZE) {
+                    List<Payment> batch = payments.subList(from, Math.min(payments.size(), from + BATCH_SIZE));
+
+                    for (Payment payment : batch) {
+                        if (payment.getPaymentDate() == null) {
+                            payment.setPaymentDate(LocalDateTime.now());
+                        }
+                        stmt.setLong(1, payment.getReservationId());
+                        stmt.setDouble(2, payment.getAmount());
+                        stmt.setString(3, payment.getPaymentMethod());
+                        stmt.setString(4, payment.getStatus());
+                        stmt.setString(5, payment.getTransactionId());
+                        stmt.setString(6, payment.getNotes());
+                        stmt.setTimestamp(7, Timestamp.valueOf(payment.getPaymentDate()));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        for (Payment payment : batch) {
+                            if (!generatedKeys.next()) {
+                                throw new SQLException("Creating payment failed, no ID obtained.");
+                            }
+                            payment.setId(generatedKeys.getLong(1));
+                        }
+                    }
+                }
+            }
+
+            kpiService.addPayments(conn, payments.stream().map(Payment::getId).toList());
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
+
+        for (Payment payment : payments) {
+            DomainEventBus.publish(ChangeEvent.created(EntityType.PAYMENT, payment.getId(), payment));
+        }
+        return payments;
+    }
+
+    /**
+     * Update the status of a payment.
+     *
+     * @param paymentId The payment ID
+     * @param status The new status
+     * @return true if the update was successful, false otherwise
+     * @throws SQLException If a database error occurs
+     */
+    public boolean updatePaymentStatus(Long paymentId, String status) throws SQLException {
+        String sql = "UPDATE payments SET status = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+        boolean updated;
+
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+
+            kpiService.removePayments(conn, List.of(paymentId));
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, status);
+                stmt.setLong(2, paymentId);
+                updated = stmt.executeUpdate() > 0;
+            }
+            kpiService.addPayments(conn, List.of(paymentId));
+
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
+
+        if (updated) {
+            DomainEventBus.publish(ChangeEvent.changed(EntityType.PAYMENT, paymentId, Map.of("status", status)));
+        }
+        return updated;
+    }
+
+    /**
+     * Get the revenue from completed payments in a period. The payments are streamed from the
+     * database once and folded into all four breakdowns as they arrive, so memory use depends on
+     * the number of days, vehicles, drivers and methods rather than on the number of payments.
+     *
+     * @param startDate The first day of the period
+     * @param endDate The last day of the period
+     * @return The revenue report
+     * @throws SQLException If a database error occurs
+     */
+    public RevenueReport getRevenueReport(LocalDate startDate, LocalDate endDate) throws SQLException {
+        RevenueAccumulator accumulator = new RevenueAccumulator();
+        Map<Long, String> vehicleLabels;
+        Map<Long, String> driverLabels;
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            for (String sql : new String[]{REVENUE_SQL, ARCHIVED_REVENUE_SQL}) {
+                try (PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    // Stream the rows instead of buffering the whole period in the driver
+                    DatabaseUtil.streamResults(stmt);
+                    stmt.setTimestamp(1, Timestamp.valueOf(startDate.atStartOfDay()));
+                    stmt.setTimestamp(2, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            long driverId = rs.getLong("driver_id");
+                            accumulator.add(rs.getTimestamp("payment_date").toLocalDateTime().toLocalDate(),
+                                    rs.getLong("vehicle_id"), rs.wasNull() ? null : driverId,
+                                    rs.getString("payment_method"), rs.getDouble("amount"));
+                        }
+                    }
+                }
+            }
+
+            vehicleLabels = loadLabels(conn, "SELECT car_id AS id, brand, model, license_plate FROM car WHERE car_id IN ",
+                    accumulator.getVehicleIds(),
+                    rs -> rs.getString("brand") + " " + rs.getString("model") + " (" + rs.getString("license_plate") + ")");
+            driverLabels = loadLabels(conn, "SELECT driver_id AS id, first_name, last_name FROM driver WHERE driver_id IN ",
+                    accumulator.getDriverIds(),
+                    rs -> rs.getString("first_name") + " " + rs.getString("last_name"));
+        }
+
+        return accumulator.build(startDate, endDate, vehicleLabels, driverLabels);
+    }
+
+    /**
+     * Write a revenue report as CSV, one row per group and breakdown.
+     *
+     * @param report The revenue report
+     * @param writer The writer to write to
+     * @throws IOException If the report cannot be written
+     */
+    public void exportRevenueReport(RevenueReport report, Writer writer) throws IOException {
+        writer.write("Breakdown,Key,Label,Payments,Amount\n");
+        writeLines(writer, "Total", List.of(report.getTotal()));
+        writeLines(writer, "Day", report.getByDay());
+        writeLines(writer, "Vehicle", report.getByVehicle());
+        writeLines(writer, "Driver", report.getByDriver());
+        writeLines(writer, "Method", report.getByMethod());
+        writer.flush();
+    }
+
+    private static void writeLines(Writer writer, String breakdown, List<RevenueLine> lines) throws IOException {
+        for (RevenueLine line : lines) {
+            writer.write(breakdown + "," + csv(line.getKey()) + "," + csv(line.getLabel()) + "," +
+                    line.getPaymentCount() + "," + String.format(Locale.ROOT, "%.2f", line.getAmount()) + "\n");
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    /**
+     * Reads a label from a result set row.
+     */
+    private interface LabelMapper {
+        String map(ResultSet rs) throws SQLException;
+    }
+
+    private static Map<Long, String> loadLabels(Connection conn, String sqlPrefix, Collection<Long> ids,
+                                                LabelMapper mapper) throws SQLException {
+        Map<Long, String> labels = new HashMap<>();
+        List<Long> idList = new ArrayList<>(ids);
+
+        for (int from = 0; from < idList.size(); from += IN_CLAUSE_SIZE) {
+            List<Long> chunk = idList.subList(from, Math.min(idList.size(), from + IN_CLAUSE_SIZE));
+            try (PreparedStatement stmt = conn.prepareStatement(sqlPrefix + placeholders(chunk.size()))) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        labels.put(rs.getLong("id"), mapper.map(rs));
+                    }
+                }
+            }
+        }
+
+        return labels;
+    }
+
+    private static String placeholders(int count) {
+        return "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    private Payment mapResultSetToPayment(ResultSet rs) throws SQLException {
+        Payment payment = new Payment();
+        payment.setId(rs.getLong("id"));
+        payment.setReservationId(rs.getLong("reservation_id"));
+        payment.setAmount(rs.getDouble("amount"));
+        payment.setPaymentMethod(rs.getString("payment_method"));
+        payment.setStatus(rs.getString("status"));
+        payment.setTransactionId(rs.getString("transaction_id"));
+        payment.setNotes(rs.getString("notes"));
+
+        Timestamp paymentDate = rs.getTimestamp("payment_date");
+        if (paymentDate != null) {
+            payment.setPaymentDate(paymentDate.toLocalDateTime());
+        }
+
+        return payment;
+    }
+
+    /**
+     * Running totals for the revenue breakdowns, filled one payment at a time.
+     */
+    static final class RevenueAccumulator {
+
+        private static final class Totals {
+            long count;
+            double amount;
+
+            void add(double value) {
+                count++;
+                amount += value;
+            }
+        }
+
+        private final Totals total = new Totals();
+        private final Map<LocalDate, Totals> byDay = new TreeMap<>();
+        private final Map<Long, Totals> byVehicle = new HashMap<>();
+        private final Map<Long, Totals> byDriver = new HashMap<>();
+        private final Map<String, Totals> byMethod = new HashMap<>();
+
+        /**
+         * Add a payment to all breakdowns.
+         *
+         * @param day The payment day
+         * @param vehicleId The vehicle of the reservation
+         * @param driverId The driver of the reservation, or null if it has none
+         * @param method The payment method
+         * @param amount The amount paid
+         */
+        void add(LocalDate day, long vehicleId, Long driverId, String method, double amount) {
+            total.add(amount);
+            byDay.computeIfAbsent(day, key -> new Totals()).add(amount);
+            byVehicle.computeIfAbsent(vehicleId, key -> new Totals()).add(amount);
+            if (driverId != null) {
+                byDriver.computeIfAbsent(driverId, key -> new Totals()).add(amount);
+            }
+            byMethod.computeIfAbsent(method, key -> new Totals()).add(amount);
+        }
+
+        Set<Long> getVehicleIds() {
+            return byVehicle.keySet();
+        }
+
+        Set<Long> getDriverIds() {
+            return byDriver.keySet();
+        }
+
+        /**
+         * Build the report. Days are listed in order, the other breakdowns by amount, largest first.
+         */
+        RevenueReport build(LocalDate startDate, LocalDate endDate,
+                            Map<Long, String> vehicleLabels, Map<Long, String> driverLabels) {
+            List<RevenueLine> days = new ArrayList<>();
+            for (Map.Entry<LocalDate, Totals> entry : byDay.entrySet()) {
+                String key = entry.getKey().toString();
+                days.add(new RevenueLine(key, key, entry.getValue().count, entry.getValue().amount));
+            }
+
+            return new RevenueReport(startDate, endDate,
+                    new RevenueLine("", "All payments", total.count, total.amount),
+                    days,
+                    byAmount(byVehicle, vehicleLabels),
+                    byAmount(byDriver, driverLabels),
+                    byAmount(byMethod, Map.of()));
+        }
+
+        private static <K> List<RevenueLine> byAmount(Map<K, Totals> totals, Map<K, String> labels) {
+            List<RevenueLine> lines = new ArrayList<>();
+            for (Map.Entry<K, Totals> entry : totals.entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                lines.add(new RevenueLine(key, labels.getOrDefault(entry.getKey(), key),
+                        entry.getValue().count, entry.getValue().amount));
+            }
+            lines.sort(Comparator.comparingDouble(RevenueLine::getAmount).reversed());
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.util.BlobStore;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service class for the pictures of vehicles, drivers and users.
+ *
+ * The picture column holds the ID of a blob whose content is kept in the picture_blob table, so
+ * every workstation sees it. The local {@link BlobStore} caches the blobs used on this workstation
+ * and is filled from the database on demand. Values written before the blob store (URLs and file
+ * paths) are still accepted and can be moved into the store with {@link #migrateLegacyPictures()}.
+ */
+public class PictureService {
+
+    // Table and primary key of each table with a picture column
+    private static final Map<String, String> PICTURE_TABLES = new LinkedHashMap<>();
+
+    static {
+        PICTURE_TABLES.put("car", "car_id");
+        PICTURE_TABLES.put("driver", "driver_id");
+        PICTURE_TABLES.put("users", "user_id");
+    }
+
+    private final Duration gcGrace = Duration.ofHours(DatabaseUtil.getIntProperty("blob.gcGraceHours", 24));
+
+    private BlobStore blobStore;
+
+    /**
+     * Store a picture file in the local blob store and in the database.
+     *
+     * @param file The picture file
+     * @return The blob ID to save as the picture
+     * @throws IOException If the file cannot be read or stored
+     * @throws SQLException If a database error occurs
+     */
+    public String importPicture(Path file) throws IOException, SQLException {
+        String id = getBlobStore().put(file);
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            upload(conn, id);
+        }
+        return id;
+    }
+
+    /**
+     * Get the local file of a picture, without going to the database.
+     *
+     * @param picture The picture column value, may be null
+     * @return The file, or null if there is no picture, it is not cached locally yet, or it is not a
+     *         readable local file (e.g. a URL)
+     * @throws IOException If the blob store cannot be opened
+     * @see #fetchPictureFile(String)
+     */
+    public Path getPictureFile(String picture) throws IOException {
+        if (picture == null || picture.isBlank()) {
+            return null;
+        }
+        if (BlobStore.isBlobId(picture)) {
+            BlobStore store = getBlobStore();
+            return store.contains(picture) ? store.resolve(picture) : null;
+        }
+        Path legacy = toLocalPath(picture);
+        return legacy != null && Files.isReadable(legacy) ? legacy : null;
+    }
+
+    /**
+     * Get the local file of a picture, downloading the blob from the database into the local
+     * blob store if it is not cached yet.
+     *
+     * @param picture The picture column value, may be null
+     * @return The file, or null if there is no picture or it is neither stored nor a readable local file
+     * @throws IOException If the blob cannot be stored locally or its content does not match its ID
+     * @throws SQLException If a database error occurs
+     */
+    public Path fetchPictureFile(String picture) throws IOException, SQLException {
+        Path file = getPictureFile(picture);
+        if (file != null || !BlobStore.isBlobId(picture)) {
+            return file;
+        }
+
+        String sql = "SELECT content FROM picture_blob WHERE blob_id = ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, picture);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                String id;
+                try (InputStream in = rs.getBinaryStream(1)) {
+                    id = getBlobStore().put(in);
+                }
+                if (!id.equals(picture)) {
+                    throw new IOException("Picture " + picture + " is corrupt in the database");
+                }
+            }
+        }
+
+        return getBlobStore().resolve(picture);
+    }
+
+    /**
+     * Delete the blobs no picture refers to any more, from the database and from the local store.
+     * Blobs stored within the grace period are kept, so a picture stored moments before the
+     * record referencing it is saved is not lost.
+     *
+     * @return The number of blobs deleted
+     * @throws SQLException If a database error occurs
+     * @throws IOException If the blob store cannot be read
+     */
+    public int collectGarbage() throws SQLException, IOException {
+        Set<String> referenced = new HashSet<>();
+        String sql = "SELECT DISTINCT picture FROM car WHERE picture IS NOT NULL " +
+                     "UNION SELECT DISTINCT picture FROM driver WHERE picture IS NOT NULL " +
+                     "UNION SELECT DISTINCT picture FROM users WHERE picture IS NOT NULL";
+
+        String delete = "DELETE FROM picture_blob WHERE created_at < TIMESTAMPADD(HOUR, ?, CURRENT_TIMESTAMP) " +
+                        "AND blob_id NOT IN (SELECT picture FROM car WHERE picture IS NOT NULL " +
+                        "UNION SELECT picture FROM driver WHERE picture IS NOT NULL " +
+                        "UNION SELECT picture FROM users WHERE picture IS NOT NULL)";
+        int deleted;
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String picture = rs.getString(1);
+                    if (BlobStore.isBlobId(picture)) {
+                        referenced.add(picture);
+                    }
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(delete)) {
+                stmt.setLong(1, -gcGrace.toHours());
+                deleted = stmt.executeUpdate();
+            }
+        }
+
+        return deleted + getBlobStore().sweep(referenced, gcGrace);
+    }
+
+    /**
+     * Move pictures that refer to local files into the blob store and replace them with their blob IDs.
+     * URLs and files that no longer exist are left as they are. Blobs that are only in this
+     * workstation's local store, e.g. stored before pictures were kept in the database, are uploaded.
+     *
+     * @return The number of rows updated and blobs uploaded
+     * @throws SQLException If a database error occurs
+     * @throws IOException If a picture cannot be stored
+     */
+    public int migrateLegacyPictures() throws SQLException, IOException {
+        int migrated = 0;
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            for (Map.Entry<String, String> table : PICTURE_TABLES.entrySet()) {
+                String select = "SELECT " + table.getValue() + ", picture FROM " + table.getKey() +
+                                " WHERE picture IS NOT NULL AND picture <> ''";
+                String update = "UPDATE " + table.getKey() + " SET picture = ? WHERE " + table.getValue() +
+                                " = ? AND picture = ?";
+
+                Map<Long, String> pictures = new LinkedHashMap<>();
+                try (PreparedStatement stmt = conn.prepareStatement(select);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        pictures.put(rs.getLong(1), rs.getString(2));
+                    }
+                }
+
+                try (PreparedStatement stmt = conn.prepareStatement(update)) {
+                    for (Map.Entry<Long, String> row : pictures.entrySet()) {
+                        String picture = row.getValue();
+                        if (BlobStore.isBlobId(picture)) {
+                            if (getBlobStore().contains(picture) && upload(conn, picture)) {
+                                migrated++;
+                            }
+                            continue;
+                        }
+                        Path file = toLocalPath(picture);
+                        if (file == null || !Files.isRegularFile(file)) {
+                            continue;
+                        }
+
+                        String id = getBlobStore().put(file);
+                        upload(conn, id);
+                        stmt.setString(1, id);
+                        stmt.setLong(2, row.getKey());
+                        stmt.setString(3, picture);
+                        migrated += stmt.executeUpdate();
+                    }
+                }
+            }
+        }
+
+        return migrated;
+    }
+
+    /**
+     * Get the blob store, opening it on first use.
+     *
+     * @return The blob store
+     * @throws IOException If the blob directory cannot be created
+     */
+    public synchronized BlobStore getBlobStore() throws IOException {
+        if (blobStore == null) {
+            blobStore = new BlobStore();
+        }
+        return blobStore;
+    }
+
+    /**
+     * Copy a blob from the local store into the database unless it is there already. A blob that
+     * is there already gets a new creation time, so it is in the grace period again: it may have
+     * been unreferenced long enough to be collected before the new reference is saved.
+     *
+     * @return true if the blob was uploaded
+     */
+    private boolean upload(Connection conn, String id) throws SQLException, IOException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE picture_blob SET created_at = CURRENT_TIMESTAMP WHERE blob_id = ?")) {
+            stmt.setString(1, id);
+            if (stmt.executeUpdate() > 0) {
+                return false;
+            }
+        }
+
+        BlobStore store = getBlobStore();
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO picture_blob (blob_id, content) VALUES (?, ?)");
+             InputStream in = Files.newInputStream(store.resolve(id))) {
+            stmt.setString(1, id);
+            stmt.setBinaryStream(2, in, store.size(id));
+            stmt.executeUpdate();
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Uploaded by another workstation in the meantime; the content is the same
+            return false;
+        }
+    }
+
+    /**
+     * Interpret a legacy picture value as a local file, given as a path or a file: URL.
+     */
+    private static Path toLocalPath(String picture) {
+        try {
+            if (picture.startsWith("file:")) {
+                return Path.of(URI.create(picture));
+            }
+            if (picture.contains("://")) {
+                return null;
+            }
+            return Path.of(picture);
+        } catch (IllegalArgumentException e) {
+            // Not a valid URI or path, e.g. InvalidPathException
+            return null;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ChangeEvent;
+import com.adminpanel.zmauto.model.PoolHealth;
+import com.adminpanel.zmauto.model.Reservation;
+import com.adminpanel.zmauto.model.ReservationStatusChange;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
+import com.adminpanel.zmauto.util.ConnectionPoolManager;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.DbScheduler;
+import com.adminpanel.zmauto.util.DbScheduler.Lane;
+import com.adminpanel.zmauto.util.DbScheduler.SqlCallable;
+
+import java.sql.SQLException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads data for the views an admin is likely to open next while the database is otherwise idle.
+ *
+ * The next view is predicted from the navigation seen so far (seeded with the usual path
+ * Reservations, then Vehicles), and warmed after the current view has loaded or when the pointer
+ * moves onto a sidebar button. Selecting a reservation warms its user, vehicle, driver and status
+ * history for the details dialog.
+ * A view takes its data with {@link #take}, which hands over a prefetched result once, waits briefly
+ * for one that is still loading, or loads the data itself. The wait is short because a prefetch
+ * queues behind other BACKGROUND work, which an interactive load must never wait for.
+ *
+ * Prefetching runs on one background thread in the BACKGROUND lane and stays within a budget:
+ * it is skipped while the pool is busy (backing off longer each time), limited to a number of loads
+ * per minute, and prefetched results are dropped when they age or their data changes.
+ */
+public class Prefetcher {
+
+    /**
+     * Views whose data can be prefetched.
+     */
+    public enum View {
+        USERS, VEHICLES, DRIVERS, RESERVATIONS
+    }
+
+    private static final long MAX_AGE_MILLIS = DatabaseUtil.getIntProperty("prefetch.maxAgeSeconds", 30) * 1000L;
+    private static final int MAX_PER_MINUTE = DatabaseUtil.getIntProperty("prefetch.maxPerMinute", 12);
+    private static final double MAX_POOL_UTILIZATION =
+            DatabaseUtil.getIntProperty("prefetch.maxPoolUtilizationPercent", 50) / 100.0;
+    private static final long MAX_WAIT_MILLIS = DatabaseUtil.getIntProperty("prefetch.maxWaitMillis", 200);
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(DbScheduler.inLane(Lane.BACKGROUND, runnable), "prefetcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Observed navigation counts, from view to view, seeded with the common paths
+    private static final int[][] transitions = new int[View.values().length][View.values().length];
+    private static View lastView;
+
+    private static long windowStartMillis;
+    private static int loadsInWindow;
+    private static long backoffMillis;
+    private static long nextAllowedMillis;
+
+    private static final UserService userService = new UserService();
+    private static final VehicleService vehicleService = new VehicleService();
+    private static final DriverService driverService = new DriverService();
+    private static final ReservationService reservationService = new ReservationService();
+
+    static {
+        transitions[View.RESERVATIONS.ordinal()][View.VEHICLES.ordinal()] = 1;
+        transitions[View.VEHICLES.ordinal()][View.RESERVATIONS.ordinal()] = 1;
+        transitions[View.DRIVERS.ordinal()][View.RESERVATIONS.ordinal()] = 1;
+        transitions[View.USERS.ordinal()][View.RESERVATIONS.ordinal()] = 1;
+
+        DomainEventBus.subscribe(Prefetcher::onChange);
+    }
+
+    /**
+     * A prefetched or prefetching result.
+     */
+    private static class Entry {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        final Set<EntityType> dependsOn;
+        final long startedAt = System.currentTimeMillis();
+
+        Entry(Set<EntityType> dependsOn) {
+            this.dependsOn = dependsOn;
+        }
+    }
+
+    /**
+     * Record that a view finished loading and warm the view most likely to follow it.
+     *
+     * @param view The view that was shown
+     */
+    public static void viewLoaded(View view) {
+        View next;
+        synchronized (transitions) {
+            if (lastView != null && lastView != view) {
+                transitions[lastView.ordinal()][view.ordinal()]++;
+            }
+            lastView = view;
+            next = predictNext(view);
+        }
+        if (next != null) {
+            prefetch(next);
+        }
+    }
+
+    /**
+     * Warm a view's data, e.g. when the pointer moves onto its sidebar button.
+     *
+     * @param view The view
+     */
+    public static void prefetch(View view) {
+        switch (view) {
+            case USERS -> prefetch(key(view), EnumSet.of(EntityType.USER), userService::getAllUsers);
+            case VEHICLES -> prefetch(key(view), EnumSet.of(EntityType.VEHICLE), vehicleService::getAllVehicles);
+            case DRIVERS -> prefetch(key(view), EnumSet.of(EntityType.DRIVER), driverService::getAllDrivers);
+            case RESERVATIONS -> prefetch(key(view), EnumSet.allOf(EntityType.class), reservationService::getAllReservations);
+        }
+    }
+
+    /**
+     * Warm the details dialog of a selected reservation: its user, vehicle and driver, which
+     * list rows load on first access, and its status history.
+     *
+     * @param reservation The reservation
+     */
+    public static void prefetchReservationDetails(Reservation reservation) {
+        prefetch("reservation-history:" + reservation.getId(), EnumSet.of(EntityType.RESERVATION), () -> {
+            reservation.getUser();
+            reservation.getVehicle();
+            reservation.getDriver();
+            return reservationService.getStatusHistory(reservation.getId());
+        });
+    }
+
+    /**
+     * Get the full list of a view, prefetched if available.
+     *
+     * @param view The view
+     * @param loader Loads the list if nothing was prefetched
+     * @return The list; a prefetched list is handed out only once, so the caller may modify it
+     * @throws SQLException If a database error occurs
+     */
+    public static <T> List<T> take(View view, SqlCallable<List<T>> loader) throws SQLException {
+        return take(key(view), loader);
+    }
+
+    /**
+     * Get the status history of a reservation, prefetched if available.
+     *
+     * @param reservationId The reservation ID
+     * @param loader Loads the history if nothing was prefetched
+     * @return The status history
+     * @throws SQLException If a database error occurs
+     */
+    public static List<ReservationStatusChange> takeReservationHistory(Long reservationId,
+            SqlCallable<List<ReservationStatusChange>> loader) throws SQLException {
+        return take("reservation-history:" + reservationId, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T take(String key, SqlCallable<T> loader) throws SQLException {
+        Entry entry = entries.remove(key);
+        if (entry != null && System.currentTimeMillis() - entry.startedAt <= MAX_AGE_MILLIS) {
+            try {
+                return (T) entry.future.get(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                // The prefetch failed or is still queued; load the data directly
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for prefetched data", e);
+            }
+        }
+        return loader.call();
+    }
+
+    private static void prefetch(String key, Set<EntityType> dependsOn, SqlCallable<?> loader) {
+        Entry existing = entries.get(key);
+        if (existing != null && System.currentTimeMillis() - existing.startedAt <= MAX_AGE_MILLIS) {
+            return;
+        }
+        if (!withinBudget()) {
+            return;
+        }
+
+        Entry entry = new Entry(dependsOn);
+        entries.put(key, entry);
+        executor.execute(() -> {
+            try {
+                entry.future.complete(loader.call());
+            } catch (SQLException | RuntimeException e) {
+                entries.remove(key, entry);
+                entry.future.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Check whether a prefetch may start now. Backs off while the pool is busy and
+     * limits the number of prefetches per minute.
+     */
+    private static synchronized boolean withinBudget() {
+        long now = System.currentTimeMillis();
+        if (now < nextAllowedMillis) {
+            return false;
+        }
+
+        PoolHealth pool = ConnectionPoolManager.getHealth();
+        boolean busy = !pool.isAvailable()
+                || pool.getPendingThreads() > 0
+                || pool.getActiveConnections() > pool.getMaximumPoolSize() * MAX_POOL_UTILIZATION
+                || DbScheduler.getInstance().getQueueLength(Lane.BACKGROUND) > 0;
+        if (busy) {
+            backoffMillis = Math.min(MAX_BACKOFF_MILLIS, Math.max(1000, backoffMillis * 2));
+            nextAllowedMillis = now + backoffMillis;
+            return false;
+        }
+        backoffMillis = 0;
+
+        if (now - windowStartMillis >= 60_000) {
+            windowStartMillis = now;
+            loadsInWindow = 0;
+        }
+        if (loadsInWindow >= MAX_PER_MINUTE) {
+            return false;
+        }
+        loadsInWindow++;
+        return true;
+    }
+
+    private static View predictNext(View view) {
+        int[] counts = transitions[view.ordinal()];
+        View best = null;
+        for (View candidate : View.values()) {
+            if (candidate != view && counts[candidate.ordinal()] > 0
+                    && (best == null || counts[candidate.ordinal()] > counts[best.ordinal()])) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Drop prefetched results whose data changed.
+     */
+    private static void onChange(ChangeEvent event) {
+        entries.values().removeIf(entry -> entry.dependsOn.contains(event.getEntityType()));
+    }
+
+    private static String key(View view) {
+        return "view:" + view;
+    }
+}
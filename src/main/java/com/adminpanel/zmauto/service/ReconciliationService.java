@@ -0,0 +1,468 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ReconciliationIssue;
+import com.adminpanel.zmauto.model.ReconciliationIssue.Kind;
+import com.adminpanel.zmauto.model.ReconciliationReport;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.TransactionIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Service class for reconciling completed payments against bank statement CSV files.
+ * The payments of the period are the smaller side, so they are loaded into a transaction ID hash
+ * index; the statements are then streamed through memory mappings and probed against it without
+ * creating objects per line. Files are cut into segments at line boundaries and the segments of
+ * all files are processed in parallel.
+ *
+ * Statements need a header row with a transaction ID column (transaction_id, transaction id or
+ * reference) and an amount column (amount). Fields are separated by commas, semicolons or tabs
+ * and may be quoted.
+ */
+public class ReconciliationService {
+
+    private static final int MAX_ISSUES_PER_KIND = DatabaseUtil.getIntProperty("reconciliation.maxIssues", 1000);
+    private static final long SEGMENT_SIZE = 32L << 20;
+    private static final int MAX_LINE_LENGTH = 64 << 10;
+
+    private static final Set<String> ID_HEADERS = Set.of("transaction_id", "transaction id", "transactionid", "reference");
+    private static final Set<String> AMOUNT_HEADERS = Set.of("amount");
+
+    private static final String PAYMENT_SQL =
+            "SELECT id, transaction_id, amount FROM payments " +
+            "WHERE status = 'COMPLETED' AND transaction_id IS NOT NULL AND payment_date >= ? AND payment_date < ? " +
+            "UNION ALL SELECT id, transaction_id, amount FROM payments_archive " +
+            "WHERE status = 'COMPLETED' AND transaction_id IS NOT NULL AND payment_date >= ? AND payment_date < ?";
+
+    /**
+     * Reconcile the completed payments of a period against bank statement files.
+     *
+     * @param startDate The first day of the period
+     * @param endDate The last day of the period
+     * @param statementFiles The statement CSV files
+     * @return The reconciliation report
+     * @throws SQLException If a database error occurs
+     * @throws IOException If a statement file cannot be read
+     */
+    public ReconciliationReport reconcile(LocalDate startDate, LocalDate endDate, List<Path> statementFiles)
+            throws SQLException, IOException {
+        return reconcile(loadPayments(startDate, endDate), statementFiles);
+    }
+
+    /**
+     * Load the completed payments of a period into a transaction ID index.
+     *
+     * @param startDate The first day of the period
+     * @param endDate The last day of the period
+     * @return The payment index
+     * @throws SQLException If a database error occurs
+     */
+    public TransactionIndex loadPayments(LocalDate startDate, LocalDate endDate) throws SQLException {
+        TransactionIndex index = new TransactionIndex(1024);
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(PAYMENT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // Stream the rows instead of buffering the whole period in the driver
+            DatabaseUtil.streamResults(stmt);
+            Timestamp from = Timestamp.valueOf(startDate.atStartOfDay());
+            Timestamp to = Timestamp.valueOf(endDate.plusDays(1).atStartOfDay());
+            stmt.setTimestamp(1, from);
+            stmt.setTimestamp(2, to);
+            stmt.setTimestamp(3, from);
+            stmt.setTimestamp(4, to);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    index.add(rs.getLong("id"), rs.getString("transaction_id"),
+                            rs.getBigDecimal("amount").movePointRight(2).longValueExact());
+                }
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Reconcile indexed payments against statement files.
+     *
+     * @param index The payments
+     * @param statementFiles The statement CSV files
+     * @return The reconciliation report
+     * @throws IOException If a statement file cannot be read
+     */
+    static ReconciliationReport reconcile(TransactionIndex index, List<Path> statementFiles) throws IOException {
+        long started = System.currentTimeMillis();
+        index.resetMatches();
+        Issues issues = new Issues();
+        AtomicLong statementLines = new AtomicLong();
+        AtomicLong matched = new AtomicLong();
+
+        List<Segment> segments = new ArrayList<>();
+        for (Path file : statementFiles) {
+            segments.addAll(split(file));
+        }
+
+        try {
+            segments.parallelStream().forEach(segment -> {
+                try {
+                    scan(segment, index, issues, statementLines, matched);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        for (int row = 0; row < index.size(); row++) {
+            if (index.getMatchCount(row) == 0) {
+                int paymentRow = row;
+                issues.add(Kind.MISSING, () -> new ReconciliationIssue(Kind.MISSING, index.getTransactionId(paymentRow),
+                        index.getPaymentId(paymentRow), index.getAmountCents(paymentRow) / 100.0, null, null));
+            }
+        }
+        for (long[] duplicate : index.getDuplicatePayments()) {
+            issues.add(Kind.DUPLICATE, () -> new ReconciliationIssue(Kind.DUPLICATE, null, duplicate[1], null, null,
+                    "same transaction ID as payment " + duplicate[0]));
+        }
+
+        return new ReconciliationReport(index.size(), statementLines.get(), matched.get(),
+                issues.counts(), issues.list(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * A byte range of a statement file. Lines starting inside the range belong to it.
+     */
+    private record Segment(Path file, Layout layout, long start, long end, long fileSize) {
+    }
+
+    /**
+     * The columns, delimiter and decimal separator of a statement file, read from its header.
+     * Semicolon-separated statements use a decimal comma, the others a decimal point.
+     */
+    private record Layout(byte delimiter, byte decimalSeparator, int idColumn, int amountColumn, long dataStart) {
+    }
+
+    /**
+     * Read the header of a statement file and cut the rest into segments.
+     */
+    private static List<Segment> split(Path file) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer head = ByteBuffer.allocate((int) Math.min(size, MAX_LINE_LENGTH));
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // Keep reading until the buffer is full or the file ends
+            }
+
+            int headerEnd = 0;
+            while (headerEnd < head.position() && head.get(headerEnd) != '\n') {
+                headerEnd++;
+            }
+            Layout layout = parseHeader(file, new String(head.array(), 0, headerEnd, StandardCharsets.UTF_8),
+                    Math.min(size, headerEnd + 1));
+
+            for (long start = layout.dataStart(); start < size; start += SEGMENT_SIZE) {
+                segments.add(new Segment(file, layout, start, Math.min(size, start + SEGMENT_SIZE), size));
+            }
+        }
+
+        return segments;
+    }
+
+    private static Layout parseHeader(Path file, String header, long dataStart) throws IOException {
+        byte delimiter = ',';
+        if (header.indexOf(',') < 0) {
+            delimiter = header.indexOf(';') >= 0 ? (byte) ';' : (byte) '\t';
+        }
+
+        String[] names = header.replace("\uFEFF", "").strip().split(String.valueOf((char) delimiter), -1);
+        int idColumn = -1;
+        int amountColumn = -1;
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].replace("\"", "").strip().toLowerCase(Locale.ROOT);
+            if (idColumn < 0 && ID_HEADERS.contains(name)) {
+                idColumn = i;
+            } else if (amountColumn < 0 && AMOUNT_HEADERS.contains(name)) {
+                amountColumn = i;
+            }
+        }
+
+        if (idColumn < 0 || amountColumn < 0) {
+            throw new IOException("Statement " + file.getFileName() + " has no transaction ID and amount columns");
+        }
+        byte decimalSeparator = delimiter == ';' ? (byte) ',' : (byte) '.';
+        return new Layout(delimiter, decimalSeparator, idColumn, amountColumn, dataStart);
+    }
+
+    /**
+     * Match the lines of one segment against the payments.
+     */
+    private static void scan(Segment segment, TransactionIndex index, Issues issues,
+                             AtomicLong statementLines, AtomicLong matched) throws IOException {
+        Layout layout = segment.layout();
+        String source = segment.file().getFileName().toString();
+
+        // Map one byte before the segment to see whether it starts a line, and enough after it to finish the last line
+        long mapStart = segment.start() > layout.dataStart() ? segment.start() - 1 : segment.start();
+        long mapEnd = Math.min(segment.fileSize(), segment.end() + MAX_LINE_LENGTH);
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment.file(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        }
+
+        int limit = (int) (segment.end() - mapStart);
+        int length = buffer.limit();
+        int pos = 0;
+        if (mapStart < segment.start()) {
+            // Skip the rest of a line that began in the previous segment
+            while (pos < length && buffer.get(pos) != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+
+        long lines = 0;
+        long matches = 0;
+        int[] fields = new int[4];
+        byte delimiter = layout.delimiter();
+
+        while (pos < limit) {
+            int lineEnd = pos;
+            while (lineEnd < length && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd == length && mapEnd < segment.fileSize()) {
+                issues.add(Kind.MALFORMED, () -> new ReconciliationIssue(Kind.MALFORMED, null, null, null, null,
+                        source + ": line longer than " + MAX_LINE_LENGTH + " bytes"));
+                break;
+            }
+
+            int next = lineEnd + 1;
+            if (lineEnd > pos && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd == pos) {
+                pos = next;
+                continue;
+            }
+            lines++;
+
+            if (!findFields(buffer, pos, lineEnd, delimiter, layout.idColumn(), layout.amountColumn(), fields)) {
+                int lineStart = pos;
+                int lineStop = lineEnd;
+                issues.add(Kind.MALFORMED, () -> new ReconciliationIssue(Kind.MALFORMED, null, null, null, null,
+                        source + ": " + text(buffer, lineStart, lineStop)));
+                pos = next;
+                continue;
+            }
+
+            int idStart = fields[0];
+            int idEnd = fields[1];
+            long amountCents = parseCents(buffer, fields[2], fields[3], layout.decimalSeparator());
+            if (idStart == idEnd || amountCents == Long.MIN_VALUE) {
+                int lineStart = pos;
+                int lineStop = lineEnd;
+                issues.add(Kind.MALFORMED, () -> new ReconciliationIssue(Kind.MALFORMED, null, null, null, null,
+                        source + ": " + text(buffer, lineStart, lineStop)));
+                pos = next;
+                continue;
+            }
+
+            int row = index.find(buffer, idStart, idEnd);
+            if (row < 0) {
+                issues.add(Kind.UNKNOWN, () -> new ReconciliationIssue(Kind.UNKNOWN, text(buffer, idStart, idEnd),
+                        null, null, amountCents / 100.0, source));
+            } else if (index.recordMatch(row) > 1) {
+                issues.add(Kind.DUPLICATE, () -> new ReconciliationIssue(Kind.DUPLICATE, index.getTransactionId(row),
+                        index.getPaymentId(row), index.getAmountCents(row) / 100.0, amountCents / 100.0, source));
+            } else if (index.getAmountCents(row) != amountCents) {
+                issues.add(Kind.AMOUNT_MISMATCH, () -> new ReconciliationIssue(Kind.AMOUNT_MISMATCH,
+                        index.getTransactionId(row), index.getPaymentId(row), index.getAmountCents(row) / 100.0,
+                        amountCents / 100.0, source));
+            } else {
+                matches++;
+            }
+
+            pos = next;
+        }
+
+        statementLines.addAndGet(lines);
+        matched.addAndGet(matches);
+    }
+
+    /**
+     * Find the ID and amount fields of a line, without surrounding quotes and spaces.
+     *
+     * @param fields Receives the start and end of the ID field, then of the amount field
+     * @return true if the line has both fields
+     */
+    private static boolean findFields(ByteBuffer buffer, int from, int to, byte delimiter,
+                                      int idColumn, int amountColumn, int[] fields) {
+        int column = 0;
+        int fieldStart = from;
+        boolean quoted = false;
+        int found = 0;
+
+        for (int i = from; i <= to; i++) {
+            byte b = i < to ? buffer.get(i) : delimiter;
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == delimiter && !quoted) {
+                if (column == idColumn || column == amountColumn) {
+                    int start = fieldStart;
+                    int end = i;
+                    while (start < end && (buffer.get(start) == ' ' || buffer.get(start) == '"')) {
+                        start++;
+                    }
+                    while (end > start && (buffer.get(end - 1) == ' ' || buffer.get(end - 1) == '"')) {
+                        end--;
+                    }
+                    int slot = column == idColumn ? 0 : 2;
+                    fields[slot] = start;
+                    fields[slot + 1] = end;
+                    found++;
+                    if (found == 2) {
+                        return true;
+                    }
+                }
+                column++;
+                fieldStart = i + 1;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Parse an amount such as 1234.5, -12.34, 1,234.56 or 1.234,56 into cents. A separator followed
+     * by one or two final digits is the decimal separator; other separators group thousands. A single
+     * separator followed by three digits is ambiguous and only read as grouping when it is not the
+     * statement's decimal separator.
+     *
+     * @param decimalSeparator The decimal separator of the statement, '.' or ','
+     * @return The amount in cents, or Long.MIN_VALUE if it is not a valid amount
+     */
+    static long parseCents(ByteBuffer buffer, int from, int to, byte decimalSeparator) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        int last = to - 1;
+        while (last >= i && buffer.get(last) != '.' && buffer.get(last) != ',') {
+            last--;
+        }
+        int decimalAt = -1;
+        if (last >= i) {
+            int after = to - last - 1;
+            if (after == 1 || after == 2) {
+                decimalAt = last;
+            } else if (after != 3 || buffer.get(last) == decimalSeparator) {
+                return Long.MIN_VALUE;
+            }
+        }
+
+        long value = 0;
+        int digits = 0;
+        int decimals = 0;
+        byte grouping = 0;
+        int group = -1;
+        for (; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                digits++;
+                if (digits > 17) {
+                    return Long.MIN_VALUE;
+                }
+                if (decimalAt >= 0 && i > decimalAt) {
+                    decimals++;
+                } else if (group >= 0) {
+                    group++;
+                }
+            } else if (i == decimalAt) {
+                if (b == grouping || (group >= 0 && group != 3)) {
+                    return Long.MIN_VALUE;
+                }
+            } else if (b == '.' || b == ',') {
+                // Every group after the first has exactly three digits, and the first at most three
+                boolean firstGroupValid = group < 0 && digits > 0 && digits <= 3;
+                if ((grouping != 0 && b != grouping) || !(firstGroupValid || group == 3)) {
+                    return Long.MIN_VALUE;
+                }
+                grouping = b;
+                group = 0;
+            } else {
+                return Long.MIN_VALUE;
+            }
+        }
+
+        if (digits == 0) {
+            return Long.MIN_VALUE;
+        }
+        for (int d = decimals; d < 2; d++) {
+            value *= 10;
+        }
+        return negative ? -value : value;
+    }
+
+    private static String text(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[Math.min(to - from, 200)];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Issue counts and the first issues of each kind, shared by the segment scans.
+     * Issue details are only created while the list for their kind still has room.
+     */
+    private static final class Issues {
+
+        private final Map<Kind, AtomicLong> counts = new EnumMap<>(Kind.class);
+        private final Map<Kind, ConcurrentLinkedQueue<ReconciliationIssue>> samples = new EnumMap<>(Kind.class);
+
+        Issues() {
+            for (Kind kind : Kind.values()) {
+                counts.put(kind, new AtomicLong());
+                samples.put(kind, new ConcurrentLinkedQueue<>());
+            }
+        }
+
+        void add(Kind kind, Supplier<ReconciliationIssue> issue) {
+            if (counts.get(kind).incrementAndGet() <= MAX_ISSUES_PER_KIND) {
+                samples.get(kind).add(issue.get());
+            }
+        }
+
+        Map<Kind, Long> counts() {
+            Map<Kind, Long> result = new EnumMap<>(Kind.class);
+            counts.forEach((kind, count) -> result.put(kind, count.get()));
+            return result;
+        }
+
+        List<ReconciliationIssue> list() {
+            List<ReconciliationIssue> result = new ArrayList<>();
+            samples.values().forEach(result::addAll);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ReservationStatusChange;
+import com.adminpanel.zmauto.util.AppDataUtil;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.DbScheduler;
+import com.adminpanel.zmauto.util.DbScheduler.Lane;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service class for the reservation status audit trail.
+ * Status changes are queued in memory and written by a background thread in batches,
+ * so approving or rejecting a reservation does not wait for a second insert.
+ * Changes that cannot be written when the application stops are kept in a local
+ * journal file and written on the next start. A change the database rejects for good,
+ * e.g. for a constraint violation, is set aside in a dead-letter file after a few attempts
+ * so it does not hold up the changes behind it.
+ */
+public class ReservationAuditService {
+
+    private static final int BATCH_SIZE = DatabaseUtil.getIntProperty("audit.batchSize", 100);
+    private static final long MAX_RETRY_DELAY_MILLIS = 30000;
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+    private static final int MAX_ATTEMPTS = DatabaseUtil.getIntProperty("audit.maxAttempts", 3);
+
+    private static final String JOURNAL_FILE = "audit-journal.bin";
+    // Changes the database rejected; same format as the journal, kept for inspection but never queued again
+    private static final String DEAD_LETTER_FILE = "audit-dead-letter.bin";
+
+    private static final BlockingQueue<ReservationStatusChange> queue = new LinkedBlockingQueue<>();
+    private static final AtomicLong enqueued = new AtomicLong();
+    private static final Object processedLock = new Object();
+    private static long processed;
+
+    private static volatile boolean running;
+    private static Thread writer;
+
+    /**
+     * Queue a status change for writing to the audit trail.
+     *
+     * @param change The status change
+     */
+    public void record(ReservationStatusChange change) {
+        start();
+        enqueued.incrementAndGet();
+        queue.add(change);
+    }
+
+    /**
+     * Get the status history of a reservation, oldest change first.
+     * Changes still waiting in the queue are written before the history is read.
+     *
+     * @param reservationId The reservation ID
+     * @return The list of status changes
+     * @throws SQLException If a database error occurs
+     */
+    public List<ReservationStatusChange> getHistory(Long reservationId) throws SQLException {
+        flush(5000);
+
+        String sql = "SELECT id, reservation_id, from_status, to_status, notes, changed_by, changed_at " +
+                     "FROM reservation_status_history WHERE reservation_id = ? ORDER BY changed_at, id";
+        List<ReservationStatusChange> history = new ArrayList<>();
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, reservationId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ReservationStatusChange change = new ReservationStatusChange();
+                    change.setId(rs.getLong("id"));
+                    change.setReservationId(rs.getLong("reservation_id"));
+                    change.setFromStatus(rs.getString("from_status"));
+                    change.setToStatus(rs.getString("to_status"));
+                    change.setNotes(rs.getString("notes"));
+                    change.setChangedBy(rs.getString("changed_by"));
+                    change.setChangedAt(rs.getTimestamp("changed_at").toLocalDateTime());
+                    history.add(change);
+                }
+            }
+        }
+
+        return history;
+    }
+
+    /**
+     * Wait until every change queued so far has been written.
+     *
+     * @param timeoutMillis The maximum time to wait
+     * @return true if all changes were written in time, false otherwise
+     */
+    public static boolean flush(long timeoutMillis) {
+        long target = enqueued.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        synchronized (processedLock) {
+            while (processed < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    processedLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start the background writer and queue any changes left over from the last session.
+     */
+    public static synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+
+        List<ReservationStatusChange> journaled = readJournal();
+        enqueued.addAndGet(journaled.size());
+        queue.addAll(journaled);
+
+        writer = new Thread(DbScheduler.inLane(Lane.BACKGROUND, ReservationAuditService::writeLoop), "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stop the background writer after it has written every queued change.
+     * Changes that still cannot be written are saved to the local journal.
+     */
+    public static void shutdown() {
+        Thread current;
+        synchronized (ReservationAuditService.class) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            current = writer;
+        }
+
+        try {
+            current.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void writeLoop() {
+        List<ReservationStatusChange> batch = new ArrayList<>(BATCH_SIZE);
+        long retryDelay = 500;
+        int failedAttempts = 0;
+
+        while (true) {
+            if (batch.isEmpty()) {
+                try {
+                    ReservationStatusChange first = queue.poll(200, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        if (!running) {
+                            return;
+                        }
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+
+            try {
+                writeBatch(batch);
+                markProcessed(batch.size());
+                batch.clear();
+                retryDelay = 500;
+                failedAttempts = 0;
+
+            } catch (SQLException e) {
+                failedAttempts++;
+                System.err.println("Error writing reservation audit trail (" + batch.size() + " changes): " + e.getMessage());
+
+                if (!isUnavailable(e) && failedAttempts >= MAX_ATTEMPTS) {
+                    // The database is up but rejects the batch: write the changes it accepts one by one
+                    List<ReservationStatusChange> rejected = writeSingly(batch);
+                    if (!rejected.isEmpty()) {
+                        writeJournal(DEAD_LETTER_FILE, rejected);
+                    }
+                    markProcessed(batch.size());
+                    batch.clear();
+                    retryDelay = 500;
+                    failedAttempts = 0;
+                    continue;
+                }
+
+                if (!running && failedAttempts >= SHUTDOWN_ATTEMPTS) {
+                    // Shutting down and the database is unreachable: keep the changes for the next start
+                    batch.addAll(queue);
+                    queue.clear();
+                    writeJournal(JOURNAL_FILE, batch);
+                    markProcessed(batch.size());
+                    return;
+                }
+
+                sleep(running ? retryDelay : 200);
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Whether a failure means the database cannot be reached or is busy, so retrying later can succeed.
+     */
+    private static boolean isUnavailable(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException || (state != null && state.startsWith("08"));
+    }
+
+    /**
+     * Write the changes of a rejected batch one at a time.
+     *
+     * @return The changes that could not be written
+     */
+    private static List<ReservationStatusChange> writeSingly(List<ReservationStatusChange> batch) {
+        List<ReservationStatusChange> rejected = new ArrayList<>();
+        for (ReservationStatusChange change : batch) {
+            try {
+                writeBatch(List.of(change));
+            } catch (SQLException e) {
+                System.err.println("Rejected reservation audit change " + change + ": " + e.getMessage());
+                rejected.add(change);
+            }
+        }
+        return rejected;
+    }
+
+    private static void writeBatch(List<ReservationStatusChange> batch) throws SQLException {
+        String sql = "INSERT INTO reservation_status_history " +
+                     "(reservation_id, from_status, to_status, notes, changed_by, changed_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+            try {
+                for (ReservationStatusChange change : batch) {
+                    stmt.setLong(1, change.getReservationId());
+                    stmt.setString(2, change.getFromStatus());
+                    stmt.setString(3, change.getToStatus());
+                    stmt.setString(4, change.getNotes());
+                    stmt.setString(5, change.getChangedBy());
+                    stmt.setTimestamp(6, Timestamp.valueOf(change.getChangedAt()));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void markProcessed(int count) {
+        synchronized (processedLock) {
+            processed += count;
+            processedLock.notifyAll();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Path getJournalFile() throws IOException {
+        return AppDataUtil.getDataDirectory().resolve(JOURNAL_FILE);
+    }
+
+    private static void writeJournal(String fileName, List<ReservationStatusChange> changes) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                AppDataUtil.getDataDirectory().resolve(fileName), StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+            for (ReservationStatusChange change : changes) {
+                out.writeLong(change.getReservationId());
+                writeString(out, change.getFromStatus());
+                writeString(out, change.getToStatus());
+                writeString(out, change.getNotes());
+                writeString(out, change.getChangedBy());
+                writeString(out, change.getChangedAt().toString());
+            }
+            System.out.println("Saved " + changes.size() + " reservation audit changes to " + fileName);
+        } catch (IOException e) {
+            System.err.println("Error saving reservation audit journal: " + e.getMessage());
+            for (ReservationStatusChange change : changes) {
+                System.err.println("Unsaved audit change: " + change);
+            }
+        }
+    }
+
+    private static List<ReservationStatusChange> readJournal() {
+        List<ReservationStatusChange> changes = new ArrayList<>();
+        try {
+            Path file = getJournalFile();
+            if (!Files.exists(file)) {
+                return changes;
+            }
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                while (true) {
+                    long reservationId;
+                    try {
+                        reservationId = in.readLong();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    ReservationStatusChange change = new ReservationStatusChange(
+                            reservationId, readString(in), readString(in), readString(in), readString(in));
+                    change.setChangedAt(LocalDateTime.parse(readString(in)));
+                    changes.add(change);
+                }
+            }
+
+            // The changes are queued again, so the journal is no longer needed
+            Files.delete(file);
+            System.out.println("Loaded " + changes.size() + " reservation audit changes from the local journal");
+
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading reservation audit journal: " + e.getMessage());
+        }
+        return changes;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,16 @@
+package com.adminpanel.zmauto.service;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when a reservation cannot be made because it clashes with the vehicle's schedule,
+ * as opposed to a failure of the database itself.
+ */
+public class ReservationConflictException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ReservationConflictException(String message) {
+        super(message);
+    }
+}
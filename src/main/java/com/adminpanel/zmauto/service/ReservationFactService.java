@@ -0,0 +1,245 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ChangeEvent;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.ReservationColumns;
+
+import java.sql.*;
+import java.util.Arrays;
+
+/**
+ * Service class that keeps the off-heap reservation columns used by the dashboards and reports.
+ * The columns are loaded on first use by streaming the hot and archive tables, merged by id,
+ * and then refreshed incrementally: new ids and rows updated since the last refresh are read
+ * again, and deletions are applied from change events. The periodic refresh also drops the ids
+ * that are in neither table any more, e.g. deleted on another workstation.
+ */
+public class ReservationFactService {
+
+    /**
+     * Rows changed shortly before a refresh started may not be visible to it yet, and other
+     * workstations stamp updated_at with their own clocks, so each refresh looks back further
+     * than the database time at which the previous one started.
+     */
+    private static final int WATERMARK_MARGIN_MINUTES =
+            DatabaseUtil.getIntProperty("columnstore.watermarkMarginMinutes", 15);
+
+    private static final long REFRESH_INTERVAL_MILLIS =
+            DatabaseUtil.getIntProperty("columnstore.refreshSeconds", 60) * 1000L;
+
+    private static final String FACT_COLUMNS = "id, vehicle_id, start_date, end_date, status, total_cost";
+
+    private static final ReservationColumns columns = new ReservationColumns();
+    private static final Object refreshLock = new Object();
+
+    private static boolean loaded;
+    private static volatile boolean dirty;
+    private static Timestamp watermark;
+    private static long lastRefresh;
+
+    static {
+        DomainEventBus.subscribe(ReservationFactService::onChange);
+    }
+
+    /**
+     * Get the reservation columns, loading or refreshing them first if needed.
+     *
+     * @return The reservation columns
+     * @throws SQLException If a database error occurs
+     */
+    public ReservationColumns getColumns() throws SQLException {
+        synchronized (refreshLock) {
+            if (!loaded) {
+                load();
+            } else if (System.currentTimeMillis() - lastRefresh > REFRESH_INTERVAL_MILLIS) {
+                refresh(true);
+            } else if (dirty) {
+                refresh(false);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Release the off-heap memory.
+     */
+    public static void shutdown() {
+        synchronized (refreshLock) {
+            columns.close();
+            loaded = false;
+        }
+    }
+
+    /**
+     * Apply a reservation change. Deletions are applied right away; other changes are
+     * picked up by the next refresh.
+     *
+     * @param event The change event
+     */
+    private static void onChange(ChangeEvent event) {
+        if (event.getEntityType() != EntityType.RESERVATION) {
+            return;
+        }
+        if (event.getKind() == ChangeEvent.Kind.DELETED) {
+            columns.remove(event.getId());
+        } else {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Load all reservations. Both tables are streamed in id order on their own connection
+     * and merged, so the rows arrive in the order the columns keep them.
+     *
+     * @throws SQLException If a database error occurs
+     */
+    private static void load() throws SQLException {
+        long startedMillis = System.currentTimeMillis();
+        Timestamp started;
+        columns.clear();
+
+        try (Connection hotConn = DatabaseUtil.getConnection();
+             Connection archiveConn = DatabaseUtil.getConnection()) {
+
+            started = watermarkFrom(hotConn);
+            try (PreparedStatement hotStmt = prepareStreaming(hotConn,
+                         "SELECT " + FACT_COLUMNS + " FROM reservations ORDER BY id");
+                 PreparedStatement archiveStmt = prepareStreaming(archiveConn,
+                         "SELECT " + FACT_COLUMNS + " FROM reservations_archive ORDER BY id");
+                 ResultSet hot = hotStmt.executeQuery();
+                 ResultSet archive = archiveStmt.executeQuery()) {
+
+                boolean hasHot = hot.next();
+                boolean hasArchive = archive.next();
+                while (hasHot || hasArchive) {
+                    if (hasHot && (!hasArchive || hot.getLong("id") <= archive.getLong("id"))) {
+                        upsert(hot);
+                        hasHot = hot.next();
+                    } else {
+                        upsert(archive);
+                        hasArchive = archive.next();
+                    }
+                }
+            }
+        }
+
+        loaded = true;
+        dirty = false;
+        watermark = started;
+        lastRefresh = System.currentTimeMillis();
+        System.out.println("Reservation columns loaded (" + columns.size() + " rows, " +
+                (columns.getAllocatedBytes() >> 20) + " MB off-heap) in " + (lastRefresh - startedMillis) + " ms");
+    }
+
+    /**
+     * Read the reservations added or updated since the last refresh.
+     * Archived rows keep their ids and values, so only the hot table has to be read.
+     *
+     * @param reconcile Whether to also drop the reservations that are in neither table any more
+     * @throws SQLException If a database error occurs
+     */
+    private static void refresh(boolean reconcile) throws SQLException {
+        Timestamp started;
+        dirty = false;
+
+        try {
+            if (reconcile) {
+                int removed = reconcile();
+                if (removed > 0) {
+                    System.out.println("Dropped " + removed + " deleted reservations from the reservation columns");
+                }
+            }
+
+            try (Connection conn = DatabaseUtil.getConnection()) {
+                started = watermarkFrom(conn);
+
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT " + FACT_COLUMNS + " FROM reservations WHERE id > ? ORDER BY id")) {
+                    stmt.setLong(1, columns.getMaxId());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            upsert(rs);
+                        }
+                    }
+                }
+
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT " + FACT_COLUMNS + " FROM reservations WHERE updated_at >= ?")) {
+                    stmt.setTimestamp(1, watermark);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            upsert(rs);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            dirty = true;
+            throw e;
+        }
+
+        watermark = started;
+        lastRefresh = System.currentTimeMillis();
+    }
+
+    /**
+     * Get the watermark for a refresh starting now: the database time less the margin.
+     */
+    private static Timestamp watermarkFrom(Connection conn) throws SQLException {
+        return Timestamp.valueOf(DatabaseUtil.getDatabaseTime(conn).toLocalDateTime().minusMinutes(WATERMARK_MARGIN_MINUTES));
+    }
+
+    /**
+     * Drop the reservations that are in neither the hot nor the archive table, e.g. deleted on
+     * another workstation. Both tables are streamed in id order and merged; the hot table is
+     * queried first, so a reservation archived meanwhile is seen in at least one of them.
+     *
+     * @return The number of reservations dropped
+     */
+    private static int reconcile() throws SQLException {
+        long[] ids = new long[Math.max(columns.size(), 1024)];
+        int count = 0;
+
+        try (Connection hotConn = DatabaseUtil.getConnection();
+             Connection archiveConn = DatabaseUtil.getConnection();
+             PreparedStatement hotStmt = prepareStreaming(hotConn, "SELECT id FROM reservations ORDER BY id");
+             PreparedStatement archiveStmt = prepareStreaming(archiveConn, "SELECT id FROM reservations_archive ORDER BY id");
+             ResultSet hot = hotStmt.executeQuery();
+             ResultSet archive = archiveStmt.executeQuery()) {
+
+            boolean hasHot = hot.next();
+            boolean hasArchive = archive.next();
+            while (hasHot || hasArchive) {
+                long id;
+                if (hasHot && (!hasArchive || hot.getLong(1) <= archive.getLong(1))) {
+                    id = hot.getLong(1);
+                    hasHot = hot.next();
+                } else {
+                    id = archive.getLong(1);
+                    hasArchive = archive.next();
+                }
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                ids[count++] = id;
+            }
+        }
+
+        return columns.retainAll(ids, count);
+    }
+
+    private static PreparedStatement prepareStreaming(Connection conn, String sql) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        // Stream the rows instead of buffering the whole table in the driver
+        DatabaseUtil.streamResults(stmt);
+        return stmt;
+    }
+
+    private static void upsert(ResultSet rs) throws SQLException {
+        columns.upsert(rs.getLong("id"), rs.getLong("vehicle_id"),
+                (int) rs.getDate("start_date").toLocalDate().toEpochDay(),
+                (int) rs.getDate("end_date").toLocalDate().toEpochDay(),
+                rs.getString("status"), rs.getDouble("total_cost"));
+    }
+}
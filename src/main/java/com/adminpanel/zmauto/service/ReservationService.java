@@ -1,24 +1,62 @@
 package com.adminpanel.zmauto.service;
 
+import com.adminpanel.zmauto.model.ChangeEvent;
+import com.adminpanel.zmauto.model.Driver;
 import com.adminpanel.zmauto.model.Reservation;
+import com.adminpanel.zmauto.model.ReservationStatusChange;
 import com.adminpanel.zmauto.model.User;
 import com.adminpanel.zmauto.model.Vehicle;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
 import com.adminpanel.zmauto.util.DatabaseUtil;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service class for reservation-related operations.
  */
 public class ReservationService {
 
+    /**
+     * List projection: the reservation columns plus the user, vehicle and driver fields shown in tables.
+     * The full user, vehicle and driver are loaded when first accessed.
+     */
+    private static final String PROJECTION_COLUMNS =
+            "r.id, r.user_id, r.vehicle_id, r.driver_needed, r.driver_id, r.start_date, r.end_date, r.status, " +
+            "r.notes, r.total_cost, r.created_at, r.updated_at, u.username, c.brand, c.model, c.license_plate, " +
+            "d.first_name AS driver_first_name, d.last_name AS driver_last_name";
+
+    private static final String PROJECTION_JOINS =
+            " r LEFT JOIN users u ON u.user_id = r.user_id LEFT JOIN car c ON c.car_id = r.vehicle_id " +
+            "LEFT JOIN driver d ON d.driver_id = r.driver_id";
+
     private UserService userService;
     private VehicleService vehicleService;
     private DriverService driverService;
+    private ReservationAuditService auditService;
+    private KpiService kpiService;
+
+    private final Reservation.AssociationLoader associationLoader = new Reservation.AssociationLoader() {
+        @Override
+        public User loadUser(Long userId) throws SQLException {
+            return userService.getUserById(userId);
+        }
+
+        @Override
+        public Vehicle loadVehicle(Long vehicleId) throws SQLException {
+            return vehicleService.getVehicleById(vehicleId);
+        }
+
+        @Override
+        public Driver loadDriver(Long driverId) throws SQLException {
+            return driverService.getDriverById(driverId);
+        }
+    };
 
     /**
      * Constructor.
@@ -27,26 +65,29 @@ public class ReservationService {
         this.userService = new UserService();
         this.vehicleService = new VehicleService();
         this.driverService = new DriverService();
+        this.auditService = new ReservationAuditService();
+        this.kpiService = new KpiService();
     }
 
     /**
-     * Get a reservation by ID.
+     * Get a reservation by ID, looking in the archive if it is no longer in the reservations table.
      * 
      * @param id The reservation ID
      * @return The reservation, or null if not found
      * @throws SQLException If a database error occurs
      */
     public Reservation getReservationById(Long id) throws SQLException {
-        String sql = "SELECT * FROM reservations WHERE id = ?";
-
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setLong(1, id);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToReservation(rs);
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            for (String table : new String[]{"reservations", "reservations_archive"}) {
+                String sql = "SELECT " + PROJECTION_COLUMNS + " FROM " + table + PROJECTION_JOINS + " WHERE r.id = ?";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setLong(1, id);
+
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            return mapResultSetToReservation(rs);
+                        }
+                    }
                 }
             }
         }
@@ -61,7 +102,7 @@ public class ReservationService {
      * @throws SQLException If a database error occurs
      */
     public List<Reservation> getAllReservations() throws SQLException {
-        String sql = "SELECT * FROM reservations ORDER BY created_at DESC";
+        String sql = "SELECT " + PROJECTION_COLUMNS + " FROM reservations" + PROJECTION_JOINS + " ORDER BY r.created_at DESC";
         List<Reservation> reservations = new ArrayList<>();
 
         try (Connection conn = DatabaseUtil.getConnection();
@@ -84,7 +125,8 @@ public class ReservationService {
      * @throws SQLException If a database error occurs
      */
     public List<Reservation> getReservationsByStatus(String status) throws SQLException {
-        String sql = "SELECT * FROM reservations WHERE status = ? ORDER BY created_at DESC";
+        String sql = "SELECT " + PROJECTION_COLUMNS + " FROM reservations" + PROJECTION_JOINS +
+                     " WHERE r.status = ? ORDER BY r.created_at DESC";
         List<Reservation> reservations = new ArrayList<>();
 
         try (Connection conn = DatabaseUtil.getConnection();
@@ -110,22 +152,19 @@ public class ReservationService {
      * @throws SQLException If a database error occurs
      */
     public List<Reservation> getReservationsByUser(Long userId) throws SQLException {
-        String sql = "SELECT * FROM reservations WHERE user_id = ? ORDER BY created_at DESC";
-        List<Reservation> reservations = new ArrayList<>();
-
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setLong(1, userId);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    reservations.add(mapResultSetToReservation(rs));
-                }
-            }
-        }
+        return getReservationsByUser(userId, false);
+    }
 
-        return reservations;
+    /**
+     * Get reservations by users, optionally including archived history.
+     * 
+     * @param userId The users ID
+     * @param includeHistory Whether to also return reservations moved to the archive
+     * @return A list of reservations for the specified users, newest first
+     * @throws SQLException If a database error occurs
+     */
+    public List<Reservation> getReservationsByUser(Long userId, boolean includeHistory) throws SQLException {
+        return getReservationsByColumn("user_id", userId, includeHistory);
     }
 
     /**
@@ -136,13 +175,50 @@ public class ReservationService {
      * @throws SQLException If a database error occurs
      */
     public List<Reservation> getReservationsByVehicle(Long vehicleId) throws SQLException {
-        String sql = "SELECT * FROM reservations WHERE car_id = ? ORDER BY created_at DESC";
+        return getReservationsByVehicle(vehicleId, false);
+    }
+
+    /**
+     * Get reservations by vehicle, optionally including archived history.
+     * 
+     * @param vehicleId The vehicle ID
+     * @param includeHistory Whether to also return reservations moved to the archive
+     * @return A list of reservations for the specified vehicle, newest first
+     * @throws SQLException If a database error occurs
+     */
+    public List<Reservation> getReservationsByVehicle(Long vehicleId, boolean includeHistory) throws SQLException {
+        return getReservationsByColumn("vehicle_id", vehicleId, includeHistory);
+    }
+
+    /**
+     * Get reservations matching a foreign key column from the hot table and, if requested, the archive.
+     * 
+     * @param column The column to filter on (user_id or vehicle_id)
+     * @param value The column value
+     * @param includeHistory Whether to also read reservations_archive
+     * @return A list of matching reservations, newest first
+     * @throws SQLException If a database error occurs
+     */
+    private List<Reservation> getReservationsByColumn(String column, Long value, boolean includeHistory) throws SQLException {
+        String sql;
+        if (includeHistory) {
+            sql = "SELECT " + PROJECTION_COLUMNS + " FROM reservations" + PROJECTION_JOINS + " WHERE r." + column + " = ? " +
+                  "UNION ALL " +
+                  "SELECT " + PROJECTION_COLUMNS + " FROM reservations_archive" + PROJECTION_JOINS + " WHERE r." + column + " = ? " +
+                  "ORDER BY created_at DESC";
+        } else {
+            sql = "SELECT " + PROJECTION_COLUMNS + " FROM reservations" + PROJECTION_JOINS + " WHERE r." + column + " = ? " +
+                  "ORDER BY r.created_at DESC";
+        }
         List<Reservation> reservations = new ArrayList<>();
 
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setLong(1, vehicleId);
+            stmt.setLong(1, value);
+            if (includeHistory) {
+                stmt.setLong(2, value);
+            }
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -159,48 +235,73 @@ public class ReservationService {
      * 
      * @param reservation The reservation to create
      * @return The created reservation with ID
+     * @throws ReservationConflictException If the dates clash with the vehicle's maintenance
      * @throws SQLException If a database error occurs
      */
     public Reservation createReservation(Reservation reservation) throws SQLException {
-        String sql = "INSERT INTO reservations (user_id, car_id, driver_id, start_date, end_date, status, created_at) " +
+        String conflict = vehicleService.getMaintenanceConflict(
+                reservation.getVehicleId(), reservation.getStartDate(), reservation.getEndDate());
+        if (conflict != null) {
+            throw new ReservationConflictException("Creating reservation failed, " + conflict + ".");
+        }
+
+        String sql = "INSERT INTO reservations (user_id, vehicle_id, driver_needed, driver_id, start_date, end_date, status, " +
+                     "notes, total_cost, created_at) " +
                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
 
-            stmt.setLong(1, reservation.getUser().getId());
-            stmt.setLong(2, reservation.getVehicle().getId());
-            stmt.setBoolean(3, reservation.getDriverNeeded() != null ? reservation.getDriverNeeded() : false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
 
-            // Set driver_id if a driver is selected
-            if (reservation.getDriver() != null) {
-                stmt.setLong(4, reservation.getDriver().getDriverId());
-            } else {
-                stmt.setNull(4, java.sql.Types.BIGINT);
-            }
+                stmt.setLong(1, reservation.getUserId());
+                stmt.setLong(2, reservation.getVehicleId());
+                stmt.setBoolean(3, reservation.getDriverNeeded() != null ? reservation.getDriverNeeded() : false);
 
-            stmt.setDate(5, Date.valueOf(reservation.getStartDate()));
-            stmt.setDate(6, Date.valueOf(reservation.getEndDate()));
-            stmt.setString(7, reservation.getStatus());
-            stmt.setString(8, reservation.getNotes());
-            stmt.setDouble(9, reservation.getTotalCost());
-            stmt.setTimestamp(10, Timestamp.valueOf(reservation.getCreatedAt()));
+                // Set driver_id if a driver is selected
+                if (reservation.getDriverId() != null) {
+                    stmt.setLong(4, reservation.getDriverId());
+                } else {
+                    stmt.setNull(4, java.sql.Types.BIGINT);
+                }
 
-            int affectedRows = stmt.executeUpdate();
+                stmt.setDate(5, Date.valueOf(reservation.getStartDate()));
+                stmt.setDate(6, Date.valueOf(reservation.getEndDate()));
+                stmt.setString(7, reservation.getStatus());
+                stmt.setString(8, reservation.getNotes());
+                stmt.setDouble(9, reservation.getTotalCost());
+                stmt.setTimestamp(10, Timestamp.valueOf(reservation.getCreatedAt()));
 
-            if (affectedRows == 0) {
-                throw new SQLException("Creating reservation failed, no rows affected.");
-            }
+                int affectedRows = stmt.executeUpdate();
 
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    reservation.setId(generatedKeys.getLong(1));
-                } else {
-                    throw new SQLException("Creating reservation failed, no ID obtained.");
+                if (affectedRows == 0) {
+                    throw new SQLException("Creating reservation failed, no rows affected.");
                 }
+
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        reservation.setId(generatedKeys.getLong(1));
+                    } else {
+                        throw new SQLException("Creating reservation failed, no ID obtained.");
+                    }
+                }
+            }
+
+            kpiService.addReservations(conn, List.of(reservation.getId()));
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
             }
+            throw e;
         }
 
+        DomainEventBus.publish(ChangeEvent.created(EntityType.RESERVATION, reservation.getId(), reservation));
+        auditService.record(new ReservationStatusChange(
+                reservation.getId(), null, reservation.getStatus(), reservation.getNotes(), null));
+
         return reservation;
     }
 
@@ -212,35 +313,66 @@ public class ReservationService {
      * @throws SQLException If a database error occurs
      */
     public boolean updateReservation(Reservation reservation) throws SQLException {
-        String sql = "UPDATE reservations SET user_id = ?, car_id = ?, driver_id = ?, " +
-                     "start_date = ?, end_date = ?, status = ?, updated_at = ? WHERE id = ?";
+        String sql = "UPDATE reservations SET user_id = ?, vehicle_id = ?, driver_needed = ?, driver_id = ?, " +
+                     "start_date = ?, end_date = ?, status = ?, notes = ?, total_cost = ?, updated_at = ? WHERE id = ?";
+
+        int affectedRows;
+        boolean released = false;
+        Long previousVehicleId;
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+            previousVehicleId = getReservationVehicle(conn, reservation.getId());
+            kpiService.removeReservations(conn, List.of(reservation.getId()));
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                stmt.setLong(1, reservation.getUserId());
+                stmt.setLong(2, reservation.getVehicleId());
+                stmt.setBoolean(3, reservation.getDriverNeeded() != null ? reservation.getDriverNeeded() : false);
+
+                // Set driver_id if a driver is selected
+                if (reservation.getDriverId() != null) {
+                    stmt.setLong(4, reservation.getDriverId());
+                } else {
+                    stmt.setNull(4, java.sql.Types.BIGINT);
+                }
 
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setDate(5, Date.valueOf(reservation.getStartDate()));
+                stmt.setDate(6, Date.valueOf(reservation.getEndDate()));
+                stmt.setString(7, reservation.getStatus());
+                stmt.setString(8, reservation.getNotes());
+                stmt.setDouble(9, reservation.getTotalCost());
+                stmt.setTimestamp(10, Timestamp.valueOf(LocalDateTime.now()));
+                stmt.setLong(11, reservation.getId());
+
+                affectedRows = stmt.executeUpdate();
+            }
 
-            stmt.setLong(1, reservation.getUser().getId());
-            stmt.setLong(2, reservation.getVehicle().getId());
-            stmt.setBoolean(3, reservation.getDriverNeeded() != null ? reservation.getDriverNeeded() : false);
+            kpiService.addReservations(conn, List.of(reservation.getId()));
 
-            // Set driver_id if a driver is selected
-            if (reservation.getDriver() != null) {
-                stmt.setLong(4, reservation.getDriver().getDriverId());
-            } else {
-                stmt.setNull(4, java.sql.Types.BIGINT);
+            // The edit may have moved the reservation to another vehicle or out of APPROVED
+            if (affectedRows > 0 && previousVehicleId != null) {
+                released = releaseVehicle(conn, previousVehicleId);
             }
 
-            stmt.setDate(5, Date.valueOf(reservation.getStartDate()));
-            stmt.setDate(6, Date.valueOf(reservation.getEndDate()));
-            stmt.setString(7, reservation.getStatus());
-            stmt.setString(8, reservation.getNotes());
-            stmt.setDouble(9, reservation.getTotalCost());
-            stmt.setTimestamp(10, Timestamp.valueOf(LocalDateTime.now()));
-            stmt.setLong(11, reservation.getId());
+            DatabaseUtil.commitTransaction();
 
-            int affectedRows = stmt.executeUpdate();
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
 
-            return affectedRows > 0;
+        if (affectedRows > 0) {
+            DomainEventBus.publish(ChangeEvent.updated(EntityType.RESERVATION, reservation.getId(), reservation));
+        }
+        if (released) {
+            vehicleReleased(previousVehicleId);
         }
+
+        return affectedRows > 0;
     }
 
     /**
@@ -253,20 +385,65 @@ public class ReservationService {
      * @throws SQLException If a database error occurs
      */
     public boolean updateReservationStatus(Long reservationId, String status, String notes) throws SQLException {
-        String sql = "UPDATE reservations SET status = ?, updated_at = ? WHERE id = ?";
+        return updateReservationStatus(reservationId, null, status, notes, null);
+    }
 
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    /**
+     * Update a reservation's status and record the transition in its status history.
+     * If the expected current status is given, the update only succeeds while the reservation
+     * still has that status, so two administrators cannot both act on the same request.
+     * 
+     * @param reservationId The reservation ID
+     * @param fromStatus The expected current status, or null to update regardless of it
+     * @param status The new status
+     * @param notes Optional notes about the status change; existing notes are kept if empty
+     * @param changedBy The username of the administrator making the change
+     * @return true if the update was successful, false otherwise
+     * @throws SQLException If a database error occurs
+     */
+    public boolean updateReservationStatus(Long reservationId, String fromStatus, String status,
+                                           String notes, String changedBy) throws SQLException {
+        String statusNotes = normalizeNotes(notes);
+
+        String previousStatus;
+        boolean updated;
+        Long releasedVehicleId = null;
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+
+            // The previous status is only looked up when the caller doesn't know it
+            previousStatus = fromStatus != null ? fromStatus : getReservationStatus(conn, reservationId);
+
+            kpiService.removeReservations(conn, List.of(reservationId));
+            updated = updateStatus(conn, reservationId, fromStatus, status, statusNotes);
+            kpiService.addReservations(conn, List.of(reservationId));
+
+            // Completing, cancelling or rejecting an approved reservation frees its vehicle
+            if (updated && "APPROVED".equals(previousStatus) && !"APPROVED".equals(status)) {
+                Long vehicleId = getReservationVehicle(conn, reservationId);
+                if (vehicleId != null && releaseVehicle(conn, vehicleId)) {
+                    releasedVehicleId = vehicleId;
+                }
+            }
 
-            stmt.setString(1, status);
-            stmt.setString(2, notes);
-            stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
-            stmt.setLong(4, reservationId);
+            DatabaseUtil.commitTransaction();
 
-            int affectedRows = stmt.executeUpdate();
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
 
-            return affectedRows > 0;
+        if (updated) {
+            statusChanged(reservationId, previousStatus, status, statusNotes, changedBy);
+        }
+        if (releasedVehicleId != null) {
+            vehicleReleased(releasedVehicleId);
         }
+
+        return updated;
     }
 
     /**
@@ -281,6 +458,61 @@ public class ReservationService {
         return updateReservationStatus(reservationId, "APPROVED", notes);
     }
 
+    /**
+     * Approve a pending reservation and mark its vehicle as reserved, in one transaction.
+     * 
+     * @param reservationId The reservation ID
+     * @param notes Optional notes about the approval
+     * @param changedBy The username of the approving administrator
+     * @return true if the approval was successful, false if the reservation is no longer pending
+     * @throws SQLException If a database error occurs
+     */
+    public boolean approveReservation(Long reservationId, String notes, String changedBy) throws SQLException {
+        String statusNotes = normalizeNotes(notes);
+
+        // Approve the reservation and reserve its vehicle in one transaction
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+
+            kpiService.removeReservations(conn, List.of(reservationId));
+            if (!updateStatus(conn, reservationId, "PENDING", "APPROVED", statusNotes)) {
+                DatabaseUtil.rollbackTransaction();
+                return false;
+            }
+            kpiService.addReservations(conn, List.of(reservationId));
+
+            Long vehicleId = getReservationVehicle(conn, reservationId);
+            if (vehicleId != null) {
+                kpiService.removeVehicles(conn, List.of(vehicleId));
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE car SET rental_status = ?, updated_at = ? WHERE car_id = ?")) {
+                    stmt.setString(1, "RESERVED");
+                    stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                    stmt.setLong(3, vehicleId);
+                    stmt.executeUpdate();
+                }
+                kpiService.addVehicles(conn, List.of(vehicleId));
+            }
+
+            DatabaseUtil.commitTransaction();
+
+            statusChanged(reservationId, "PENDING", "APPROVED", statusNotes, changedBy);
+            if (vehicleId != null) {
+                DomainEventBus.publish(ChangeEvent.changed(EntityType.VEHICLE, vehicleId, Map.of("status", "RESERVED")));
+            }
+
+            return true;
+
+        } catch (SQLException e) {
+            // Rollback the transaction if an error occurs
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
+    }
+
     /**
      * Reject a reservation.
      * 
@@ -293,6 +525,205 @@ public class ReservationService {
         return updateReservationStatus(reservationId, "REJECTED", notes);
     }
 
+    /**
+     * Reject a pending reservation.
+     * 
+     * @param reservationId The reservation ID
+     * @param notes Optional notes about the rejection
+     * @param changedBy The username of the rejecting administrator
+     * @return true if the rejection was successful, false if the reservation is no longer pending
+     * @throws SQLException If a database error occurs
+     */
+    public boolean rejectReservation(Long reservationId, String notes, String changedBy) throws SQLException {
+        return updateReservationStatus(reservationId, "PENDING", "REJECTED", notes, changedBy);
+    }
+
+    /**
+     * Get the status history of a reservation, oldest change first.
+     * 
+     * @param reservationId The reservation ID
+     * @return The list of status changes
+     * @throws SQLException If a database error occurs
+     */
+    public List<ReservationStatusChange> getStatusHistory(Long reservationId) throws SQLException {
+        return auditService.getHistory(reservationId);
+    }
+
+    /**
+     * Set a reservation's status on the given connection.
+     * 
+     * @param conn The connection to use
+     * @param reservationId The reservation ID
+     * @param fromStatus The expected current status, or null to update regardless of it
+     * @param status The new status
+     * @param notes The notes to store, or null to keep the existing notes
+     * @return true if the reservation was updated, false otherwise
+     * @throws SQLException If a database error occurs
+     */
+    private boolean updateStatus(Connection conn, Long reservationId, String fromStatus,
+                                 String status, String notes) throws SQLException {
+        String sql = "UPDATE reservations SET status = ?, notes = COALESCE(?, notes), updated_at = ? WHERE id = ?";
+        if (fromStatus != null) {
+            sql += " AND status = ?";
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, status);
+            stmt.setString(2, notes);
+            stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setLong(4, reservationId);
+            if (fromStatus != null) {
+                stmt.setString(5, fromStatus);
+            }
+
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Publish and record a committed status change.
+     * 
+     * @param reservationId The reservation ID
+     * @param fromStatus The previous status
+     * @param status The new status
+     * @param notes The stored notes, or null if they were kept
+     * @param changedBy The username of the administrator making the change
+     */
+    private void statusChanged(Long reservationId, String fromStatus, String status, String notes, String changedBy) {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("status", status);
+        if (notes != null) {
+            changes.put("notes", notes);
+        }
+        DomainEventBus.publish(ChangeEvent.changed(EntityType.RESERVATION, reservationId, changes));
+        auditService.record(new ReservationStatusChange(reservationId, fromStatus, status, notes, changedBy));
+    }
+
+    /**
+     * Treat blank status notes as no notes.
+     * 
+     * @param notes The notes entered by the user
+     * @return The trimmed notes, or null if they are blank
+     */
+    private String normalizeNotes(String notes) {
+        return notes != null && !notes.trim().isEmpty() ? notes.trim() : null;
+    }
+
+    /**
+     * Get the current status of a reservation.
+     * 
+     * @param conn The connection to use
+     * @param reservationId The reservation ID
+     * @return The status, or null if the reservation does not exist
+     * @throws SQLException If a database error occurs
+     */
+    private String getReservationStatus(Connection conn, Long reservationId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT status FROM reservations WHERE id = ?")) {
+            stmt.setLong(1, reservationId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString("status") : null;
+            }
+        }
+    }
+
+    /**
+     * Get the vehicle of a reservation.
+     * 
+     * @param conn The connection to use
+     * @param reservationId The reservation ID
+     * @return The vehicle ID, or null if the reservation does not exist
+     * @throws SQLException If a database error occurs
+     */
+    private Long getReservationVehicle(Connection conn, Long reservationId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT vehicle_id FROM reservations WHERE id = ?")) {
+            stmt.setLong(1, reservationId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong("vehicle_id") : null;
+            }
+        }
+    }
+
+    /**
+     * Switch a reserved vehicle back to AVAILABLE unless an approved reservation that has not
+     * ended yet still holds it. Vehicles in any other status are left alone.
+     * 
+     * @param conn The connection to use
+     * @param vehicleId The vehicle ID
+     * @return true if the vehicle was released
+     * @throws SQLException If a database error occurs
+     */
+    private boolean releaseVehicle(Connection conn, Long vehicleId) throws SQLException {
+        String sql = "UPDATE car SET rental_status = 'AVAILABLE', updated_at = ? " +
+                     "WHERE car_id = ? AND rental_status = 'RESERVED' AND NOT EXISTS (" +
+                     "SELECT 1 FROM reservations r WHERE r.vehicle_id = car.car_id " +
+                     "AND r.status = 'APPROVED' AND r.end_date >= ?)";
+
+        int affectedRows;
+        kpiService.removeVehicles(conn, List.of(vehicleId));
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setLong(2, vehicleId);
+            stmt.setDate(3, Date.valueOf(LocalDate.now()));
+            affectedRows = stmt.executeUpdate();
+        }
+        kpiService.addVehicles(conn, List.of(vehicleId));
+
+        return affectedRows > 0;
+    }
+
+    private void vehicleReleased(Long vehicleId) {
+        DomainEventBus.publish(ChangeEvent.changed(EntityType.VEHICLE, vehicleId, Map.of("status", "AVAILABLE")));
+    }
+
+    /**
+     * Release the vehicles whose approved reservations have all ended. Approved reservations
+     * are not completed explicitly, so this runs once a day.
+     * 
+     * @return The number of vehicles released
+     * @throws SQLException If a database error occurs
+     */
+    public int releaseEndedReservations() throws SQLException {
+        List<Long> candidates = new ArrayList<>();
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT car_id FROM car WHERE rental_status = 'RESERVED' AND NOT EXISTS (" +
+                     "SELECT 1 FROM reservations r WHERE r.vehicle_id = car.car_id " +
+                     "AND r.status = 'APPROVED' AND r.end_date >= ?)")) {
+            stmt.setDate(1, Date.valueOf(LocalDate.now()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    candidates.add(rs.getLong("car_id"));
+                }
+            }
+        }
+
+        List<Long> released = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+
+            // Re-checked per vehicle, since a reservation may have been approved meanwhile
+            for (Long vehicleId : candidates) {
+                if (releaseVehicle(conn, vehicleId)) {
+                    released.add(vehicleId);
+                }
+            }
+
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
+
+        for (Long vehicleId : released) {
+            vehicleReleased(vehicleId);
+        }
+        return released.size();
+    }
+
     /**
      * Delete a reservation.
      * 
@@ -303,15 +734,65 @@ public class ReservationService {
     public boolean deleteReservation(Long reservationId) throws SQLException {
         String sql = "DELETE FROM reservations WHERE id = ?";
 
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        int affectedRows;
+        boolean released = false;
+        Long vehicleId;
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+            vehicleId = getReservationVehicle(conn, reservationId);
+            kpiService.removeReservations(conn, List.of(reservationId));
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, reservationId);
+                affectedRows = stmt.executeUpdate();
+            }
 
-            stmt.setLong(1, reservationId);
+            if (affectedRows > 0 && vehicleId != null) {
+                released = releaseVehicle(conn, vehicleId);
+            }
 
-            int affectedRows = stmt.executeUpdate();
+            DatabaseUtil.commitTransaction();
 
-            return affectedRows > 0;
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
+
+        if (affectedRows > 0) {
+            DomainEventBus.publish(ChangeEvent.deleted(EntityType.RESERVATION, reservationId));
+        }
+        if (released) {
+            vehicleReleased(vehicleId);
+        }
+
+        return affectedRows > 0;
+    }
+
+    /**
+     * Calculate the total cost of a reservation: the vehicle's daily rate, plus the driver's daily
+     * wage if a driver is needed, for every day from the start date to the end date inclusive.
+     *
+     * @param dailyRate The vehicle's daily rate
+     * @param driverNeeded Whether a driver is needed
+     * @param driverDailyWage The driver's daily wage, or null if there is no driver
+     * @param startDate The start date
+     * @param endDate The end date
+     * @return The total cost, or 0 if the rate or a date is missing
+     */
+    public static double calculateTotalCost(Double dailyRate, boolean driverNeeded, Double driverDailyWage,
+                                            LocalDate startDate, LocalDate endDate) {
+        if (dailyRate == null || startDate == null || endDate == null) {
+            return 0.0;
         }
+
+        // Include both start and end days
+        long days = java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate) + 1;
+
+        double driverCost = driverNeeded && driverDailyWage != null ? driverDailyWage * days : 0.0;
+        return dailyRate * days + driverCost;
     }
 
     /**
@@ -325,25 +806,21 @@ public class ReservationService {
         Reservation reservation = new Reservation();
         reservation.setId(rs.getLong("id"));
 
-        // Get the users
-        Long userId = rs.getLong("user_id");
-        User user = userService.getUserById(userId);
-        reservation.setUser(user);
-
-        // Get the vehicle
-        Long vehicleId = rs.getLong("vehicle_id");
-        Vehicle vehicle = vehicleService.getVehicleById(vehicleId);
-        reservation.setVehicle(vehicle);
-
-        // Get driver information
+        // Keep the ids and displayed fields; the full user, vehicle and driver load on first access
+        reservation.setUserId(rs.getLong("user_id"));
+        reservation.setUsername(rs.getString("username"));
+        reservation.setVehicleId(rs.getLong("vehicle_id"));
+        reservation.setVehicleMake(rs.getString("brand"));
+        reservation.setVehicleModel(rs.getString("model"));
+        reservation.setLicensePlate(rs.getString("license_plate"));
         reservation.setDriverNeeded(rs.getBoolean("driver_needed"));
 
-        // Get the driver if one is assigned
-        Long driverId = rs.getLong("driver_id");
+        long driverId = rs.getLong("driver_id");
         if (!rs.wasNull()) {
-            com.adminpanel.zmauto.model.Driver driver = driverService.getDriverById(driverId);
-            reservation.setDriver(driver);
+            reservation.setDriverId(driverId);
+            reservation.setDriverName(rs.getString("driver_first_name") + " " + rs.getString("driver_last_name"));
         }
+        reservation.setAssociationLoader(associationLoader);
 
         // Set other fields
         reservation.setStartDate(rs.getDate("start_date").toLocalDate());
@@ -0,0 +1,431 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ChangeEvent;
+import com.adminpanel.zmauto.model.SearchResult;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
+import com.adminpanel.zmauto.util.AppDataUtil;
+import com.adminpanel.zmauto.util.BackgroundTasks;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import com.adminpanel.zmauto.util.DbScheduler;
+import com.adminpanel.zmauto.util.DbScheduler.Lane;
+import com.adminpanel.zmauto.util.InvertedIndex;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class for the global search across users, vehicles, drivers, reservations and payments.
+ * The index is shared by all instances, persisted in the application data directory and kept
+ * up to date incrementally by the other services after each write.
+ */
+public class SearchService {
+
+    private static final String INDEX_FILE = "search-index.bin";
+
+    /**
+     * Rows changed shortly before a build started may not be visible to it yet, and other
+     * workstations stamp updated_at with their own clocks, so the delta refresh after a restart
+     * looks back further than the database time stored as the watermark.
+     */
+    private static final long WATERMARK_MARGIN_MILLIS =
+            DatabaseUtil.getIntProperty("search.watermarkMarginMinutes", 15) * 60_000L;
+
+    private static final InvertedIndex index = new InvertedIndex();
+    private static final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(DbScheduler.inLane(Lane.BACKGROUND, runnable), "search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Reads the entity tables in parallel during a rebuild, in the same lane as the indexer
+    private static final ExecutorService loaders = Executors.newFixedThreadPool(EntityType.values().length, runnable -> {
+        Thread thread = new Thread(DbScheduler.inLane(Lane.BACKGROUND, runnable), "search-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // Keep the index in step with committed changes from any service
+        DomainEventBus.subscribe(SearchService::onChange);
+    }
+
+    private static final String USER_SQL =
+            "SELECT user_id, username, first_name, last_name, email, phone_number, role FROM users";
+    private static final String VEHICLE_SQL =
+            "SELECT car_id, license_plate, brand, model, model_year, colour, type, rental_status FROM car";
+    private static final String DRIVER_SQL =
+            "SELECT driver_id, first_name, last_name, email, phone_number, status FROM driver";
+    private static final String RESERVATION_SQL =
+            "SELECT r.id, r.status, r.start_date, r.end_date, u.username, u.first_name, u.last_name, " +
+            "c.brand, c.model, c.license_plate FROM reservations r " +
+            "LEFT JOIN users u ON u.user_id = r.user_id LEFT JOIN car c ON c.car_id = r.vehicle_id";
+    private static final String PAYMENT_SQL =
+            "SELECT id, reservation_id, transaction_id, payment_method, status, amount FROM payments";
+
+    /**
+     * Load the persisted index, or build it from the database if there is none.
+     * Runs in the background; searches return partial results until it completes.
+     *
+     * @return A future that completes when the index is ready
+     */
+    public CompletableFuture<Void> initialize() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                long started = System.currentTimeMillis();
+                long watermark;
+                if (index.load(getIndexFile())) {
+                    // The saved index is searchable right away; catch up once the database is ready
+                    BackgroundTasks.awaitStartup();
+                    watermark = databaseTimeMillis();
+                    refreshSince(index.getWatermark() - WATERMARK_MARGIN_MILLIS);
+                    removeDeleted();
+                    System.out.println("Search index loaded (" + index.size() + " documents) in " +
+                            (System.currentTimeMillis() - started) + " ms");
+                } else {
+                    BackgroundTasks.awaitStartup();
+                    watermark = databaseTimeMillis();
+                    rebuild();
+                    System.out.println("Search index built (" + index.size() + " documents) in " +
+                            (System.currentTimeMillis() - started) + " ms");
+                }
+                index.setWatermark(watermark);
+                save();
+            } catch (IOException | SQLException e) {
+                System.err.println("Error initializing search index: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }, indexer);
+    }
+
+    /**
+     * Rebuild the whole index from the database. The five entity tables are read in parallel.
+     *
+     * @throws SQLException If a database error occurs
+     */
+    public void rebuild() throws SQLException {
+        List<CompletableFuture<List<InvertedIndex.Document>>> loads = new ArrayList<>();
+        for (EntityType type : EntityType.values()) {
+            loads.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return loadDocuments(type, null, null);
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }, loaders));
+        }
+
+        List<InvertedIndex.Document> documents = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<InvertedIndex.Document>> load : loads) {
+                documents.addAll(load.join());
+            }
+        } catch (RuntimeException e) {
+            if (e.getCause() != null && e.getCause().getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause().getCause();
+            }
+            throw e;
+        }
+
+        index.clear();
+        index.putAll(documents);
+    }
+
+    /**
+     * Search all entities.
+     *
+     * @param query The query text
+     * @param limit The maximum number of results
+     * @return The results, best first
+     */
+    public List<SearchResult> search(String query, int limit) {
+        List<SearchResult> results = new ArrayList<>();
+        for (InvertedIndex.Hit hit : index.search(query, limit)) {
+            results.add(new SearchResult(EntityType.fromCode(hit.getType()), hit.getId(), hit.getTargetId(),
+                    hit.getTitle(), hit.getSubtitle(), hit.getScore()));
+        }
+        return results;
+    }
+
+    /**
+     * Re-read an entity from the database and update its index entry in the background.
+     *
+     * @param type The entity type
+     * @param id The entity ID
+     */
+    public void reindex(EntityType type, Long id) {
+        if (id == null) {
+            return;
+        }
+        indexer.execute(() -> {
+            try {
+                List<InvertedIndex.Document> documents = loadDocuments(type, id, null);
+                if (documents.isEmpty()) {
+                    index.remove(type.code(), id);
+                } else {
+                    index.putAll(documents);
+                }
+            } catch (SQLException e) {
+                System.err.println("Error updating search index: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Remove an entity from the index in the background.
+     *
+     * @param type The entity type
+     * @param id The entity ID
+     */
+    public void remove(EntityType type, Long id) {
+        if (id != null) {
+            indexer.execute(() -> index.remove(type.code(), id));
+        }
+    }
+
+    /**
+     * Update the index for a committed change.
+     *
+     * @param event The change event
+     */
+    private static void onChange(ChangeEvent event) {
+        SearchService searchService = new SearchService();
+        if (event.getKind() == ChangeEvent.Kind.DELETED) {
+            searchService.remove(event.getEntityType(), event.getId());
+        } else {
+            searchService.reindex(event.getEntityType(), event.getId());
+        }
+    }
+
+    /**
+     * Save the index to the application data directory.
+     *
+     * @throws IOException If the index cannot be written
+     */
+    public void save() throws IOException {
+        index.save(getIndexFile());
+    }
+
+    /**
+     * Stop the background indexer and persist the index.
+     * Called when the application exits.
+     */
+    public static void shutdown() {
+        loaders.shutdown();
+        indexer.shutdown();
+        try {
+            if (indexer.awaitTermination(5, TimeUnit.SECONDS) && index.size() > 0) {
+                // The watermark stays at the last read from the database: only this workstation's
+                // changes have been applied since, so the next start must catch up from there
+                index.save(getIndexFile());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Error saving search index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the database time, which the watermark is kept in.
+     *
+     * @return The database server's current time in epoch milliseconds
+     * @throws SQLException If a database error occurs
+     */
+    private static long databaseTimeMillis() throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return DatabaseUtil.getDatabaseTime(conn).getTime();
+        }
+    }
+
+    /**
+     * Re-index everything created or updated since the given time.
+     * Used after loading a persisted index, so restarts only pay for what changed meanwhile.
+     *
+     * @param sinceMillis The time in epoch milliseconds
+     * @throws SQLException If a database error occurs
+     */
+    private void refreshSince(long sinceMillis) throws SQLException {
+        Timestamp since = new Timestamp(sinceMillis);
+        List<InvertedIndex.Document> documents = new ArrayList<>();
+        for (EntityType type : EntityType.values()) {
+            documents.addAll(loadDocuments(type, null, since));
+        }
+        index.putAll(documents);
+    }
+
+    /**
+     * Remove the entities deleted while the application was not running, which the watermark
+     * cannot reveal. Only the ID columns are read.
+     *
+     * @throws SQLException If a database error occurs
+     */
+    private void removeDeleted() throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            for (EntityType type : EntityType.values()) {
+                Set<Long> existing = new HashSet<>();
+                try (PreparedStatement stmt = conn.prepareStatement(idSql(type));
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(rs.getLong(1));
+                    }
+                }
+                index.retain(type.code(), existing);
+            }
+        }
+    }
+
+    private static String idSql(EntityType type) {
+        switch (type) {
+            case USER:
+                return "SELECT user_id FROM users";
+            case VEHICLE:
+                return "SELECT car_id FROM car";
+            case DRIVER:
+                return "SELECT driver_id FROM driver";
+            case RESERVATION:
+                return "SELECT id FROM reservations";
+            default:
+                return "SELECT id FROM payments";
+        }
+    }
+
+    /**
+     * Load index documents for one entity type.
+     *
+     * @param type The entity type
+     * @param id Only load this entity, or null for all
+     * @param since Only load rows changed after this time, or null for all
+     * @return The documents
+     * @throws SQLException If a database error occurs
+     */
+    private List<InvertedIndex.Document> loadDocuments(EntityType type, Long id, Timestamp since) throws SQLException {
+        String sql;
+        String idColumn;
+        String changedCondition;
+        switch (type) {
+            case USER:
+                sql = USER_SQL;
+                idColumn = "user_id";
+                changedCondition = "(created_at > ? OR updated_at > ?)";
+                break;
+            case VEHICLE:
+                sql = VEHICLE_SQL;
+                idColumn = "car_id";
+                changedCondition = "(created_at > ? OR updated_at > ?)";
+                break;
+            case DRIVER:
+                sql = DRIVER_SQL;
+                idColumn = "driver_id";
+                changedCondition = "(created_at > ? OR updated_at > ?)";
+                break;
+            case RESERVATION:
+                sql = RESERVATION_SQL;
+                idColumn = "r.id";
+                changedCondition = "(r.created_at > ? OR r.updated_at > ?)";
+                break;
+            default:
+                sql = PAYMENT_SQL;
+                idColumn = "id";
+                changedCondition = "(created_at > ? OR updated_at > ?)";
+                break;
+        }
+
+        if (id != null) {
+            sql += " WHERE " + idColumn + " = ?";
+        } else if (since != null) {
+            sql += " WHERE " + changedCondition;
+        }
+
+        List<InvertedIndex.Document> documents = new ArrayList<>();
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            if (id != null) {
+                stmt.setLong(1, id);
+            } else if (since != null) {
+                stmt.setTimestamp(1, since);
+                stmt.setTimestamp(2, since);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    documents.add(mapResultSetToDocument(type, rs));
+                }
+            }
+        }
+
+        return documents;
+    }
+
+    /**
+     * Map a ResultSet row to an index document.
+     *
+     * @param type The entity type
+     * @param rs The ResultSet
+     * @return The document
+     * @throws SQLException If a database error occurs
+     */
+    private InvertedIndex.Document mapResultSetToDocument(EntityType type, ResultSet rs) throws SQLException {
+        long id = rs.getLong(1);
+        String title;
+        String subtitle;
+        String text;
+
+        switch (type) {
+            case USER:
+                title = join(rs.getString("first_name"), rs.getString("last_name"));
+                subtitle = join(rs.getString("username"), rs.getString("email"));
+                text = join(title, subtitle, rs.getString("phone_number"), rs.getString("role"));
+                return new InvertedIndex.Document(type.code(), id, id, title, subtitle, text);
+            case VEHICLE:
+                title = join(rs.getString("brand"), rs.getString("model"), rs.getString("model_year"));
+                subtitle = join(rs.getString("license_plate"), rs.getString("rental_status"));
+                text = join(title, subtitle, rs.getString("colour"), rs.getString("type"));
+                return new InvertedIndex.Document(type.code(), id, id, title, subtitle, text);
+            case DRIVER:
+                title = join(rs.getString("first_name"), rs.getString("last_name"));
+                subtitle = join(rs.getString("phone_number"), rs.getString("status"));
+                text = join(title, subtitle, rs.getString("email"));
+                return new InvertedIndex.Document(type.code(), id, id, title, subtitle, text);
+            case RESERVATION:
+                title = "#" + id + " " + join(rs.getString("username"), rs.getString("brand"), rs.getString("model"));
+                subtitle = join(rs.getString("start_date"), "to", rs.getString("end_date"), rs.getString("status"));
+                text = join(title, subtitle, rs.getString("first_name"), rs.getString("last_name"),
+                        rs.getString("license_plate"));
+                return new InvertedIndex.Document(type.code(), id, id, title, subtitle, text);
+            default:
+                long reservationId = rs.getLong("reservation_id");
+                title = join(rs.getString("transaction_id"), rs.getString("payment_method"));
+                subtitle = join("Reservation #" + reservationId, rs.getString("status"), rs.getString("amount"));
+                text = join(title, subtitle);
+                return new InvertedIndex.Document(type.code(), id, reservationId, title, subtitle, text);
+        }
+    }
+
+    private static String join(String... parts) {
+        StringBuilder builder = new StringBuilder();
+        for (String part : parts) {
+            if (part != null && !part.isEmpty()) {
+                if (builder.length() > 0) {
+                    builder.append(' ');
+                }
+                builder.append(part);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static Path getIndexFile() throws IOException {
+        return AppDataUtil.getDataDirectory().resolve(INDEX_FILE);
+    }
+}
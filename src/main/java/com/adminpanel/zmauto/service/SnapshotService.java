@@ -0,0 +1,374 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.Driver;
+import com.adminpanel.zmauto.model.Reservation;
+import com.adminpanel.zmauto.model.User;
+import com.adminpanel.zmauto.model.Vehicle;
+import com.adminpanel.zmauto.util.AppDataUtil;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Service class for the local snapshots of the data shown in each view.
+ * A view shows its snapshot immediately on startup, marked as stale, while the
+ * fresh data is loaded from the database in the background.
+ */
+public class SnapshotService {
+
+    private static final int MAGIC = 0x5A4D534E;
+    private static final int VERSION = 2;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private static final String RESERVATIONS = "reservations";
+    private static final String VEHICLES = "vehicles";
+    private static final String DRIVERS = "drivers";
+    private static final String USERS = "users";
+
+    private final int maxRows = DatabaseUtil.getIntProperty("snapshot.maxRows", 500);
+
+    /**
+     * Reads a single row from a mapped snapshot file.
+     */
+    private interface RowReader<T> {
+        T read(MappedByteBuffer buffer);
+    }
+
+    /**
+     * Writes a single row to a snapshot file.
+     */
+    private interface RowWriter<T> {
+        void write(DataOutputStream out, T row) throws IOException;
+    }
+
+    /**
+     * Load the reservations snapshot.
+     *
+     * @return The reservations from the last session, or an empty list if there is no usable snapshot
+     */
+    public List<Reservation> loadReservations() {
+        return load(RESERVATIONS, buffer -> {
+            Reservation reservation = new Reservation();
+            reservation.setId(readLong(buffer));
+
+            reservation.setUserId(readLong(buffer));
+            reservation.setUsername(readString(buffer));
+            reservation.setVehicleId(readLong(buffer));
+            reservation.setVehicleMake(readString(buffer));
+            reservation.setVehicleModel(readString(buffer));
+            reservation.setLicensePlate(readString(buffer));
+
+            reservation.setStartDate(readLocalDate(buffer));
+            reservation.setEndDate(readLocalDate(buffer));
+            reservation.setStatus(readString(buffer));
+            reservation.setTotalCost(readDouble(buffer));
+            reservation.setCreatedAt(readLocalDateTime(buffer));
+            reservation.setUpdatedAt(readLocalDateTime(buffer));
+            return reservation;
+        });
+    }
+
+    /**
+     * Save the reservations snapshot.
+     *
+     * @param reservations The reservations currently shown
+     */
+    public void saveReservations(List<Reservation> reservations) {
+        save(RESERVATIONS, reservations, (out, reservation) -> {
+            writeLong(out, reservation.getId());
+
+            // Only the projection shown in the table; reading the associations would load them
+            writeLong(out, reservation.getUserId());
+            writeString(out, reservation.getUsername());
+            writeLong(out, reservation.getVehicleId());
+            writeString(out, reservation.getVehicleMake());
+            writeString(out, reservation.getVehicleModel());
+            writeString(out, reservation.getLicensePlate());
+
+            writeLocalDate(out, reservation.getStartDate());
+            writeLocalDate(out, reservation.getEndDate());
+            writeString(out, reservation.getStatus());
+            writeDouble(out, reservation.getTotalCost());
+            writeLocalDateTime(out, reservation.getCreatedAt());
+            writeLocalDateTime(out, reservation.getUpdatedAt());
+        });
+    }
+
+    /**
+     * Load the vehicles snapshot.
+     *
+     * @return The vehicles from the last session, or an empty list if there is no usable snapshot
+     */
+    public List<Vehicle> loadVehicles() {
+        return load(VEHICLES, buffer -> {
+            Vehicle vehicle = new Vehicle();
+            vehicle.setId(readLong(buffer));
+            vehicle.setMake(readString(buffer));
+            vehicle.setModel(readString(buffer));
+            vehicle.setYear(readInteger(buffer));
+            vehicle.setLicensePlate(readString(buffer));
+            vehicle.setColor(readString(buffer));
+            vehicle.setStatus(readString(buffer));
+            vehicle.setDailyRate(readDouble(buffer));
+            return vehicle;
+        });
+    }
+
+    /**
+     * Save the vehicles snapshot.
+     *
+     * @param vehicles The vehicles currently shown
+     */
+    public void saveVehicles(List<Vehicle> vehicles) {
+        save(VEHICLES, vehicles, (out, vehicle) -> {
+            writeLong(out, vehicle.getId());
+            writeString(out, vehicle.getMake());
+            writeString(out, vehicle.getModel());
+            writeInteger(out, vehicle.getYear());
+            writeString(out, vehicle.getLicensePlate());
+            writeString(out, vehicle.getColor());
+            writeString(out, vehicle.getStatus());
+            writeDouble(out, vehicle.getDailyRate());
+        });
+    }
+
+    /**
+     * Load the drivers snapshot.
+     *
+     * @return The drivers from the last session, or an empty list if there is no usable snapshot
+     */
+    public List<Driver> loadDrivers() {
+        return load(DRIVERS, buffer -> {
+            Driver driver = new Driver();
+            driver.setDriverId(readLong(buffer));
+            driver.setFirstName(readString(buffer));
+            driver.setLastName(readString(buffer));
+            driver.setPhoneNumber(readString(buffer));
+            driver.setEmail(readString(buffer));
+            driver.setStatus(readString(buffer));
+            driver.setRating(readDouble(buffer));
+            return driver;
+        });
+    }
+
+    /**
+     * Save the drivers snapshot.
+     *
+     * @param drivers The drivers currently shown
+     */
+    public void saveDrivers(List<Driver> drivers) {
+        save(DRIVERS, drivers, (out, driver) -> {
+            writeLong(out, driver.getDriverId());
+            writeString(out, driver.getFirstName());
+            writeString(out, driver.getLastName());
+            writeString(out, driver.getPhoneNumber());
+            writeString(out, driver.getEmail());
+            writeString(out, driver.getStatus());
+            writeDouble(out, driver.getRating());
+        });
+    }
+
+    /**
+     * Load the users snapshot.
+     *
+     * @return The users from the last session, or an empty list if there is no usable snapshot
+     */
+    public List<User> loadUsers() {
+        return load(USERS, buffer -> {
+            User user = new User();
+            user.setId(readLong(buffer));
+            user.setFirstName(readString(buffer));
+            user.setLastName(readString(buffer));
+            user.setEmail(readString(buffer));
+            user.setPhoneNumber(readString(buffer));
+            user.setAddress(readString(buffer));
+            user.setBirthday(readDate(buffer));
+            user.setRole(readString(buffer));
+            user.setCreatedAt(readDate(buffer));
+            user.setUpdatedAt(readDate(buffer));
+            return user;
+        });
+    }
+
+    /**
+     * Save the users snapshot.
+     *
+     * @param users The users currently shown
+     */
+    public void saveUsers(List<User> users) {
+        save(USERS, users, (out, user) -> {
+            writeLong(out, user.getId());
+            writeString(out, user.getFirstName());
+            writeString(out, user.getLastName());
+            writeString(out, user.getEmail());
+            writeString(out, user.getPhoneNumber());
+            writeString(out, user.getAddress());
+            writeDate(out, user.getBirthday());
+            writeString(out, user.getRole());
+            writeDate(out, user.getCreatedAt());
+            writeDate(out, user.getUpdatedAt());
+        });
+    }
+
+    /**
+     * Delete all snapshots, e.g. when they no longer match the database.
+     */
+    public void clear() {
+        for (String name : List.of(RESERVATIONS, VEHICLES, DRIVERS, USERS)) {
+            try {
+                Files.deleteIfExists(getSnapshotFile(name));
+            } catch (IOException e) {
+                System.err.println("Error deleting snapshot " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Path getSnapshotFile(String name) throws IOException {
+        return AppDataUtil.getDataDirectory("snapshots").resolve(name + ".snap");
+    }
+
+    private <T> List<T> load(String name, RowReader<T> reader) {
+        try {
+            Path file = getSnapshotFile(name);
+            if (!Files.isRegularFile(file)) {
+                return Collections.emptyList();
+            }
+            return read(file, reader);
+        } catch (IOException | RuntimeException e) {
+            // A missing or damaged snapshot only costs the instant start
+            System.err.println("Error reading snapshot " + name + ": " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private <T> List<T> read(Path file, RowReader<T> reader) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return Collections.emptyList();
+            }
+
+            buffer.getLong(); // saved at
+            int count = buffer.getInt();
+            List<T> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(reader.read(buffer));
+            }
+            return rows;
+        }
+    }
+
+    private <T> void save(String name, List<T> rows, RowWriter<T> writer) {
+        try {
+            Path file = getSnapshotFile(name);
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            int count = Math.min(rows.size(), maxRows);
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(count);
+                for (int i = 0; i < count; i++) {
+                    writer.write(out, rows.get(i));
+                }
+            }
+
+            // Replace the old snapshot in one step so a crash never leaves a half-written file
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException e) {
+            System.err.println("Error writing snapshot " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeLong(value != null ? value : NULL_TIME);
+    }
+
+    private static Long readLong(MappedByteBuffer buffer) {
+        long value = buffer.getLong();
+        return value != NULL_TIME ? value : null;
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeInt(value != null ? value : Integer.MIN_VALUE);
+    }
+
+    private static Integer readInteger(MappedByteBuffer buffer) {
+        int value = buffer.getInt();
+        return value != Integer.MIN_VALUE ? value : null;
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeDouble(value != null ? value : Double.NaN);
+    }
+
+    private static Double readDouble(MappedByteBuffer buffer) {
+        double value = buffer.getDouble();
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static void writeLocalDate(DataOutputStream out, LocalDate value) throws IOException {
+        out.writeLong(value != null ? value.toEpochDay() : NULL_TIME);
+    }
+
+    private static LocalDate readLocalDate(MappedByteBuffer buffer) {
+        long value = buffer.getLong();
+        return value != NULL_TIME ? LocalDate.ofEpochDay(value) : null;
+    }
+
+    private static void writeLocalDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeLong(value != null ? value.toEpochSecond(ZoneOffset.UTC) : NULL_TIME);
+    }
+
+    private static LocalDateTime readLocalDateTime(MappedByteBuffer buffer) {
+        long value = buffer.getLong();
+        return value != NULL_TIME ? LocalDateTime.ofEpochSecond(value, 0, ZoneOffset.UTC) : null;
+    }
+
+    private static void writeDate(DataOutputStream out, Date value) throws IOException {
+        out.writeLong(value != null ? value.getTime() : NULL_TIME);
+    }
+
+    private static Date readDate(MappedByteBuffer buffer) {
+        long value = buffer.getLong();
+        return value != NULL_TIME ? new Date(value) : null;
+    }
+}
@@ -1,6 +1,8 @@
 package com.adminpanel.zmauto.service;
 
+import com.adminpanel.zmauto.model.ChangeEvent;
 import com.adminpanel.zmauto.model.User;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
 import com.adminpanel.zmauto.util.DatabaseUtil;
 
 import java.sql.Connection;
@@ -15,8 +17,6 @@ import java.util.List;
  */
 public class UserService {
 
-
-
     /**
      * Get a users by ID.
      * 
@@ -104,6 +104,8 @@ public class UserService {
             }
         }
 
+        DomainEventBus.publish(ChangeEvent.created(EntityType.USER, user.getId(), user));
+
         return user;
     }
 
@@ -133,6 +135,10 @@ public class UserService {
 
             int affectedRows = stmt.executeUpdate();
 
+            if (affectedRows > 0) {
+                DomainEventBus.publish(ChangeEvent.updated(EntityType.USER, user.getId(), user));
+            }
+
             return affectedRows > 0;
         }
     }
@@ -181,6 +187,10 @@ public class UserService {
 
             int affectedRows = stmt.executeUpdate();
 
+            if (affectedRows > 0) {
+                DomainEventBus.publish(ChangeEvent.deleted(EntityType.USER, userId));
+            }
+
             return affectedRows > 0;
         }
     }
@@ -1,17 +1,23 @@
 package com.adminpanel.zmauto.service;
 
+import com.adminpanel.zmauto.model.ChangeEvent;
 import com.adminpanel.zmauto.model.Vehicle;
+import com.adminpanel.zmauto.model.SearchResult.EntityType;
 import com.adminpanel.zmauto.util.DatabaseUtil;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service class for vehicle-related operations.
  */
 public class VehicleService {
 
+    private final KpiService kpiService = new KpiService();
+
     /**
      * Get a vehicle by ID.
      * 
@@ -95,48 +101,63 @@ public class VehicleService {
                      "last_service_date, next_service_date, insurance_expiry_date, gps_enabled, rating, created_at) " +
                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
-
-            stmt.setString(1, vehicle.getLicensePlate());
-            stmt.setString(2, vehicle.getDescription());
-            stmt.setString(3, vehicle.getPicture());
-            stmt.setString(4, vehicle.getMake());
-            stmt.setString(5, vehicle.getCondition());
-            stmt.setString(6, vehicle.getModel());
-            setIntOrNull(stmt, 7, vehicle.getMileage());
-            stmt.setString(8, vehicle.getType());
-            stmt.setInt(9, vehicle.getYear());
-            stmt.setString(10, vehicle.getColor());
-            stmt.setString(11, vehicle.getTransmission());
-            stmt.setString(12, vehicle.getFuel());
-            setIntOrNull(stmt, 13, vehicle.getSeatingCapacity());
-            stmt.setDouble(14, vehicle.getDailyRate());
-            setDoubleOrNull(stmt, 15, vehicle.getHourlyRate());
-            stmt.setString(16, vehicle.getStatus());
-            stmt.setString(17, vehicle.getCurrentLocation());
-            setDateOrNull(stmt, 18, vehicle.getLastServiceDate());
-            setDateOrNull(stmt, 19, vehicle.getNextServiceDate());
-            setDateOrNull(stmt, 20, vehicle.getInsuranceExpiryDate());
-            setBooleanOrNull(stmt, 21, vehicle.getGpsEnabled());
-            setDoubleOrNull(stmt, 22, vehicle.getRating());
-            stmt.setTimestamp(23, new Timestamp(System.currentTimeMillis()));
-
-            int affectedRows = stmt.executeUpdate();
-
-            if (affectedRows == 0) {
-                throw new SQLException("Creating vehicle failed, no rows affected.");
-            }
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
+
+                stmt.setString(1, vehicle.getLicensePlate());
+                stmt.setString(2, vehicle.getDescription());
+                stmt.setString(3, vehicle.getPicture());
+                stmt.setString(4, vehicle.getMake());
+                stmt.setString(5, vehicle.getCondition());
+                stmt.setString(6, vehicle.getModel());
+                setIntOrNull(stmt, 7, vehicle.getMileage());
+                stmt.setString(8, vehicle.getType());
+                stmt.setInt(9, vehicle.getYear());
+                stmt.setString(10, vehicle.getColor());
+                stmt.setString(11, vehicle.getTransmission());
+                stmt.setString(12, vehicle.getFuel());
+                setIntOrNull(stmt, 13, vehicle.getSeatingCapacity());
+                stmt.setDouble(14, vehicle.getDailyRate());
+                setDoubleOrNull(stmt, 15, vehicle.getHourlyRate());
+                stmt.setString(16, vehicle.getStatus());
+                stmt.setString(17, vehicle.getCurrentLocation());
+                setDateOrNull(stmt, 18, vehicle.getLastServiceDate());
+                setDateOrNull(stmt, 19, vehicle.getNextServiceDate());
+                setDateOrNull(stmt, 20, vehicle.getInsuranceExpiryDate());
+                setBooleanOrNull(stmt, 21, vehicle.getGpsEnabled());
+                setDoubleOrNull(stmt, 22, vehicle.getRating());
+                stmt.setTimestamp(23, new Timestamp(System.currentTimeMillis()));
 
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    vehicle.setId(generatedKeys.getLong(1));
-                } else {
-                    throw new SQLException("Creating vehicle failed, no ID obtained.");
+                int affectedRows = stmt.executeUpdate();
+
+                if (affectedRows == 0) {
+                    throw new SQLException("Creating vehicle failed, no rows affected.");
+                }
+
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        vehicle.setId(generatedKeys.getLong(1));
+                    } else {
+                        throw new SQLException("Creating vehicle failed, no ID obtained.");
+                    }
                 }
             }
+
+            kpiService.addVehicles(conn, List.of(vehicle.getId()));
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
         }
 
+        DomainEventBus.publish(ChangeEvent.created(EntityType.VEHICLE, vehicle.getId(), vehicle));
+
         return vehicle;
     }
 
@@ -155,38 +176,57 @@ public class VehicleService {
                      "last_service_date = ?, next_service_date = ?, insurance_expiry_date = ?, " +
                      "gps_enabled = ?, rating = ?, updated_at = ? WHERE car_id = ?";
 
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        int affectedRows;
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+            kpiService.removeVehicles(conn, List.of(vehicle.getId()));
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                stmt.setString(1, vehicle.getLicensePlate());
+                stmt.setString(2, vehicle.getDescription());
+                stmt.setString(3, vehicle.getPicture());
+                stmt.setString(4, vehicle.getMake());
+                stmt.setString(5, vehicle.getCondition());
+                stmt.setString(6, vehicle.getModel());
+                setIntOrNull(stmt, 7, vehicle.getMileage());
+                stmt.setString(8, vehicle.getType());
+                stmt.setInt(9, vehicle.getYear());
+                stmt.setString(10, vehicle.getColor());
+                stmt.setString(11, vehicle.getTransmission());
+                stmt.setString(12, vehicle.getFuel());
+                setIntOrNull(stmt, 13, vehicle.getSeatingCapacity());
+                stmt.setDouble(14, vehicle.getDailyRate());
+                setDoubleOrNull(stmt, 15, vehicle.getHourlyRate());
+                stmt.setString(16, vehicle.getStatus());
+                stmt.setString(17, vehicle.getCurrentLocation());
+                setDateOrNull(stmt, 18, vehicle.getLastServiceDate());
+                setDateOrNull(stmt, 19, vehicle.getNextServiceDate());
+                setDateOrNull(stmt, 20, vehicle.getInsuranceExpiryDate());
+                setBooleanOrNull(stmt, 21, vehicle.getGpsEnabled());
+                setDoubleOrNull(stmt, 22, vehicle.getRating());
+                stmt.setTimestamp(23, new Timestamp(System.currentTimeMillis()));
+                stmt.setLong(24, vehicle.getId());
+
+                affectedRows = stmt.executeUpdate();
+            }
 
-            stmt.setString(1, vehicle.getLicensePlate());
-            stmt.setString(2, vehicle.getDescription());
-            stmt.setString(3, vehicle.getPicture());
-            stmt.setString(4, vehicle.getMake());
-            stmt.setString(5, vehicle.getCondition());
-            stmt.setString(6, vehicle.getModel());
-            setIntOrNull(stmt, 7, vehicle.getMileage());
-            stmt.setString(8, vehicle.getType());
-            stmt.setInt(9, vehicle.getYear());
-            stmt.setString(10, vehicle.getColor());
-            stmt.setString(11, vehicle.getTransmission());
-            stmt.setString(12, vehicle.getFuel());
-            setIntOrNull(stmt, 13, vehicle.getSeatingCapacity());
-            stmt.setDouble(14, vehicle.getDailyRate());
-            setDoubleOrNull(stmt, 15, vehicle.getHourlyRate());
-            stmt.setString(16, vehicle.getStatus());
-            stmt.setString(17, vehicle.getCurrentLocation());
-            setDateOrNull(stmt, 18, vehicle.getLastServiceDate());
-            setDateOrNull(stmt, 19, vehicle.getNextServiceDate());
-            setDateOrNull(stmt, 20, vehicle.getInsuranceExpiryDate());
-            setBooleanOrNull(stmt, 21, vehicle.getGpsEnabled());
-            setDoubleOrNull(stmt, 22, vehicle.getRating());
-            stmt.setTimestamp(23, new Timestamp(System.currentTimeMillis()));
-            stmt.setLong(24, vehicle.getId());
-
-            int affectedRows = stmt.executeUpdate();
-
-            return affectedRows > 0;
+            kpiService.addVehicles(conn, List.of(vehicle.getId()));
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
+
+        if (affectedRows > 0) {
+            DomainEventBus.publish(ChangeEvent.updated(EntityType.VEHICLE, vehicle.getId(), vehicle));
         }
+
+        return affectedRows > 0;
     }
 
     /**
@@ -200,16 +240,78 @@ public class VehicleService {
     public boolean updateVehicleStatus(Long vehicleId, String status) throws SQLException {
         String sql = "UPDATE car SET rental_status = ?, updated_at = ? WHERE car_id = ?";
 
+        int affectedRows;
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.beginTransaction();
+            kpiService.removeVehicles(conn, List.of(vehicleId));
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                stmt.setString(1, status);
+                stmt.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+                stmt.setLong(3, vehicleId);
+
+                affectedRows = stmt.executeUpdate();
+            }
+
+            kpiService.addVehicles(conn, List.of(vehicleId));
+            DatabaseUtil.commitTransaction();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                DatabaseUtil.rollbackTransaction();
+            }
+            throw e;
+        }
+
+        if (affectedRows > 0) {
+            DomainEventBus.publish(ChangeEvent.changed(EntityType.VEHICLE, vehicleId, Map.of("status", status)));
+        }
+
+        return affectedRows > 0;
+    }
+
+    /**
+     * Get the reason a vehicle cannot be rented for a period because of maintenance.
+     * A vehicle is unavailable during its service window, which starts at the next service date,
+     * and from the day its insurance expires.
+     *
+     * @param vehicleId The vehicle ID
+     * @param startDate The first day of the rental
+     * @param endDate The last day of the rental
+     * @return A description of the conflict, or null if there is none
+     * @throws SQLException If a database error occurs
+     */
+    public String getMaintenanceConflict(Long vehicleId, LocalDate startDate, LocalDate endDate) throws SQLException {
+        String sql = "SELECT next_service_date, insurance_expiry_date FROM car WHERE car_id = ?";
+
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, status);
-            stmt.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
-            stmt.setLong(3, vehicleId);
+            stmt.setLong(1, vehicleId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
 
-            int affectedRows = stmt.executeUpdate();
+                Date serviceDate = rs.getDate("next_service_date");
+                if (serviceDate != null) {
+                    LocalDate windowStart = serviceDate.toLocalDate();
+                    LocalDate windowEnd = windowStart.plusDays(MaintenanceScheduler.MAINTENANCE_WINDOW_DAYS - 1);
+                    if (!startDate.isAfter(windowEnd) && !endDate.isBefore(windowStart)) {
+                        return "the vehicle is scheduled for service from " + windowStart + " to " + windowEnd;
+                    }
+                }
+
+                Date insuranceDate = rs.getDate("insurance_expiry_date");
+                if (insuranceDate != null && !endDate.isBefore(insuranceDate.toLocalDate())) {
+                    return "the vehicle's insurance expires on " + insuranceDate.toLocalDate();
+                }
 
-            return affectedRows > 0;
+                return null;
+            }
         }
     }
 
@@ -235,6 +337,8 @@ public class VehicleService {
                 return false;
             }
 
+            kpiService.removeVehicles(conn, List.of(vehicleId));
+
             // Delete the vehicle
             String sql = "DELETE FROM car WHERE car_id = ?";
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -244,6 +348,10 @@ public class VehicleService {
                 // Commit the transaction
                 DatabaseUtil.commitTransaction();
 
+                if (affectedRows > 0) {
+                    DomainEventBus.publish(ChangeEvent.deleted(EntityType.VEHICLE, vehicleId));
+                }
+
                 return affectedRows > 0;
             }
         } catch (SQLException e) {
@@ -0,0 +1,42 @@
+package com.adminpanel.zmauto.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Utility class for locating the per-user application data directory.
+ * Local caches (search index, snapshots, blobs) are kept here rather than in the database.
+ */
+public class AppDataUtil {
+
+    /**
+     * Get the application data directory, creating it if necessary.
+     * The location can be overridden with the app.dataDir property in database.properties.
+     *
+     * @return The application data directory
+     * @throws IOException If the directory cannot be created
+     */
+    public static Path getDataDirectory() throws IOException {
+        String configured = DatabaseUtil.getProperty("app.dataDir", "");
+        Path dir = configured.isBlank()
+                ? Paths.get(System.getProperty("user.home"), ".zmauto")
+                : Paths.get(configured);
+        Files.createDirectories(dir);
+        return dir;
+    }
+
+    /**
+     * Get a sub-directory of the application data directory, creating it if necessary.
+     *
+     * @param name The sub-directory name
+     * @return The sub-directory
+     * @throws IOException If the directory cannot be created
+     */
+    public static Path getDataDirectory(String name) throws IOException {
+        Path dir = getDataDirectory().resolve(name);
+        Files.createDirectories(dir);
+        return dir;
+    }
+}
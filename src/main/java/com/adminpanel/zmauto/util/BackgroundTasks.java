@@ -0,0 +1,70 @@
+package com.adminpanel.zmauto.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility class for running database work off the JavaFX application thread.
+ * Work submitted before application startup (database initialization) has finished
+ * waits for it, so views can be shown immediately and fill in once the database is ready.
+ */
+public class BackgroundTasks {
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "background-task-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile CompletableFuture<Void> startup = CompletableFuture.completedFuture(null);
+
+    /**
+     * Set the startup work that background tasks have to wait for.
+     *
+     * @param startupFuture A future that completes when the database is ready
+     */
+    public static void setStartup(CompletableFuture<Void> startupFuture) {
+        startup = startupFuture;
+    }
+
+    /**
+     * Run a task in the background once startup has finished.
+     * JavaFX tasks can be passed directly, since javafx.concurrent.Task is a Runnable.
+     *
+     * @param task The task to run
+     */
+    public static void execute(Runnable task) {
+        executor.execute(() -> {
+            awaitStartup();
+            task.run();
+        });
+    }
+
+    /**
+     * Wait until startup has finished. Startup failures are reported by the startup code
+     * itself; tasks still run afterwards and surface their own database errors.
+     */
+    public static void awaitStartup() {
+        try {
+            startup.join();
+        } catch (RuntimeException e) {
+            // Startup failed; let the task report the underlying error
+        }
+    }
+
+    /**
+     * Stop accepting new tasks and wait briefly for running tasks to finish.
+     */
+    public static void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
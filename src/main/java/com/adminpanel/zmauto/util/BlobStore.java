@@ -0,0 +1,246 @@
+package com.adminpanel.zmauto.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for pictures and other files on local disk.
+ *
+ * A blob's ID is the SHA-256 of its content in lowercase hex, so storing the same file twice keeps
+ * one copy, and a blob never changes once written. Blobs are kept under two levels of directories
+ * named after the first four hex digits (ab/cd/abcd…) to keep directories small.
+ * Content is streamed to a temporary file while it is hashed and then moved into place atomically;
+ * it is read back through a FileChannel, either transferred directly to another channel or mapped.
+ */
+public class BlobStore {
+
+    private static final Pattern BLOB_ID = Pattern.compile("[0-9a-f]{64}");
+    private static final String TEMP_PREFIX = "ingest-";
+
+    private final Path root;
+
+    /**
+     * Constructor using the blobs directory of the application data directory.
+     *
+     * @throws IOException If the directory cannot be created
+     */
+    public BlobStore() throws IOException {
+        this(AppDataUtil.getDataDirectory("blobs"));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param root The directory holding the blobs
+     * @throws IOException If the directory cannot be created
+     */
+    public BlobStore(Path root) throws IOException {
+        this.root = Files.createDirectories(root);
+    }
+
+    /**
+     * Check whether a value is a blob ID rather than, e.g., a legacy URL or file path.
+     *
+     * @param value The value, may be null
+     * @return true if the value is a blob ID
+     */
+    public static boolean isBlobId(String value) {
+        return value != null && BLOB_ID.matcher(value).matches();
+    }
+
+    /**
+     * Store content read from a stream.
+     *
+     * @param in The content; read to the end but not closed
+     * @return The blob ID
+     * @throws IOException If the content cannot be read or stored
+     */
+    public String put(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        Path tempFile = Files.createTempFile(root, TEMP_PREFIX, ".tmp");
+        try {
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tempFile), digest)) {
+                in.transferTo(out);
+            }
+
+            String id = HexFormat.of().formatHex(digest.digest());
+            Path file = path(id);
+            if (Files.exists(file)) {
+                // Stored again; restart its grace period so a sweep does not remove it before it is referenced
+                Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+                return id;
+            }
+            Files.createDirectories(file.getParent());
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Stored concurrently with the same content
+            }
+            return id;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Store the content of a file.
+     *
+     * @param source The file
+     * @return The blob ID
+     * @throws IOException If the file cannot be read or stored
+     */
+    public String put(Path source) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            return put(in);
+        }
+    }
+
+    /**
+     * Check whether a blob is stored.
+     *
+     * @param id The blob ID
+     * @return true if the blob exists
+     */
+    public boolean contains(String id) {
+        return isBlobId(id) && Files.isRegularFile(path(id));
+    }
+
+    /**
+     * Get the file of a blob, e.g. to load it as an image.
+     *
+     * @param id The blob ID
+     * @return The file
+     * @throws NoSuchFileException If the blob is not stored
+     */
+    public Path resolve(String id) throws NoSuchFileException {
+        if (!contains(id)) {
+            throw new NoSuchFileException("Blob " + id);
+        }
+        return path(id);
+    }
+
+    /**
+     * Get the size of a blob.
+     *
+     * @param id The blob ID
+     * @return The size in bytes
+     * @throws IOException If the blob is not stored
+     */
+    public long size(String id) throws IOException {
+        return Files.size(resolve(id));
+    }
+
+    /**
+     * Map a blob into memory, read-only.
+     *
+     * @param id The blob ID
+     * @return The mapped content
+     * @throws IOException If the blob is not stored or cannot be mapped
+     */
+    public MappedByteBuffer map(String id) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(id), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Write a blob to a channel without copying it through the heap where the platform allows.
+     *
+     * @param id The blob ID
+     * @param target The channel, e.g. a response body
+     * @return The number of bytes written
+     * @throws IOException If the blob is not stored or cannot be written
+     */
+    public long transferTo(String id, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(id), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Delete the blobs that are not referenced, along with temporary files left by interrupted
+     * ingests. Files modified within the grace period are kept, so a blob stored moments before
+     * the record referencing it is saved is not lost.
+     *
+     * @param referenced The IDs of the referenced blobs
+     * @param grace The minimum age of a deleted file
+     * @return The number of files deleted
+     * @throws IOException If the store cannot be read
+     */
+    public int sweep(Set<String> referenced, Duration grace) throws IOException {
+        Instant cutoff = Instant.now().minus(grace);
+        int deleted = 0;
+
+        try (DirectoryStream<Path> top = Files.newDirectoryStream(root)) {
+            for (Path first : top) {
+                if (!Files.isDirectory(first)) {
+                    if (first.getFileName().toString().startsWith(TEMP_PREFIX) && deleteIfOlder(first, cutoff)) {
+                        deleted++;
+                    }
+                    continue;
+                }
+                try (DirectoryStream<Path> middle = Files.newDirectoryStream(first)) {
+                    for (Path second : middle) {
+                        try (DirectoryStream<Path> blobs = Files.newDirectoryStream(second)) {
+                            for (Path blob : blobs) {
+                                String id = blob.getFileName().toString();
+                                if (!referenced.contains(id) && deleteIfOlder(blob, cutoff)) {
+                                    deleted++;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private Path path(String id) {
+        return root.resolve(id.substring(0, 2)).resolve(id.substring(2, 4)).resolve(id);
+    }
+
+    private static boolean deleteIfOlder(Path file, Instant cutoff) throws IOException {
+        try {
+            if (Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                return false;
+            }
+            return Files.deleteIfExists(file);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
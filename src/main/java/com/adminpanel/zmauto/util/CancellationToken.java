@@ -0,0 +1,179 @@
+package com.adminpanel.zmauto.util;
+
+import com.adminpanel.zmauto.util.DbScheduler.SqlCallable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cancellation handle for one view load.
+ *
+ * While work runs through {@link #call(SqlCallable)}, every statement created on a connection from
+ * DatabaseUtil is registered with the token and given its query timeout. Cancelling the token cancels
+ * the running statements, which makes the driver stop the query on the server (MySQL: KILL QUERY),
+ * and makes any further database access of the load fail. Each token carries the generation number
+ * of its load, so a result that arrives after a newer load started can be recognised and dropped.
+ */
+public class CancellationToken {
+
+    /**
+     * SQL state of a query stopped because its load was cancelled, the same as MySQL's
+     * "query execution was interrupted".
+     */
+    public static final String CANCELLED_STATE = "70100";
+
+    private static final ThreadLocal<CancellationToken> current = new ThreadLocal<>();
+
+    private final long generation;
+    private final int timeoutSeconds;
+    private final List<Statement> statements = new ArrayList<>();
+    private volatile boolean cancelled;
+
+    /**
+     * Constructor.
+     *
+     * @param generation The generation number of the load
+     * @param timeoutSeconds The query timeout for statements of the load, or 0 for none
+     */
+    public CancellationToken(long generation, int timeoutSeconds) {
+        this.generation = generation;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Get the token of the load running on the current thread.
+     *
+     * @return The token, or null if the thread is not running a cancellable load
+     */
+    public static CancellationToken current() {
+        return current.get();
+    }
+
+    /**
+     * Run database work under this token.
+     *
+     * @param work The work
+     * @return The result of the work
+     * @throws SQLException If a database error occurs or the token was cancelled
+     */
+    public <T> T call(SqlCallable<T> work) throws SQLException {
+        CancellationToken previous = current.get();
+        current.set(this);
+        try {
+            throwIfCancelled();
+            T result = work.call();
+            throwIfCancelled();
+            return result;
+        } finally {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * Cancel the load and the statements it is running.
+     */
+    public void cancel() {
+        List<Statement> running;
+        synchronized (statements) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            running = new ArrayList<>(statements);
+            statements.clear();
+        }
+
+        for (Statement statement : running) {
+            try {
+                if (!statement.isClosed()) {
+                    statement.cancel();
+                }
+            } catch (SQLException e) {
+                // The statement finished or its connection went away meanwhile
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Fail if the token was cancelled.
+     *
+     * @throws SQLException If the token was cancelled
+     */
+    public void throwIfCancelled() throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Query cancelled", CANCELLED_STATE);
+        }
+    }
+
+    /**
+     * Check whether an exception was caused by cancelling a load.
+     *
+     * @param e The exception
+     * @return true if the exception reports a cancelled query
+     */
+    public static boolean isCancellation(Throwable e) {
+        return e instanceof SQLException sqlException && CANCELLED_STATE.equals(sqlException.getSQLState());
+    }
+
+    /**
+     * Wrap a connection so that the statements it creates are registered with this token.
+     *
+     * @param connection The connection
+     * @return The wrapped connection
+     */
+    Connection track(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Statement statement) {
+                        register(statement);
+                    }
+                    return result;
+                });
+    }
+
+    private void register(Statement statement) throws SQLException {
+        if (timeoutSeconds > 0) {
+            statement.setQueryTimeout(timeoutSeconds);
+        }
+
+        synchronized (statements) {
+            if (!cancelled) {
+                // Loads that issue a query per row create many short-lived statements; drop closed ones
+                if (statements.size() >= 64) {
+                    statements.removeIf(CancellationToken::isClosed);
+                }
+                statements.add(statement);
+                return;
+            }
+        }
+        statement.close();
+        throwIfCancelled();
+    }
+
+    private static boolean isClosed(Statement statement) {
+        try {
+            return statement.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+}
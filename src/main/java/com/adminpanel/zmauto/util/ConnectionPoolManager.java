@@ -0,0 +1,345 @@
+package com.adminpanel.zmauto.util;
+
+import com.adminpanel.zmauto.model.PoolHealth;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Owns the HikariCP connection pool.
+ *
+ * The pool connects to the MySQL server configured in database.properties, or with db.mode=embedded to an
+ * H2 database file in the application data directory. The JDBC driver is configured with the driver profile
+ * from database.properties (jdbc.&lt;driver&gt;.* keys, e.g. prepared statement caching for MySQL, or MySQL
+ * compatibility and the cache size for H2). The pool records how long callers wait for a connection
+ * and how many connections are in use, and a background thread resizes it between pool.minSize and
+ * pool.maxSizeLimit: it grows when callers wait and shrinks after several quiet intervals.
+ *
+ * If the database cannot be reached, the pool goes into degraded mode: getConnection fails
+ * immediately instead of blocking for the connection timeout, and the background thread probes
+ * the database until it is reachable again.
+ */
+public class ConnectionPoolManager {
+
+    private static final int QUIET_INTERVALS_BEFORE_SHRINK = 3;
+
+    private static volatile HikariDataSource dataSource;
+    private static volatile String degradedReason;
+    private static volatile long nextAttemptMillis;
+    private static ScheduledExecutorService scheduler;
+
+    // Acquisition statistics of the current sizing interval
+    private static final LongAdder acquisitions = new LongAdder();
+    private static final LongAdder waitNanos = new LongAdder();
+    private static final AtomicInteger inUse = new AtomicInteger();
+    private static final AtomicInteger peakInUse = new AtomicInteger();
+    private static final AtomicLong timeouts = new AtomicLong();
+    private static volatile double lastAverageWaitMillis;
+    private static int quietIntervals;
+
+    /**
+     * Get a connection from the pool, creating the pool on first use.
+     *
+     * @return A pooled connection
+     * @throws SQLException If a connection cannot be obtained; fails immediately in degraded mode
+     */
+    public static Connection getConnection() throws SQLException {
+        if (degradedReason != null) {
+            throw unavailable();
+        }
+        HikariDataSource ds = dataSource;
+        if (ds == null) {
+            ds = open(false);
+        }
+
+        try {
+            return ds.getConnection();
+        } catch (SQLTransientConnectionException e) {
+            // A timeout with a cause means connections could not be created; without one the pool was
+            // merely exhausted, which the resizing takes care of
+            if (e.getCause() != null) {
+                markDegraded(e.getCause().getMessage());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Get the current state of the pool.
+     *
+     * @return The pool health
+     */
+    public static PoolHealth getHealth() {
+        HikariDataSource ds = dataSource;
+        if (ds == null || ds.isClosed()) {
+            return new PoolHealth(degradedReason != null ? degradedReason : "Not connected",
+                    0, 0, 0, 0, 0, 0, timeouts.get());
+        }
+
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        return new PoolHealth(degradedReason, pool.getTotalConnections(), pool.getActiveConnections(),
+                pool.getIdleConnections(), pool.getThreadsAwaitingConnection(),
+                ds.getHikariConfigMXBean().getMaximumPoolSize(), lastAverageWaitMillis, timeouts.get());
+    }
+
+    /**
+     * Whether the pool is in degraded mode.
+     *
+     * @return true if connections are currently refused
+     */
+    public static boolean isDegraded() {
+        return degradedReason != null;
+    }
+
+    /**
+     * Stop the background thread and close the pool.
+     */
+    public static synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (dataSource != null && !dataSource.isClosed()) {
+            dataSource.close();
+        }
+        dataSource = null;
+    }
+
+    /**
+     * Create the pool. Only the first attempt is made by a caller; once in degraded mode,
+     * further attempts are made by the background thread.
+     */
+    private static synchronized HikariDataSource open(boolean retry) throws SQLException {
+        if (dataSource != null) {
+            return dataSource;
+        }
+        if (degradedReason != null && !retry) {
+            throw unavailable();
+        }
+
+        HikariConfig config = createConfig();
+        System.out.println("Connecting to database with URL: " + config.getJdbcUrl());
+        System.out.println("Using username: " + config.getUsername());
+
+        try {
+            dataSource = new HikariDataSource(config);
+            degradedReason = null;
+            System.out.println("Successfully connected to the database!");
+        } catch (RuntimeException e) {
+            System.err.println("Failed to connect to the database: " + e.getMessage());
+            if (DatabaseUtil.isEmbedded()) {
+                System.err.println("Please check that the database file at " + config.getJdbcUrl() +
+                        " is not locked by another process.");
+            } else {
+                System.err.println("Please check that the MySQL server at " + config.getJdbcUrl() +
+                        " is running and that user '" + config.getUsername() + "' can access it.");
+            }
+            markDegraded(e.getMessage());
+            throw unavailable();
+        } finally {
+            startScheduler();
+        }
+        return dataSource;
+    }
+
+    private static HikariConfig createConfig() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        if (DatabaseUtil.isEmbedded()) {
+            // H2 creates the database file on first connection; the schema is created by DatabaseInitializer
+            config.setDriverClassName("org.h2.Driver");
+            try {
+                config.setJdbcUrl(DatabaseUtil.getEmbeddedUrl());
+            } catch (IOException e) {
+                throw new SQLException("Cannot create the embedded database directory: " + e.getMessage(), e);
+            }
+            config.setUsername(DatabaseUtil.getProperty("embedded.username", "sa"));
+            config.setPassword(DatabaseUtil.getProperty("embedded.password", ""));
+        } else {
+            if (DatabaseUtil.getProperty("db.url", null) == null) {
+                System.out.println("Using fallback database configuration");
+            }
+
+            config.setDriverClassName(DatabaseUtil.getProperty("db.driver", "com.mysql.cj.jdbc.Driver"));
+            config.setJdbcUrl(DatabaseUtil.getProperty("db.url",
+                    "jdbc:mysql://localhost:3306/zm_data_base?createDatabaseIfNotExist=true&useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true"));
+            config.setUsername(DatabaseUtil.getProperty("db.username", "root"));
+            config.setPassword(DatabaseUtil.getProperty("db.password", "root"));
+        }
+
+        config.setMaximumPoolSize(DatabaseUtil.getIntProperty("pool.maxSize", 10));
+        config.setMinimumIdle(DatabaseUtil.getIntProperty("pool.minIdle", 5));
+        config.setIdleTimeout(DatabaseUtil.getIntProperty("pool.idleTimeout", 30000));
+        config.setConnectionTimeout(DatabaseUtil.getIntProperty("pool.connectionTimeout", 5000));
+        config.setPoolName(DatabaseUtil.getProperty("pool.poolName", "ZMAutoConnectionPool"));
+        config.setRegisterMbeans(true);
+
+        // Fail on the first connection attempt instead of retrying for the connection timeout
+        config.setInitializationFailTimeout(1);
+        config.setMetricsTrackerFactory(ConnectionPoolManager::createTracker);
+
+        // Driver profile for the configured database, e.g. jdbc.mysql.cachePrepStmts=true
+        config.setDataSourceProperties(DatabaseUtil.getDriverProfile(config.getJdbcUrl()));
+
+        return config;
+    }
+
+    private static IMetricsTracker createTracker(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquisitions.increment();
+                waitNanos.add(elapsedAcquiredNanos);
+                peakInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                inUse.decrementAndGet();
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.incrementAndGet();
+            }
+        };
+    }
+
+    private static synchronized void startScheduler() {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-manager");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long adjustSeconds = DatabaseUtil.getIntProperty("pool.adjustSeconds", 10);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (degradedReason != null) {
+                    probe();
+                } else {
+                    resize();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Connection pool maintenance failed: " + e.getMessage());
+            }
+        }, adjustSeconds, adjustSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Try to reach the database again while in degraded mode.
+     */
+    private static void probe() {
+        if (System.currentTimeMillis() < nextAttemptMillis) {
+            return;
+        }
+
+        HikariDataSource ds = dataSource;
+        if (ds == null) {
+            try {
+                open(true);
+            } catch (SQLException e) {
+                // Still unreachable; open() scheduled the next attempt
+            }
+            return;
+        }
+
+        try (Connection conn = ds.getConnection()) {
+            if (conn.isValid(2)) {
+                degradedReason = null;
+                System.out.println("Database reachable again, leaving degraded mode");
+            }
+        } catch (SQLException e) {
+            markDegraded(e.getMessage());
+        }
+    }
+
+    /**
+     * Resize the pool from the statistics of the last interval.
+     */
+    private static void resize() {
+        HikariDataSource ds = dataSource;
+        if (ds == null || ds.isClosed()) {
+            return;
+        }
+
+        long count = acquisitions.sumThenReset();
+        long nanos = waitNanos.sumThenReset();
+        int peak = peakInUse.getAndSet(inUse.get());
+        double averageWaitMillis = count > 0 ? nanos / 1_000_000.0 / count : 0;
+        lastAverageWaitMillis = averageWaitMillis;
+
+        int current = ds.getHikariConfigMXBean().getMaximumPoolSize();
+        int pending = ds.getHikariPoolMXBean().getThreadsAwaitingConnection();
+        boolean quiet = pending == 0 && peak * 2 <= current;
+        quietIntervals = quiet ? quietIntervals + 1 : 0;
+
+        int size = nextPoolSize(current, averageWaitMillis, pending, quietIntervals >= QUIET_INTERVALS_BEFORE_SHRINK,
+                DatabaseUtil.getIntProperty("pool.growWaitMillis", 20),
+                DatabaseUtil.getIntProperty("pool.minSize", 6),
+                DatabaseUtil.getIntProperty("pool.maxSizeLimit", 30));
+        if (size == current) {
+            return;
+        }
+
+        if (size < current) {
+            quietIntervals = 0;
+        }
+        ds.getHikariConfigMXBean().setMinimumIdle(Math.min(ds.getHikariConfigMXBean().getMinimumIdle(), size));
+        ds.getHikariConfigMXBean().setMaximumPoolSize(size);
+        System.out.printf("Connection pool resized from %d to %d (peak %d in use, %.1f ms average wait, %d waiting)%n",
+                current, size, peak, averageWaitMillis, pending);
+    }
+
+    /**
+     * Decide the pool size for the next interval. The pool grows by half when callers waited longer
+     * than the threshold or are still waiting, and shrinks by one connection after a quiet period.
+     *
+     * @param current The current maximum pool size
+     * @param averageWaitMillis The average wait for a connection in the last interval
+     * @param pending The number of callers waiting right now
+     * @param quiet Whether utilization stayed low for several intervals
+     * @param growWaitMillis The average wait above which the pool grows
+     * @param minSize The smallest allowed pool size
+     * @param maxSize The largest allowed pool size
+     * @return The new maximum pool size
+     */
+    static int nextPoolSize(int current, double averageWaitMillis, int pending, boolean quiet,
+                            int growWaitMillis, int minSize, int maxSize) {
+        if (averageWaitMillis > growWaitMillis || pending > 0) {
+            return Math.min(maxSize, Math.max(current + 1, current + current / 2));
+        }
+        if (quiet) {
+            return Math.max(minSize, current - 1);
+        }
+        return Math.max(minSize, Math.min(maxSize, current));
+    }
+
+    private static void markDegraded(String reason) {
+        if (degradedReason == null) {
+            System.err.println("Database unavailable, entering degraded mode: " + reason);
+        }
+        degradedReason = reason != null ? reason : "Connection failed";
+        nextAttemptMillis = System.currentTimeMillis() + DatabaseUtil.getIntProperty("pool.retrySeconds", 10) * 1000L;
+    }
+
+    private static SQLException unavailable() {
+        return new SQLTransientConnectionException("Database unavailable (degraded mode): " + degradedReason);
+    }
+}
@@ -8,11 +8,14 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -20,6 +23,28 @@ import java.util.stream.Collectors;
  */
 public class DatabaseInitializer {
 
+    private static final Pattern DATABASE_STATEMENT =
+            Pattern.compile("\\s*(CREATE\\s+DATABASE|USE)\\s", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SAMPLE_DATA_STATEMENT =
+            Pattern.compile("\\s*INSERT\\s", Pattern.CASE_INSENSITIVE);
+
+    // Columns added to existing tables after their first release: table, column, definition
+    private static final String[][] ADDED_COLUMNS = {
+            {"payments", "created_at", "TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP"},
+            {"payments", "updated_at", "TIMESTAMP NULL"}
+    };
+
+    // Indexes added to existing tables after their first release: table, index, columns
+    private static final String[][] ADDED_INDEXES = {
+            {"car", "idx_car_next_service", "next_service_date"},
+            {"car", "idx_car_insurance_expiry", "insurance_expiry_date"},
+            {"reservations", "idx_reservations_status_start", "status, start_date"},
+            {"reservations", "idx_reservations_updated", "updated_at"},
+            {"payments", "idx_payments_date", "payment_date"},
+            {"payments", "idx_payments_updated", "updated_at"},
+            {"payments_archive", "idx_payments_archive_date", "payment_date"}
+    };
+
     /**
      * Initialize the database with the SQL script.
      */
@@ -121,6 +146,35 @@ public class DatabaseInitializer {
         return statements;
     }
 
+    /**
+     * Create the schema with the sample data on a given database.
+     *
+     * @param conn The database connection; left open
+     * @throws IOException If the SQL script cannot be read
+     * @throws SQLException If a database error occurs
+     */
+    public static void initialize(Connection conn) throws IOException, SQLException {
+        executeStatements(conn, splitSqlStatements(readSqlScript()));
+    }
+
+    /**
+     * Create the schema on a given database without the sample users, vehicles, drivers,
+     * reservations and payments, e.g. on the target of a migration.
+     *
+     * @param conn The database connection; left open
+     * @throws IOException If the SQL script cannot be read
+     * @throws SQLException If a database error occurs
+     */
+    public static void createSchema(Connection conn) throws IOException, SQLException {
+        List<String> statements = new ArrayList<>();
+        for (String sql : splitSqlStatements(readSqlScript())) {
+            if (!SAMPLE_DATA_STATEMENT.matcher(sql).lookingAt()) {
+                statements.add(sql);
+            }
+        }
+        executeStatements(conn, statements);
+    }
+
     /**
      * Execute the SQL statements.
      * 
@@ -129,24 +183,81 @@ public class DatabaseInitializer {
      */
     private static void executeStatements(List<String> statements) throws SQLException {
         try (Connection conn = DatabaseUtil.getConnection()) {
-            // Disable auto-commit to execute all statements in a transaction
-            conn.setAutoCommit(false);
+            executeStatements(conn, statements);
+        }
+    }
+
+    private static void executeStatements(Connection conn, List<String> statements) throws SQLException {
+        // The embedded database is the schema itself; creating and selecting a database only applies to MySQL
+        boolean mysql = conn.getMetaData().getDatabaseProductName().equalsIgnoreCase("MySQL");
 
-            try (Statement stmt = conn.createStatement()) {
-                for (String sql : statements) {
-                    stmt.execute(sql);
+        // Disable auto-commit to execute all statements in a transaction
+        conn.setAutoCommit(false);
+
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                if (!mysql && DATABASE_STATEMENT.matcher(sql).lookingAt()) {
+                    continue;
                 }
+                stmt.execute(sql);
+            }
+
+            upgradeSchema(conn);
+
+            // Commit the transaction
+            conn.commit();
+        } catch (SQLException e) {
+            // Rollback the transaction if an error occurs
+            conn.rollback();
+            throw e;
+        } finally {
+            // Restore auto-commit
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Add the columns and indexes introduced after a table was first created, since
+     * CREATE TABLE IF NOT EXISTS leaves a table that already exists as it is.
+     *
+     * @param conn The database connection, on the application's database
+     * @throws SQLException If a database error occurs
+     */
+    private static void upgradeSchema(Connection conn) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        String catalog = conn.getCatalog();
+        String schema = conn.getSchema();
 
-                // Commit the transaction
-                conn.commit();
-            } catch (SQLException e) {
-                // Rollback the transaction if an error occurs
-                conn.rollback();
-                throw e;
-            } finally {
-                // Restore auto-commit
-                conn.setAutoCommit(true);
+        try (Statement stmt = conn.createStatement()) {
+            for (String[] column : ADDED_COLUMNS) {
+                try (ResultSet rs = metaData.getColumns(catalog, schema, column[0], column[1])) {
+                    if (rs.next()) {
+                        continue;
+                    }
+                }
+                stmt.execute("ALTER TABLE " + column[0] + " ADD COLUMN " + column[1] + " " + column[2]);
+                System.out.println("Added column " + column[1] + " to " + column[0]);
+            }
+
+            for (String[] index : ADDED_INDEXES) {
+                if (hasIndex(metaData, catalog, schema, index[0], index[1])) {
+                    continue;
+                }
+                stmt.execute("CREATE INDEX " + index[1] + " ON " + index[0] + " (" + index[2] + ")");
+                System.out.println("Added index " + index[1] + " to " + index[0]);
+            }
+        }
+    }
+
+    private static boolean hasIndex(DatabaseMetaData metaData, String catalog, String schema,
+                                    String table, String index) throws SQLException {
+        try (ResultSet rs = metaData.getIndexInfo(catalog, schema, table, false, true)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
             }
         }
+        return false;
     }
 }
@@ -1,91 +1,26 @@
 package com.adminpanel.zmauto.util;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
-
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.Properties;
 
 /**
  * Utility class for database connection management using HikariCP connection pool.
+ * The pool itself is owned by {@link ConnectionPoolManager}; connections are handed out
+ * by priority lane through {@link DbScheduler}.
  * Provides methods for connection management and transaction handling.
  */
 public class DatabaseUtil {
-    private static HikariDataSource dataSource;
+    private static final int STREAMING_FETCH_SIZE = 1000;
+    private static Properties properties;
     private static final ThreadLocal<Connection> transactionConnections = new ThreadLocal<>();
 
-    static {
-        try {
-            initializeDataSource();
-        } catch (Exception e) {
-            System.err.println("Error initializing database connection pool: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    private static void initializeDataSource() {
-        HikariConfig config = new HikariConfig();
-
-        try {
-            // Load properties file
-            Properties props = loadProperties();
-
-            // Database connection settings
-            config.setDriverClassName(props.getProperty("db.driver"));
-            config.setJdbcUrl(props.getProperty("db.url"));
-            config.setUsername(props.getProperty("db.username"));
-            config.setPassword(props.getProperty("db.password"));
-
-            // Connection pool settings
-            config.setMaximumPoolSize(Integer.parseInt(props.getProperty("pool.maxSize")));
-            config.setMinimumIdle(Integer.parseInt(props.getProperty("pool.minIdle")));
-            config.setIdleTimeout(Long.parseLong(props.getProperty("pool.idleTimeout")));
-            config.setConnectionTimeout(Long.parseLong(props.getProperty("pool.connectionTimeout")));
-
-            // Set pool name for easier debugging
-            config.setPoolName(props.getProperty("pool.poolName"));
-
-            System.out.println("Connecting to database with URL: " + props.getProperty("db.url"));
-            System.out.println("Using username: " + props.getProperty("db.username"));
-        } catch (IOException e) {
-            System.err.println("Error loading database properties: " + e.getMessage());
-            e.printStackTrace();
-
-            // Fallback to default configuration
-            config.setDriverClassName("com.mysql.cj.jdbc.Driver");
-            config.setJdbcUrl("jdbc:mysql://localhost:3306/zm_data_base?createDatabaseIfNotExist=true&useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true");
-            config.setUsername("root");
-            config.setPassword("root");
-            config.setMaximumPoolSize(10);
-            config.setMinimumIdle(5);
-            config.setIdleTimeout(30000);
-            config.setConnectionTimeout(30000);
-            config.setPoolName("ZMAutoConnectionPool");
-
-            System.out.println("Using fallback database configuration");
-            System.out.println("Connecting to database with URL: " + config.getJdbcUrl());
-            System.out.println("Using username: " + config.getUsername());
-        }
-
-        try {
-            dataSource = new HikariDataSource(config);
-            System.out.println("Successfully connected to the database!");
-        } catch (Exception e) {
-            System.err.println("Failed to connect to the database: " + e.getMessage());
-            System.err.println("Please check that:");
-            System.err.println("1. MySQL server is running on localhost:3306");
-            System.err.println("2. User '" + config.getUsername() + "' exists and has the correct password");
-            System.err.println("3. User has permission to create and access the 'zm_data_base' database");
-            e.printStackTrace();
-
-            // Rethrow the exception to indicate that initialization failed
-            throw new RuntimeException("Failed to initialize database connection", e);
-        }
-    }
-
     /**
      * Get a connection from the connection pool.
      * If a transaction is in progress, returns the transaction connection.
@@ -95,18 +30,21 @@ public class DatabaseUtil {
      * @throws SQLException If a connection cannot be obtained
      */
     public static Connection getConnection() throws SQLException {
-        if (dataSource == null) {
-            initializeDataSource();
-        }
-
         // If a transaction is in progress, return the transaction connection
         Connection transactionConnection = transactionConnections.get();
         if (transactionConnection != null && !transactionConnection.isClosed()) {
             return transactionConnection;
         }
 
-        // Otherwise, return a new connection from the pool
-        return dataSource.getConnection();
+        // Don't start new queries for a load that was already abandoned
+        CancellationToken token = CancellationToken.current();
+        if (token != null) {
+            token.throwIfCancelled();
+        }
+
+        // Otherwise, return a new connection from the pool, in turn with the thread's priority lane
+        Connection conn = DbScheduler.getInstance().acquire(ConnectionPoolManager::getConnection);
+        return token != null ? token.track(conn) : conn;
     }
 
     /**
@@ -118,12 +56,8 @@ public class DatabaseUtil {
      * @throws SQLException If a database error occurs
      */
     public static Connection beginTransaction() throws SQLException {
-        if (dataSource == null) {
-            initializeDataSource();
-        }
-
-        // Get a connection from the pool
-        Connection conn = dataSource.getConnection();
+        // Get a connection from the pool, in turn with the thread's priority lane
+        Connection conn = DbScheduler.getInstance().acquire(ConnectionPoolManager::getConnection);
 
         // Disable auto-commit
         conn.setAutoCommit(false);
@@ -178,9 +112,7 @@ public class DatabaseUtil {
      * Close the connection pool.
      */
     public static void closePool() {
-        if (dataSource != null && !dataSource.isClosed()) {
-            dataSource.close();
-        }
+        ConnectionPoolManager.shutdown();
     }
 
     /**
@@ -200,6 +132,119 @@ public class DatabaseUtil {
         return props;
     }
 
+    /**
+     * Get a configuration value from database.properties.
+     * The properties file is read once and cached for subsequent lookups.
+     * 
+     * @param key The property key
+     * @param defaultValue The value to return if the key is missing or the file cannot be read
+     * @return The configured value, or the default value
+     */
+    public static String getProperty(String key, String defaultValue) {
+        return getProperties().getProperty(key, defaultValue);
+    }
+
+    /**
+     * Get all configuration values from database.properties.
+     *
+     * @return The properties, empty if the file cannot be read
+     */
+    static synchronized Properties getProperties() {
+        if (properties == null) {
+            try {
+                properties = loadProperties();
+            } catch (IOException e) {
+                System.err.println("Error loading database properties: " + e.getMessage());
+                properties = new Properties();
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Get an integer configuration value from database.properties.
+     * 
+     * @param key The property key
+     * @param defaultValue The value to return if the key is missing or not a number
+     * @return The configured value, or the default value
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Whether the application runs on the embedded H2 database (db.mode=embedded)
+     * instead of a database server.
+     *
+     * @return true in embedded mode
+     */
+    public static boolean isEmbedded() {
+        return "embedded".equalsIgnoreCase(getProperty("db.mode", "server").trim());
+    }
+
+    /**
+     * Get the JDBC URL of the embedded database file in the application data directory.
+     *
+     * @return The H2 file URL
+     * @throws IOException If the data directory cannot be created
+     */
+    public static String getEmbeddedUrl() throws IOException {
+        Path file = AppDataUtil.getDataDirectory("db").resolve(getProperty("embedded.name", "zmauto"));
+        return "jdbc:h2:file:" + file.toAbsolutePath();
+    }
+
+    /**
+     * Get the driver profile for a JDBC URL: the jdbc.&lt;driver&gt;.* keys of database.properties
+     * with the prefix removed, e.g. cachePrepStmts=true for a jdbc:mysql URL.
+     *
+     * @param jdbcUrl The JDBC URL
+     * @return The driver properties, empty if there is no profile for the driver
+     */
+    public static Properties getDriverProfile(String jdbcUrl) {
+        String prefix = "jdbc." + jdbcUrl.split(":")[1] + ".";
+        Properties all = getProperties();
+        Properties profile = new Properties();
+        for (String key : all.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                profile.setProperty(key.substring(prefix.length()), all.getProperty(key));
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Make a statement stream its rows instead of buffering the whole result in the driver.
+     * MySQL streams only with a fetch size of Integer.MIN_VALUE, which other drivers reject;
+     * they get a regular fetch size instead.
+     *
+     * @param stmt The statement, before it is executed
+     * @throws SQLException If a database error occurs
+     */
+    public static void streamResults(Statement stmt) throws SQLException {
+        boolean mysql = stmt.getConnection().getMetaData().getDatabaseProductName().equalsIgnoreCase("MySQL");
+        stmt.setFetchSize(mysql ? Integer.MIN_VALUE : STREAMING_FETCH_SIZE);
+    }
+
+    /**
+     * Get the current time of the database server. Timestamps written by the database and by other
+     * workstations should be compared with it rather than with this workstation's clock.
+     *
+     * @param conn The database connection
+     * @return The database server's current timestamp
+     * @throws SQLException If a database error occurs
+     */
+    public static Timestamp getDatabaseTime(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT CURRENT_TIMESTAMP")) {
+            rs.next();
+            return rs.getTimestamp(1);
+        }
+    }
+
     /**
      * Get the current timestamp as a java.sql.Timestamp.
      * This method ensures consistent timestamp generation across the application.
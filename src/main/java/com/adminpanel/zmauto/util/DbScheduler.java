@@ -0,0 +1,230 @@
+package com.adminpanel.zmauto.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out pooled connections by priority lane, so batch work cannot take every connection
+ * away from an admin clicking through the panel.
+ *
+ * Every thread works in a lane, INTERACTIVE unless set otherwise. Background and bulk work are each
+ * limited to a number of concurrent connections and queue fairly (first come, first served) for them;
+ * interactive work is not limited, so the rest of the pool stays reserved for it. A thread that
+ * already holds a connection of its lane gets further connections without queuing again, so nested
+ * service calls cannot deadlock on the lane limit.
+ */
+public class DbScheduler {
+
+    /**
+     * Priority lanes.
+     */
+    public enum Lane {
+        /** Reads and writes an admin is waiting for */
+        INTERACTIVE,
+        /** Periodic jobs: summary repair, maintenance scan, audit writes, indexing */
+        BACKGROUND,
+        /** Exports, imports and full-table reports */
+        BULK
+    }
+
+    /**
+     * Source of connections, normally the connection pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionSource {
+        Connection getConnection() throws SQLException;
+    }
+
+    /**
+     * Database work that returns a result.
+     */
+    @FunctionalInterface
+    public interface SqlCallable<T> {
+        T call() throws SQLException;
+    }
+
+    private static final DbScheduler instance = new DbScheduler(
+            DatabaseUtil.getIntProperty("scheduler.backgroundConnections", 2),
+            DatabaseUtil.getIntProperty("scheduler.bulkConnections", 1),
+            DatabaseUtil.getIntProperty("scheduler.queueTimeoutSeconds", 600) * 1000L);
+
+    private static final ThreadLocal<Lane> currentLane = ThreadLocal.withInitial(() -> Lane.INTERACTIVE);
+    private static final ThreadLocal<int[]> permitsHeld = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final Map<Lane, Semaphore> permits = new EnumMap<>(Lane.class);
+    private final Map<Lane, LongAdder> acquisitions = new EnumMap<>(Lane.class);
+    private final Map<Lane, LongAdder> waitNanos = new EnumMap<>(Lane.class);
+    private final long queueTimeoutMillis;
+
+    /**
+     * Constructor.
+     *
+     * @param backgroundConnections The maximum number of connections used by background work at once
+     * @param bulkConnections The maximum number of connections used by bulk work at once
+     * @param queueTimeoutMillis How long background and bulk work wait for a connection before failing
+     */
+    DbScheduler(int backgroundConnections, int bulkConnections, long queueTimeoutMillis) {
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        permits.put(Lane.BACKGROUND, new Semaphore(Math.max(1, backgroundConnections), true));
+        permits.put(Lane.BULK, new Semaphore(Math.max(1, bulkConnections), true));
+        for (Lane lane : Lane.values()) {
+            acquisitions.put(lane, new LongAdder());
+            waitNanos.put(lane, new LongAdder());
+        }
+    }
+
+    /**
+     * Get the scheduler used by DatabaseUtil.
+     *
+     * @return The shared scheduler
+     */
+    public static DbScheduler getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get the lane of the current thread.
+     *
+     * @return The lane
+     */
+    public static Lane getLane() {
+        return currentLane.get();
+    }
+
+    /**
+     * Set the lane of the current thread, for threads that only ever do one kind of work.
+     *
+     * @param lane The lane
+     */
+    public static void setLane(Lane lane) {
+        currentLane.set(lane);
+    }
+
+    /**
+     * Wrap a thread's body so that the thread works in a lane.
+     *
+     * @param lane The lane
+     * @param body The thread body
+     * @return The wrapped body
+     */
+    public static Runnable inLane(Lane lane, Runnable body) {
+        return () -> {
+            currentLane.set(lane);
+            body.run();
+        };
+    }
+
+    /**
+     * Run database work in a lane, restoring the thread's lane afterwards.
+     *
+     * @param lane The lane
+     * @param work The work
+     * @return The result of the work
+     * @throws SQLException If a database error occurs
+     */
+    public static <T> T call(Lane lane, SqlCallable<T> work) throws SQLException {
+        Lane previous = currentLane.get();
+        currentLane.set(lane);
+        try {
+            return work.call();
+        } finally {
+            currentLane.set(previous);
+        }
+    }
+
+    /**
+     * Get a connection for the current thread's lane, waiting for the lane's turn if it is at its limit.
+     * The lane's permit is given back when the connection is closed.
+     *
+     * @param source The connection source
+     * @return The connection
+     * @throws SQLException If no connection can be obtained in time
+     */
+    public Connection acquire(ConnectionSource source) throws SQLException {
+        Lane lane = currentLane.get();
+        Semaphore semaphore = permits.get(lane);
+        int[] held = permitsHeld.get();
+
+        if (semaphore == null || held[0] > 0) {
+            acquisitions.get(lane).increment();
+            return source.getConnection();
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!semaphore.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "Timed out after " + queueTimeoutMillis + " ms waiting for a " + lane + " connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a " + lane + " connection", e);
+        }
+        acquisitions.get(lane).increment();
+        waitNanos.get(lane).add(System.nanoTime() - start);
+
+        Connection connection;
+        try {
+            connection = source.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+
+        held[0]++;
+        return releasing(connection, () -> {
+            held[0]--;
+            semaphore.release();
+        });
+    }
+
+    /**
+     * Get the number of callers queued for a lane.
+     *
+     * @param lane The lane
+     * @return The number of waiting callers, always 0 for the interactive lane
+     */
+    public int getQueueLength(Lane lane) {
+        Semaphore semaphore = permits.get(lane);
+        return semaphore != null ? semaphore.getQueueLength() : 0;
+    }
+
+    /**
+     * Get the average time callers of a lane waited for their turn.
+     *
+     * @param lane The lane
+     * @return The average wait in milliseconds
+     */
+    public double getAverageWaitMillis(Lane lane) {
+        long count = acquisitions.get(lane).sum();
+        return count > 0 ? waitNanos.get(lane).sum() / 1_000_000.0 / count : 0;
+    }
+
+    /**
+     * Wrap a connection so that closing it runs a release action once.
+     */
+    private static Connection releasing(Connection connection, Runnable release) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                            release.run();
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,688 @@
+package com.adminpanel.zmauto.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory inverted index with BM25 ranking and prefix matching.
+ * Documents are identified by a type code and an entity ID; replacing a document marks the old
+ * copy as deleted and appends a new one, so incremental updates never rewrite posting lists.
+ * The index can be saved to and loaded from a file. The file is read into memory in one go and
+ * not kept open, so the next save can replace it on any platform.
+ */
+public class InvertedIndex {
+
+    private static final int MAGIC = 0x5A4D4958; // "ZMIX"
+    private static final int VERSION = 1;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float PREFIX_WEIGHT = 0.7f;
+    private static final int MAX_PREFIX_EXPANSION = 64;
+
+    /**
+     * A document to be indexed.
+     */
+    public static class Document {
+        private final byte type;
+        private final long id;
+        private final long targetId;
+        private final String title;
+        private final String subtitle;
+        private final String text;
+
+        /**
+         * Constructor.
+         *
+         * @param type The entity type code
+         * @param id The entity ID
+         * @param targetId The ID used to navigate to the document (usually the entity ID)
+         * @param title The display title
+         * @param subtitle The display subtitle
+         * @param text The searchable text
+         */
+        public Document(byte type, long id, long targetId, String title, String subtitle, String text) {
+            this.type = type;
+            this.id = id;
+            this.targetId = targetId;
+            this.title = title != null ? title : "";
+            this.subtitle = subtitle != null ? subtitle : "";
+            this.text = text != null ? text : "";
+        }
+    }
+
+    /**
+     * A ranked search hit.
+     */
+    public static class Hit {
+        private final byte type;
+        private final long id;
+        private final long targetId;
+        private final String title;
+        private final String subtitle;
+        private final float score;
+
+        private Hit(byte type, long id, long targetId, String title, String subtitle, float score) {
+            this.type = type;
+            this.id = id;
+            this.targetId = targetId;
+            this.title = title;
+            this.subtitle = subtitle;
+            this.score = score;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getTargetId() {
+            return targetId;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getSubtitle() {
+            return subtitle;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Posting list for a single term. Document numbers are appended in increasing order.
+     */
+    private static class Postings {
+        private int[] docs = new int[4];
+        private short[] freqs = new short[4];
+        private int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = (short) Math.min(freq, Short.MAX_VALUE);
+            size++;
+        }
+
+        void addAll(Postings other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.docs[i], other.freqs[i]);
+            }
+        }
+    }
+
+    /**
+     * Per-thread scoring buffers, sized to the document count and reused across queries.
+     */
+    private static class Scratch {
+        private float[] scores = new float[0];
+        private int[] masks = new int[0];
+        private int[] touched = new int[0];
+
+        void ensureCapacity(int capacity) {
+            if (scores.length < capacity) {
+                scores = new float[capacity];
+                masks = new int[capacity];
+                touched = new int[capacity];
+            }
+        }
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> docNumbers = new HashMap<>();
+
+    private byte[] types = new byte[16];
+    private long[] ids = new long[16];
+    private long[] targetIds = new long[16];
+    private String[] titles = new String[16];
+    private String[] subtitles = new String[16];
+    private int[] lengths = new int[16];
+    private final BitSet deleted = new BitSet();
+    private int docCount;
+    private int liveCount;
+    private long liveLength;
+    private long watermark;
+
+    /**
+     * Add or replace a single document.
+     *
+     * @param document The document
+     */
+    public void put(Document document) {
+        putAll(Collections.singletonList(document));
+    }
+
+    /**
+     * Add or replace a batch of documents.
+     * Tokenization runs in parallel on the common fork/join pool; the per-chunk partial posting
+     * lists are merged in document order so every posting list stays sorted.
+     *
+     * @param documents The documents
+     */
+    public void putAll(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int base = docCount;
+            ensureCapacity(base + documents.size());
+
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                removeInternal(document.type, document.id);
+
+                int doc = base + i;
+                types[doc] = document.type;
+                ids[doc] = document.id;
+                targetIds[doc] = document.targetId;
+                titles[doc] = document.title;
+                subtitles[doc] = document.subtitle;
+                docNumbers.put(key(document.type, document.id), doc);
+            }
+
+            int parallelism = documents.size() < 1024 ? 1 : ForkJoinPool.getCommonPoolParallelism() * 4;
+            int chunkSize = (documents.size() + parallelism - 1) / parallelism;
+            int chunkCount = (documents.size() + chunkSize - 1) / chunkSize;
+
+            List<Map<String, Postings>> partials = IntStream.range(0, chunkCount)
+                    .parallel()
+                    .mapToObj(chunk -> {
+                        Map<String, Postings> partial = new HashMap<>();
+                        int from = chunk * chunkSize;
+                        int to = Math.min(from + chunkSize, documents.size());
+                        for (int i = from; i < to; i++) {
+                            Map<String, Integer> frequencies = termFrequencies(documents.get(i).text);
+                            int length = 0;
+                            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                                partial.computeIfAbsent(entry.getKey(), t -> new Postings())
+                                       .add(base + i, entry.getValue());
+                                length += entry.getValue();
+                            }
+                            lengths[base + i] = length;
+                        }
+                        return partial;
+                    })
+                    .collect(Collectors.toList());
+
+            for (Map<String, Postings> partial : partials) {
+                for (Map.Entry<String, Postings> entry : partial.entrySet()) {
+                    terms.computeIfAbsent(entry.getKey(), t -> new Postings()).addAll(entry.getValue());
+                }
+            }
+
+            docCount = base + documents.size();
+            for (int doc = base; doc < docCount; doc++) {
+                if (!deleted.get(doc)) {
+                    liveCount++;
+                    liveLength += lengths[doc];
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a document.
+     *
+     * @param type The entity type code
+     * @param id The entity ID
+     */
+    public void remove(byte type, long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(type, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(byte type, long id) {
+        Integer doc = docNumbers.remove(key(type, id));
+        if (doc != null && !deleted.get(doc)) {
+            deleted.set(doc);
+            if (doc < docCount) {
+                liveCount--;
+                liveLength -= lengths[doc];
+            }
+        }
+    }
+
+    /**
+     * Search the index.
+     * Every query token is matched as a prefix; documents matching all tokens rank above
+     * documents matching only some of them.
+     *
+     * @param query The query text
+     * @param limit The maximum number of hits
+     * @return The hits, best first
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (tokens.size() > 31) {
+            tokens = tokens.subList(0, 31);
+        }
+
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0) {
+                return Collections.emptyList();
+            }
+
+            Scratch scratch = SCRATCH.get();
+            scratch.ensureCapacity(docCount);
+            float[] scores = scratch.scores;
+            int[] masks = scratch.masks;
+            int[] touched = scratch.touched;
+            int touchedCount = 0;
+            float averageLength = Math.max(1f, (float) liveLength / liveCount);
+
+            try {
+                for (int t = 0; t < tokens.size(); t++) {
+                    String token = tokens.get(t);
+                    int bit = 1 << t;
+                    int expanded = 0;
+
+                    for (Map.Entry<String, Postings> entry : terms.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                        if (expanded++ >= MAX_PREFIX_EXPANSION) {
+                            break;
+                        }
+
+                        Postings postings = entry.getValue();
+                        float weight = entry.getKey().equals(token) ? 1f : PREFIX_WEIGHT;
+                        float idf = (float) Math.log(1 + (liveCount - postings.size + 0.5) / (postings.size + 0.5));
+                        float termWeight = weight * Math.max(idf, 0.01f);
+                        int[] docs = postings.docs;
+                        short[] freqs = postings.freqs;
+
+                        for (int i = 0; i < postings.size; i++) {
+                            int doc = docs[i];
+                            if (masks[doc] == 0) {
+                                touched[touchedCount++] = doc;
+                            }
+                            float tf = freqs[i];
+                            scores[doc] += termWeight * tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[doc] / averageLength));
+                            masks[doc] |= bit;
+                        }
+                    }
+                }
+
+                // Documents matching every token always outrank partial matches
+                int fullMask = (1 << tokens.size()) - 1;
+                int[] heap = new int[limit];
+                float[] heapScores = new float[limit];
+                int heapSize = 0;
+
+                for (int i = 0; i < touchedCount; i++) {
+                    int doc = touched[i];
+                    if (deleted.get(doc)) {
+                        continue;
+                    }
+                    float rank = masks[doc] == fullMask ? scores[doc] + 1000f : scores[doc];
+                    if (heapSize < limit) {
+                        heap[heapSize] = doc;
+                        heapScores[heapSize] = rank;
+                        siftUp(heap, heapScores, heapSize++);
+                    } else if (rank > heapScores[0]) {
+                        heap[0] = doc;
+                        heapScores[0] = rank;
+                        siftDown(heap, heapScores, heapSize);
+                    }
+                }
+
+                Hit[] hits = new Hit[heapSize];
+                for (int i = heapSize - 1; i >= 0; i--) {
+                    int doc = heap[0];
+                    hits[i] = new Hit(types[doc], ids[doc], targetIds[doc], titles[doc], subtitles[doc], scores[doc]);
+                    heap[0] = heap[i];
+                    heapScores[0] = heapScores[i];
+                    siftDown(heap, heapScores, i);
+                }
+                return Arrays.asList(hits);
+            } finally {
+                // Only the touched entries are reset, so the scratch arrays can be reused cheaply
+                for (int i = 0; i < touchedCount; i++) {
+                    scores[touched[i]] = 0f;
+                    masks[touched[i]] = 0;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the documents of one type whose entity no longer exists.
+     *
+     * @param type The entity type code
+     * @param existing The IDs of the entities that still exist
+     * @return The number of documents removed
+     */
+    public int retain(byte type, Set<Long> existing) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (!deleted.get(doc) && types[doc] == type && !existing.contains(ids[doc])) {
+                    removeInternal(type, ids[doc]);
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of live documents.
+     *
+     * @return The document count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the watermark stored with the index, i.e. the time up to which it reflects the database.
+     *
+     * @return The watermark in epoch milliseconds
+     */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Set the watermark stored with the index.
+     *
+     * @param watermark The watermark in epoch milliseconds
+     */
+    public void setWatermark(long watermark) {
+        this.watermark = watermark;
+    }
+
+    /**
+     * Remove all documents.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            docNumbers.clear();
+            deleted.clear();
+            docCount = 0;
+            liveCount = 0;
+            liveLength = 0;
+            watermark = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Save the index to a file. Deleted documents are dropped and document numbers compacted.
+     * The file is written to a temporary file first and then moved into place atomically.
+     *
+     * @param file The target file
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        lock.readLock().lock();
+        try (OutputStream os = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+
+            int[] remap = new int[docCount];
+            int next = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                remap[doc] = deleted.get(doc) ? -1 : next++;
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(watermark);
+            out.writeInt(next);
+
+            for (int doc = 0; doc < docCount; doc++) {
+                if (remap[doc] < 0) {
+                    continue;
+                }
+                out.writeByte(types[doc]);
+                out.writeLong(ids[doc]);
+                out.writeLong(targetIds[doc]);
+                out.writeInt(lengths[doc]);
+                writeString(out, titles[doc]);
+                writeString(out, subtitles[doc]);
+            }
+
+            out.writeInt(terms.size());
+            for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+                Postings postings = entry.getValue();
+                int live = 0;
+                for (int i = 0; i < postings.size; i++) {
+                    if (remap[postings.docs[i]] >= 0) {
+                        live++;
+                    }
+                }
+
+                writeString(out, entry.getKey());
+                out.writeInt(live);
+                for (int i = 0; i < postings.size; i++) {
+                    int doc = remap[postings.docs[i]];
+                    if (doc >= 0) {
+                        out.writeInt(doc);
+                        out.writeShort(postings.freqs[i]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load an index previously written by {@link #save(Path)}, replacing the current contents.
+     *
+     * @param file The index file
+     * @return true if the file was loaded, false if it does not exist or has an unknown format
+     * @throws IOException If the file cannot be read
+     */
+    public boolean load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+
+        // Not mapped: a mapping would keep the file in use until garbage collection, and Windows
+        // refuses to replace a file that is in use
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < 20 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            clear();
+            watermark = buffer.getLong();
+            int count = buffer.getInt();
+            ensureCapacity(count);
+
+            for (int doc = 0; doc < count; doc++) {
+                types[doc] = buffer.get();
+                ids[doc] = buffer.getLong();
+                targetIds[doc] = buffer.getLong();
+                lengths[doc] = buffer.getInt();
+                titles[doc] = readString(buffer);
+                subtitles[doc] = readString(buffer);
+                docNumbers.put(key(types[doc], ids[doc]), doc);
+                liveLength += lengths[doc];
+            }
+            docCount = count;
+            liveCount = count;
+
+            int termCount = buffer.getInt();
+            for (int t = 0; t < termCount; t++) {
+                String term = readString(buffer);
+                int size = buffer.getInt();
+                Postings postings = new Postings();
+                postings.docs = new int[Math.max(4, size)];
+                postings.freqs = new short[Math.max(4, size)];
+                for (int i = 0; i < size; i++) {
+                    postings.docs[i] = buffer.getInt();
+                    postings.freqs[i] = buffer.getShort();
+                }
+                postings.size = size;
+                terms.put(term, postings);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return true;
+    }
+
+    /**
+     * Split text into lower-case alphanumeric tokens.
+     *
+     * @param text The text
+     * @return The tokens in order of appearance
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+
+        return tokens;
+    }
+
+    // Helper methods
+
+    private static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokenize(text)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    private static void siftUp(int[] heap, float[] heapScores, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heapScores[parent] <= heapScores[index]) {
+                return;
+            }
+            swap(heap, heapScores, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, float[] heapScores, int size) {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = index * 2 + 1;
+            int right = left + 1;
+            if (left < size && heapScores[left] < heapScores[smallest]) {
+                smallest = left;
+            }
+            if (right < size && heapScores[right] < heapScores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(heap, heapScores, smallest, index);
+            index = smallest;
+        }
+    }
+
+    private static void swap(int[] heap, float[] heapScores, int a, int b) {
+        int doc = heap[a];
+        heap[a] = heap[b];
+        heap[b] = doc;
+        float score = heapScores[a];
+        heapScores[a] = heapScores[b];
+        heapScores[b] = score;
+    }
+
+    private static long key(byte type, long id) {
+        return ((long) type << 56) | (id & 0x00FFFFFFFFFFFFFFL);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= types.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, types.length * 2);
+        types = Arrays.copyOf(types, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        targetIds = Arrays.copyOf(targetIds, newCapacity);
+        titles = Arrays.copyOf(titles, newCapacity);
+        subtitles = Arrays.copyOf(subtitles, newCapacity);
+        lengths = Arrays.copyOf(lengths, newCapacity);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
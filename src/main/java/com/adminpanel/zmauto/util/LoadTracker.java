@@ -0,0 +1,60 @@
+package com.adminpanel.zmauto.util;
+
+/**
+ * Tracks the loads of one view. Starting a load cancels the previous one, and only the result
+ * of the newest load should be shown.
+ */
+public class LoadTracker {
+
+    private final int timeoutSeconds;
+    private long generation;
+    private CancellationToken currentToken;
+
+    /**
+     * Constructor using query.viewTimeoutSeconds from database.properties.
+     */
+    public LoadTracker() {
+        this(DatabaseUtil.getIntProperty("query.viewTimeoutSeconds", 30));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param timeoutSeconds The query timeout for the view's loads, or 0 for none
+     */
+    public LoadTracker(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Start a new load, cancelling the one still running.
+     *
+     * @return The token of the new load
+     */
+    public synchronized CancellationToken begin() {
+        if (currentToken != null) {
+            currentToken.cancel();
+        }
+        currentToken = new CancellationToken(++generation, timeoutSeconds);
+        return currentToken;
+    }
+
+    /**
+     * Check whether a load is still the newest one and was not cancelled.
+     *
+     * @param token The token of the load
+     * @return true if the load's result should be shown
+     */
+    public synchronized boolean isCurrent(CancellationToken token) {
+        return token.getGeneration() == generation && !token.isCancelled();
+    }
+
+    /**
+     * Cancel the running load, when the view is closed.
+     */
+    public synchronized void cancel() {
+        if (currentToken != null) {
+            currentToken.cancel();
+        }
+    }
+}
@@ -0,0 +1,537 @@
+package com.adminpanel.zmauto.util;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_DOUBLE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * Off-heap columnar store of reservation facts for analytics.
+ * Each column is a native memory segment: ids, vehicle ids, start and end days (epoch days),
+ * dictionary-encoded status and cost. Rows are kept sorted by reservation id, so ids are
+ * found by binary search and new reservations (with higher ids) are appended.
+ * <p>
+ * Scans are plain counted loops over the segments that the JIT can unroll and vectorize.
+ * All methods are thread-safe; scans run under a shared read lock.
+ */
+public class ReservationColumns implements AutoCloseable {
+
+    /**
+     * Receives the rows matched by a scan.
+     */
+    public interface RowConsumer {
+        void accept(long id, long vehicleId, int startDay, int endDay, double cost);
+    }
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Status codes are used as bits in a mask, so at most 32 statuses can be told apart.
+     */
+    private static final int MAX_STATUSES = 32;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<String> statuses = new ArrayList<>();
+    private final Map<String, Integer> statusCodes = new HashMap<>();
+
+    private Arena arena;
+    private MemorySegment ids;
+    private MemorySegment vehicleIds;
+    private MemorySegment startDays;
+    private MemorySegment endDays;
+    private MemorySegment statusColumn;
+    private MemorySegment costs;
+    private int size;
+    private int capacity;
+
+    public ReservationColumns() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Get the number of rows.
+     *
+     * @return The number of rows
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of off-heap bytes held by the columns.
+     *
+     * @return The allocated size in bytes
+     */
+    public long getAllocatedBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) capacity * (8 + 8 + 4 + 4 + 1 + 8);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Insert a reservation or update the row with the same id.
+     *
+     * @param id The reservation ID
+     * @param vehicleId The vehicle ID
+     * @param startDay The first day of the reservation (epoch day)
+     * @param endDay The last day of the reservation (epoch day)
+     * @param status The reservation status
+     * @param cost The total cost
+     */
+    public void upsert(long id, long vehicleId, int startDay, int endDay, String status, double cost) {
+        lock.writeLock().lock();
+        try {
+            byte code = encodeStatus(status);
+
+            int row;
+            if (size == 0 || id > ids.getAtIndex(JAVA_LONG, size - 1)) {
+                row = size;
+                insertAt(row);
+            } else {
+                row = indexOf(id);
+                if (row < 0) {
+                    // Out of order: make room at the insertion point
+                    row = -row - 1;
+                    insertAt(row);
+                }
+            }
+
+            ids.setAtIndex(JAVA_LONG, row, id);
+            vehicleIds.setAtIndex(JAVA_LONG, row, vehicleId);
+            startDays.setAtIndex(JAVA_INT, row, startDay);
+            endDays.setAtIndex(JAVA_INT, row, endDay);
+            statusColumn.setAtIndex(JAVA_BYTE, row, code);
+            costs.setAtIndex(JAVA_DOUBLE, row, cost);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a reservation.
+     *
+     * @param id The reservation ID
+     * @return true if the reservation was present
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int row = indexOf(id);
+            if (row < 0) {
+                return false;
+            }
+
+            int moved = size - row - 1;
+            shift(ids, JAVA_LONG.byteSize(), row + 1, row, moved);
+            shift(vehicleIds, JAVA_LONG.byteSize(), row + 1, row, moved);
+            shift(startDays, JAVA_INT.byteSize(), row + 1, row, moved);
+            shift(endDays, JAVA_INT.byteSize(), row + 1, row, moved);
+            shift(statusColumn, JAVA_BYTE.byteSize(), row + 1, row, moved);
+            shift(costs, JAVA_DOUBLE.byteSize(), row + 1, row, moved);
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the reservations whose IDs are not in a given set, e.g. the IDs still in the database.
+     *
+     * @param keep The IDs to keep, in ascending order
+     * @param count The number of IDs in keep
+     * @return The number of rows removed
+     */
+    public int retainAll(long[] keep, int count) {
+        lock.writeLock().lock();
+        try {
+            int kept = 0;
+            int next = 0;
+            for (int row = 0; row < size; row++) {
+                long id = ids.getAtIndex(JAVA_LONG, row);
+                while (next < count && keep[next] < id) {
+                    next++;
+                }
+                if (next < count && keep[next] == id) {
+                    if (kept != row) {
+                        shift(ids, JAVA_LONG.byteSize(), row, kept, 1);
+                        shift(vehicleIds, JAVA_LONG.byteSize(), row, kept, 1);
+                        shift(startDays, JAVA_INT.byteSize(), row, kept, 1);
+                        shift(endDays, JAVA_INT.byteSize(), row, kept, 1);
+                        shift(statusColumn, JAVA_BYTE.byteSize(), row, kept, 1);
+                        shift(costs, JAVA_DOUBLE.byteSize(), row, kept, 1);
+                    }
+                    kept++;
+                }
+            }
+
+            int removed = size - kept;
+            size = kept;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove all rows.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the highest reservation ID in the store.
+     *
+     * @return The highest ID, or 0 if the store is empty
+     */
+    public long getMaxId() {
+        lock.readLock().lock();
+        try {
+            return size > 0 ? ids.getAtIndex(JAVA_LONG, size - 1) : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the status mask for a set of statuses, for use with the scan methods.
+     * Statuses that have not been seen yet match nothing.
+     *
+     * @param statusNames The statuses to match
+     * @return The status mask
+     */
+    public int statusMask(String... statusNames) {
+        lock.readLock().lock();
+        try {
+            int mask = 0;
+            for (String status : statusNames) {
+                Integer code = statusCodes.get(status);
+                if (code != null) {
+                    mask |= 1 << code;
+                }
+            }
+            return mask;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the status with the given code.
+     *
+     * @param code The status code, as an index into the arrays returned by the group-by methods
+     * @return The status
+     */
+    public String getStatus(int code) {
+        lock.readLock().lock();
+        try {
+            return statuses.get(code);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of distinct statuses seen so far.
+     *
+     * @return The number of status codes
+     */
+    public int getStatusCount() {
+        lock.readLock().lock();
+        try {
+            return statuses.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the reservations overlapping a period with a status in the mask.
+     *
+     * @param fromDay The first day of the period (epoch day)
+     * @param toDay The last day of the period (epoch day)
+     * @param statusMask The statuses to include
+     * @return The number of matching reservations
+     */
+    public long count(int fromDay, int toDay, int statusMask) {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            for (long row = 0; row < size; row++) {
+                count += matches(row, fromDay, toDay, statusMask) ? 1 : 0;
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sum the cost of the reservations overlapping a period with a status in the mask.
+     *
+     * @param fromDay The first day of the period (epoch day)
+     * @param toDay The last day of the period (epoch day)
+     * @param statusMask The statuses to include
+     * @return The total cost
+     */
+    public double sumCost(int fromDay, int toDay, int statusMask) {
+        lock.readLock().lock();
+        try {
+            double sum = 0;
+            for (long row = 0; row < size; row++) {
+                double cost = costs.getAtIndex(JAVA_DOUBLE, row);
+                sum += matches(row, fromDay, toDay, statusMask) ? cost : 0;
+            }
+            return sum;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the reservations overlapping a period, grouped by status.
+     *
+     * @param fromDay The first day of the period (epoch day)
+     * @param toDay The last day of the period (epoch day)
+     * @return The counts, indexed by status code
+     */
+    public long[] countByStatus(int fromDay, int toDay) {
+        lock.readLock().lock();
+        try {
+            long[] counts = new long[statuses.size()];
+            for (long row = 0; row < size; row++) {
+                if (overlaps(row, fromDay, toDay)) {
+                    counts[statusColumn.getAtIndex(JAVA_BYTE, row)]++;
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sum the cost of the reservations overlapping a period, grouped by status.
+     *
+     * @param fromDay The first day of the period (epoch day)
+     * @param toDay The last day of the period (epoch day)
+     * @return The total costs, indexed by status code
+     */
+    public double[] sumCostByStatus(int fromDay, int toDay) {
+        lock.readLock().lock();
+        try {
+            double[] sums = new double[statuses.size()];
+            for (long row = 0; row < size; row++) {
+                if (overlaps(row, fromDay, toDay)) {
+                    sums[statusColumn.getAtIndex(JAVA_BYTE, row)] += costs.getAtIndex(JAVA_DOUBLE, row);
+                }
+            }
+            return sums;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sum the cost of the reservations starting in a period, grouped by start day.
+     *
+     * @param fromDay The first day of the period (epoch day)
+     * @param toDay The last day of the period (epoch day)
+     * @param statusMask The statuses to include
+     * @return The total costs, where index 0 is {@code fromDay}
+     */
+    public double[] sumCostByStartDay(int fromDay, int toDay, int statusMask) {
+        lock.readLock().lock();
+        try {
+            double[] sums = new double[Math.max(0, toDay - fromDay + 1)];
+            for (long row = 0; row < size; row++) {
+                int start = startDays.getAtIndex(JAVA_INT, row);
+                int code = statusColumn.getAtIndex(JAVA_BYTE, row);
+                if (start >= fromDay && start <= toDay && (statusMask & (1 << code)) != 0) {
+                    sums[start - fromDay] += costs.getAtIndex(JAVA_DOUBLE, row);
+                }
+            }
+            return sums;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pass every reservation overlapping a period with a status in the mask to a consumer.
+     * The matching rows are first collected into a selection vector, so the filter loop
+     * stays free of calls.
+     *
+     * @param fromDay The first day of the period (epoch day)
+     * @param toDay The last day of the period (epoch day)
+     * @param statusMask The statuses to include
+     * @param consumer The consumer
+     */
+    public void scan(int fromDay, int toDay, int statusMask, RowConsumer consumer) {
+        lock.readLock().lock();
+        try {
+            int[] selection = new int[Math.min(size, 4096)];
+            for (int from = 0; from < size; from += selection.length) {
+                int to = Math.min(size, from + selection.length);
+
+                int selected = 0;
+                for (int row = from; row < to; row++) {
+                    selection[selected] = row;
+                    selected += matches(row, fromDay, toDay, statusMask) ? 1 : 0;
+                }
+
+                for (int i = 0; i < selected; i++) {
+                    long row = selection[i];
+                    consumer.accept(ids.getAtIndex(JAVA_LONG, row), vehicleIds.getAtIndex(JAVA_LONG, row),
+                            startDays.getAtIndex(JAVA_INT, row), endDays.getAtIndex(JAVA_INT, row),
+                            costs.getAtIndex(JAVA_DOUBLE, row));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Release the off-heap memory. The store must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (arena != null) {
+                arena.close();
+                arena = null;
+            }
+            size = 0;
+            capacity = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean overlaps(long row, int fromDay, int toDay) {
+        return startDays.getAtIndex(JAVA_INT, row) <= toDay && endDays.getAtIndex(JAVA_INT, row) >= fromDay;
+    }
+
+    private boolean matches(long row, int fromDay, int toDay, int statusMask) {
+        int code = statusColumn.getAtIndex(JAVA_BYTE, row);
+        return overlaps(row, fromDay, toDay) & (statusMask & (1 << code)) != 0;
+    }
+
+    /**
+     * Find a row by reservation ID.
+     *
+     * @param id The reservation ID
+     * @return The row, or {@code -(insertion point) - 1} if there is none
+     */
+    private int indexOf(long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = ids.getAtIndex(JAVA_LONG, middle);
+            if (value < id) {
+                low = middle + 1;
+            } else if (value > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private byte encodeStatus(String status) {
+        Integer code = statusCodes.get(status);
+        if (code == null) {
+            if (statuses.size() == MAX_STATUSES) {
+                throw new IllegalStateException("Too many distinct reservation statuses");
+            }
+            code = statuses.size();
+            statuses.add(status);
+            statusCodes.put(status, code);
+        }
+        return code.byteValue();
+    }
+
+    /**
+     * Make room for one row at the given position, growing the columns if needed.
+     */
+    private void insertAt(int row) {
+        if (size == capacity) {
+            allocate(Math.max(INITIAL_CAPACITY, capacity * 2));
+        }
+
+        int moved = size - row;
+        shift(ids, JAVA_LONG.byteSize(), row, row + 1, moved);
+        shift(vehicleIds, JAVA_LONG.byteSize(), row, row + 1, moved);
+        shift(startDays, JAVA_INT.byteSize(), row, row + 1, moved);
+        shift(endDays, JAVA_INT.byteSize(), row, row + 1, moved);
+        shift(statusColumn, JAVA_BYTE.byteSize(), row, row + 1, moved);
+        shift(costs, JAVA_DOUBLE.byteSize(), row, row + 1, moved);
+        size++;
+    }
+
+    private static void shift(MemorySegment column, long elementSize, int from, int to, int count) {
+        if (count > 0) {
+            MemorySegment.copy(column, from * elementSize, column, to * elementSize, count * elementSize);
+        }
+    }
+
+    /**
+     * Move the columns to new segments of the given capacity.
+     */
+    private void allocate(int newCapacity) {
+        Arena newArena = Arena.ofShared();
+        MemorySegment newIds = allocateColumn(newArena, JAVA_LONG, newCapacity, ids);
+        MemorySegment newVehicleIds = allocateColumn(newArena, JAVA_LONG, newCapacity, vehicleIds);
+        MemorySegment newStartDays = allocateColumn(newArena, JAVA_INT, newCapacity, startDays);
+        MemorySegment newEndDays = allocateColumn(newArena, JAVA_INT, newCapacity, endDays);
+        MemorySegment newStatuses = allocateColumn(newArena, JAVA_BYTE, newCapacity, statusColumn);
+        MemorySegment newCosts = allocateColumn(newArena, JAVA_DOUBLE, newCapacity, costs);
+
+        if (arena != null) {
+            arena.close();
+        }
+        arena = newArena;
+        ids = newIds;
+        vehicleIds = newVehicleIds;
+        startDays = newStartDays;
+        endDays = newEndDays;
+        statusColumn = newStatuses;
+        costs = newCosts;
+        capacity = newCapacity;
+    }
+
+    private MemorySegment allocateColumn(Arena target, ValueLayout layout, int newCapacity, MemorySegment old) {
+        MemorySegment column = target.allocate(layout.byteSize() * newCapacity, layout.byteAlignment());
+        if (old != null && size > 0) {
+            MemorySegment.copy(old, 0, column, 0, layout.byteSize() * size);
+        }
+        return column;
+    }
+}
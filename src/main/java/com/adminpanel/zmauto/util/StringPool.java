@@ -0,0 +1,53 @@
+package com.adminpanel.zmauto.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of canonical instances for low-cardinality strings such as makes, colours and statuses.
+ * A JDBC driver returns a new String for every row; interning them makes all rows with the same
+ * value share one instance. Once the pool is full, further values are returned as they are.
+ */
+public class StringPool {
+
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The maximum number of distinct values kept
+     */
+    public StringPool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the canonical instance of a string.
+     *
+     * @param value The string, may be null
+     * @return The pooled instance equal to the string, or the string itself if the pool is full
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = values.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (values.size() >= capacity) {
+            return value;
+        }
+        pooled = values.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    /**
+     * Get the number of distinct values in the pool.
+     *
+     * @return The number of values
+     */
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,213 @@
+package com.adminpanel.zmauto.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Hash index of payments by transaction ID, for matching bank statement lines.
+ * Transaction IDs are hashed to 64-bit keys in an open-addressing table of primitive arrays,
+ * and the ID bytes are kept in one shared array, so lookups straight from a mapped file need
+ * no String or boxed key. A key hit is confirmed by comparing the ID bytes.
+ * Lookups and match counting are safe from several threads once the index is built.
+ */
+public class TransactionIndex {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long[] slotKeys;
+    private int[] slotRows;
+    private int mask;
+
+    private long[] paymentIds = new long[16];
+    private long[] amountsCents = new long[16];
+    private int[] idOffsets = new int[17];
+    private byte[] idBytes = new byte[256];
+    private int rowCount;
+
+    private final List<long[]> duplicatePayments = new ArrayList<>();
+    private AtomicIntegerArray matchCounts;
+
+    /**
+     * Constructor.
+     *
+     * @param expectedSize The expected number of payments
+     */
+    public TransactionIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        slotKeys = new long[capacity];
+        slotRows = new int[capacity];
+        Arrays.fill(slotRows, -1);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Add a payment. A second payment with the same transaction ID is not indexed but recorded as a duplicate.
+     *
+     * @param paymentId The payment ID
+     * @param transactionId The transaction ID
+     * @param amountCents The amount in cents
+     */
+    public void add(long paymentId, String transactionId, long amountCents) {
+        byte[] id = transactionId.getBytes(StandardCharsets.UTF_8);
+        long key = hash(id, 0, id.length);
+
+        int existing = find(key, ByteBuffer.wrap(id), 0, id.length);
+        if (existing >= 0) {
+            duplicatePayments.add(new long[]{paymentIds[existing], paymentId});
+            return;
+        }
+
+        if (rowCount == paymentIds.length) {
+            paymentIds = Arrays.copyOf(paymentIds, rowCount * 2);
+            amountsCents = Arrays.copyOf(amountsCents, rowCount * 2);
+            idOffsets = Arrays.copyOf(idOffsets, rowCount * 2 + 1);
+        }
+        int offset = idOffsets[rowCount];
+        if (offset + id.length > idBytes.length) {
+            idBytes = Arrays.copyOf(idBytes, Math.max(idBytes.length * 2, offset + id.length));
+        }
+        System.arraycopy(id, 0, idBytes, offset, id.length);
+        paymentIds[rowCount] = paymentId;
+        amountsCents[rowCount] = amountCents;
+        idOffsets[rowCount + 1] = offset + id.length;
+
+        if ((rowCount + 1) * 2 > slotKeys.length) {
+            rehash(slotKeys.length * 2);
+        }
+        insert(key, rowCount);
+        rowCount++;
+    }
+
+    /**
+     * Find the payment with a transaction ID given as bytes in a buffer.
+     *
+     * @param buffer The buffer holding the ID
+     * @param from The index of the first byte of the ID
+     * @param to The index after the last byte of the ID
+     * @return The row of the payment, or -1 if there is none
+     */
+    public int find(ByteBuffer buffer, int from, int to) {
+        return find(hash(buffer, from, to), buffer, from, to);
+    }
+
+    /**
+     * Count a statement line matched to a row.
+     *
+     * @param row The row of the payment
+     * @return The number of statement lines matched to the row so far, including this one
+     */
+    public int recordMatch(int row) {
+        return matchCounts.incrementAndGet(row);
+    }
+
+    /**
+     * Get the number of statement lines matched to a row.
+     *
+     * @param row The row of the payment
+     * @return The number of matches
+     */
+    public int getMatchCount(int row) {
+        return matchCounts.get(row);
+    }
+
+    /**
+     * Reset the match counts before a statement run.
+     */
+    public void resetMatches() {
+        matchCounts = new AtomicIntegerArray(rowCount);
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    public long getPaymentId(int row) {
+        return paymentIds[row];
+    }
+
+    public long getAmountCents(int row) {
+        return amountsCents[row];
+    }
+
+    public String getTransactionId(int row) {
+        return new String(idBytes, idOffsets[row], idOffsets[row + 1] - idOffsets[row], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the payments that share a transaction ID with an earlier payment.
+     *
+     * @return Pairs of the indexed payment ID and the duplicate payment ID
+     */
+    public List<long[]> getDuplicatePayments() {
+        return duplicatePayments;
+    }
+
+    private int find(long key, ByteBuffer buffer, int from, int to) {
+        int slot = (int) key & mask;
+        while (slotRows[slot] >= 0) {
+            if (slotKeys[slot] == key && sameId(slotRows[slot], buffer, from, to)) {
+                return slotRows[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean sameId(int row, ByteBuffer buffer, int from, int to) {
+        int offset = idOffsets[row];
+        int length = idOffsets[row + 1] - offset;
+        if (length != to - from) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (idBytes[offset + i] != buffer.get(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(long key, int row) {
+        int slot = (int) key & mask;
+        while (slotRows[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        slotKeys[slot] = key;
+        slotRows[slot] = row;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = slotKeys;
+        int[] oldRows = slotRows;
+        slotKeys = new long[capacity];
+        slotRows = new int[capacity];
+        Arrays.fill(slotRows, -1);
+        mask = capacity - 1;
+        for (int slot = 0; slot < oldRows.length; slot++) {
+            if (oldRows[slot] >= 0) {
+                insert(oldKeys[slot], oldRows[slot]);
+            }
+        }
+    }
+
+    /**
+     * Hash bytes with 64-bit FNV-1a, mixed so the low bits spread well over the table.
+     */
+    private static long hash(byte[] bytes, int from, int to) {
+        return hash(ByteBuffer.wrap(bytes), from, to);
+    }
+
+    private static long hash(ByteBuffer buffer, int from, int to) {
+        long hash = FNV_OFFSET;
+        for (int i = from; i < to; i++) {
+            hash ^= buffer.get(i) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash ^ (hash >>> 32);
+    }
+}
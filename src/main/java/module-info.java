@@ -13,6 +13,7 @@ module com.adminpanel.zmauto {
 
     // Database and ORM dependencies
     requires java.sql;
+    requires jdk.httpserver;
     requires com.zaxxer.hikari;
     requires org.hibernate.orm.core;
     requires jakarta.persistence;
@@ -24,6 +25,7 @@ module com.adminpanel.zmauto {
     opens com.adminpanel.zmauto.util to javafx.fxml;
 
     exports com.adminpanel.zmauto;
+    exports com.adminpanel.zmauto.api;
     exports com.adminpanel.zmauto.controller;
     exports com.adminpanel.zmauto.model;
     exports com.adminpanel.zmauto.service;
@@ -47,7 +47,9 @@ CREATE TABLE IF NOT EXISTS car (
     gps_enabled BOOLEAN,
     rating DECIMAL(3, 2),
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP
+    updated_at TIMESTAMP,
+    INDEX idx_car_next_service (next_service_date),
+    INDEX idx_car_insurance_expiry (insurance_expiry_date)
 );
 
 
@@ -89,6 +91,8 @@ CREATE TABLE IF NOT EXISTS reservations (
     total_cost DECIMAL(10, 2) NOT NULL,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NULL,
+    INDEX idx_reservations_status_start (status, start_date),
+    INDEX idx_reservations_updated (updated_at),
     FOREIGN KEY (user_id) REFERENCES users(user_id),
     FOREIGN KEY (vehicle_id) REFERENCES car (car_id),
     FOREIGN KEY (driver_id) REFERENCES driver (driver_id)
@@ -104,7 +108,123 @@ CREATE TABLE IF NOT EXISTS payments (
     transaction_id VARCHAR(100),
     notes TEXT,
     payment_date TIMESTAMP NOT NULL,
-    FOREIGN KEY (reservation_id) REFERENCES reservations(id)
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NULL,
+    FOREIGN KEY (reservation_id) REFERENCES reservations(id),
+    INDEX idx_payments_date (payment_date),
+    INDEX idx_payments_updated (updated_at)
+);
+
+
+-- Create reservations archive table
+-- Holds finished reservations moved out of the hot table by ArchiveService.
+-- archive_month (yyyymm of end_date) is part of the primary key so the table can be
+-- range-partitioned by month; foreign keys are not allowed on partitioned tables.
+CREATE TABLE IF NOT EXISTS reservations_archive (
+    id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    vehicle_id BIGINT NOT NULL,
+    driver_needed BOOLEAN DEFAULT FALSE,
+    driver_id BIGINT,
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    notes TEXT,
+    total_cost DECIMAL(10, 2) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NULL,
+    archive_month INT NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, archive_month),
+    INDEX idx_reservations_archive_user (user_id, created_at),
+    INDEX idx_reservations_archive_vehicle (vehicle_id, created_at)
+);
+
+-- Create payments archive table
+CREATE TABLE IF NOT EXISTS payments_archive (
+    id BIGINT NOT NULL PRIMARY KEY,
+    reservation_id BIGINT NOT NULL,
+    amount DECIMAL(10, 2) NOT NULL,
+    payment_method VARCHAR(50) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    transaction_id VARCHAR(100),
+    notes TEXT,
+    payment_date TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_payments_archive_reservation (reservation_id),
+    INDEX idx_payments_archive_date (payment_date)
+);
+
+-- Create reservation status history table (audit trail of status transitions)
+CREATE TABLE IF NOT EXISTS reservation_status_history (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    reservation_id BIGINT NOT NULL,
+    from_status VARCHAR(20),
+    to_status VARCHAR(20) NOT NULL,
+    notes TEXT,
+    changed_by VARCHAR(50),
+    changed_at TIMESTAMP(3) NOT NULL,
+    INDEX idx_status_history_reservation (reservation_id, changed_at)
+);
+
+-- Create maintenance block table
+-- One row per blocking due date handled by MaintenanceScheduler. blocked records whether the
+-- scheduler switched the vehicle to MAINTENANCE; such vehicles are released when the window
+-- ends, and a handled due date is never blocked again, so manual overrides stick.
+CREATE TABLE IF NOT EXISTS maintenance_block (
+    car_id BIGINT NOT NULL,
+    kind VARCHAR(20) NOT NULL,
+    due_date DATE NOT NULL,
+    blocked BOOLEAN NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    released_at TIMESTAMP NULL,
+    PRIMARY KEY (car_id, kind, due_date),
+    INDEX idx_maintenance_block_open (blocked, released_at)
+);
+
+-- Create picture blob table
+-- The content of the pictures referred to by blob ID (SHA-256 of the content) from the picture
+-- columns. It is shared by all workstations; each one keeps a local BlobStore as a cache.
+CREATE TABLE IF NOT EXISTS picture_blob (
+    blob_id CHAR(64) NOT NULL PRIMARY KEY,
+    content LONGBLOB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Create dashboard summary tables
+-- Maintained by the service write paths in the same transaction as each change,
+-- and recomputed periodically by KpiService to repair drift.
+CREATE TABLE IF NOT EXISTS kpi_reservation_daily (
+    day DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    reservation_count BIGINT NOT NULL DEFAULT 0,
+    total_cost DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, status)
+);
+
+CREATE TABLE IF NOT EXISTS kpi_payment_daily (
+    day DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    payment_count BIGINT NOT NULL DEFAULT 0,
+    amount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, status)
+);
+
+CREATE TABLE IF NOT EXISTS kpi_reservation_status (
+    status VARCHAR(20) NOT NULL PRIMARY KEY,
+    reservation_count BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS kpi_vehicle_status (
+    rental_status VARCHAR(20) NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    vehicle_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (rental_status, type)
+);
+
+CREATE TABLE IF NOT EXISTS kpi_driver_status (
+    status VARCHAR(20) NOT NULL PRIMARY KEY,
+    driver_count BIGINT NOT NULL DEFAULT 0
 );
 
 
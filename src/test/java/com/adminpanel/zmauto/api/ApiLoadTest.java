@@ -0,0 +1,105 @@
+package com.adminpanel.zmauto.api;
+
+import com.adminpanel.zmauto.util.DatabaseInitializer;
+import com.adminpanel.zmauto.util.DatabaseUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark of sustained API throughput against the configured local database: 64 concurrent clients
+ * for 10 seconds, mixing health checks, conditional vehicle list requests and single vehicle reads.
+ * Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ApiLoadTest {
+
+    private static final int CLIENTS = 64;
+    private static final long DURATION_MILLIS = 10_000;
+
+    private static HttpClient client;
+    private static String baseUrl;
+
+    @BeforeAll
+    public static void startServer() throws IOException {
+        DatabaseInitializer.initialize();
+        ApiServer.start(0);
+        baseUrl = "http://localhost:" + ApiServer.getPort() + "/api/";
+        client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        ApiServer.stop();
+        DatabaseUtil.closePool();
+    }
+
+    @Test
+    public void testSustainedRequestsPerSecond() throws Exception {
+        HttpResponse<String> list = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "vehicles")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, list.statusCode());
+        String etag = list.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> conditional = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "vehicles"))
+                .header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, conditional.statusCode());
+
+        AtomicLong requests = new AtomicLong();
+        AtomicLong notModified = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+        long start = System.nanoTime();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.submit(() -> {
+                    long i = 0;
+                    while (System.currentTimeMillis() < deadline) {
+                        HttpRequest request = switch ((int) (i++ % 4)) {
+                            case 0 -> HttpRequest.newBuilder(URI.create(baseUrl + "health")).build();
+                            case 1 -> HttpRequest.newBuilder(URI.create(baseUrl + "vehicles")).build();
+                            case 2 -> HttpRequest.newBuilder(URI.create(baseUrl + "vehicles"))
+                                    .header("If-None-Match", etag).build();
+                            default -> HttpRequest.newBuilder(URI.create(baseUrl + "vehicles/1")).build();
+                        };
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status == 304) {
+                                notModified.incrementAndGet();
+                            } else if (status >= 500) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException | InterruptedException e) {
+                            errors.incrementAndGet();
+                        }
+                        requests.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d requests in %.1f s with %d clients: %.0f requests/s, %d not modified, %d errors%n",
+                requests.get(), seconds, CLIENTS, requests.get() / seconds, notModified.get(), errors.get());
+
+        assertEquals(0, errors.get());
+        assertTrue(notModified.get() > 0);
+    }
+}
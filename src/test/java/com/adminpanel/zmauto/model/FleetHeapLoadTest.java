@@ -0,0 +1,125 @@
+package com.adminpanel.zmauto.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures the retained heap of 100k vehicles and 100k drivers as the services build them from
+ * result sets, where every row brings its own String and date instances. Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class FleetHeapLoadTest {
+
+    private static final int COUNT = 100_000;
+
+    private static final String[] MAKES = {"Toyota", "Honda", "Ford", "BMW", "Audi", "Kia", "Hyundai", "Nissan"};
+    private static final String[] MODELS = {"Corolla", "Civic", "Focus", "X3", "A4", "Rio", "Tucson", "Leaf"};
+    private static final String[] COLORS = {"White", "Black", "Silver", "Blue", "Red", "Grey"};
+    private static final String[] TYPES = {"SEDAN", "SUV", "HATCHBACK", "VAN"};
+    private static final String[] STATUSES = {"AVAILABLE", "RESERVED", "MAINTENANCE"};
+
+    @Test
+    public void testVehicleHeap() {
+        long bytes = measure(i -> {
+            Vehicle vehicle = new Vehicle();
+            vehicle.setId((long) i + 1);
+            vehicle.setLicensePlate(copy("ZM-" + i));
+            vehicle.setMake(copy(MAKES[i % MAKES.length]));
+            vehicle.setCondition(copy(i % 3 == 0 ? "GOOD" : "EXCELLENT"));
+            vehicle.setModel(copy(MODELS[i % MODELS.length]));
+            vehicle.setMileage(10_000 + i % 90_000);
+            vehicle.setType(copy(TYPES[i % TYPES.length]));
+            vehicle.setYear(2015 + i % 10);
+            vehicle.setColor(copy(COLORS[i % COLORS.length]));
+            vehicle.setTransmission(copy(i % 2 == 0 ? "AUTOMATIC" : "MANUAL"));
+            vehicle.setFuel(copy(i % 4 == 0 ? "ELECTRIC" : "PETROL"));
+            vehicle.setSeatingCapacity(5);
+            vehicle.setDailyRate(40.0 + i % 60);
+            vehicle.setHourlyRate(5.0 + i % 10);
+            vehicle.setStatus(copy(STATUSES[i % STATUSES.length]));
+            vehicle.setLastServiceDate(java.sql.Date.valueOf(LocalDate.of(2024, 1, 1).plusDays(i % 365)));
+            vehicle.setNextServiceDate(java.sql.Date.valueOf(LocalDate.of(2025, 1, 1).plusDays(i % 365)));
+            vehicle.setInsuranceExpiryDate(java.sql.Date.valueOf(LocalDate.of(2025, 6, 1).plusDays(i % 365)));
+            vehicle.setGpsEnabled(i % 2 == 0);
+            vehicle.setRating(3.0 + (i % 20) / 10.0);
+            vehicle.setCreatedAt(new java.sql.Timestamp(1_700_000_000_000L + i * 1000L));
+            vehicle.setUpdatedAt(new java.sql.Timestamp(1_700_000_000_000L + i * 2000L));
+            return vehicle;
+        });
+        System.out.printf("Heap per 100k vehicles: %.1f MB (%d bytes per vehicle)%n",
+                bytes * 100_000.0 / COUNT / 1_048_576, bytes / COUNT);
+
+        Vehicle vehicle = (Vehicle) sample;
+        assertEquals(LocalDate.of(2024, 1, 1).plusDays((COUNT - 1) % 365),
+                new java.sql.Date(vehicle.getLastServiceDate().getTime()).toLocalDate());
+    }
+
+    @Test
+    public void testDriverHeap() {
+        long bytes = measure(i -> {
+            Driver driver = new Driver();
+            driver.setDriverId((long) i + 1);
+            driver.setFirstName(copy("First" + i % 500));
+            driver.setLastName(copy("Last" + i % 2000));
+            driver.setBirthday(LocalDate.of(1970, 1, 1).plusDays(i % 12_000));
+            driver.setPhoneNumber(copy("+216" + (20_000_000 + i)));
+            driver.setEmail(copy("driver" + i + "@zm.tn"));
+            driver.setDailyWage(50.0 + i % 30);
+            driver.setHourlyWage(8.0 + i % 5);
+            driver.setAvailability(i % 3 != 0);
+            driver.setStatus(copy(i % 10 == 0 ? "ON_LEAVE" : "ACTIVE"));
+            driver.setYearsOfExperience(i % 30);
+            driver.setCarId(i % 4 == 0 ? null : (long) i);
+            driver.setRating(3.0 + (i % 20) / 10.0);
+            driver.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(i));
+            driver.setUpdatedAt(LocalDateTime.of(2024, 6, 1, 0, 0).plusSeconds(i));
+            return driver;
+        });
+        System.out.printf("Heap per 100k drivers: %.1f MB (%d bytes per driver)%n",
+                bytes * 100_000.0 / COUNT / 1_048_576, bytes / COUNT);
+
+        Driver driver = (Driver) sample;
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(COUNT - 1), driver.getCreatedAt());
+    }
+
+    private static Object sample;
+
+    /**
+     * Build COUNT objects and return the heap they retain.
+     */
+    private static long measure(IntFunction<Object> factory) {
+        long before = usedHeap();
+        List<Object> objects = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            objects.add(factory.apply(i));
+        }
+        long after = usedHeap();
+        sample = objects.get(COUNT - 1);
+        assertEquals(COUNT, objects.size());
+        // The list's own array is not part of the objects
+        return after - before - (long) COUNT * 4;
+    }
+
+    /**
+     * A fresh copy, as a JDBC driver returns for every row.
+     */
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
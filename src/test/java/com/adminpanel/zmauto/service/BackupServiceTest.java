@@ -0,0 +1,191 @@
+package com.adminpanel.zmauto.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for backing up and restoring the tables, on in-memory H2 databases in MySQL mode.
+ */
+public class BackupServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFullAndIncrementalBackupRestore() throws SQLException, IOException, InterruptedException {
+        String source = "jdbc:h2:mem:backup-source;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        String target = "jdbc:h2:mem:backup-target;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        createSchema(source);
+        createSchema(target);
+
+        execute(source,
+                "INSERT INTO users (user_id, username, created_at) VALUES (1, 'admin', TIMESTAMP '2024-01-01 10:00:00')",
+                "INSERT INTO car (car_id, license_plate, `condition`, rental_price_per_day, gps_enabled, last_service_date, created_at) " +
+                "VALUES (1, 'ZM-1', 'GOOD', 45.50, TRUE, DATE '2024-02-03', TIMESTAMP '2024-01-01 10:00:00')",
+                "INSERT INTO driver (driver_id, first_name, car_id, created_at) VALUES (1, 'Sami', NULL, TIMESTAMP '2024-01-01 10:00:00')");
+        StringBuilder reservations = new StringBuilder("INSERT INTO reservations (id, user_id, vehicle_id, notes, total_cost, created_at) VALUES ");
+        for (int i = 1; i <= 2500; i++) {
+            reservations.append(i > 1 ? ", " : "").append("(").append(i).append(", 1, 1, ")
+                    .append(i % 3 == 0 ? "NULL" : "'note " + i + " é'").append(", ").append(i).append(".25, TIMESTAMP '2024-01-01 10:00:00.123456')");
+        }
+        execute(source, reservations.toString(),
+                "INSERT INTO payments (id, reservation_id, amount, payment_date) VALUES (1, 1, 1.25, TIMESTAMP '2024-01-02 10:00:00')",
+                "INSERT INTO payments (id, reservation_id, amount, payment_date) VALUES (2, 1, 2.50, TIMESTAMP '2024-01-02 10:00:00')",
+                "INSERT INTO reservations_archive (id, archive_month, total_cost, archived_at) " +
+                "VALUES (9001, 202301, 10.00, TIMESTAMP '2024-01-01 10:00:00')",
+                "INSERT INTO reservation_status_history (id, reservation_id, to_status, changed_at) " +
+                "VALUES (1, 1, 'APPROVED', TIMESTAMP '2024-01-01 10:00:00.123')",
+                "INSERT INTO picture_blob (blob_id, content, created_at) VALUES ('" + "ab".repeat(32) + "', X'00FF10', TIMESTAMP '2024-01-01 10:00:00')");
+
+        BackupService sourceService = new BackupService(() -> DriverManager.getConnection(source));
+        BackupService targetService = new BackupService(() -> DriverManager.getConnection(target));
+
+        Path full = tempDir.resolve("full");
+        Map<String, Long> backedUp = sourceService.backup(full, null);
+        assertEquals(2500L, backedUp.get("reservations"));
+
+        Thread.sleep(5);
+        execute(source,
+                "UPDATE reservations SET total_cost = 99.99, updated_at = CURRENT_TIMESTAMP WHERE id = 7",
+                "UPDATE payments SET amount = 0.00, updated_at = CURRENT_TIMESTAMP WHERE id = 2",
+                "INSERT INTO reservations (id, user_id, vehicle_id, total_cost, created_at) VALUES (2501, 1, 1, 5.00, CURRENT_TIMESTAMP)");
+        Path incremental = tempDir.resolve("incremental");
+        Map<String, Long> changed = sourceService.backup(incremental, full);
+        assertEquals(2L, changed.get("reservations"));
+        assertEquals(0L, changed.get("users"));
+        assertEquals(1L, changed.get("payments"));
+
+        assertEquals(2500L, targetService.restore(full).get("reservations"));
+        targetService.restore(incremental);
+
+        assertEquals(query(source, "SELECT COUNT(*), SUM(total_cost), MAX(created_at), COUNT(notes) FROM reservations"),
+                query(target, "SELECT COUNT(*), SUM(total_cost), MAX(created_at), COUNT(notes) FROM reservations"));
+        assertEquals("ZM-1|GOOD|45.50|TRUE|2024-02-03", query(target,
+                "SELECT license_plate, `condition`, rental_price_per_day, gps_enabled, last_service_date FROM car"));
+        assertEquals("1.25|0.00", query(target, "SELECT amount FROM payments ORDER BY id"));
+        assertEquals("note 8 é", query(target, "SELECT notes FROM reservations WHERE id = 8"));
+        assertEquals("1|null", query(target, "SELECT driver_id, car_id FROM driver"));
+        assertEquals("9001|202301", query(target, "SELECT id, archive_month FROM reservations_archive"));
+        assertEquals("2024-01-01 10:00:00.123", query(target, "SELECT changed_at FROM reservation_status_history"));
+        assertEquals("00ff10", query(target, "SELECT RAWTOHEX(content) FROM picture_blob"));
+    }
+
+    @Test
+    public void testArchivedRowsAreRemovedOnRestore() throws SQLException, IOException, InterruptedException {
+        String source = "jdbc:h2:mem:backup-archive-source;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        String target = "jdbc:h2:mem:backup-archive-target;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        createSchema(source);
+        createSchema(target);
+
+        execute(source,
+                "INSERT INTO users (user_id, username, created_at) VALUES (1, 'admin', TIMESTAMP '2024-01-01 10:00:00')",
+                "INSERT INTO car (car_id, license_plate, created_at) VALUES (1, 'ZM-1', TIMESTAMP '2024-01-01 10:00:00')",
+                "INSERT INTO reservations (id, user_id, vehicle_id, total_cost, created_at) " +
+                "VALUES (1, 1, 1, 10.00, TIMESTAMP '2024-01-01 10:00:00'), (2, 1, 1, 20.00, TIMESTAMP '2024-01-01 10:00:00')",
+                "INSERT INTO payments (id, reservation_id, amount, payment_date, created_at) " +
+                "VALUES (1, 1, 10.00, TIMESTAMP '2024-01-02 10:00:00', TIMESTAMP '2024-01-02 10:00:00'), " +
+                "(2, 2, 20.00, TIMESTAMP '2024-01-02 10:00:00', TIMESTAMP '2024-01-02 10:00:00')");
+
+        BackupService sourceService = new BackupService(() -> DriverManager.getConnection(source));
+        BackupService targetService = new BackupService(() -> DriverManager.getConnection(target));
+
+        Path full = tempDir.resolve("full");
+        sourceService.backup(full, null);
+
+        // Archive reservation 1 with its payment, as ArchiveService does
+        Thread.sleep(5);
+        execute(source,
+                "INSERT INTO reservations_archive (id, archive_month, total_cost, archived_at) " +
+                "SELECT id, 202401, total_cost, CURRENT_TIMESTAMP FROM reservations WHERE id = 1",
+                "INSERT INTO payments_archive (id, amount, archived_at) " +
+                "SELECT id, amount, CURRENT_TIMESTAMP FROM payments WHERE reservation_id = 1",
+                "DELETE FROM payments WHERE reservation_id = 1",
+                "DELETE FROM reservations WHERE id = 1");
+        Path incremental = tempDir.resolve("incremental");
+        sourceService.backup(incremental, full);
+
+        targetService.restore(full);
+        targetService.restore(incremental);
+
+        assertEquals("2", query(target, "SELECT id FROM reservations"));
+        assertEquals("2", query(target, "SELECT id FROM payments"));
+        assertEquals("1", query(target, "SELECT id FROM reservations_archive"));
+        assertEquals("1|10.00", query(target, "SELECT id, amount FROM payments_archive"));
+    }
+
+    @Test
+    public void testCorruptBackupIsRejected() throws SQLException, IOException {
+        String source = "jdbc:h2:mem:backup-corrupt;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        createSchema(source);
+        execute(source, "INSERT INTO users (user_id, username, created_at) VALUES (1, 'admin', CURRENT_TIMESTAMP)");
+        BackupService service = new BackupService(() -> DriverManager.getConnection(source));
+        Path backup = tempDir.resolve("corrupt");
+        service.backup(backup, null);
+
+        try (RandomAccessFile file = new RandomAccessFile(backup.resolve("users.zmb").toFile(), "rw")) {
+            file.seek(file.length() - 6);
+            file.write(0x5A);
+        }
+        assertThrows(IOException.class, () -> service.restore(backup));
+        assertThrows(IOException.class, () -> service.restore(tempDir.resolve("missing")));
+    }
+
+    private static void createSchema(String url) throws SQLException {
+        execute(url,
+                "CREATE TABLE users (user_id BIGINT PRIMARY KEY, username VARCHAR(50), created_at TIMESTAMP, updated_at TIMESTAMP)",
+                "CREATE TABLE car (car_id BIGINT PRIMARY KEY, license_plate VARCHAR(20), `condition` VARCHAR(50), " +
+                "rental_price_per_day DECIMAL(10, 2), gps_enabled BOOLEAN, last_service_date DATE, " +
+                "created_at TIMESTAMP, updated_at TIMESTAMP)",
+                "CREATE TABLE driver (driver_id BIGINT PRIMARY KEY, first_name VARCHAR(50), car_id BIGINT, " +
+                "created_at TIMESTAMP, updated_at TIMESTAMP, FOREIGN KEY (car_id) REFERENCES car (car_id))",
+                "CREATE TABLE reservations (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, vehicle_id BIGINT NOT NULL, " +
+                "notes TEXT, total_cost DECIMAL(10, 2) NOT NULL, created_at TIMESTAMP, updated_at TIMESTAMP, " +
+                "FOREIGN KEY (user_id) REFERENCES users (user_id), FOREIGN KEY (vehicle_id) REFERENCES car (car_id))",
+                "CREATE TABLE payments (id BIGINT PRIMARY KEY, reservation_id BIGINT NOT NULL, amount DECIMAL(10, 2), " +
+                "payment_date TIMESTAMP, created_at TIMESTAMP, updated_at TIMESTAMP, " +
+                "FOREIGN KEY (reservation_id) REFERENCES reservations (id))",
+                "CREATE TABLE reservations_archive (id BIGINT, archive_month INT, total_cost DECIMAL(10, 2), " +
+                "archived_at TIMESTAMP, PRIMARY KEY (id, archive_month))",
+                "CREATE TABLE payments_archive (id BIGINT PRIMARY KEY, amount DECIMAL(10, 2), archived_at TIMESTAMP)",
+                "CREATE TABLE reservation_status_history (id BIGINT PRIMARY KEY, reservation_id BIGINT, " +
+                "to_status VARCHAR(20), changed_at TIMESTAMP(3))",
+                "CREATE TABLE maintenance_block (car_id BIGINT, kind VARCHAR(20), due_date DATE, blocked BOOLEAN, " +
+                "created_at TIMESTAMP, released_at TIMESTAMP, PRIMARY KEY (car_id, kind, due_date))",
+                "CREATE TABLE picture_blob (blob_id CHAR(64) PRIMARY KEY, content LONGBLOB NOT NULL, created_at TIMESTAMP)");
+    }
+
+    private static void execute(String url, String... statements) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    private static String query(String url, String sql) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            StringBuilder result = new StringBuilder();
+            while (rs.next()) {
+                for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                    result.append(result.length() > 0 ? "|" : "").append(rs.getString(i));
+                }
+            }
+            return result.toString();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.UtilizationReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark of the utilization computation for 10,000 vehicles with five years of reservations.
+ * Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class FleetAnalyticsLoadTest {
+
+    private static final int VEHICLES = 10_000;
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 12, 31);
+
+    @Test
+    public void testFiveYearsForTenThousandVehicles() {
+        String[] types = {"Sedan", "SUV", "Van", "Hatchback", "Truck"};
+        Random random = new Random(42);
+
+        long buildStart = System.nanoTime();
+        FleetAnalyticsService.FleetData.Builder builder = new FleetAnalyticsService.FleetData.Builder();
+        int reservations = 0;
+        for (int v = 1; v <= VEHICLES; v++) {
+            builder.addVehicle(v, "Vehicle " + v, types[v % types.length], START.minusDays(random.nextInt(60)));
+
+            // Back-to-back rentals of 1-14 days with idle gaps of 0-10 days
+            LocalDate day = START.plusDays(random.nextInt(10));
+            while (day.isBefore(END)) {
+                LocalDate end = day.plusDays(random.nextInt(14));
+                builder.addReservation(v, day, end, 50.0 * (end.toEpochDay() - day.toEpochDay() + 1));
+                reservations++;
+                day = end.plusDays(1 + random.nextInt(11));
+            }
+        }
+        FleetAnalyticsService.FleetData data = builder.build();
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        // Warm up, then measure
+        for (int i = 0; i < 3; i++) {
+            FleetAnalyticsService.compute(data, START, END);
+        }
+        int runs = 10;
+        long computeStart = System.nanoTime();
+        UtilizationReport report = null;
+        for (int i = 0; i < runs; i++) {
+            report = FleetAnalyticsService.compute(data, START, END);
+        }
+        double computeMillis = (System.nanoTime() - computeStart) / 1_000_000.0 / runs;
+
+        System.out.printf("Fleet analytics: %d vehicles, %d reservations, build %d ms, compute %.1f ms%n",
+                VEHICLES, reservations, buildMillis, computeMillis);
+
+        assertEquals(VEHICLES, report.getByVehicle().size());
+        assertTrue(report.getFleet().getUtilization() > 0.4 && report.getFleet().getUtilization() < 0.8);
+    }
+}
@@ -0,0 +1,78 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.UtilizationReport;
+import com.adminpanel.zmauto.model.UtilizationStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the utilization computation of the fleet analytics.
+ */
+public class FleetAnalyticsServiceTest {
+
+    private static final LocalDate JAN_1 = LocalDate.of(2024, 1, 1);
+    private static final LocalDate JAN_31 = LocalDate.of(2024, 1, 31);
+
+    @Test
+    public void testOverlappingReservationsCountOnce() {
+        FleetAnalyticsService.FleetData data = new FleetAnalyticsService.FleetData.Builder()
+                .addVehicle(1, "Toyota Camry (ABC123)", "Sedan", LocalDate.of(2023, 1, 1))
+                .addReservation(1, LocalDate.of(2024, 1, 5), LocalDate.of(2024, 1, 9), 500)
+                .addReservation(1, LocalDate.of(2024, 1, 8), LocalDate.of(2024, 1, 12), 500)
+                .addReservation(1, LocalDate.of(2024, 1, 13), LocalDate.of(2024, 1, 13), 100)
+                .build();
+
+        UtilizationStats stats = FleetAnalyticsService.compute(data, JAN_1, JAN_31).getByVehicle().get(0);
+
+        assertEquals(31, stats.getAvailableDays());
+        assertEquals(9, stats.getBookedDays());
+        assertEquals(22, stats.getIdleDays());
+        assertEquals(1100, stats.getRevenue(), 0.001);
+    }
+
+    @Test
+    public void testReservationsAreClippedToPeriodAndFleetDate() {
+        FleetAnalyticsService.FleetData data = new FleetAnalyticsService.FleetData.Builder()
+                .addVehicle(1, "Honda Civic (DEF456)", "Sedan", LocalDate.of(2024, 1, 11))
+                .addReservation(1, LocalDate.of(2024, 1, 21), LocalDate.of(2024, 2, 9), 2000)
+                .build();
+
+        UtilizationStats stats = FleetAnalyticsService.compute(data, JAN_1, JAN_31).getByVehicle().get(0);
+
+        assertEquals(21, stats.getAvailableDays());
+        assertEquals(11, stats.getBookedDays());
+        assertEquals(1100, stats.getRevenue(), 0.001);
+        assertEquals(1100.0 / 21, stats.getRevenuePerAvailableDay(), 0.001);
+    }
+
+    @Test
+    public void testGroupsByType() {
+        FleetAnalyticsService.FleetData data = new FleetAnalyticsService.FleetData.Builder()
+                .addVehicle(1, "A", "SUV", LocalDate.of(2023, 1, 1))
+                .addVehicle(2, "B", "SUV", LocalDate.of(2023, 1, 1))
+                .addVehicle(3, "C", "Van", LocalDate.of(2023, 1, 1))
+                .addVehicle(4, "D", "Van", LocalDate.of(2024, 3, 1))
+                .addReservation(2, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), 3100)
+                .addReservation(3, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 10), 1000)
+                .addReservation(99, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 10), 1000)
+                .build();
+
+        UtilizationReport report = FleetAnalyticsService.compute(data, JAN_1, JAN_31);
+
+        assertEquals(3, report.getByVehicle().size());
+        assertEquals(2, report.getByType().size());
+
+        UtilizationStats suv = report.getByType().get(0);
+        assertEquals("SUV", suv.getLabel());
+        assertEquals(2, suv.getVehicleCount());
+        assertEquals(0.5, suv.getUtilization(), 0.001);
+
+        UtilizationStats fleet = report.getFleet();
+        assertEquals(93, fleet.getAvailableDays());
+        assertEquals(41, fleet.getBookedDays());
+        assertEquals(4100, fleet.getRevenue(), 0.001);
+    }
+}
@@ -0,0 +1,66 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.RevenueLine;
+import com.adminpanel.zmauto.model.RevenueReport;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the revenue aggregation and export of the payment service.
+ */
+public class PaymentServiceTest {
+
+    private static final LocalDate JAN_1 = LocalDate.of(2024, 1, 1);
+    private static final LocalDate JAN_2 = LocalDate.of(2024, 1, 2);
+
+    private static RevenueReport sampleReport() {
+        PaymentService.RevenueAccumulator accumulator = new PaymentService.RevenueAccumulator();
+        accumulator.add(JAN_2, 1, 7L, "CARD", 300);
+        accumulator.add(JAN_1, 1, null, "CASH", 100);
+        accumulator.add(JAN_1, 2, 7L, "CARD", 50);
+        return accumulator.build(JAN_1, JAN_2,
+                Map.of(1L, "Toyota Camry (ABC123)", 2L, "Honda Civic, Sport (DEF456)"),
+                Map.of(7L, "John Smith"));
+    }
+
+    @Test
+    public void testPaymentsAreFoldedIntoEveryBreakdown() {
+        RevenueReport report = sampleReport();
+
+        assertEquals(3, report.getTotal().getPaymentCount());
+        assertEquals(450, report.getTotal().getAmount(), 0.001);
+
+        assertEquals(2, report.getByDay().size());
+        assertEquals("2024-01-01", report.getByDay().get(0).getKey());
+        assertEquals(150, report.getByDay().get(0).getAmount(), 0.001);
+
+        RevenueLine topVehicle = report.getByVehicle().get(0);
+        assertEquals("Toyota Camry (ABC123)", topVehicle.getLabel());
+        assertEquals(2, topVehicle.getPaymentCount());
+        assertEquals(200, topVehicle.getAverageAmount(), 0.001);
+
+        // The cash payment had no driver
+        assertEquals(1, report.getByDriver().size());
+        assertEquals(350, report.getByDriver().get(0).getAmount(), 0.001);
+
+        assertEquals("CARD", report.getByMethod().get(0).getKey());
+        assertEquals(350, report.getByMethod().get(0).getAmount(), 0.001);
+    }
+
+    @Test
+    public void testExportQuotesLabelsWithCommas() throws IOException {
+        StringWriter writer = new StringWriter();
+        new PaymentService().exportRevenueReport(sampleReport(), writer);
+
+        String csv = writer.toString();
+        assertTrue(csv.startsWith("Breakdown,Key,Label,Payments,Amount\n"));
+        assertTrue(csv.contains("Total,,All payments,3,450.00\n"));
+        assertTrue(csv.contains("Vehicle,2,\"Honda Civic, Sport (DEF456)\",1,50.00\n"));
+    }
+}
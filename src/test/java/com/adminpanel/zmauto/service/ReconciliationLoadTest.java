@@ -0,0 +1,66 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ReconciliationIssue.Kind;
+import com.adminpanel.zmauto.model.ReconciliationReport;
+import com.adminpanel.zmauto.util.TransactionIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark of reconciling four statement files of 2,000,000 lines each against 8,000,000 payments.
+ * Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ReconciliationLoadTest {
+
+    private static final int FILES = 4;
+    private static final int LINES_PER_FILE = 2_000_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testEightMillionStatementLines() throws IOException {
+        long buildStart = System.nanoTime();
+        TransactionIndex index = new TransactionIndex(FILES * LINES_PER_FILE);
+        for (int i = 0; i < FILES * LINES_PER_FILE; i++) {
+            index.add(i, "TRX" + i, 1000 + i % 50000);
+        }
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        List<Path> files = new ArrayList<>();
+        for (int f = 0; f < FILES; f++) {
+            Path file = tempDir.resolve("statement-" + f + ".csv");
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                writer.write("booking_date,reference,counterparty,amount\n");
+                for (int i = f * LINES_PER_FILE; i < (f + 1) * LINES_PER_FILE; i++) {
+                    long cents = 1000 + i % 50000 + (i % 1000 == 0 ? 1 : 0);
+                    writer.write("2024-01-15,TRX" + i + ",\"Customer, " + i + "\"," + cents / 100 + "." +
+                            String.format("%02d", cents % 100) + "\n");
+                }
+            }
+            files.add(file);
+        }
+
+        ReconciliationReport report = ReconciliationService.reconcile(index, files);
+        double linesPerSecond = report.getStatementLines() * 1000.0 / Math.max(1, report.getElapsedMillis());
+        System.out.printf("Index of %d payments built in %d ms; reconciled %d lines in %d ms (%.1fM lines/s, %d cores)%n",
+                index.size(), buildMillis, report.getStatementLines(), report.getElapsedMillis(),
+                linesPerSecond / 1_000_000, Runtime.getRuntime().availableProcessors());
+
+        assertEquals(FILES * LINES_PER_FILE, report.getStatementLines());
+        assertEquals(FILES * LINES_PER_FILE / 1000, report.getIssueCount(Kind.AMOUNT_MISMATCH));
+        assertEquals(0, report.getIssueCount(Kind.MISSING));
+        assertTrue(linesPerSecond > 1_000_000, "Expected at least 1M lines/s");
+    }
+}
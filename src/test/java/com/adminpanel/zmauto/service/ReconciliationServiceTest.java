@@ -0,0 +1,98 @@
+package com.adminpanel.zmauto.service;
+
+import com.adminpanel.zmauto.model.ReconciliationIssue;
+import com.adminpanel.zmauto.model.ReconciliationIssue.Kind;
+import com.adminpanel.zmauto.model.ReconciliationReport;
+import com.adminpanel.zmauto.util.TransactionIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for matching bank statements against payments.
+ */
+public class ReconciliationServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testStatementsAreMatchedAcrossFiles() throws IOException {
+        TransactionIndex index = new TransactionIndex(4);
+        index.add(1, "TX-1", 10000);
+        index.add(2, "TX-2", 2550);
+        index.add(3, "TX-3", 4000);
+        index.add(4, "TX-4", 999);
+        index.add(5, "TX-4", 999);
+
+        Path january = Files.writeString(tempDir.resolve("january.csv"),
+                "date,reference,amount\r\n" +
+                "2024-01-03,TX-1,100.00\r\n" +
+                "2024-01-04,\"TX-2\",\"25.5\"\r\n" +
+                "2024-01-05,TX-9,12.00\r\n");
+        Path february = Files.writeString(tempDir.resolve("february.csv"),
+                "Transaction_ID;Amount\n" +
+                "TX-3;41.00\n" +
+                "TX-1;100.00\n" +
+                "TX-4;abc\n");
+
+        ReconciliationReport report = ReconciliationService.reconcile(index, List.of(january, february));
+
+        assertEquals(6, report.getStatementLines());
+        assertEquals(2, report.getMatched());
+        assertEquals(1, report.getIssueCount(Kind.AMOUNT_MISMATCH));
+        assertEquals(1, report.getIssueCount(Kind.UNKNOWN));
+        assertEquals(1, report.getIssueCount(Kind.MALFORMED));
+        // TX-4 never matched because its line was malformed
+        assertEquals(1, report.getIssueCount(Kind.MISSING));
+        // TX-1 on two statements, and two payments with TX-4
+        assertEquals(2, report.getIssueCount(Kind.DUPLICATE));
+
+        ReconciliationIssue mismatch = report.getIssues().stream()
+                .filter(issue -> issue.getKind() == Kind.AMOUNT_MISMATCH).findFirst().orElseThrow();
+        assertEquals(3L, mismatch.getPaymentId());
+        assertEquals(41.0, mismatch.getStatementAmount(), 0.001);
+    }
+
+    @Test
+    public void testAmountsAreParsedToCents() {
+        assertEquals(123456, cents("1,234.56"));
+        assertEquals(-1250, cents("-12.5"));
+        assertEquals(700, cents("7"));
+        assertEquals(Long.MIN_VALUE, cents("1.234"));
+        assertEquals(Long.MIN_VALUE, cents("12a"));
+        assertEquals(Long.MIN_VALUE, cents(""));
+    }
+
+    @Test
+    public void testDecimalCommaDependsOnStatement() {
+        assertEquals(1250, cents("12,50", ','));
+        assertEquals(123456, cents("1.234,56", ','));
+        assertEquals(123400, cents("1.234", ','));
+        assertEquals(4100, cents("41.00", ','));
+        // Three digits after the statement's decimal separator are not a valid amount
+        assertEquals(Long.MIN_VALUE, cents("1,234", ','));
+        assertEquals(123400, cents("1,234", '.'));
+        // Groups must have three digits, and the decimal separator cannot also group
+        assertEquals(Long.MIN_VALUE, cents("1,23,456", '.'));
+        assertEquals(Long.MIN_VALUE, cents("1,234,56", ','));
+        assertEquals(Long.MIN_VALUE, cents("1.234.56", '.'));
+    }
+
+    private static long cents(String amount) {
+        return cents(amount, '.');
+    }
+
+    private static long cents(String amount, char decimalSeparator) {
+        byte[] bytes = amount.getBytes(StandardCharsets.UTF_8);
+        return ReconciliationService.parseCents(ByteBuffer.wrap(bytes), 0, bytes.length, (byte) decimalSeparator);
+    }
+}
@@ -0,0 +1,65 @@
+package com.adminpanel.zmauto.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlobStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void testSameContentIsStoredOnce() throws IOException {
+        BlobStore store = new BlobStore(root);
+        byte[] content = "picture".getBytes(StandardCharsets.UTF_8);
+
+        String first = store.put(new ByteArrayInputStream(content));
+        String second = store.put(new ByteArrayInputStream(content));
+
+        assertEquals(first, second);
+        assertTrue(BlobStore.isBlobId(first));
+        assertEquals(root.resolve(first.substring(0, 2)).resolve(first.substring(2, 4)).resolve(first), store.resolve(first));
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(content.length, store.transferTo(first, Channels.newChannel(out)));
+        assertArrayEquals(content, out.toByteArray());
+        assertEquals('p', store.map(first).get(0));
+    }
+
+    @Test
+    public void testSweepDeletesOldUnreferencedBlobs() throws IOException {
+        BlobStore store = new BlobStore(root);
+        String kept = store.put(new ByteArrayInputStream(new byte[]{1}));
+        String unreferenced = store.put(new ByteArrayInputStream(new byte[]{2}));
+        String recent = store.put(new ByteArrayInputStream(new byte[]{3}));
+
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofDays(2)));
+        Files.setLastModifiedTime(store.resolve(kept), old);
+        Files.setLastModifiedTime(store.resolve(unreferenced), old);
+
+        assertEquals(1, store.sweep(Set.of(kept), Duration.ofDays(1)));
+        assertTrue(store.contains(kept));
+        assertTrue(store.contains(recent));
+        assertFalse(store.contains(unreferenced));
+        assertThrows(NoSuchFileException.class, () -> store.resolve(unreferenced));
+    }
+}
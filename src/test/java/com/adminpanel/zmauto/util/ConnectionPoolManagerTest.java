@@ -0,0 +1,24 @@
+package com.adminpanel.zmauto.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolManagerTest {
+
+    @Test
+    public void testGrowsWhenCallersWait() {
+        assertEquals(15, ConnectionPoolManager.nextPoolSize(10, 50, 0, false, 20, 4, 30));
+        assertEquals(15, ConnectionPoolManager.nextPoolSize(10, 0, 1, false, 20, 4, 30));
+        assertEquals(2, ConnectionPoolManager.nextPoolSize(1, 50, 0, false, 20, 1, 30));
+        assertEquals(6, ConnectionPoolManager.nextPoolSize(4, 50, 0, false, 20, 4, 30));
+        assertEquals(30, ConnectionPoolManager.nextPoolSize(28, 50, 3, false, 20, 4, 30));
+    }
+
+    @Test
+    public void testShrinksOnlyWhenQuiet() {
+        assertEquals(10, ConnectionPoolManager.nextPoolSize(10, 5, 0, false, 20, 4, 30));
+        assertEquals(9, ConnectionPoolManager.nextPoolSize(10, 5, 0, true, 20, 4, 30));
+        assertEquals(4, ConnectionPoolManager.nextPoolSize(4, 0, 0, true, 20, 4, 30));
+    }
+}
@@ -4,6 +4,14 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 /**
  * A simple test class to verify that the database initialization works correctly.
  */
@@ -35,4 +43,64 @@ public class DatabaseInitializerTest {
             throw new RuntimeException("Database initialization failed", e);
         }
     }
+
+    @Test
+    public void testEmbeddedSchema() throws Exception {
+        String url = "jdbc:h2:mem:initializer";
+        Properties properties = DatabaseUtil.getDriverProfile(url);
+        properties.setProperty("user", "sa");
+
+        try (Connection conn = DriverManager.getConnection(url, properties)) {
+            // The script must run on the embedded database, and run again on every start
+            DatabaseInitializer.initialize(conn);
+            DatabaseInitializer.initialize(conn);
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users")) {
+                rs.next();
+                assertEquals(2, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    public void testExistingTablesAreUpgraded() throws Exception {
+        String url = "jdbc:h2:mem:initializer-upgrade";
+        Properties properties = DatabaseUtil.getDriverProfile(url);
+        properties.setProperty("user", "sa");
+
+        try (Connection conn = DriverManager.getConnection(url, properties)) {
+            // The payments table as first released, without created_at and updated_at
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE payments (id BIGINT AUTO_INCREMENT PRIMARY KEY, reservation_id BIGINT NOT NULL, " +
+                             "amount DECIMAL(10, 2) NOT NULL, payment_method VARCHAR(50) NOT NULL, status VARCHAR(20) NOT NULL, " +
+                             "transaction_id VARCHAR(100), notes TEXT, payment_date TIMESTAMP NOT NULL)");
+            }
+            DatabaseInitializer.initialize(conn);
+            DatabaseInitializer.initialize(conn);
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM payments WHERE created_at IS NOT NULL AND updated_at IS NULL")) {
+                rs.next();
+                assertEquals(1, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    public void testSchemaWithoutSampleData() throws Exception {
+        String url = "jdbc:h2:mem:initializer-schema";
+        Properties properties = DatabaseUtil.getDriverProfile(url);
+        properties.setProperty("user", "sa");
+
+        try (Connection conn = DriverManager.getConnection(url, properties)) {
+            DatabaseInitializer.createSchema(conn);
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT (SELECT COUNT(*) FROM users) + (SELECT COUNT(*) FROM car)")) {
+                rs.next();
+                assertEquals(0, rs.getInt(1));
+            }
+        }
+    }
 }
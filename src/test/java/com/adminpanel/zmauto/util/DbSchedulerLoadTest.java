@@ -0,0 +1,96 @@
+package com.adminpanel.zmauto.util;
+
+import com.adminpanel.zmauto.util.DbScheduler.Lane;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark of interactive connection latency against a simulated pool of 10 connections while
+ * bulk jobs (exports holding a connection for 500 ms at a time) and background jobs compete for it,
+ * with lane limits and without them. Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class DbSchedulerLoadTest {
+
+    private static final int POOL_SIZE = 10;
+    private static final long DURATION_MILLIS = 5000;
+
+    @Test
+    public void testInteractiveLatencyUnderBulkLoad() throws Exception {
+        double[] unlimited = run(new DbScheduler(100, 100, 60_000));
+        double[] scheduled = run(new DbScheduler(2, 1, 60_000));
+
+        System.out.printf("Interactive wait without lanes: p50 %.1f ms, p99 %.1f ms%n", unlimited[0], unlimited[1]);
+        System.out.printf("Interactive wait with lanes:    p50 %.1f ms, p99 %.1f ms%n", scheduled[0], scheduled[1]);
+
+        assertTrue(scheduled[1] < 50, "p99 " + scheduled[1] + " ms");
+    }
+
+    /**
+     * Run the mixed workload and return the interactive p50 and p99 in milliseconds.
+     */
+    private double[] run(DbScheduler scheduler) throws InterruptedException {
+        Semaphore pool = new Semaphore(POOL_SIZE, true);
+        DbScheduler.ConnectionSource source = () -> {
+            pool.acquireUninterruptibly();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("close")) {
+                            pool.release();
+                        }
+                        return null;
+                    });
+        };
+
+        List<Double> latencies = Collections.synchronizedList(new ArrayList<>());
+        long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                threads.submit(() -> work(scheduler, source, Lane.BULK, deadline, 500, 0, null));
+            }
+            for (int i = 0; i < 6; i++) {
+                threads.submit(() -> work(scheduler, source, Lane.BACKGROUND, deadline, 100, 20, null));
+            }
+            Thread.sleep(200);
+            for (int i = 0; i < 8; i++) {
+                threads.submit(() -> work(scheduler, source, Lane.INTERACTIVE, deadline, 2, 10, latencies));
+            }
+        }
+
+        List<Double> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return new double[]{sorted.get(sorted.size() / 2), sorted.get((int) (sorted.size() * 0.99))};
+    }
+
+    private static Void work(DbScheduler scheduler, DbScheduler.ConnectionSource source, Lane lane, long deadline,
+                             long holdMillis, long pauseMillis, List<Double> latencies) throws SQLException, InterruptedException {
+        DbScheduler.setLane(lane);
+        while (System.currentTimeMillis() < deadline) {
+            long start = System.nanoTime();
+            Connection conn = scheduler.acquire(source);
+            try {
+                if (latencies != null) {
+                    latencies.add((System.nanoTime() - start) / 1_000_000.0);
+                }
+                Thread.sleep(holdMillis);
+            } finally {
+                conn.close();
+            }
+            Thread.sleep(pauseMillis);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+package com.adminpanel.zmauto.util;
+
+import com.adminpanel.zmauto.util.DbScheduler.Lane;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DbSchedulerTest {
+
+    private static Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> method.getName().equals("isClosed") ? false : null);
+    }
+
+    @Test
+    public void testBulkLaneIsLimitedAndInteractiveIsNot() throws SQLException {
+        DbScheduler scheduler = new DbScheduler(1, 1, 50);
+
+        Connection bulk = DbScheduler.call(Lane.BULK, () -> scheduler.acquire(DbSchedulerTest::fakeConnection));
+
+        // A second bulk connection from another thread has to wait for the first to be closed
+        Thread other = new Thread(() -> assertThrows(SQLTransientConnectionException.class,
+                () -> DbScheduler.call(Lane.BULK, () -> scheduler.acquire(DbSchedulerTest::fakeConnection))));
+        other.start();
+        assertDoesNotThrow(() -> other.join());
+
+        // Interactive work is not held up by the bulk lane
+        Connection interactive = scheduler.acquire(DbSchedulerTest::fakeConnection);
+        interactive.close();
+
+        bulk.close();
+        Connection next = DbScheduler.call(Lane.BULK, () -> scheduler.acquire(DbSchedulerTest::fakeConnection));
+        next.close();
+        assertEquals(Lane.INTERACTIVE, DbScheduler.getLane());
+    }
+
+    @Test
+    public void testNestedConnectionsDoNotQueueAgain() throws SQLException {
+        DbScheduler scheduler = new DbScheduler(1, 1, 50);
+
+        DbScheduler.call(Lane.BACKGROUND, () -> {
+            try (Connection outer = scheduler.acquire(DbSchedulerTest::fakeConnection);
+                 Connection inner = scheduler.acquire(DbSchedulerTest::fakeConnection)) {
+                assertNotNull(outer);
+                assertNotNull(inner);
+            }
+            return null;
+        });
+
+        // The permit was given back when the outer connection was closed
+        DbScheduler.call(Lane.BACKGROUND, () -> scheduler.acquire(DbSchedulerTest::fakeConnection)).close();
+    }
+}
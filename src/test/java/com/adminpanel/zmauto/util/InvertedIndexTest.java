@@ -0,0 +1,108 @@
+package com.adminpanel.zmauto.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the in-memory inverted index used by the global search.
+ */
+public class InvertedIndexTest {
+
+    private static final byte VEHICLE = 1;
+    private static final byte DRIVER = 2;
+
+    @TempDir
+    Path tempDir;
+
+    private InvertedIndex createIndex() {
+        InvertedIndex index = new InvertedIndex();
+        List<InvertedIndex.Document> documents = new ArrayList<>();
+        documents.add(new InvertedIndex.Document(VEHICLE, 1, 1, "Toyota Camry", "ABC123", "Toyota Camry 2022 ABC123 Black"));
+        documents.add(new InvertedIndex.Document(VEHICLE, 2, 2, "Honda Civic", "DEF456", "Honda Civic 2021 DEF456 White"));
+        documents.add(new InvertedIndex.Document(VEHICLE, 3, 3, "Toyota Corolla", "XYZ999", "Toyota Corolla 2020 XYZ999 White"));
+        documents.add(new InvertedIndex.Document(DRIVER, 1, 1, "John Doe", "555-123", "John Doe john.doe@example.com"));
+        index.putAll(documents);
+        return index;
+    }
+
+    @Test
+    public void testSearchMatchesAllTokensFirst() {
+        InvertedIndex index = createIndex();
+
+        List<InvertedIndex.Hit> hits = index.search("toyota white", 10);
+
+        assertFalse(hits.isEmpty());
+        assertEquals(3, hits.get(0).getId());
+        assertEquals(VEHICLE, hits.get(0).getType());
+    }
+
+    @Test
+    public void testPrefixSearch() {
+        InvertedIndex index = createIndex();
+
+        List<InvertedIndex.Hit> hits = index.search("cam", 10);
+
+        assertEquals(1, hits.size());
+        assertEquals("Toyota Camry", hits.get(0).getTitle());
+    }
+
+    @Test
+    public void testRetainRemovesMissingEntitiesOfOneType() {
+        InvertedIndex index = createIndex();
+
+        assertEquals(2, index.retain(VEHICLE, Set.of(2L)));
+        assertTrue(index.search("toyota", 10).isEmpty());
+        assertEquals(1, index.search("honda", 10).size());
+        assertEquals(1, index.search("john", 10).size());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testReplaceAndRemove() {
+        InvertedIndex index = createIndex();
+
+        index.put(new InvertedIndex.Document(VEHICLE, 1, 1, "Toyota Supra", "ABC123", "Toyota Supra ABC123 Red"));
+        assertTrue(index.search("camry", 10).isEmpty());
+        assertEquals(1, index.search("supra", 10).size());
+        assertEquals(4, index.size());
+
+        index.remove(DRIVER, 1);
+        assertTrue(index.search("john", 10).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        InvertedIndex index = createIndex();
+        index.remove(VEHICLE, 2);
+        index.setWatermark(12345L);
+
+        Path file = tempDir.resolve("index.bin");
+        index.save(file);
+
+        InvertedIndex loaded = new InvertedIndex();
+        assertTrue(loaded.load(file));
+        assertEquals(3, loaded.size());
+        assertEquals(12345L, loaded.getWatermark());
+        assertTrue(loaded.search("civic", 10).isEmpty());
+        assertEquals(2, loaded.search("toyota", 10).size());
+        assertEquals(1, loaded.search("doe example", 10).size());
+
+        // The loaded file is not held open, so it can be replaced
+        loaded.save(file);
+        assertTrue(new InvertedIndex().load(file));
+    }
+
+    @Test
+    public void testTokenize() {
+        assertEquals(List.of("john", "doe", "example", "com"), InvertedIndex.tokenize("John.Doe@Example.com"));
+        assertTrue(InvertedIndex.tokenize("  -- ").isEmpty());
+    }
+}
@@ -0,0 +1,45 @@
+package com.adminpanel.zmauto.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadTrackerTest {
+
+    @Test
+    public void testNewLoadCancelsPreviousAndItsStatements() throws SQLException {
+        LoadTracker loads = new LoadTracker(30);
+        CancellationToken first = loads.begin();
+
+        AtomicBoolean statementCancelled = new AtomicBoolean();
+        Statement statement = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("cancel")) {
+                        statementCancelled.set(true);
+                    }
+                    return method.getName().equals("isClosed") ? false : null;
+                });
+        Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> statement);
+        first.call(() -> first.track(connection).createStatement());
+
+        CancellationToken second = loads.begin();
+
+        assertTrue(statementCancelled.get());
+        assertFalse(loads.isCurrent(first));
+        assertTrue(loads.isCurrent(second));
+
+        SQLException e = assertThrows(SQLException.class, () -> first.call(() -> "stale"));
+        assertTrue(CancellationToken.isCancellation(e));
+        assertEquals("fresh", second.call(() -> "fresh"));
+
+        loads.cancel();
+        assertFalse(loads.isCurrent(second));
+    }
+}
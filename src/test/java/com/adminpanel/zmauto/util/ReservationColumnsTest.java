@@ -0,0 +1,95 @@
+package com.adminpanel.zmauto.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the off-heap reservation columns used by the analytics.
+ */
+public class ReservationColumnsTest {
+
+    private ReservationColumns columns;
+
+    @BeforeEach
+    public void setUp() {
+        columns = new ReservationColumns();
+        columns.upsert(1, 10, 100, 104, "APPROVED", 500);
+        columns.upsert(2, 11, 103, 103, "PENDING", 100);
+        columns.upsert(3, 10, 110, 119, "APPROVED", 1000);
+        columns.upsert(4, 12, 90, 95, "CANCELLED", 300);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        columns.close();
+    }
+
+    @Test
+    public void testFilteredAggregates() {
+        int approved = columns.statusMask("APPROVED");
+
+        assertEquals(1, columns.count(100, 105, approved));
+        assertEquals(1500, columns.sumCost(100, 110, approved), 0.001);
+        assertEquals(1600, columns.sumCost(100, 110, columns.statusMask("APPROVED", "PENDING")), 0.001);
+        assertEquals(0, columns.sumCost(100, 110, columns.statusMask("UNKNOWN")), 0.001);
+    }
+
+    @Test
+    public void testGroupBy() {
+        // Codes are assigned in the order statuses are first seen
+        assertEquals("APPROVED", columns.getStatus(0));
+        assertEquals("PENDING", columns.getStatus(1));
+
+        long[] counts = columns.countByStatus(0, 200);
+        assertArrayEquals(new long[] {2, 1, 1}, counts);
+
+        double[] byDay = columns.sumCostByStartDay(100, 110, columns.statusMask("APPROVED"));
+        assertEquals(11, byDay.length);
+        assertEquals(500, byDay[0], 0.001);
+        assertEquals(1000, byDay[10], 0.001);
+    }
+
+    @Test
+    public void testUpsertAndRemoveKeepIdOrder() {
+        columns.upsert(2, 11, 103, 103, "APPROVED", 150);
+        columns.upsert(0, 13, 100, 100, "APPROVED", 50);
+        assertTrue(columns.remove(3));
+        assertFalse(columns.remove(3));
+
+        List<Long> ids = new ArrayList<>();
+        columns.scan(0, 200, columns.statusMask("APPROVED", "PENDING", "CANCELLED"),
+                (id, vehicleId, startDay, endDay, cost) -> ids.add(id));
+
+        assertEquals(List.of(0L, 1L, 2L, 4L), ids);
+        assertEquals(4, columns.getMaxId());
+        assertEquals(700, columns.sumCost(0, 200, columns.statusMask("APPROVED")), 0.001);
+    }
+
+    @Test
+    public void testRetainAll() {
+        assertEquals(2, columns.retainAll(new long[] {2, 4, 9}, 3));
+
+        List<Long> ids = new ArrayList<>();
+        columns.scan(0, 200, columns.statusMask("APPROVED", "PENDING", "CANCELLED"),
+                (id, vehicleId, startDay, endDay, cost) -> ids.add(id));
+
+        assertEquals(List.of(2L, 4L), ids);
+        assertEquals(400, columns.sumCost(0, 200, columns.statusMask("PENDING", "CANCELLED")), 0.001);
+    }
+
+    @Test
+    public void testGrowsBeyondInitialCapacity() {
+        for (int id = 5; id < 5000; id++) {
+            columns.upsert(id, id % 50, 200 + id % 30, 202 + id % 30, "APPROVED", 1);
+        }
+
+        assertEquals(4999, columns.size());
+        assertEquals(4995, columns.count(200, 300, columns.statusMask("APPROVED")));
+    }
+}